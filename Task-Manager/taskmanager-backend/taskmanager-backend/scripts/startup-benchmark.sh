@@ -0,0 +1,88 @@
+#!/usr/bin/env bash
+# Compares time-to-ready of the startup variants, per Spring profile.
+#
+# AOT processing decides @Profile and @ConditionalOn... beans at build time, so an AOT jar only
+# runs on the profile it was built for. Each profile compared therefore gets its own build: its
+# jar, AOT classes and CDS archive (mvn -Paot,cds -Dstartup.profile=<profile>). A native image
+# is likewise built for one profile (mvn -Pnative -Dstartup.profile=<profile> -DskipTests
+# native:compile, needs GraalVM); set NATIVE_PROFILE to it to measure target/taskmanager-backend.
+#
+# Usage: scripts/startup-benchmark.sh [runs]
+# PROFILES lists the profiles to compare (default: memory, which needs no database).
+# EXTRA_ARGS are added to every measured run, e.g. for the fast-start
+# profile: PROFILES="memory fast-start" EXTRA_ARGS="--spring.datasource.url=jdbc:mysql://..."
+# A run counts as ready once the readiness probe (/api/health/ready) answers 200, which is
+# after warmup rather than at the "Started" log line.
+
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+
+RUNS="${1:-5}"
+PROFILES="${PROFILES:-memory}"
+EXTRA_ARGS="${EXTRA_ARGS:-}"
+NATIVE_PROFILE="${NATIVE_PROFILE:-}"
+PORT="${PORT:-18080}"
+WORK=$(mktemp -d)
+trap 'rm -rf "$WORK"' EXIT
+
+# Starts a command, polls the readiness probe and prints milliseconds from launch to ready
+measure() {
+    local log="$WORK/run.log"
+    local start end pid
+    start=$(date +%s%N)
+    "$@" $APP_ARGS > "$log" 2>&1 &
+    pid=$!
+    until curl -fs -o /dev/null "http://localhost:$PORT/api/health/ready"; do
+        if ! kill -0 "$pid" 2>/dev/null; then
+            echo "startup failed, see output below" >&2
+            cat "$log" >&2
+            exit 1
+        fi
+        sleep 0.05
+    done
+    end=$(date +%s%N)
+    kill "$pid"
+    wait "$pid" 2>/dev/null || true
+    rm -rf "$WORK/store" "$WORK/history"
+    echo $(( (end - start) / 1000000 ))
+}
+
+run_variant() {
+    local name="$1"
+    shift
+    local total=0 ms
+    for _ in $(seq 1 "$RUNS"); do
+        ms=$(measure "$@")
+        total=$(( total + ms ))
+    done
+    printf "%-24s %6d ms (mean of %d)\n" "$name" $(( total / RUNS )) "$RUNS"
+}
+
+for PROFILE in $PROFILES; do
+    # The memory profile trains on its own embedded database, the others on the pom's throwaway one
+    TRAINING_DATASOURCE=()
+    if [ "$PROFILE" = "memory" ]; then
+        TRAINING_DATASOURCE=("-Dcds.training-datasource-args=")
+    fi
+    mvn -q -B -Paot,cds -DskipTests -Dstartup.profile="$PROFILE" "${TRAINING_DATASOURCE[@]}" package
+    BUILD="$WORK/build-$PROFILE"
+    mkdir -p "$BUILD"
+    JAR=$(ls target/taskmanager-backend-*.jar | grep -v plain | head -n 1)
+    cp "$JAR" "$BUILD/"
+    cp -r target/cds "$BUILD/cds"
+    JAR="$BUILD/$(basename "$JAR")"
+    CDS_JAR="$BUILD/cds/$(basename "$JAR")"
+
+    APP_ARGS="--spring.profiles.active=$PROFILE --app.memory-store.dir=$WORK/store --app.history.dir=$WORK/history"
+    APP_ARGS="$APP_ARGS --server.port=$PORT $EXTRA_ARGS"
+
+    run_variant "$PROFILE jar" java -jar "$JAR"
+    run_variant "$PROFILE jar+aot" java -Dspring.aot.enabled=true -jar "$JAR"
+    run_variant "$PROFILE cds+aot" java -XX:SharedArchiveFile="$BUILD/cds/application.jsa" -Xlog:cds=off \
+        -Dspring.aot.enabled=true -jar "$CDS_JAR"
+
+    if [ "$PROFILE" = "$NATIVE_PROFILE" ] && [ -x target/taskmanager-backend ]; then
+        run_variant "$PROFILE native" target/taskmanager-backend
+    fi
+done
@@ -0,0 +1,25 @@
+package com.taskmanager.config;
+
+/**
+ * Thread-bound flag that forces read-only transactions onto the primary,
+ * used to give a user read-your-writes right after they changed something.
+ */
+public final class DataSourceRoutingContext {
+    
+    private static final ThreadLocal<Boolean> PRIMARY_PINNED = new ThreadLocal<>();
+    
+    private DataSourceRoutingContext() {
+    }
+    
+    public static void pinToPrimary() {
+        PRIMARY_PINNED.set(Boolean.TRUE);
+    }
+    
+    public static boolean isPrimaryPinned() {
+        return Boolean.TRUE.equals(PRIMARY_PINNED.get());
+    }
+    
+    public static void clear() {
+        PRIMARY_PINNED.remove();
+    }
+}
@@ -0,0 +1,189 @@
+package com.taskmanager.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.taskmanager.dto.MessageResponse;
+import com.taskmanager.model.IdempotencyRecord;
+import com.taskmanager.service.IdempotencyStore;
+import com.taskmanager.service.IdempotencyStore.Claim;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Objects;
+
+/**
+ * Makes task mutations safe to retry. A POST, PUT, PATCH or DELETE under /api/tasks that
+ * carries an Idempotency-Key runs once per user and key; a retry with the same key and the
+ * same request gets the stored response back without reaching the controller.
+ */
+@Component
+public class IdempotencyFilter extends OncePerRequestFilter {
+    
+    public static final String HEADER = "Idempotency-Key";
+    
+    private static final int MAX_KEY_LENGTH = 255;
+    
+    @Autowired
+    private IdempotencyStore idempotencyStore;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String method = request.getMethod();
+        return request.getHeader(HEADER) == null
+            || !request.getRequestURI().startsWith("/api/tasks")
+            || !(method.equals("POST") || method.equals("PUT") || method.equals("PATCH") || method.equals("DELETE"));
+    }
+    
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || authentication instanceof AnonymousAuthenticationToken) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        String key = request.getHeader(HEADER).trim();
+        if (key.isEmpty() || key.length() > MAX_KEY_LENGTH) {
+            writeMessage(response, HttpServletResponse.SC_BAD_REQUEST,
+                         HEADER + " must be 1 to " + MAX_KEY_LENGTH + " characters");
+            return;
+        }
+        
+        byte[] body = request.getInputStream().readAllBytes();
+        String scopeKey = authentication.getName() + ":" + key;
+        Claim claim = idempotencyStore.claim(scopeKey, fingerprint(request, body));
+        switch (claim.outcome()) {
+            case MISMATCH -> writeMessage(response, 422, HEADER + " was already used for a different request");
+            case IN_PROGRESS -> writeMessage(response, HttpServletResponse.SC_CONFLICT,
+                                             "A request with this " + HEADER + " is still in progress");
+            case REPLAY -> replay(claim.record(), response);
+            case ACQUIRED -> execute(claim.record(), new CachedBodyRequest(request, body), response, filterChain);
+        }
+    }
+    
+    // Runs the request and stores its response; server errors are not stored, so they can be retried
+    private void execute(IdempotencyRecord record, HttpServletRequest request, HttpServletResponse response,
+                         FilterChain filterChain) throws ServletException, IOException {
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        boolean completed = false;
+        try {
+            filterChain.doFilter(request, wrapper);
+            if (wrapper.getStatus() < 500) {
+                idempotencyStore.complete(record, wrapper.getStatus(), wrapper.getContentType(),
+                                          wrapper.getHeader("ETag"), wrapper.getHeader("Location"),
+                                          new String(wrapper.getContentAsByteArray(), StandardCharsets.UTF_8));
+                completed = true;
+            }
+        } finally {
+            if (!completed) {
+                idempotencyStore.release(record.getScopeKey());
+            }
+            wrapper.copyBodyToResponse();
+        }
+    }
+    
+    private void replay(IdempotencyRecord record, HttpServletResponse response) throws IOException {
+        response.setStatus(record.getStatus());
+        response.setHeader("Idempotent-Replayed", "true");
+        if (record.getETag() != null) {
+            response.setHeader("ETag", record.getETag());
+        }
+        if (record.getLocation() != null) {
+            response.setHeader("Location", record.getLocation());
+        }
+        if (record.getContentType() != null) {
+            response.setContentType(record.getContentType());
+        }
+        if (record.getResponseBody() != null && !record.getResponseBody().isEmpty()) {
+            response.getOutputStream().write(record.getResponseBody().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+    
+    private void writeMessage(HttpServletResponse response, int status, String message) throws IOException {
+        response.setContentType("application/json");
+        response.setStatus(status);
+        objectMapper.writeValue(response.getOutputStream(), new MessageResponse(message));
+    }
+    
+    // Method, target, precondition and body: what decides the outcome of a retried request
+    private static String fingerprint(HttpServletRequest request, byte[] body) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update((request.getMethod() + "\n" + request.getRequestURI() + "\n"
+                + Objects.toString(request.getQueryString(), "") + "\n"
+                + Objects.toString(request.getHeader("If-Match"), "") + "\n").getBytes(StandardCharsets.UTF_8));
+            digest.update(body);
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+    
+    // Lets the body be read again downstream after it was fingerprinted
+    private static class CachedBodyRequest extends HttpServletRequestWrapper {
+        private final byte[] body;
+        
+        CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+        
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream input = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    return input.available() == 0;
+                }
+                
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+                
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    throw new UnsupportedOperationException();
+                }
+                
+                @Override
+                public int read() {
+                    return input.read();
+                }
+                
+                @Override
+                public int read(byte[] buffer, int offset, int length) {
+                    return input.read(buffer, offset, length);
+                }
+            };
+        }
+        
+        @Override
+        public BufferedReader getReader() {
+            return new BufferedReader(new InputStreamReader(getInputStream(), StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.taskmanager.config;
+
+import com.taskmanager.dto.AvailabilityResponse;
+import com.taskmanager.dto.BoardColumn;
+import com.taskmanager.dto.CalendarBucket;
+import com.taskmanager.dto.CompositeQuery;
+import com.taskmanager.dto.CompositeResult;
+import com.taskmanager.dto.FleetAnalytics;
+import com.taskmanager.dto.JwtResponse;
+import com.taskmanager.dto.LoginRequest;
+import com.taskmanager.dto.MessageResponse;
+import com.taskmanager.dto.SignupRequest;
+import com.taskmanager.dto.TaskHistoryEntry;
+import com.taskmanager.dto.TaskNode;
+import com.taskmanager.dto.TaskStats;
+import com.taskmanager.dto.TrendBucket;
+import com.taskmanager.dto.WorkspaceMemberInfo;
+import com.taskmanager.model.BulkJob;
+import com.taskmanager.model.ColdTask;
+import com.taskmanager.model.IdempotencyRecord;
+import com.taskmanager.model.Task;
+import com.taskmanager.model.TaskClosure;
+import com.taskmanager.model.TaskDependency;
+import com.taskmanager.model.TaskOverdueSnapshot;
+import com.taskmanager.model.TaskRollup;
+import com.taskmanager.model.TaskRollupBackfill;
+import com.taskmanager.model.User;
+import com.taskmanager.model.Workspace;
+import com.taskmanager.model.WorkspaceMember;
+import com.taskmanager.repository.TaskRepository;
+import org.springframework.aop.SpringProxy;
+import org.springframework.aop.framework.Advised;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+import org.springframework.core.DecoratingProxy;
+import org.springframework.data.projection.TargetAware;
+
+import java.util.List;
+
+/**
+ * Reflection, proxy and resource hints for the AOT and native builds, covering what
+ * Spring's own AOT processing cannot see: types that Jackson binds outside of
+ * controllers, the Lombok accessors it binds through, native-query projections and
+ * JJWT's reflective service loading.
+ */
+@Configuration
+@ImportRuntimeHints(NativeRuntimeHints.class)
+public class NativeRuntimeHints implements RuntimeHintsRegistrar {
+    
+    private static final MemberCategory[] BINDING = {
+        MemberCategory.INVOKE_DECLARED_CONSTRUCTORS,
+        MemberCategory.INVOKE_PUBLIC_METHODS,
+        MemberCategory.DECLARED_FIELDS
+    };
+    
+    // Entities and DTOs, whose getters and setters Lombok generates
+    private static final List<Class<?>> BOUND_TYPES = List.of(
+        Task.class, User.class, ColdTask.class,
+        TaskClosure.class, TaskClosure.Key.class, TaskDependency.class, TaskDependency.Key.class,
+        TaskRollup.class, TaskRollup.Key.class, TaskRollupBackfill.class, TaskOverdueSnapshot.class,
+        Workspace.class, WorkspaceMember.class, WorkspaceMember.Key.class, IdempotencyRecord.class, BulkJob.class,
+        AvailabilityResponse.class, BoardColumn.class, CalendarBucket.class, CompositeQuery.class, CompositeResult.class,
+        FleetAnalytics.class, FleetAnalytics.UserLoad.class, JwtResponse.class, LoginRequest.class, MessageResponse.class,
+        SignupRequest.class, TaskHistoryEntry.class, TaskHistoryEntry.FieldChange.class, TaskNode.class, TaskStats.class,
+        TrendBucket.class, WorkspaceMemberInfo.class
+    );
+    
+    // Records written to local logs and snapshots with the ObjectMapper
+    private static final List<String> LOGGED_RECORDS = List.of(
+        "com.taskmanager.service.WriteBehindBuffer$PendingEdit",
+        "com.taskmanager.repository.memory.MemoryStorageEngine$TaskRecord",
+        "com.taskmanager.repository.memory.MemoryStorageEngine$UserRecord",
+        "com.taskmanager.repository.memory.MemoryStorageEngine$WalRecord",
+        "com.taskmanager.repository.memory.MemoryStorageEngine$Snapshot"
+    );
+    
+    // jjwt-api instantiates its implementation by class name; the codecs come from ServiceLoader
+    private static final List<String> JJWT_TYPES = List.of(
+        "io.jsonwebtoken.impl.DefaultJwtBuilder",
+        "io.jsonwebtoken.impl.DefaultJwtParser",
+        "io.jsonwebtoken.impl.DefaultJwtParserBuilder",
+        "io.jsonwebtoken.impl.DefaultClaims",
+        "io.jsonwebtoken.impl.DefaultHeader",
+        "io.jsonwebtoken.impl.DefaultJwsHeader",
+        "io.jsonwebtoken.impl.compression.DeflateCompressionCodec",
+        "io.jsonwebtoken.impl.compression.GzipCompressionCodec",
+        "io.jsonwebtoken.jackson.io.JacksonSerializer",
+        "io.jsonwebtoken.jackson.io.JacksonDeserializer"
+    );
+    
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        BOUND_TYPES.forEach(type -> hints.reflection().registerType(type, BINDING));
+        LOGGED_RECORDS.forEach(type -> hints.reflection().registerType(TypeReference.of(type), BINDING));
+        JJWT_TYPES.forEach(type -> hints.reflection().registerType(TypeReference.of(type),
+            MemberCategory.INVOKE_DECLARED_CONSTRUCTORS, MemberCategory.INVOKE_PUBLIC_METHODS));
+        
+        hints.resources().registerPattern("META-INF/services/io.jsonwebtoken.*");
+        
+        // Interface projections of native queries are JDK proxies created at runtime
+        hints.proxies().registerJdkProxy(TaskRepository.CalendarCount.class, TargetAware.class,
+            SpringProxy.class, Advised.class, DecoratingProxy.class);
+    }
+}
@@ -0,0 +1,52 @@
+package com.taskmanager.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+@Component
+public class ReadYourWritesInterceptor implements HandlerInterceptor {
+    
+    private static final String COMPOSITE_READ_PATH = "/api/tasks/composite";
+    
+    @Autowired
+    private ReadYourWritesTracker tracker;
+    
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        String username = currentUsername();
+        if (username != null && isRead(request) && tracker.wroteRecently(username)) {
+            DataSourceRoutingContext.pinToPrimary();
+        }
+        return true;
+    }
+    
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response,
+                                Object handler, Exception ex) {
+        DataSourceRoutingContext.clear();
+        String username = currentUsername();
+        if (username != null && !isRead(request) && ex == null && response.getStatus() < 400) {
+            tracker.recordWrite(username);
+        }
+    }
+    
+    // Composite reads are POSTed only because they carry a body
+    private boolean isRead(HttpServletRequest request) {
+        return "GET".equals(request.getMethod()) || "HEAD".equals(request.getMethod())
+            || ("POST".equals(request.getMethod()) && COMPOSITE_READ_PATH.equals(request.getRequestURI()));
+    }
+    
+    private String currentUsername() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || authentication instanceof AnonymousAuthenticationToken) {
+            return null;
+        }
+        return authentication.getName();
+    }
+}
@@ -0,0 +1,44 @@
+package com.taskmanager.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers when each user last wrote so their reads can be pinned to the
+ * primary until the replicas have had time to catch up. Entries are dropped once their
+ * window has passed, so the map holds only the users who wrote within the last window.
+ */
+@Component
+public class ReadYourWritesTracker {
+    
+    @Value("${app.datasource.read-your-writes-ms:5000}")
+    private long windowMs;
+    
+    private final Map<String, Long> lastWrites = new ConcurrentHashMap<>();
+    
+    public void recordWrite(String username) {
+        lastWrites.put(username, System.currentTimeMillis());
+    }
+    
+    public boolean wroteRecently(String username) {
+        Long lastWrite = lastWrites.get(username);
+        if (lastWrite == null) {
+            return false;
+        }
+        if (System.currentTimeMillis() - lastWrite > windowMs) {
+            lastWrites.remove(username, lastWrite);
+            return false;
+        }
+        return true;
+    }
+    
+    @Scheduled(fixedDelayString = "${app.datasource.read-your-writes-ms:5000}")
+    void expire() {
+        long cutoff = System.currentTimeMillis() - windowMs;
+        lastWrites.values().removeIf(lastWrite -> lastWrite < cutoff);
+    }
+}
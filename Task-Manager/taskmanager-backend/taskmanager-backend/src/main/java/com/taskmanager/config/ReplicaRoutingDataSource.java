@@ -0,0 +1,48 @@
+package com.taskmanager.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Routes read-only transactions round-robin across the replica pools and
+ * everything else (writes, non-transactional access, pinned reads) to the primary.
+ * Must sit behind a LazyConnectionDataSourceProxy so the lookup happens after the
+ * transaction's read-only flag has been bound.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+    
+    private static final String PRIMARY = "primary";
+    
+    private final List<String> replicaKeys = new ArrayList<>();
+    
+    private final AtomicInteger counter = new AtomicInteger();
+    
+    public ReplicaRoutingDataSource(DataSource primary, List<DataSource> replicas) {
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        for (int i = 0; i < replicas.size(); i++) {
+            String key = "replica-" + i;
+            targets.put(key, replicas.get(i));
+            replicaKeys.add(key);
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+    }
+    
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (replicaKeys.isEmpty()
+                || !TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                || DataSourceRoutingContext.isPrimaryPinned()) {
+            return PRIMARY;
+        }
+        return replicaKeys.get(Math.floorMod(counter.getAndIncrement(), replicaKeys.size()));
+    }
+}
@@ -0,0 +1,263 @@
+package com.taskmanager.config;
+
+import com.taskmanager.model.Task;
+import com.taskmanager.model.Task.TaskPriority;
+import com.taskmanager.model.Task.TaskStatus;
+import com.taskmanager.model.User;
+import com.taskmanager.security.JwtUtils;
+import com.taskmanager.security.UserDetailsImpl;
+import com.taskmanager.service.PrimaryReader;
+import com.taskmanager.service.TaskService;
+import com.taskmanager.service.UserService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.Profiles;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+/**
+ * Warms a fresh instance before it reports ready. Spring Boot only switches readiness to
+ * ACCEPTING_TRAFFIC once every ApplicationRunner has returned, so while this runs the
+ * readiness probe keeps the instance out of rotation. Meanwhile it replays the common read
+ * endpoints over HTTP as a dedicated warmup user, with a freshly signed token per round,
+ * which takes the JIT, Hibernate's query plans, the connection pool, the JWT filter and
+ * Jackson through their cold start. It stops once a round is no faster than the ones before
+ * it, or when the time budget runs out.
+ *
+ * The warmup user owns no tasks, so it never shows up in analytics, rollups or history. Its
+ * name is reserved at signup, and an existing account is only used once its email shows
+ * this class created it, so the warmup never touches anybody else's tasks.
+ * The task write path is run once in a transaction that is always rolled back (not in the
+ * memory profile, whose engine cannot roll back). Instances booting together may race to
+ * create the user; the loser uses the winner's row.
+ */
+@Component
+public class StartupWarmup implements ApplicationRunner {
+    
+    private static final Logger logger = LoggerFactory.getLogger(StartupWarmup.class);
+    
+    public static final String WARMUP_USERNAME = "__warmup__";
+    
+    private static final String WARMUP_EMAIL = "warmup@taskmanager.invalid";
+    
+    // Rounds compared when deciding whether latency has settled
+    private static final int WINDOW = 3;
+    
+    @Autowired
+    private UserService userService;
+    
+    @Autowired
+    private TaskService taskService;
+    
+    @Autowired
+    private PrimaryReader primaryReader;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Autowired
+    private JwtUtils jwtUtils;
+    
+    @Autowired
+    private Environment environment;
+    
+    @Value("${app.warmup.enabled:true}")
+    private boolean enabled;
+    
+    @Value("${app.warmup.max-seconds:60}")
+    private long maxSeconds;
+    
+    @Value("${app.warmup.min-rounds:5}")
+    private int minRounds;
+    
+    @Value("${app.warmup.concurrency:4}")
+    private int concurrency;
+    
+    // Settled once a window of rounds is no more than this fraction faster than the one before
+    @Value("${app.warmup.settle-tolerance:0.1}")
+    private double settleTolerance;
+    
+    @Value("${app.warmup.seed-tasks:50}")
+    private int seedTasks;
+    
+    @Override
+    public void run(ApplicationArguments args) {
+        Integer port = environment.getProperty("local.server.port", Integer.class);
+        if (!enabled || port == null) {
+            return;
+        }
+        long start = System.nanoTime();
+        long deadline = start + Duration.ofSeconds(maxSeconds).toNanos();
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+        try {
+            User user = warmupUser();
+            removeStoredTasks(user);
+            exerciseWrites(user);
+            HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+            List<HttpRequest.Builder> requests = requests("http://localhost:" + port);
+            
+            List<Long> roundNanos = new ArrayList<>();
+            while (System.nanoTime() < deadline && !settled(roundNanos)) {
+                // Signing per round keeps the token path warm along with its verification
+                String token = jwtUtils.generateJwtToken(new UsernamePasswordAuthenticationToken(
+                    UserDetailsImpl.build(user), null, List.of()));
+                long roundStart = System.nanoTime();
+                List<Future<Integer>> responses = new ArrayList<>();
+                for (HttpRequest.Builder request : requests) {
+                    HttpRequest signed = request.copy().header("Authorization", "Bearer " + token).build();
+                    responses.add(executor.submit(() -> client.send(signed, HttpResponse.BodyHandlers.discarding()).statusCode()));
+                }
+                for (Future<Integer> response : responses) {
+                    int status = response.get();
+                    if (status >= 400) {
+                        throw new IllegalStateException("warmup request answered " + status);
+                    }
+                }
+                roundNanos.add(System.nanoTime() - roundStart);
+            }
+            logger.info("Warmup ran {} rounds in {} ms; last round took {} ms", roundNanos.size(),
+                        Duration.ofNanos(System.nanoTime() - start).toMillis(),
+                        roundNanos.isEmpty() ? 0 : Duration.ofNanos(roundNanos.get(roundNanos.size() - 1)).toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            // A failed warmup only costs latency, so the instance still starts
+            logger.warn("Warmup stopped early: {}", e.getMessage());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+    
+    // Past the minimum rounds, settled when the last window is barely faster than the one before it
+    private boolean settled(List<Long> roundNanos) {
+        int rounds = roundNanos.size();
+        if (rounds < Math.max(minRounds, 2 * WINDOW)) {
+            return false;
+        }
+        long recent = median(roundNanos.subList(rounds - WINDOW, rounds));
+        long previous = median(roundNanos.subList(rounds - 2 * WINDOW, rounds - WINDOW));
+        return recent >= previous * (1 - settleTolerance);
+    }
+    
+    private static long median(List<Long> values) {
+        List<Long> sorted = values.stream().sorted().collect(Collectors.toList());
+        return sorted.get(sorted.size() / 2);
+    }
+    
+    // Nobody knows the password, so the account can only be used through tokens issued here
+    private User warmupUser() {
+        Optional<User> existing = primaryReader.read(() -> userService.findByUsername(WARMUP_USERNAME));
+        if (existing.isPresent()) {
+            return ownAccount(existing.get());
+        }
+        User user = new User();
+        user.setUsername(WARMUP_USERNAME);
+        user.setEmail(WARMUP_EMAIL);
+        user.setPassword(UUID.randomUUID().toString());
+        user.setFullName("Startup warmup");
+        try {
+            return userService.createUser(user);
+        } catch (DataIntegrityViolationException e) {
+            // Another instance booting at the same time created it first
+            return ownAccount(primaryReader.read(() -> userService.findByUsername(WARMUP_USERNAME)).orElseThrow(() -> e));
+        }
+    }
+    
+    // An account under the name from before it was reserved is somebody's, so warming up stops rather than use it
+    private static User ownAccount(User user) {
+        if (!WARMUP_EMAIL.equals(user.getEmail())) {
+            throw new IllegalStateException(WARMUP_USERNAME + " is a user account, not the warmup's own");
+        }
+        return user;
+    }
+    
+    // Earlier warmups stored their seed tasks; they would otherwise keep counting in analytics and trends
+    private void removeStoredTasks(User user) {
+        for (Task task : taskService.getAllTasks(user)) {
+            taskService.permanentlyDeleteTask(task.getId(), user, null);
+        }
+    }
+    
+    // Creates the seed tasks in a transaction that is always rolled back, so only the code paths stay warm
+    private void exerciseWrites(User user) {
+        if (environment.acceptsProfiles(Profiles.of("memory"))) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now().withNano(0);
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            for (int i = 0; i < seedTasks; i++) {
+                Task task = new Task();
+                task.setTitle("Warmup task " + i);
+                task.setDescription("Created to warm up new instances");
+                task.setStatus(TaskStatus.values()[i % TaskStatus.values().length]);
+                task.setPriority(TaskPriority.values()[i % TaskPriority.values().length]);
+                task.setDueDate(now.plusDays(i % 30 - 10));
+                task.setTags(new HashSet<>(Set.of("warmup", "batch-" + i % 5)));
+                if (i == 0) {
+                    task.setRecurrence("FREQ=WEEKLY");
+                }
+                taskService.createTask(task, user);
+            }
+            status.setRollbackOnly();
+        });
+    }
+    
+    // The read endpoints clients hit most, with parameters that reach their database queries
+    private static List<HttpRequest.Builder> requests(String base) {
+        LocalDate today = LocalDate.now();
+        List<String> paths = List.of(
+            "/api/tasks",
+            "/api/tasks?paginate=true&size=20",
+            "/api/tasks?from=" + today.minusDays(7) + "&to=" + today.plusDays(30),
+            "/api/tasks/filter?status=TODO&priority=HIGH&size=20",
+            "/api/tasks/filter?tags=warmup&excludeTags=batch-1&size=20",
+            "/api/tasks/search?keyword=warmup",
+            "/api/tasks/suggest?prefix=wa",
+            "/api/tasks/board",
+            "/api/tasks/next",
+            "/api/tasks/tags",
+            "/api/tasks/stats",
+            "/api/tasks/overdue",
+            "/api/tasks/status/IN_PROGRESS",
+            "/api/tasks/calendar?from=" + today + "&to=" + today.plusDays(30),
+            "/api/tasks/calendar?from=" + today + "&to=" + today.plusDays(30) + "&granularity=day",
+            "/api/tasks/shared");
+        
+        List<HttpRequest.Builder> requests = new ArrayList<>();
+        for (String path : paths) {
+            requests.add(HttpRequest.newBuilder(URI.create(base + path)).timeout(Duration.ofSeconds(10)).GET());
+        }
+        requests.add(HttpRequest.newBuilder(URI.create(base + "/api/tasks/composite")).timeout(Duration.ofSeconds(10))
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(
+                "{\"stats\":{\"type\":\"STATS\"},\"todo\":{\"type\":\"FILTER\",\"status\":\"TODO\"},"
+                    + "\"next\":{\"type\":\"SEARCH\",\"keyword\":\"task\"}}")));
+        return requests;
+    }
+}
@@ -1,8 +1,10 @@
 package com.taskmanager.config;
 
+import com.taskmanager.exception.ErrorBodies;
 import com.taskmanager.security.AuthEntryPointJwt;
 import com.taskmanager.security.AuthTokenFilter;
 import com.taskmanager.security.UserDetailsServiceImpl;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -74,10 +76,20 @@ public class WebSecurityConfig {
         http
             .csrf(csrf -> csrf.disable())
             .cors(cors -> {})  // enable CORS with default settings
-            .exceptionHandling(exception -> exception.authenticationEntryPoint(unauthorizedHandler))
+            .exceptionHandling(exception -> exception
+                .authenticationEntryPoint(unauthorizedHandler)
+                // Written directly, as an error dispatch would be rejected as unauthenticated
+                .accessDeniedHandler((request, response, denied) -> {
+                    response.setContentType("application/json");
+                    response.setStatus(HttpServletResponse.SC_FORBIDDEN);
+                    response.setContentLength(ErrorBodies.FORBIDDEN.length);
+                    response.getOutputStream().write(ErrorBodies.FORBIDDEN);
+                }))
             .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
             .authorizeHttpRequests(auth -> auth
                 .requestMatchers("/api/auth/**").permitAll()
+                .requestMatchers("/api/health/**").permitAll()
+                .requestMatchers("/api/admin/**").hasRole("ADMIN")
                 .anyRequest().authenticated()
             );
 
@@ -0,0 +1,25 @@
+package com.taskmanager.controller;
+
+import com.taskmanager.dto.FleetAnalytics;
+import com.taskmanager.service.FleetAnalyticsService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+// Admin-only; the role is enforced for all of /api/admin in WebSecurityConfig
+@RestController
+@RequestMapping("/api/admin")
+@CrossOrigin(origins = "http://localhost:4200")
+public class AdminController {
+    
+    private static final int MAX_TOP_USERS = 100;
+    
+    @Autowired
+    private FleetAnalyticsService fleetAnalyticsService;
+    
+    // GET: Task totals by status, overdue volume and the heaviest users across all accounts
+    @GetMapping("/analytics")
+    public ResponseEntity<FleetAnalytics> getAnalytics(@RequestParam(defaultValue = "10") int top) {
+        return ResponseEntity.ok(fleetAnalyticsService.analyze(Math.max(1, Math.min(top, MAX_TOP_USERS))));
+    }
+}
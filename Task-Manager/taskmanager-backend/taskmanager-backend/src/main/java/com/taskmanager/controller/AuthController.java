@@ -1,6 +1,7 @@
 package com.taskmanager.controller;
 
 import com.taskmanager.dto.*;
+import com.taskmanager.exception.InvalidRequestException;
 import com.taskmanager.model.User;
 import com.taskmanager.security.JwtUtils;
 import com.taskmanager.security.UserDetailsImpl;
@@ -67,16 +68,6 @@ public class AuthController {
     
     @PostMapping("/signup")
     public ResponseEntity<?> signup(@Valid @RequestBody SignupRequest signupRequest) {
-        if (userService.existsByUsername(signupRequest.getUsername())) {
-            return ResponseEntity.badRequest()
-                .body(new MessageResponse("Username is already taken"));
-        }
-        
-        if (userService.existsByEmail(signupRequest.getEmail())) {
-            return ResponseEntity.badRequest()
-                .body(new MessageResponse("Email is already in use"));
-        }
-        
         User user = new User();
         user.setUsername(signupRequest.getUsername());
         user.setEmail(signupRequest.getEmail());
@@ -84,9 +75,22 @@ public class AuthController {
         user.setFullName(signupRequest.getFullName());
         user.setRole(User.Role.USER);
         
-        userService.createUser(user);
+        userService.register(user);
         
         return ResponseEntity.status(HttpStatus.CREATED)
             .body(new MessageResponse("User registered successfully"));
     }
+    
+    // Check: whether a username and/or email is still free, for live signup form feedback
+    @GetMapping("/available")
+    public ResponseEntity<AvailabilityResponse> available(
+            @RequestParam(required = false) String username,
+            @RequestParam(required = false) String email) {
+        if ((username == null || username.isBlank()) && (email == null || email.isBlank())) {
+            throw new InvalidRequestException("Give a username or an email to check");
+        }
+        return ResponseEntity.ok(new AvailabilityResponse(
+            username == null || username.isBlank() ? null : userService.isUsernameAvailable(username),
+            email == null || email.isBlank() ? null : userService.isEmailAvailable(email)));
+    }
 }
\ No newline at end of file
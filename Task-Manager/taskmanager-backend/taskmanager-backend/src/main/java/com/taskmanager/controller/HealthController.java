@@ -0,0 +1,38 @@
+package com.taskmanager.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.availability.ApplicationAvailability;
+import org.springframework.boot.availability.LivenessState;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+// Probes for the orchestrator; readiness stays refused until startup, warmup included, is done
+@RestController
+@RequestMapping("/api/health")
+public class HealthController {
+    
+    @Autowired
+    private ApplicationAvailability applicationAvailability;
+    
+    // GET: Liveness probe
+    @GetMapping("/live")
+    public ResponseEntity<Map<String, LivenessState>> live() {
+        LivenessState state = applicationAvailability.getLivenessState();
+        return ResponseEntity.status(state == LivenessState.CORRECT ? HttpStatus.OK : HttpStatus.SERVICE_UNAVAILABLE)
+            .body(Map.of("state", state));
+    }
+    
+    // GET: Readiness probe
+    @GetMapping("/ready")
+    public ResponseEntity<Map<String, ReadinessState>> ready() {
+        ReadinessState state = applicationAvailability.getReadinessState();
+        return ResponseEntity.status(state == ReadinessState.ACCEPTING_TRAFFIC ? HttpStatus.OK : HttpStatus.SERVICE_UNAVAILABLE)
+            .body(Map.of("state", state));
+    }
+}
@@ -1,11 +1,28 @@
 package com.taskmanager.controller;
 
+import com.taskmanager.dto.BoardColumn;
+import com.taskmanager.dto.CalendarBucket;
+import com.taskmanager.dto.CompositeQuery;
+import com.taskmanager.dto.CompositeResult;
+import com.taskmanager.dto.MessageResponse;
+import com.taskmanager.dto.TaskHistoryEntry;
+import com.taskmanager.dto.TaskNode;
+import com.taskmanager.dto.TaskStats;
+import com.taskmanager.dto.TrendBucket;
+import com.taskmanager.exception.NotFoundException;
+import com.taskmanager.exception.InvalidRequestException;
+import com.taskmanager.model.BulkJob;
 import com.taskmanager.model.Task;
 import com.taskmanager.model.Task.TaskStatus;
 import com.taskmanager.model.Task.TaskPriority;
 import com.taskmanager.model.User;
 import com.taskmanager.security.UserDetailsImpl;
+import com.taskmanager.service.BulkJobService;
+import com.taskmanager.service.CompositeReadService;
+import com.taskmanager.service.TaskHierarchyService;
 import com.taskmanager.service.TaskService;
+import com.taskmanager.service.TaskTrendService;
+import com.taskmanager.service.TitleSuggestIndex;
 import com.taskmanager.service.UserService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -13,12 +30,17 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
+import java.net.URI;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 
 @RestController
@@ -26,30 +48,109 @@ import java.util.Map;
 @CrossOrigin(origins = "http://localhost:4200")
 public class TaskController {
     
+    private static final int MAX_CALENDAR_DAYS = 366;
+    
+    private static final int MAX_NEXT_TASKS = 100;
+    
+    private static final int MAX_BOARD_COLUMN_TASKS = 100;
+    
+    private static final int MAX_COMPOSITE_QUERIES = 10;
+    
+    private static final int MAX_SUGGESTIONS = 50;
+    
+    private static final int MAX_TREND_DAYS = 1096;
+    
     @Autowired
     private TaskService taskService;
     
     @Autowired
     private UserService userService;
     
+    @Autowired
+    private TaskHierarchyService taskHierarchyService;
+    
+    @Autowired
+    private BulkJobService bulkJobService;
+    
+    @Autowired
+    private CompositeReadService compositeReadService;
+    
+    @Autowired
+    private TaskTrendService taskTrendService;
+    
     private User getCurrentUser() {
         UserDetailsImpl userDetails = (UserDetailsImpl) SecurityContextHolder
             .getContext().getAuthentication().getPrincipal();
         return userService.findByUsername(userDetails.getUsername())
-            .orElseThrow(() -> new RuntimeException("User not found"));
+            .orElseThrow(() -> new NotFoundException("User not found"));
+    }
+    
+    private ResponseEntity<Task> withETag(Task task) {
+        return ResponseEntity.ok().eTag(String.valueOf(task.getVersion())).body(task);
+    }
+    
+    // If-Match carries the ETag (task version) the client last saw; absent or "*" means unconditional
+    private Long parseIfMatch(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String value = ifMatch.trim();
+        if (value.startsWith("W/")) {
+            value = value.substring(2);
+        }
+        try {
+            return Long.valueOf(value.replace("\"", ""));
+        } catch (NumberFormatException e) {
+            // Not one of our ETags, so it can never match
+            return -1L;
+        }
+    }
+    
+    private static TaskStatus parseStatus(String status) {
+        try {
+            return TaskStatus.valueOf(status);
+        } catch (IllegalArgumentException | NullPointerException e) {
+            throw new InvalidRequestException("Invalid status: " + status);
+        }
+    }
+    
+    private static Long parseId(String id) {
+        try {
+            return Long.valueOf(id);
+        } catch (NumberFormatException e) {
+            throw new InvalidRequestException("Invalid task id: " + id);
+        }
     }
     
-    // GET: All tasks
+    // GET: All tasks; with from and to, recurring tasks are listed as their occurrences in that range,
+    // and with ids just those tasks, in the order given
     @GetMapping
     public ResponseEntity<?> getAllTasks(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "createdAt") String sortBy,
             @RequestParam(defaultValue = "desc") String sortDir,
-            @RequestParam(defaultValue = "false") boolean paginate) {
+            @RequestParam(defaultValue = "false") boolean paginate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) List<Long> ids) {
         
         User currentUser = getCurrentUser();
         
+        if (ids != null) {
+            if (ids.isEmpty() || ids.size() > CompositeReadService.MAX_IDS) {
+                return ResponseEntity.badRequest()
+                    .body(new MessageResponse("ids must list 1 to " + CompositeReadService.MAX_IDS + " task ids"));
+            }
+            return ResponseEntity.ok(taskService.getTasksByIds(ids, currentUser));
+        }
+        if (from != null && to != null && !paginate) {
+            if (to.isBefore(from) || from.plusDays(MAX_CALENDAR_DAYS).isBefore(to)) {
+                return ResponseEntity.badRequest()
+                    .body(new MessageResponse("Range must be between 1 and " + MAX_CALENDAR_DAYS + " days"));
+            }
+            return ResponseEntity.ok(taskService.getAllTasks(currentUser, from, to));
+        }
         if (paginate) {
             Sort sort = sortDir.equalsIgnoreCase("asc") ? 
                 Sort.by(sortBy).ascending() : Sort.by(sortBy).descending();
@@ -67,7 +168,7 @@ public class TaskController {
     public ResponseEntity<Task> getTaskById(@PathVariable Long id) {
         User currentUser = getCurrentUser();
         return taskService.getTaskById(id, currentUser)
-            .map(ResponseEntity::ok)
+            .map(this::withETag)
             .orElse(ResponseEntity.notFound().build());
     }
     
@@ -79,6 +180,28 @@ public class TaskController {
         return ResponseEntity.ok(tasks);
     }
     
+    // GET: All status columns at once; limit applies per column
+    @GetMapping("/board")
+    public ResponseEntity<Map<TaskStatus, BoardColumn>> getBoard(@RequestParam(defaultValue = "20") int limit,
+                                                                 @RequestParam(required = false) String cursor) {
+        User currentUser = getCurrentUser();
+        return ResponseEntity.ok(taskService.getBoard(currentUser, cursor,
+                                                      Math.max(1, Math.min(limit, MAX_BOARD_COLUMN_TASKS))));
+    }
+    
+    // GET: Tasks shared with the current user across all their workspaces
+    @GetMapping("/shared")
+    public ResponseEntity<Page<Task>> getSharedTasks(
+            @RequestParam(required = false) TaskStatus status,
+            @RequestParam(required = false) String keyword,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size) {
+        User currentUser = getCurrentUser();
+        Page<Task> tasks = taskService.getWorkspaceTasks(currentUser, null, status, keyword,
+                                                         PageRequest.of(page, size, Sort.by("createdAt").descending()));
+        return ResponseEntity.ok(tasks);
+    }
+    
     // GET: Tasks by priority
     @GetMapping("/priority/{priority}")
     public ResponseEntity<List<Task>> getTasksByPriority(@PathVariable TaskPriority priority) {
@@ -95,13 +218,32 @@ public class TaskController {
         return ResponseEntity.ok(tasks);
     }
     
-    // GET: Filter tasks
+    // GET: Words from task titles completing the last word typed; by = frequent (default) or recent
+    @GetMapping("/suggest")
+    public ResponseEntity<List<String>> suggest(@RequestParam String prefix,
+                                                @RequestParam(defaultValue = "10") int limit,
+                                                @RequestParam(defaultValue = "frequent") String by) {
+        TitleSuggestIndex.Ranking ranking;
+        try {
+            ranking = TitleSuggestIndex.Ranking.valueOf(by.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidRequestException("by must be 'frequent' or 'recent'");
+        }
+        User currentUser = getCurrentUser();
+        return ResponseEntity.ok(taskService.suggestTitleTerms(currentUser, prefix,
+                                                               Math.max(1, Math.min(limit, MAX_SUGGESTIONS)), ranking));
+    }
+    
+    // GET: Filter tasks (tags = all of, anyTags = at least one of, excludeTags = none of)
     @GetMapping("/filter")
     public ResponseEntity<Page<Task>> filterTasks(
             @RequestParam(required = false) TaskStatus status,
             @RequestParam(required = false) TaskPriority priority,
             @RequestParam(required = false) Boolean archived,
             @RequestParam(required = false) String keyword,
+            @RequestParam(required = false) List<String> tags,
+            @RequestParam(required = false) List<String> anyTags,
+            @RequestParam(required = false) List<String> excludeTags,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "createdAt") String sortBy,
@@ -112,10 +254,105 @@ public class TaskController {
             Sort.by(sortBy).ascending() : Sort.by(sortBy).descending();
         Pageable pageable = PageRequest.of(page, size, sort);
         
+        if (tags != null || anyTags != null || excludeTags != null) {
+            // Tag queries are answered from the bitmap index and come back newest first
+            Page<Task> tasks = taskService.filterTasksByTags(currentUser, status, priority, archived, keyword,
+                                                             tags, anyTags, excludeTags, pageable);
+            return ResponseEntity.ok(tasks);
+        }
         Page<Task> tasks = taskService.filterTasks(currentUser, status, priority, archived, keyword, pageable);
         return ResponseEntity.ok(tasks);
     }
     
+    // GET: What to work on next
+    @GetMapping("/next")
+    public ResponseEntity<List<Task>> getNextTasks(@RequestParam(defaultValue = "5") int k) {
+        User currentUser = getCurrentUser();
+        List<Task> tasks = taskService.getNextTasks(currentUser, Math.max(1, Math.min(k, MAX_NEXT_TASKS)));
+        return ResponseEntity.ok(tasks);
+    }
+    
+    // GET: Task counts in total, per status and in the trash
+    @GetMapping("/stats")
+    public ResponseEntity<TaskStats> getTaskStats() {
+        User currentUser = getCurrentUser();
+        return ResponseEntity.ok(taskService.getTaskStats(currentUser));
+    }
+    
+    // POST: Several named read queries (FILTER, STATS, SEARCH, IDS) answered concurrently in one round trip;
+    // each result carries its own status
+    @PostMapping("/composite")
+    public ResponseEntity<?> compositeRead(@RequestBody Map<String, CompositeQuery> queries) {
+        if (queries.isEmpty() || queries.size() > MAX_COMPOSITE_QUERIES) {
+            return ResponseEntity.badRequest()
+                .body(new MessageResponse("A composite request takes 1 to " + MAX_COMPOSITE_QUERIES + " queries"));
+        }
+        User currentUser = getCurrentUser();
+        Map<String, CompositeResult> results = compositeReadService.execute(queries, currentUser);
+        return ResponseEntity.ok(results);
+    }
+    
+    // GET: Tags in use with their task counts
+    @GetMapping("/tags")
+    public ResponseEntity<Map<String, Long>> getTags() {
+        User currentUser = getCurrentUser();
+        return ResponseEntity.ok(taskService.getTagCounts(currentUser));
+    }
+    
+    // GET: Open tasks past their due date
+    @GetMapping("/overdue")
+    public ResponseEntity<List<Task>> getOverdueTasks() {
+        User currentUser = getCurrentUser();
+        return ResponseEntity.ok(taskService.getOverdueTasks(currentUser));
+    }
+    
+    // GET: Created, completed and overdue trends per week or month, from the daily rollups
+    @GetMapping("/trends")
+    public ResponseEntity<?> getTrends(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "week") String granularity) {
+        
+        if (to.isBefore(from) || from.plusDays(MAX_TREND_DAYS).isBefore(to)) {
+            return ResponseEntity.badRequest()
+                .body(new MessageResponse("Trend range must be between 1 and " + MAX_TREND_DAYS + " days"));
+        }
+        if (!granularity.equalsIgnoreCase("week") && !granularity.equalsIgnoreCase("month")) {
+            return ResponseEntity.badRequest()
+                .body(new MessageResponse("Granularity must be 'week' or 'month'"));
+        }
+        User currentUser = getCurrentUser();
+        List<TrendBucket> buckets = taskTrendService.getTrends(
+            currentUser, from, to, granularity.equalsIgnoreCase("month"));
+        return ResponseEntity.ok(buckets);
+    }
+    
+    // GET: Calendar view (tasks, or per-day/week counts when granularity is given)
+    @GetMapping("/calendar")
+    public ResponseEntity<?> getCalendar(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String granularity) {
+        
+        if (to.isBefore(from) || from.plusDays(MAX_CALENDAR_DAYS).isBefore(to)) {
+            return ResponseEntity.badRequest()
+                .body(new MessageResponse("Calendar range must be between 1 and " + MAX_CALENDAR_DAYS + " days"));
+        }
+        
+        User currentUser = getCurrentUser();
+        if (granularity == null) {
+            List<Task> tasks = taskService.getCalendarTasks(currentUser, from, to);
+            return ResponseEntity.ok(tasks);
+        }
+        if (!granularity.equalsIgnoreCase("day") && !granularity.equalsIgnoreCase("week")) {
+            return ResponseEntity.badRequest()
+                .body(new MessageResponse("Granularity must be 'day' or 'week'"));
+        }
+        List<CalendarBucket> buckets = taskService.getCalendarCounts(
+            currentUser, from, to, granularity.equalsIgnoreCase("week"));
+        return ResponseEntity.ok(buckets);
+    }
+    
     // GET: Archived tasks
     @GetMapping("/archived")
     public ResponseEntity<List<Task>> getArchivedTasks() {
@@ -132,6 +369,39 @@ public class TaskController {
         return ResponseEntity.ok(tasks);
     }
     
+    // GET: Task with all of its subtasks
+    @GetMapping("/{id}/subtree")
+    public ResponseEntity<List<TaskNode>> getSubtree(@PathVariable Long id) {
+        User currentUser = getCurrentUser();
+        List<TaskNode> nodes = taskHierarchyService.getSubtree(id, currentUser);
+        return ResponseEntity.ok(nodes);
+    }
+    
+    // GET: Field-level change history of a task
+    @GetMapping("/{id}/history")
+    public ResponseEntity<List<TaskHistoryEntry>> getTaskHistory(@PathVariable Long id) {
+        User currentUser = getCurrentUser();
+        List<TaskHistoryEntry> history = taskService.getTaskHistory(id, currentUser);
+        return ResponseEntity.ok(history);
+    }
+    
+    // GET: Tasks blocking this one
+    @GetMapping("/{id}/blockers")
+    public ResponseEntity<List<Task>> getBlockers(@PathVariable Long id,
+                                                  @RequestParam(defaultValue = "false") boolean transitive) {
+        User currentUser = getCurrentUser();
+        List<Task> blockers = taskHierarchyService.getBlockers(id, currentUser, transitive);
+        return ResponseEntity.ok(blockers);
+    }
+    
+    // GET: Whether all blockers are completed
+    @GetMapping("/{id}/ready")
+    public ResponseEntity<Map<String, Boolean>> isTaskReady(@PathVariable Long id) {
+        User currentUser = getCurrentUser();
+        boolean ready = taskHierarchyService.isReady(id, currentUser);
+        return ResponseEntity.ok(Map.of("ready", ready));
+    }
+    
     // POST: Create task
     @PostMapping
     public ResponseEntity<Task> createTask(@Valid @RequestBody Task task) {
@@ -142,94 +412,177 @@ public class TaskController {
     
     // PUT: Update task
     @PutMapping("/{id}")
-    public ResponseEntity<Task> updateTask(@PathVariable Long id, @Valid @RequestBody Task task) {
-        try {
-            User currentUser = getCurrentUser();
-            Task updatedTask = taskService.updateTask(id, task, currentUser);
-            return ResponseEntity.ok(updatedTask);
-        } catch (RuntimeException e) {
-            return ResponseEntity.notFound().build();
-        }
+    public ResponseEntity<Task> updateTask(@PathVariable Long id, @Valid @RequestBody Task task,
+                                           @RequestHeader(value = "If-Match", required = false) String ifMatch) {
+        User currentUser = getCurrentUser();
+        Task updatedTask = taskService.updateTask(id, task, currentUser, parseIfMatch(ifMatch));
+        return withETag(updatedTask);
+    }
+    
+    // PUT: Replace task tags
+    @PutMapping("/{id}/tags")
+    public ResponseEntity<Task> setTaskTags(@PathVariable Long id, @RequestBody List<String> tags) {
+        User currentUser = getCurrentUser();
+        Task updatedTask = taskService.setTaskTags(id, tags, currentUser);
+        return ResponseEntity.ok(updatedTask);
     }
     
     // PATCH: Update status
     @PatchMapping("/{id}/status")
-    public ResponseEntity<Task> updateTaskStatus(@PathVariable Long id, @RequestBody Map<String, String> statusMap) {
-        try {
-            User currentUser = getCurrentUser();
-            TaskStatus status = TaskStatus.valueOf(statusMap.get("status"));
-            Task updatedTask = taskService.updateTaskStatus(id, status, currentUser);
-            return ResponseEntity.ok(updatedTask);
-        } catch (Exception e) {
-            return ResponseEntity.badRequest().build();
-        }
+    public ResponseEntity<Task> updateTaskStatus(@PathVariable Long id, @RequestBody Map<String, String> statusMap,
+                                                 @RequestHeader(value = "If-Match", required = false) String ifMatch) {
+        User currentUser = getCurrentUser();
+        TaskStatus status = parseStatus(statusMap.get("status"));
+        Task updatedTask = taskService.updateTaskStatus(id, status, currentUser, parseIfMatch(ifMatch));
+        return withETag(updatedTask);
+    }
+    
+    // PUT: Edit one occurrence of a recurring task
+    @PutMapping("/{id}/occurrences/{at}")
+    public ResponseEntity<Task> updateOccurrence(@PathVariable Long id,
+                                                 @PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime at,
+                                                 @Valid @RequestBody Task task) {
+        User currentUser = getCurrentUser();
+        return withETag(taskService.updateOccurrence(id, at, task, currentUser));
+    }
+    
+    // PATCH: Status of one occurrence of a recurring task
+    @PatchMapping("/{id}/occurrences/{at}/status")
+    public ResponseEntity<Task> updateOccurrenceStatus(@PathVariable Long id,
+                                                       @PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime at,
+                                                       @RequestBody Map<String, String> statusMap) {
+        User currentUser = getCurrentUser();
+        TaskStatus status = parseStatus(statusMap.get("status"));
+        return withETag(taskService.updateOccurrenceStatus(id, at, status, currentUser));
+    }
+    
+    // DELETE: Skip one occurrence of a recurring task
+    @DeleteMapping("/{id}/occurrences/{at}")
+    public ResponseEntity<Void> deleteOccurrence(@PathVariable Long id,
+                                                 @PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime at) {
+        User currentUser = getCurrentUser();
+        taskService.deleteOccurrence(id, at, currentUser);
+        return ResponseEntity.noContent().build();
+    }
+    
+    // PATCH: Reorder task; body {"afterId": ..., "status": ...}, a missing afterId moves it to the top
+    // and a missing status keeps its current column
+    @PatchMapping("/{id}/position")
+    public ResponseEntity<Task> moveTaskPosition(@PathVariable Long id, @RequestBody Map<String, String> positionMap,
+                                                 @RequestHeader(value = "If-Match", required = false) String ifMatch) {
+        User currentUser = getCurrentUser();
+        String status = positionMap.get("status");
+        String afterId = positionMap.get("afterId");
+        Task movedTask = taskService.moveTaskPosition(id,
+                                                      status == null ? null : parseStatus(status),
+                                                      afterId == null ? null : parseId(afterId),
+                                                      currentUser, parseIfMatch(ifMatch));
+        return withETag(movedTask);
+    }
+    
+    // PATCH: Move task under another parent (null parentId moves it to the top level)
+    @PatchMapping("/{id}/parent")
+    public ResponseEntity<Task> moveTask(@PathVariable Long id, @RequestBody Map<String, Long> parentMap,
+                                         @RequestHeader(value = "If-Match", required = false) String ifMatch) {
+        User currentUser = getCurrentUser();
+        Task movedTask = taskService.moveTaskToParent(id, parentMap.get("parentId"), currentUser, parseIfMatch(ifMatch));
+        return withETag(movedTask);
+    }
+    
+    // PUT: Mark task as blocked by another task
+    @PutMapping("/{id}/blockers/{blockerId}")
+    public ResponseEntity<Void> addBlocker(@PathVariable Long id, @PathVariable Long blockerId) {
+        User currentUser = getCurrentUser();
+        taskHierarchyService.addBlocker(id, blockerId, currentUser);
+        return ResponseEntity.noContent().build();
+    }
+    
+    // DELETE: Remove a blocker
+    @DeleteMapping("/{id}/blockers/{blockerId}")
+    public ResponseEntity<Void> removeBlocker(@PathVariable Long id, @PathVariable Long blockerId) {
+        User currentUser = getCurrentUser();
+        taskHierarchyService.removeBlocker(id, blockerId, currentUser);
+        return ResponseEntity.noContent().build();
     }
     
     // PATCH: Archive task
     @PatchMapping("/{id}/archive")
-    public ResponseEntity<Task> archiveTask(@PathVariable Long id) {
-        try {
-            User currentUser = getCurrentUser();
-            Task archivedTask = taskService.archiveTask(id, currentUser);
-            return ResponseEntity.ok(archivedTask);
-        } catch (RuntimeException e) {
-            return ResponseEntity.notFound().build();
-        }
+    public ResponseEntity<Task> archiveTask(@PathVariable Long id, @RequestHeader(value = "If-Match", required = false) String ifMatch) {
+        User currentUser = getCurrentUser();
+        Task archivedTask = taskService.archiveTask(id, currentUser, parseIfMatch(ifMatch));
+        return withETag(archivedTask);
     }
     
     // PATCH: Unarchive task
     @PatchMapping("/{id}/unarchive")
-    public ResponseEntity<Task> unarchiveTask(@PathVariable Long id) {
-        try {
-            User currentUser = getCurrentUser();
-            Task unarchivedTask = taskService.unarchiveTask(id, currentUser);
-            return ResponseEntity.ok(unarchivedTask);
-        } catch (RuntimeException e) {
-            return ResponseEntity.notFound().build();
-        }
+    public ResponseEntity<Task> unarchiveTask(@PathVariable Long id, @RequestHeader(value = "If-Match", required = false) String ifMatch) {
+        User currentUser = getCurrentUser();
+        Task unarchivedTask = taskService.unarchiveTask(id, currentUser, parseIfMatch(ifMatch));
+        return withETag(unarchivedTask);
     }
     
     // PATCH: Restore task
     @PatchMapping("/{id}/restore")
-    public ResponseEntity<Task> restoreTask(@PathVariable Long id) {
-        try {
-            User currentUser = getCurrentUser();
-            Task restoredTask = taskService.restoreTask(id, currentUser);
-            return ResponseEntity.ok(restoredTask);
-        } catch (RuntimeException e) {
-            return ResponseEntity.badRequest().build();
-        }
+    public ResponseEntity<Task> restoreTask(@PathVariable Long id, @RequestHeader(value = "If-Match", required = false) String ifMatch) {
+        User currentUser = getCurrentUser();
+        Task restoredTask = taskService.restoreTask(id, currentUser, parseIfMatch(ifMatch));
+        return withETag(restoredTask);
     }
     
     // DELETE: Soft delete
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> deleteTask(@PathVariable Long id) {
-        try {
-            User currentUser = getCurrentUser();
-            taskService.deleteTask(id, currentUser);
-            return ResponseEntity.noContent().build();
-        } catch (RuntimeException e) {
-            return ResponseEntity.notFound().build();
-        }
+    public ResponseEntity<Void> deleteTask(@PathVariable Long id, @RequestHeader(value = "If-Match", required = false) String ifMatch) {
+        User currentUser = getCurrentUser();
+        taskService.deleteTask(id, currentUser, parseIfMatch(ifMatch));
+        return ResponseEntity.noContent().build();
     }
     
     // DELETE: Permanent delete
     @DeleteMapping("/{id}/permanent")
-    public ResponseEntity<Void> permanentlyDeleteTask(@PathVariable Long id) {
-        try {
-            User currentUser = getCurrentUser();
-            taskService.permanentlyDeleteTask(id, currentUser);
-            return ResponseEntity.noContent().build();
-        } catch (RuntimeException e) {
-            return ResponseEntity.notFound().build();
-        }
+    public ResponseEntity<Void> permanentlyDeleteTask(@PathVariable Long id, @RequestHeader(value = "If-Match", required = false) String ifMatch) {
+        User currentUser = getCurrentUser();
+        taskService.permanentlyDeleteTask(id, currentUser, parseIfMatch(ifMatch));
+        return ResponseEntity.noContent().build();
     }
     
-    // DELETE: Delete all
+    // DELETE: Delete all, as a background job
     @DeleteMapping
-    public ResponseEntity<Void> deleteAllTasks() {
+    public ResponseEntity<BulkJob> deleteAllTasks() {
+        return submitJob(BulkJob.Type.DELETE_ALL);
+    }
+    
+    // PATCH: Archive every completed task, as a background job
+    @PatchMapping("/archive-completed")
+    public ResponseEntity<BulkJob> archiveCompletedTasks() {
+        return submitJob(BulkJob.Type.ARCHIVE_COMPLETED);
+    }
+    
+    // PATCH: Restore every deleted task, as a background job
+    @PatchMapping("/restore-all")
+    public ResponseEntity<BulkJob> restoreAllTasks() {
+        return submitJob(BulkJob.Type.RESTORE_ALL);
+    }
+    
+    // DELETE: Empty the trash for good, as a background job
+    @DeleteMapping("/deleted")
+    public ResponseEntity<BulkJob> purgeDeletedTasks() {
+        return submitJob(BulkJob.Type.PURGE_TRASH);
+    }
+    
+    // GET: Progress of a background job
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<BulkJob> getJob(@PathVariable Long jobId) {
         User currentUser = getCurrentUser();
-        taskService.deleteAllTasks(currentUser);
-        return ResponseEntity.noContent().build();
+        return bulkJobService.getJob(jobId, currentUser)
+            .map(ResponseEntity::ok)
+            .orElse(ResponseEntity.notFound().build());
+    }
+    
+    private ResponseEntity<BulkJob> submitJob(BulkJob.Type type) {
+        User currentUser = getCurrentUser();
+        BulkJob job = bulkJobService.submit(currentUser, type);
+        return ResponseEntity.accepted()
+            .location(URI.create("/api/tasks/jobs/" + job.getId()))
+            .body(job);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,110 @@
+package com.taskmanager.controller;
+
+import com.taskmanager.dto.WorkspaceMemberInfo;
+import com.taskmanager.exception.InvalidRequestException;
+import com.taskmanager.exception.NotFoundException;
+import com.taskmanager.model.Task;
+import com.taskmanager.model.Task.TaskStatus;
+import com.taskmanager.model.User;
+import com.taskmanager.model.Workspace;
+import com.taskmanager.model.WorkspaceMember.Role;
+import com.taskmanager.security.UserDetailsImpl;
+import com.taskmanager.service.TaskService;
+import com.taskmanager.service.UserService;
+import com.taskmanager.service.WorkspaceService;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/workspaces")
+@CrossOrigin(origins = "http://localhost:4200")
+public class WorkspaceController {
+    
+    @Autowired
+    private WorkspaceService workspaceService;
+    
+    @Autowired
+    private TaskService taskService;
+    
+    @Autowired
+    private UserService userService;
+    
+    private User getCurrentUser() {
+        UserDetailsImpl userDetails = (UserDetailsImpl) SecurityContextHolder
+            .getContext().getAuthentication().getPrincipal();
+        return userService.findByUsername(userDetails.getUsername())
+            .orElseThrow(() -> new NotFoundException("User not found"));
+    }
+    
+    private static Role parseRole(String role) {
+        try {
+            return Role.valueOf(role);
+        } catch (IllegalArgumentException | NullPointerException e) {
+            throw new InvalidRequestException("Invalid role: " + role);
+        }
+    }
+    
+    // GET: Workspaces of the current user
+    @GetMapping
+    public ResponseEntity<List<Workspace>> getWorkspaces() {
+        User currentUser = getCurrentUser();
+        return ResponseEntity.ok(workspaceService.getWorkspaces(currentUser));
+    }
+    
+    // POST: Create workspace; the creator becomes its owner
+    @PostMapping
+    public ResponseEntity<Workspace> createWorkspace(@Valid @RequestBody Workspace workspace) {
+        User currentUser = getCurrentUser();
+        Workspace createdWorkspace = workspaceService.createWorkspace(workspace, currentUser);
+        return ResponseEntity.status(HttpStatus.CREATED).body(createdWorkspace);
+    }
+    
+    // GET: Members of a workspace
+    @GetMapping("/{id}/members")
+    public ResponseEntity<List<WorkspaceMemberInfo>> getMembers(@PathVariable Long id) {
+        User currentUser = getCurrentUser();
+        return ResponseEntity.ok(workspaceService.getMembers(id, currentUser));
+    }
+    
+    // PUT: Add a member or change their role; body {"role": "VIEWER" | "EDITOR" | "OWNER"}
+    @PutMapping("/{id}/members/{username}")
+    public ResponseEntity<WorkspaceMemberInfo> setMember(@PathVariable Long id, @PathVariable String username,
+                                                         @RequestBody Map<String, String> roleMap) {
+        User currentUser = getCurrentUser();
+        Role role = parseRole(roleMap.get("role"));
+        WorkspaceMemberInfo member = workspaceService.setMember(id, username, role, currentUser);
+        return ResponseEntity.ok(member);
+    }
+    
+    // DELETE: Remove a member, or leave the workspace
+    @DeleteMapping("/{id}/members/{userId}")
+    public ResponseEntity<Void> removeMember(@PathVariable Long id, @PathVariable Long userId) {
+        User currentUser = getCurrentUser();
+        workspaceService.removeMember(id, userId, currentUser);
+        return ResponseEntity.noContent().build();
+    }
+    
+    // GET: Tasks shared in a workspace
+    @GetMapping("/{id}/tasks")
+    public ResponseEntity<Page<Task>> getWorkspaceTasks(
+            @PathVariable Long id,
+            @RequestParam(required = false) TaskStatus status,
+            @RequestParam(required = false) String keyword,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size) {
+        User currentUser = getCurrentUser();
+        Page<Task> tasks = taskService.getWorkspaceTasks(currentUser, id, status, keyword,
+                                                         PageRequest.of(page, size, Sort.by("createdAt").descending()));
+        return ResponseEntity.ok(tasks);
+    }
+}
@@ -0,0 +1,25 @@
+package com.taskmanager.dto;
+
+import com.taskmanager.model.Task;
+import com.taskmanager.model.Task.TaskStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BoardColumn {
+    private TaskStatus status;
+    private long total;
+    private List<Task> tasks;
+    // Pass back as ?cursor= to fetch the next tasks of this column; null on its last page
+    private String nextCursor;
+    
+    public BoardColumn(TaskStatus status) {
+        this(status, 0, new ArrayList<>(), null);
+    }
+}
@@ -0,0 +1,26 @@
+package com.taskmanager.dto;
+
+import com.taskmanager.model.Task.TaskStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.util.EnumMap;
+import java.util.Map;
+
+@Data
+@AllArgsConstructor
+public class CalendarBucket {
+    private LocalDate start;
+    private Map<TaskStatus, Long> counts;
+    private long total;
+    
+    public CalendarBucket(LocalDate start) {
+        this(start, new EnumMap<>(TaskStatus.class), 0);
+    }
+    
+    public void add(TaskStatus status, long count) {
+        counts.merge(status, count, Long::sum);
+        total += count;
+    }
+}
@@ -0,0 +1,31 @@
+package com.taskmanager.dto;
+
+import com.taskmanager.model.Task.TaskPriority;
+import com.taskmanager.model.Task.TaskStatus;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// One read inside a composite request; the fields used depend on the type and mirror the matching GET endpoint
+@Data
+@NoArgsConstructor
+public class CompositeQuery {
+    private Type type;
+    private TaskStatus status;
+    private TaskPriority priority;
+    private Boolean archived;
+    private String keyword;
+    private List<String> tags;
+    private List<String> anyTags;
+    private List<String> excludeTags;
+    private List<Long> ids;
+    private int page = 0;
+    private int size = 10;
+    private String sortBy = "createdAt";
+    private String sortDir = "desc";
+    
+    public enum Type {
+        FILTER, STATS, SEARCH, IDS
+    }
+}
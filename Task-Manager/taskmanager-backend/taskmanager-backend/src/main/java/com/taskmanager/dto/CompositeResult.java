@@ -0,0 +1,14 @@
+package com.taskmanager.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Outcome of one query of a composite request: the status its own endpoint would have answered with, and its body
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CompositeResult {
+    private int status;
+    private Object body;
+}
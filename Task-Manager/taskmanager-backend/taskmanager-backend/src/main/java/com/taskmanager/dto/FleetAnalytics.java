@@ -0,0 +1,36 @@
+package com.taskmanager.dto;
+
+import com.taskmanager.model.Task.TaskStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FleetAnalytics {
+    // Tasks not in the trash, across all users
+    private long total;
+    private Map<TaskStatus, Long> byStatus;
+    private long archived;
+    private long deleted;
+    // Open, unarchived tasks past their due date
+    private long overdue;
+    private List<UserLoad> heaviestUsers;
+    // Task id ranges of both tiers and user id ranges scanned, and how long the scan took
+    private int ranges;
+    private long elapsedMs;
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class UserLoad {
+        private Long userId;
+        private String username;
+        private long tasks;
+        private long overdue;
+    }
+}
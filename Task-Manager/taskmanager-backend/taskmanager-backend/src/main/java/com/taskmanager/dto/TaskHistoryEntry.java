@@ -0,0 +1,28 @@
+package com.taskmanager.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TaskHistoryEntry {
+    private Long taskId;
+    private String changedBy;
+    private LocalDateTime changedAt;
+    private String action;
+    private List<FieldChange> changes;
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class FieldChange {
+        private String field;
+        private String oldValue;
+        private String newValue;
+    }
+}
@@ -0,0 +1,12 @@
+package com.taskmanager.dto;
+
+import com.taskmanager.model.Task;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class TaskNode {
+    private Task task;
+    private int depth;
+}
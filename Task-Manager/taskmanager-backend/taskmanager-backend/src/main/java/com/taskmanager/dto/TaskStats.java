@@ -0,0 +1,18 @@
+package com.taskmanager.dto;
+
+import com.taskmanager.model.Task.TaskStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TaskStats {
+    private long total;
+    private Map<TaskStatus, Long> byStatus;
+    // Tasks in the trash
+    private long deleted;
+}
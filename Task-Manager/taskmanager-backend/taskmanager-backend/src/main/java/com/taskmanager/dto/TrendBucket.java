@@ -0,0 +1,22 @@
+package com.taskmanager.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TrendBucket {
+    private LocalDate start;
+    private long created;
+    private long completed;
+    private long reopened;
+    private long completedLate;
+    // Open tasks past due at the last snapshot within the bucket; null when none was taken
+    private Long overdue;
+    // Null when nothing was completed in the bucket
+    private Double averageHoursToComplete;
+}
@@ -0,0 +1,15 @@
+package com.taskmanager.dto;
+
+import com.taskmanager.model.WorkspaceMember.Role;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WorkspaceMemberInfo {
+    private Long userId;
+    private String username;
+    private Role role;
+}
@@ -0,0 +1,17 @@
+package com.taskmanager.exception;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * Expected failure of a request, answered with its status by {@link GlobalExceptionHandler}.
+ * These are control flow rather than bugs, so no stack trace is captured: filling it in is
+ * most of the cost of a throw and nothing ever reads it.
+ */
+public abstract class DomainException extends RuntimeException {
+    
+    protected DomainException(String message) {
+        super(message, null, false, false);
+    }
+    
+    public abstract HttpStatus getStatus();
+}
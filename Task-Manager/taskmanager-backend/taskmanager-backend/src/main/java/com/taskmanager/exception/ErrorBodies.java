@@ -0,0 +1,33 @@
+package com.taskmanager.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * JSON bodies of the error responses whose content never varies, serialized once. Scanners and
+ * clients with expired tokens hit these paths in bulk, so they are written as plain bytes.
+ */
+public final class ErrorBodies {
+    
+    public static final byte[] UNAUTHORIZED = bytes("{\"error\":\"Unauthorized\",\"message\":\"Authentication required\"}");
+    
+    public static final byte[] FORBIDDEN = bytes("{\"error\":\"Forbidden\",\"message\":\"Not allowed for this account\"}");
+    
+    public static final byte[] NOT_FOUND = bytes("{\"message\":\"Not found\"}");
+    
+    public static final byte[] PRECONDITION_FAILED = bytes("{\"message\":\"Task was modified by another request\"}");
+    
+    private ErrorBodies() {
+    }
+    
+    public static ResponseEntity<byte[]> response(HttpStatus status, byte[] body) {
+        return ResponseEntity.status(status).contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+    
+    private static byte[] bytes(String json) {
+        return json.getBytes(StandardCharsets.UTF_8);
+    }
+}
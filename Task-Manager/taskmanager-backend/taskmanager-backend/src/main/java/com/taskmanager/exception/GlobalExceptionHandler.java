@@ -0,0 +1,31 @@
+package com.taskmanager.exception;
+
+import com.taskmanager.dto.MessageResponse;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+/**
+ * Turns expected failures into responses, so controllers only deal with the success path.
+ * Fixed bodies come prebuilt from {@link ErrorBodies}; a bad request carries its message.
+ */
+@RestControllerAdvice
+public class GlobalExceptionHandler {
+    
+    @ExceptionHandler(DomainException.class)
+    public ResponseEntity<?> handleDomainException(DomainException e) {
+        return switch (e.getStatus()) {
+            case NOT_FOUND -> ErrorBodies.response(HttpStatus.NOT_FOUND, ErrorBodies.NOT_FOUND);
+            case PRECONDITION_FAILED -> ErrorBodies.response(HttpStatus.PRECONDITION_FAILED, ErrorBodies.PRECONDITION_FAILED);
+            default -> ResponseEntity.status(e.getStatus()).body(new MessageResponse(e.getMessage()));
+        };
+    }
+    
+    // A concurrent write got in between reading and saving the task
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<byte[]> handleOptimisticLockingFailure(OptimisticLockingFailureException e) {
+        return ErrorBodies.response(HttpStatus.PRECONDITION_FAILED, ErrorBodies.PRECONDITION_FAILED);
+    }
+}
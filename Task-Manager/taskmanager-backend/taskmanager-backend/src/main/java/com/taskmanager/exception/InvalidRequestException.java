@@ -0,0 +1,19 @@
+package com.taskmanager.exception;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * Thrown when a request is well-formed but not allowed in the current state: bad input,
+ * a missing role, a change that would break an invariant.
+ */
+public class InvalidRequestException extends DomainException {
+    
+    public InvalidRequestException(String message) {
+        super(message);
+    }
+    
+    @Override
+    public HttpStatus getStatus() {
+        return HttpStatus.BAD_REQUEST;
+    }
+}
@@ -0,0 +1,18 @@
+package com.taskmanager.exception;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * Thrown when a task, workspace or user does not exist or is not visible to the caller.
+ */
+public class NotFoundException extends DomainException {
+    
+    public NotFoundException(String message) {
+        super(message);
+    }
+    
+    @Override
+    public HttpStatus getStatus() {
+        return HttpStatus.NOT_FOUND;
+    }
+}
@@ -0,0 +1,18 @@
+package com.taskmanager.exception;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * Thrown when an If-Match version no longer matches the stored task.
+ */
+public class VersionConflictException extends DomainException {
+    
+    public VersionConflictException(Long id) {
+        super("Task " + id + " was modified by another request");
+    }
+    
+    @Override
+    public HttpStatus getStatus() {
+        return HttpStatus.PRECONDITION_FAILED;
+    }
+}
@@ -0,0 +1,94 @@
+package com.taskmanager.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Background operation over all of a user's tasks. The job works through the tasks in
+ * id order, one chunk per transaction, and stores its position after every chunk so
+ * it can resume on any instance once its lease has run out.
+ */
+@Entity
+@Table(name = "bulk_jobs",
+       indexes = {
+           @Index(name = "idx_bulk_jobs_user_status", columnList = "user_id, status"),
+           @Index(name = "idx_bulk_jobs_status_lease", columnList = "status, lease_until")
+       })
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkJob {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "user_id", nullable = false)
+    @JsonIgnore
+    private Long userId;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Type type;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Status status = Status.QUEUED;
+    
+    // Hot table first, then the cold tier for the jobs that also cover it
+    @Column(nullable = false)
+    @JsonIgnore
+    private int phase;
+    
+    // Last task id handled in the current phase
+    @Column(name = "last_id", nullable = false)
+    @JsonIgnore
+    private long lastId;
+    
+    @Column(nullable = false)
+    private long processed;
+    
+    // Matching tasks when the job was submitted
+    @Column(nullable = false)
+    private long total;
+    
+    @Column(length = 500)
+    private String error;
+    
+    // Instance running the job, and until when it holds it
+    @Column(length = 36)
+    @JsonIgnore
+    private String owner;
+    
+    @Column(name = "lease_until")
+    @JsonIgnore
+    private LocalDateTime leaseUntil;
+    
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+    
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+    
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+    
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        updatedAt = createdAt;
+    }
+    
+    public enum Type {
+        DELETE_ALL, ARCHIVE_COMPLETED, RESTORE_ALL, PURGE_TRASH
+    }
+    
+    public enum Status {
+        QUEUED, RUNNING, COMPLETED, FAILED
+    }
+}
@@ -0,0 +1,117 @@
+package com.taskmanager.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Cold-tier copy of a task that has been deleted or archived for longer than the
+ * retention period. Rows keep their original id so they can be moved back into
+ * {@code tasks} unchanged.
+ */
+@Entity
+@Table(name = "tasks_cold",
+       indexes = {
+           @Index(name = "idx_tasks_cold_user_deleted", columnList = "user_id, deleted_at"),
+           @Index(name = "idx_tasks_cold_user_archived", columnList = "user_id, archived")
+       })
+@Data
+@NoArgsConstructor
+public class ColdTask {
+    
+    @Id
+    private Long id;
+    
+    @Column(nullable = false, length = 255)
+    private String title;
+    
+    @Column(length = 1000)
+    private String description;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Task.TaskStatus status;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Task.TaskPriority priority;
+    
+    @Column(name = "due_date")
+    private LocalDateTime dueDate;
+    
+    @Column(name = "parent_id")
+    private Long parentId;
+    
+    @Column(name = "workspace_id")
+    private Long workspaceId;
+    
+    @Column(name = "rank_key", length = 64)
+    private String rank;
+    
+    @Column(length = 200)
+    private String recurrence;
+    
+    @Column(name = "series_id")
+    private Long seriesId;
+    
+    @Column(name = "occurrence_at")
+    private LocalDateTime occurrenceAt;
+    
+    @ElementCollection(fetch = FetchType.EAGER)
+    @CollectionTable(name = "task_tags_cold", joinColumns = @JoinColumn(name = "task_id"))
+    @Column(name = "tag", nullable = false, length = 50)
+    private Set<String> tags = new HashSet<>();
+    
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+    
+    @Column(nullable = false)
+    private boolean archived;
+    
+    @Column(name = "archived_at")
+    private LocalDateTime archivedAt;
+    
+    @Column(name = "deleted_at")
+    private LocalDateTime deletedAt;
+    
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+    
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+    
+    @Column(nullable = false)
+    private long version;
+    
+    @Column(name = "moved_at", nullable = false)
+    private LocalDateTime movedAt;
+    
+    public Task toTask(User user) {
+        Task task = new Task();
+        task.setId(id);
+        task.setTitle(title);
+        task.setDescription(description);
+        task.setStatus(status);
+        task.setPriority(priority);
+        task.setDueDate(dueDate);
+        task.setParentId(parentId);
+        task.setWorkspaceId(workspaceId);
+        task.setRank(rank);
+        task.setRecurrence(recurrence);
+        task.setSeriesId(seriesId);
+        task.setOccurrenceAt(occurrenceAt);
+        task.setTags(new HashSet<>(tags));
+        task.setUser(user);
+        task.setArchived(archived);
+        task.setArchivedAt(archivedAt);
+        task.setDeletedAt(deletedAt);
+        task.setCreatedAt(createdAt);
+        task.setUpdatedAt(updatedAt);
+        task.setVersion(version);
+        return task;
+    }
+}
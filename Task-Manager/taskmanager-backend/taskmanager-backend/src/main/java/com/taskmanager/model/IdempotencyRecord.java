@@ -0,0 +1,49 @@
+package com.taskmanager.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Stored outcome of a request sent with an Idempotency-Key, shared between instances.
+ * A row without a status is a claim on the key by a request still in progress.
+ */
+@Entity
+@Table(name = "idempotency_keys",
+       indexes = @Index(name = "idx_idempotency_keys_expires", columnList = "expires_at"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IdempotencyRecord {
+    
+    // Username and client key, so keys never collide across users
+    @Id
+    @Column(name = "scope_key", length = 320)
+    private String scopeKey;
+    
+    @Column(nullable = false, length = 64)
+    private String fingerprint;
+    
+    private Integer status;
+    
+    @Column(name = "content_type", length = 100)
+    private String contentType;
+    
+    @Column(name = "etag", length = 100)
+    private String eTag;
+    
+    @Column(length = 500)
+    private String location;
+    
+    @Column(name = "response_body", length = 1048576)
+    private String responseBody;
+    
+    @Column(name = "started_at", nullable = false)
+    private LocalDateTime startedAt;
+    
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+}
@@ -6,11 +6,21 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import org.hibernate.annotations.BatchSize;
 
 import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Set;
 
 @Entity
-@Table(name = "tasks")
+@Table(name = "tasks",
+       indexes = {
+           @Index(name = "idx_tasks_user_due_date", columnList = "user_id, due_date"),
+           @Index(name = "idx_tasks_parent", columnList = "parent_id"),
+           @Index(name = "idx_tasks_user_status_rank", columnList = "user_id, status, rank_key"),
+           @Index(name = "idx_tasks_workspace_status", columnList = "workspace_id, status"),
+           @Index(name = "idx_tasks_series_occurrence", columnList = "series_id, occurrence_at", unique = true)
+       })
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -38,6 +48,36 @@ public class Task {
     @Column(name = "due_date")
     private LocalDateTime dueDate;
     
+    @Column(name = "parent_id")
+    private Long parentId;
+    
+    // Team workspace the task is shared in; null for personal tasks
+    @Column(name = "workspace_id")
+    private Long workspaceId;
+    
+    // Manual position within the status column; see RankKeys
+    @Column(name = "rank_key", length = 64)
+    private String rank;
+    
+    // Recurrence rule of a recurring task, starting at its due date; see RecurrenceRule
+    @Column(length = 200)
+    private String recurrence;
+    
+    // Set on a single occurrence of a recurring task once it has been changed on its own
+    @Column(name = "series_id")
+    private Long seriesId;
+    
+    @Column(name = "occurrence_at")
+    private LocalDateTime occurrenceAt;
+    
+    @ElementCollection(fetch = FetchType.EAGER)
+    @CollectionTable(name = "task_tags",
+                     joinColumns = @JoinColumn(name = "task_id"),
+                     indexes = @Index(name = "idx_task_tags_tag", columnList = "tag"))
+    @Column(name = "tag", nullable = false, length = 50)
+    @BatchSize(size = 100)
+    private Set<String> tags = new HashSet<>();
+    
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     @JsonIgnore
@@ -46,6 +86,9 @@ public class Task {
     @Column(nullable = false)
     private boolean archived = false;
     
+    @Column(name = "archived_at")
+    private LocalDateTime archivedAt;
+    
     @Column(name = "deleted_at")
     private LocalDateTime deletedAt;
     
@@ -55,6 +98,11 @@ public class Task {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
     
+    // Exposed as the ETag; clients send it back in If-Match to detect concurrent edits
+    @Version
+    @Column(nullable = false)
+    private long version;
+    
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
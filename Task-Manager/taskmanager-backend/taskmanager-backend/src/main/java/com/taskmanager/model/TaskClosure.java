@@ -0,0 +1,42 @@
+package com.taskmanager.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * One ancestor/descendant path of the subtask hierarchy, including the
+ * zero-depth path from every task to itself. Lets subtree and ancestry
+ * questions be answered with a single indexed lookup.
+ */
+@Entity
+@Table(name = "task_closure",
+       indexes = @Index(name = "idx_task_closure_descendant", columnList = "descendant_id, depth"))
+@IdClass(TaskClosure.Key.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TaskClosure {
+    
+    @Id
+    @Column(name = "ancestor_id")
+    private Long ancestorId;
+    
+    @Id
+    @Column(name = "descendant_id")
+    private Long descendantId;
+    
+    @Column(nullable = false)
+    private int depth;
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long ancestorId;
+        private Long descendantId;
+    }
+}
@@ -0,0 +1,37 @@
+package com.taskmanager.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * "Task is blocked by blocker" edge.
+ */
+@Entity
+@Table(name = "task_dependencies",
+       indexes = @Index(name = "idx_task_dependencies_blocker", columnList = "blocker_id"))
+@IdClass(TaskDependency.Key.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TaskDependency {
+    
+    @Id
+    @Column(name = "task_id")
+    private Long taskId;
+    
+    @Id
+    @Column(name = "blocker_id")
+    private Long blockerId;
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long taskId;
+        private Long blockerId;
+    }
+}
@@ -0,0 +1,36 @@
+package com.taskmanager.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Progress of one day's overdue snapshot. The snapshot walks users in id ranges, one
+ * transaction per range, and whichever instance advances the position first owns the
+ * range. Once it has finished, a user without an {@code overdue} sample for that day had
+ * nothing overdue.
+ */
+@Entity
+@Table(name = "task_overdue_snapshots")
+@Data
+@NoArgsConstructor
+public class TaskOverdueSnapshot {
+    
+    @Id
+    @Column(name = "snapshot_date")
+    private LocalDate snapshotDate;
+    
+    // The moment every range is counted at, so the day's figures agree with each other
+    @Column(name = "taken_at", nullable = false)
+    private LocalDateTime takenAt;
+    
+    // Highest user id covered so far
+    @Column(name = "last_user_id", nullable = false)
+    private long lastUserId;
+    
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+}
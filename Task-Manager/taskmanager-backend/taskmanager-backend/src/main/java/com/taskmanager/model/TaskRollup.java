@@ -0,0 +1,60 @@
+package com.taskmanager.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * What happened to one user's tasks on one day. The counters are added to as tasks are
+ * created and change status, so trends read a few rows per week instead of the task history.
+ * {@code overdue} is different: a count of open overdue tasks taken near the end of the day.
+ */
+@Entity
+@Table(name = "task_daily_rollups")
+@IdClass(TaskRollup.Key.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TaskRollup {
+    
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+    
+    @Id
+    @Column(name = "rollup_date")
+    private LocalDate rollupDate;
+    
+    @Column(nullable = false)
+    private long created;
+    
+    @Column(nullable = false)
+    private long completed;
+    
+    // Tasks moved out of COMPLETED again
+    @Column(nullable = false)
+    private long reopened;
+    
+    // Completions that came after the due date
+    @Column(name = "completed_late", nullable = false)
+    private long completedLate;
+    
+    // Sum over the day's completions of the minutes from creation to completion
+    @Column(name = "completion_minutes", nullable = false)
+    private long completionMinutes;
+    
+    // Null until the day's snapshot has been taken
+    private Long overdue;
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long userId;
+        private LocalDate rollupDate;
+    }
+}
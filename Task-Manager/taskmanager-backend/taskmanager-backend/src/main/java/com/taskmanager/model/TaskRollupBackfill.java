@@ -0,0 +1,48 @@
+package com.taskmanager.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Progress of the one-off job that rolls up tasks from before the rollups existed. Only
+ * events before {@code cutoff} are counted; later ones were recorded as they happened. The
+ * job moves through hot tasks and then the cold tier in id order, and whichever instance
+ * advances the position first owns the chunk, so it resumes anywhere after a restart.
+ * While the hot phase runs, retention only moves tasks it has already passed; the cold
+ * phase skips those by their move time, so no task is counted in both tiers.
+ */
+@Entity
+@Table(name = "task_rollup_backfills")
+@Data
+@NoArgsConstructor
+public class TaskRollupBackfill {
+    
+    public static final long ID = 1;
+    
+    @Id
+    private Long id;
+    
+    @Column(nullable = false)
+    private LocalDateTime cutoff;
+    
+    // Hot table first, then the cold tier
+    @Column(nullable = false)
+    private int phase;
+    
+    // Last task id rolled up in the current phase
+    @Column(name = "last_id", nullable = false)
+    private long lastId;
+    
+    // Where the hot phase ended; set when the cold phase starts
+    @Column(name = "hot_watermark")
+    private Long hotWatermark;
+    
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+    
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+}
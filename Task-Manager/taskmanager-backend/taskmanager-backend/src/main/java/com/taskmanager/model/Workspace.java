@@ -0,0 +1,37 @@
+package com.taskmanager.model;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotBlank;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Team workspace. Tasks created in a workspace stay owned by their creator and are
+ * shared with its members according to their {@link WorkspaceMember.Role}.
+ */
+@Entity
+@Table(name = "workspaces")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Workspace {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @NotBlank(message = "Name is required")
+    @Column(nullable = false, length = 100)
+    private String name;
+    
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+    
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,46 @@
+package com.taskmanager.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * Membership of a user in a workspace.
+ */
+@Entity
+@Table(name = "workspace_members",
+       indexes = @Index(name = "idx_workspace_members_user", columnList = "user_id"))
+@IdClass(WorkspaceMember.Key.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WorkspaceMember {
+    
+    @Id
+    @Column(name = "workspace_id")
+    private Long workspaceId;
+    
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Role role;
+    
+    // Each role includes the rights of the ones before it
+    public enum Role {
+        VIEWER, EDITOR, OWNER
+    }
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long workspaceId;
+        private Long userId;
+    }
+}
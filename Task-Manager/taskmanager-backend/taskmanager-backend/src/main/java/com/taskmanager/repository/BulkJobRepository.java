@@ -0,0 +1,61 @@
+package com.taskmanager.repository;
+
+import com.taskmanager.model.BulkJob;
+import com.taskmanager.model.BulkJob.Status;
+import com.taskmanager.model.BulkJob.Type;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface BulkJobRepository extends JpaRepository<BulkJob, Long> {
+    
+    Optional<BulkJob> findByIdAndUserId(Long id, Long userId);
+    
+    Optional<BulkJob> findFirstByUserIdAndTypeAndStatusIn(Long userId, Type type, Collection<Status> statuses);
+    
+    // Unfinished jobs nobody holds a live lease on, oldest first
+    @Query("SELECT j.id FROM BulkJob j WHERE j.status IN :statuses " +
+           "AND (j.leaseUntil IS NULL OR j.leaseUntil < :now) ORDER BY j.id")
+    List<Long> findClaimable(@Param("statuses") Collection<Status> statuses, @Param("now") LocalDateTime now,
+                             Pageable pageable);
+    
+    // Takes the lease on a job if it is still unfinished and free
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE BulkJob j SET j.status = :running, j.owner = :owner, j.leaseUntil = :leaseUntil, j.updatedAt = :now " +
+           "WHERE j.id = :id AND j.status IN :statuses AND (j.leaseUntil IS NULL OR j.leaseUntil < :now)")
+    int claim(@Param("id") Long id, @Param("statuses") Collection<Status> statuses, @Param("running") Status running,
+              @Param("owner") String owner, @Param("leaseUntil") LocalDateTime leaseUntil,
+              @Param("now") LocalDateTime now);
+    
+    // Records a finished chunk and renews the lease; 0 if another instance has taken the job over
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE BulkJob j SET j.phase = :phase, j.lastId = :lastId, j.processed = j.processed + :processed, " +
+           "j.leaseUntil = :leaseUntil, j.updatedAt = :now WHERE j.id = :id AND j.owner = :owner")
+    int advance(@Param("id") Long id, @Param("owner") String owner, @Param("phase") int phase,
+                @Param("lastId") long lastId, @Param("processed") long processed,
+                @Param("leaseUntil") LocalDateTime leaseUntil, @Param("now") LocalDateTime now);
+    
+    // Hands a job back on shutdown, so it resumes without waiting for the lease to run out
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE BulkJob j SET j.leaseUntil = NULL, j.updatedAt = :now WHERE j.id = :id AND j.owner = :owner")
+    int release(@Param("id") Long id, @Param("owner") String owner, @Param("now") LocalDateTime now);
+    
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE BulkJob j SET j.status = :status, j.error = :error, j.leaseUntil = NULL, " +
+           "j.updatedAt = :now, j.finishedAt = :now WHERE j.id = :id AND j.owner = :owner")
+    int finish(@Param("id") Long id, @Param("owner") String owner, @Param("status") Status status,
+               @Param("error") String error, @Param("now") LocalDateTime now);
+    
+    @Modifying
+    @Query("DELETE FROM BulkJob j WHERE j.finishedAt < :cutoff")
+    int deleteFinishedBefore(@Param("cutoff") LocalDateTime cutoff);
+}
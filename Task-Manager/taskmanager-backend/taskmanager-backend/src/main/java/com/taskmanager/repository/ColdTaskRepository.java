@@ -0,0 +1,120 @@
+package com.taskmanager.repository;
+
+import com.taskmanager.model.ColdTask;
+import com.taskmanager.model.Task.TaskStatus;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+@Repository
+public interface ColdTaskRepository extends JpaRepository<ColdTask, Long> {
+    
+    List<ColdTask> findByUserIdAndDeletedAtIsNotNull(Long userId);
+    
+    List<ColdTask> findByUserIdAndArchivedAndDeletedAtIsNull(Long userId, boolean archived);
+    
+    Optional<ColdTask> findByIdAndUserId(Long id, Long userId);
+    
+    boolean existsByIdAndUserId(Long id, Long userId);
+    
+    long deleteByIdAndUserId(Long id, Long userId);
+    
+    // Next keyset chunk of the cold tier with the fields the trend rollups are built from
+    @Query("SELECT c.id, c.userId, c.status, c.createdAt, c.updatedAt, c.dueDate, c.movedAt FROM ColdTask c " +
+           "WHERE c.id > :afterId ORDER BY c.id")
+    List<Object[]> findRollupRowsAfter(@Param("afterId") Long afterId, Pageable pageable);
+    
+    @Modifying
+    @Query(value = "INSERT INTO tasks_cold (id, title, description, status, priority, due_date, parent_id, workspace_id, rank_key, " +
+                   "recurrence, series_id, occurrence_at, user_id, " +
+                   "archived, archived_at, deleted_at, created_at, updated_at, version, moved_at) " +
+                   "SELECT id, title, description, status, priority, due_date, parent_id, workspace_id, rank_key, " +
+                   "recurrence, series_id, occurrence_at, user_id, " +
+                   "archived, archived_at, deleted_at, created_at, updated_at, version, :movedAt " +
+                   "FROM tasks WHERE id IN (:ids)",
+           nativeQuery = true)
+    int copyFromHot(@Param("ids") List<Long> ids, @Param("movedAt") LocalDateTime movedAt);
+    
+    @Modifying
+    @Query(value = "INSERT INTO task_tags_cold (task_id, tag) SELECT task_id, tag FROM task_tags WHERE task_id IN (:ids)",
+           nativeQuery = true)
+    int copyTagsFromHot(@Param("ids") List<Long> ids);
+    
+    @Modifying
+    @Query(value = "INSERT INTO tasks (id, title, description, status, priority, due_date, parent_id, workspace_id, rank_key, " +
+                   "recurrence, series_id, occurrence_at, user_id, " +
+                   "archived, archived_at, deleted_at, created_at, updated_at, version) " +
+                   "SELECT id, title, description, status, priority, due_date, parent_id, workspace_id, rank_key, " +
+                   "recurrence, series_id, occurrence_at, user_id, " +
+                   "archived, archived_at, deleted_at, created_at, updated_at, version " +
+                   "FROM tasks_cold WHERE id = :id",
+           nativeQuery = true)
+    int copyToHot(@Param("id") Long id);
+    
+    @Modifying
+    @Query(value = "INSERT INTO task_tags (task_id, tag) SELECT task_id, tag FROM task_tags_cold WHERE task_id = :id",
+           nativeQuery = true)
+    int copyTagsToHot(@Param("id") Long id);
+    
+    // Next keyset chunk of a user's deleted cold tasks for a bulk job, locked until the chunk commits
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c.id FROM ColdTask c WHERE c.userId = :userId AND c.id > :afterId AND c.deletedAt IS NOT NULL " +
+           "ORDER BY c.id")
+    List<Long> findDeletedIdsAfter(@Param("userId") Long userId, @Param("afterId") Long afterId, Pageable pageable);
+    
+    long countByUserIdAndDeletedAtIsNotNull(Long userId);
+    
+    @Query("SELECT MIN(c.id) FROM ColdTask c")
+    Long findMinId();
+    
+    @Query("SELECT MAX(c.id) FROM ColdTask c")
+    Long findMaxId();
+    
+    // Every cold task in [fromId, toId) with the fields fleet analytics counts, read in fetch-sized
+    // chunks; must be consumed inside a transaction
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT c.userId, c.status, c.archived, c.deletedAt, c.dueDate FROM ColdTask c " +
+           "WHERE c.id >= :fromId AND c.id < :toId")
+    Stream<Object[]> streamAnalyticsRows(@Param("fromId") Long fromId, @Param("toId") Long toId);
+    
+    // Live cold tasks and open, unarchived overdue ones, counted per owner for the owners in (fromUserId, toUserId]
+    @Query("SELECT c.userId, COUNT(c), " +
+           "SUM(CASE WHEN c.archived = false AND c.status <> :done AND c.dueDate < :now THEN 1 ELSE 0 END) " +
+           "FROM ColdTask c WHERE c.userId > :fromUserId AND c.userId <= :toUserId AND c.deletedAt IS NULL " +
+           "GROUP BY c.userId")
+    List<Object[]> countLoadByUserBetween(@Param("fromUserId") long fromUserId, @Param("toUserId") long toUserId,
+                                          @Param("done") TaskStatus done, @Param("now") LocalDateTime now);
+    
+    @Modifying
+    @Query(value = "INSERT INTO tasks (id, title, description, status, priority, due_date, parent_id, workspace_id, rank_key, " +
+                   "recurrence, series_id, occurrence_at, user_id, " +
+                   "archived, archived_at, deleted_at, created_at, updated_at, version) " +
+                   "SELECT id, title, description, status, priority, due_date, parent_id, workspace_id, rank_key, " +
+                   "recurrence, series_id, occurrence_at, user_id, " +
+                   "archived, archived_at, deleted_at, created_at, updated_at, version " +
+                   "FROM tasks_cold WHERE id IN (:ids)",
+           nativeQuery = true)
+    int copyAllToHot(@Param("ids") List<Long> ids);
+    
+    @Modifying
+    @Query(value = "INSERT INTO task_tags (task_id, tag) SELECT task_id, tag FROM task_tags_cold WHERE task_id IN (:ids)",
+           nativeQuery = true)
+    int copyAllTagsToHot(@Param("ids") List<Long> ids);
+    
+    @Modifying
+    @Query(value = "DELETE FROM task_tags_cold WHERE task_id IN (:ids)", nativeQuery = true)
+    int deleteTagsByTaskIds(@Param("ids") List<Long> ids);
+}
@@ -0,0 +1,33 @@
+package com.taskmanager.repository;
+
+import com.taskmanager.model.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+    
+    // Plain insert, so a key already claimed on another instance fails on the primary key
+    @Modifying
+    @Query(value = "INSERT INTO idempotency_keys (scope_key, fingerprint, started_at, expires_at) " +
+                   "VALUES (:scopeKey, :fingerprint, :startedAt, :expiresAt)",
+           nativeQuery = true)
+    int claim(@Param("scopeKey") String scopeKey, @Param("fingerprint") String fingerprint,
+              @Param("startedAt") LocalDateTime startedAt, @Param("expiresAt") LocalDateTime expiresAt);
+    
+    // Takes over a claim whose request never finished
+    @Modifying
+    @Query("UPDATE IdempotencyRecord r SET r.startedAt = :now " +
+           "WHERE r.scopeKey = :scopeKey AND r.status IS NULL AND r.startedAt < :staleBefore")
+    int reclaim(@Param("scopeKey") String scopeKey, @Param("now") LocalDateTime now,
+                @Param("staleBefore") LocalDateTime staleBefore);
+    
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
@@ -0,0 +1,58 @@
+package com.taskmanager.repository;
+
+import com.taskmanager.model.TaskClosure;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface TaskClosureRepository extends JpaRepository<TaskClosure, TaskClosure.Key> {
+    
+    boolean existsByAncestorIdAndDescendantId(Long ancestorId, Long descendantId);
+    
+    // (descendantId, depth) of the whole subtree, root included, shallowest first. Only ids, since
+    // tasks may live outside this database (the memory profile keeps them in its own engine)
+    @Query("SELECT c.descendantId, c.depth FROM TaskClosure c WHERE c.ancestorId = :id " +
+           "ORDER BY c.depth, c.descendantId")
+    List<Object[]> findSubtreeIds(@Param("id") Long id);
+    
+    // Self path for tasks created before the hierarchy existed
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO task_closure (ancestor_id, descendant_id, depth) VALUES (:id, :id, 0)",
+           nativeQuery = true)
+    int ensureSelf(@Param("id") Long id);
+    
+    // Links every ancestor-or-self of the parent to every node of the subtree rooted at id
+    @Modifying
+    @Query(value = "INSERT INTO task_closure (ancestor_id, descendant_id, depth) " +
+                   "SELECT p.ancestor_id, s.descendant_id, p.depth + s.depth + 1 " +
+                   "FROM task_closure p JOIN task_closure s ON s.ancestor_id = :id " +
+                   "WHERE p.descendant_id = :parentId",
+           nativeQuery = true)
+    int attachSubtree(@Param("id") Long id, @Param("parentId") Long parentId);
+    
+    // Removes the paths from id's strict ancestors into its subtree; the derived tables let MySQL
+    // read task_closure while deleting from it
+    @Modifying
+    @Query(value = "DELETE FROM task_closure " +
+                   "WHERE descendant_id IN (SELECT descendant_id FROM " +
+                   "  (SELECT descendant_id FROM task_closure WHERE ancestor_id = :id) sub) " +
+                   "AND ancestor_id IN (SELECT ancestor_id FROM " +
+                   "  (SELECT ancestor_id FROM task_closure WHERE descendant_id = :id AND depth > 0) anc)",
+           nativeQuery = true)
+    int detachSubtree(@Param("id") Long id);
+    
+    // Removes every path that passes through id, leaving its children as roots of their own subtrees
+    @Modifying
+    @Query(value = "DELETE FROM task_closure " +
+                   "WHERE descendant_id IN (SELECT descendant_id FROM " +
+                   "  (SELECT descendant_id FROM task_closure WHERE ancestor_id = :id) sub) " +
+                   "AND ancestor_id IN (SELECT ancestor_id FROM " +
+                   "  (SELECT ancestor_id FROM task_closure WHERE descendant_id = :id) anc)",
+           nativeQuery = true)
+    int deletePathsThrough(@Param("id") Long id);
+}
@@ -0,0 +1,32 @@
+package com.taskmanager.repository;
+
+import com.taskmanager.model.TaskDependency;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface TaskDependencyRepository extends JpaRepository<TaskDependency, TaskDependency.Key> {
+    
+    // Direct blockers of a task; the tasks themselves are read through TaskRepository, which
+    // is not backed by this database in the memory profile
+    @Query("SELECT d.blockerId FROM TaskDependency d WHERE d.taskId = :taskId ORDER BY d.blockerId")
+    List<Long> findBlockerIds(@Param("taskId") Long taskId);
+    
+    // Direct and indirect blockers of a task
+    @Query(value = "WITH RECURSIVE chain (id) AS (" +
+                   "  SELECT blocker_id FROM task_dependencies WHERE task_id = :taskId " +
+                   "  UNION " +
+                   "  SELECT d.blocker_id FROM task_dependencies d JOIN chain c ON d.task_id = c.id" +
+                   ") SELECT id FROM chain",
+           nativeQuery = true)
+    List<Long> findTransitiveBlockerIds(@Param("taskId") Long taskId);
+    
+    @Modifying
+    @Query("DELETE FROM TaskDependency d WHERE d.taskId = :taskId OR d.blockerId = :taskId")
+    int deleteAllFor(@Param("taskId") Long taskId);
+}
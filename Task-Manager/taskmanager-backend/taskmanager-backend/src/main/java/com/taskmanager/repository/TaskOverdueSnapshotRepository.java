@@ -0,0 +1,38 @@
+package com.taskmanager.repository;
+
+import com.taskmanager.model.TaskOverdueSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface TaskOverdueSnapshotRepository extends JpaRepository<TaskOverdueSnapshot, LocalDate> {
+    
+    // Registers the day's snapshot once; instances arriving later join the existing one
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO task_overdue_snapshots (snapshot_date, taken_at, last_user_id) " +
+                   "VALUES (:date, :takenAt, 0)",
+           nativeQuery = true)
+    int start(@Param("date") LocalDate date, @Param("takenAt") LocalDateTime takenAt);
+    
+    // Claims the next user range by moving the position past it; 0 if another instance got there first
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE TaskOverdueSnapshot s SET s.lastUserId = :lastUserId " +
+           "WHERE s.snapshotDate = :date AND s.lastUserId = :fromUserId AND s.finishedAt IS NULL")
+    int advance(@Param("date") LocalDate date, @Param("fromUserId") long fromUserId,
+                @Param("lastUserId") long lastUserId);
+    
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE TaskOverdueSnapshot s SET s.finishedAt = :now WHERE s.snapshotDate = :date AND s.finishedAt IS NULL")
+    int finish(@Param("date") LocalDate date, @Param("now") LocalDateTime now);
+    
+    @Query("SELECT s.snapshotDate FROM TaskOverdueSnapshot s " +
+           "WHERE s.snapshotDate BETWEEN :from AND :to AND s.finishedAt IS NOT NULL ORDER BY s.snapshotDate")
+    List<LocalDate> findFinishedDates(@Param("from") LocalDate from, @Param("to") LocalDate to);
+}
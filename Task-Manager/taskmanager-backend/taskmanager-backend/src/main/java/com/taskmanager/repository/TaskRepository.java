@@ -4,16 +4,25 @@ import com.taskmanager.model.Task;
 import com.taskmanager.model.Task.TaskStatus;
 import com.taskmanager.model.Task.TaskPriority;
 import com.taskmanager.model.User;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface TaskRepository extends JpaRepository<Task, Long> {
@@ -22,7 +31,50 @@ public interface TaskRepository extends JpaRepository<Task, Long> {
     
     Optional<Task> findByIdAndUser(Long id, User user);
     
-    List<Task> findByUserAndStatusAndDeletedAtIsNull(User user, TaskStatus status);
+    boolean existsByIdAndUser(Long id, User user);
+    
+    boolean existsByIdAndUserAndDeletedAtIsNull(Long id, User user);
+    
+    // A status column in manual order; served by idx_tasks_user_status_rank
+    List<Task> findByUserAndStatusAndDeletedAtIsNullOrderByRankAscIdAsc(User user, TaskStatus status);
+    
+    // Board columns in one pass: the first rows of each status column in rank order after an optional
+    // (afterRank, afterId) keyset cursor, each paired with its column's total. The row number restarts
+    // past the cursor while the count still covers the whole column. Unranked rows sort first, as NULLs do.
+    @Query("SELECT t, b.total FROM Task t JOIN (" +
+           "  SELECT x.id AS id, " +
+           "         COUNT(x.id) OVER (PARTITION BY x.status) AS total, " +
+           "         ROW_NUMBER() OVER (PARTITION BY x.status, " +
+           "             CASE WHEN :afterId IS NULL " +
+           "                    OR (:afterRank IS NULL AND (x.rank IS NOT NULL OR x.id > :afterId)) " +
+           "                    OR x.rank > :afterRank OR (x.rank = :afterRank AND x.id > :afterId) " +
+           "                  THEN 1 ELSE 0 END " +
+           "             ORDER BY x.rank, x.id) AS position, " +
+           "         CASE WHEN :afterId IS NULL " +
+           "                OR (:afterRank IS NULL AND (x.rank IS NOT NULL OR x.id > :afterId)) " +
+           "                OR x.rank > :afterRank OR (x.rank = :afterRank AND x.id > :afterId) " +
+           "              THEN 1 ELSE 0 END AS pastCursor " +
+           "  FROM Task x WHERE x.user = :user AND x.deletedAt IS NULL AND x.recurrence IS NULL " +
+           "  AND (:status IS NULL OR x.status = :status)" +
+           ") b ON b.id = t.id " +
+           "WHERE b.pastCursor = 1 AND b.position <= :limit " +
+           "ORDER BY t.status, b.position")
+    List<Object[]> findBoard(@Param("user") User user,
+                             @Param("status") TaskStatus status,
+                             @Param("afterRank") String afterRank,
+                             @Param("afterId") Long afterId,
+                             @Param("limit") long limit);
+    
+    // Neighbour lookups for rank placement, each a single index seek
+    Optional<Task> findFirstByUserAndStatusAndDeletedAtIsNullOrderByRankDescIdDesc(User user, TaskStatus status);
+    
+    Optional<Task> findFirstByUserAndStatusAndDeletedAtIsNullAndIdNotOrderByRankAscIdAsc(User user, TaskStatus status,
+                                                                                           Long id);
+    
+    Optional<Task> findFirstByUserAndStatusAndDeletedAtIsNullAndRankGreaterThanAndIdNotOrderByRankAscIdAsc(
+        User user, TaskStatus status, String rank, Long id);
+    
+    long countByUserAndStatusAndDeletedAtIsNullAndRank(User user, TaskStatus status, String rank);
     
     List<Task> findByUserAndPriorityAndDeletedAtIsNull(User user, TaskPriority priority);
     
@@ -50,11 +102,271 @@ public interface TaskRepository extends JpaRepository<Task, Long> {
                             @Param("keyword") String keyword,
                             Pageable pageable);
     
-    long countByUserAndStatusAndDeletedAtIsNull(User user, TaskStatus status);
+    // Live tasks shared in any of the given workspaces
+    @Query("SELECT t FROM Task t WHERE t.workspaceId IN :workspaceIds " +
+           "AND t.deletedAt IS NULL " +
+           "AND (:status IS NULL OR t.status = :status) " +
+           "AND (:keyword IS NULL OR LOWER(t.title) LIKE LOWER(CONCAT('%', :keyword, '%')) " +
+           "     OR LOWER(t.description) LIKE LOWER(CONCAT('%', :keyword, '%')))")
+    Page<Task> findByWorkspaces(@Param("workspaceIds") Collection<Long> workspaceIds,
+                                @Param("status") TaskStatus status,
+                                @Param("keyword") String keyword,
+                                Pageable pageable);
+    
+    // (status, count) of the user's live tasks, recurring series left out
+    @Query("SELECT t.status, COUNT(t) FROM Task t WHERE t.user = :user " +
+           "AND t.deletedAt IS NULL AND t.recurrence IS NULL GROUP BY t.status")
+    List<Object[]> countLiveByStatus(@Param("user") User user);
     
     @Query("SELECT t FROM Task t WHERE t.user = :user " +
            "AND t.deletedAt IS NULL " +
            "AND t.status != 'COMPLETED' " +
+           "AND t.recurrence IS NULL " +
            "AND t.dueDate < :now")
     List<Task> findOverdueTasks(@Param("user") User user, @Param("now") LocalDateTime now);
+    
+    // Recurring tasks whose series has started before the end of a window and is still running
+    @Query("SELECT t FROM Task t WHERE t.user = :user AND t.recurrence IS NOT NULL " +
+           "AND t.deletedAt IS NULL AND t.archived = false AND t.status <> :done AND t.dueDate < :to")
+    List<Task> findOpenSeries(@Param("user") User user, @Param("done") TaskStatus done, @Param("to") LocalDateTime to);
+    
+    // (seriesId, occurrenceAt) of the occurrences already written as rows, deleted ones included
+    @Query("SELECT t.seriesId, t.occurrenceAt FROM Task t WHERE t.user = :user AND t.seriesId IN :seriesIds")
+    List<Object[]> findWrittenOccurrences(@Param("user") User user, @Param("seriesIds") Collection<Long> seriesIds);
+    
+    Optional<Task> findByUserAndSeriesIdAndOccurrenceAt(User user, Long seriesId, LocalDateTime occurrenceAt);
+    
+    // Next keyset batch of tasks deleted or archived before the cutoff, read without locks since the
+    // predicate is not indexed. Written occurrences of recurring tasks stay, since expansion looks them up here
+    @Query("SELECT t.id FROM Task t WHERE t.id > :afterId AND t.seriesId IS NULL " +
+           "AND ((t.deletedAt IS NOT NULL AND t.deletedAt < :cutoff) " +
+           "     OR (t.archived = true AND COALESCE(t.archivedAt, t.updatedAt) < :cutoff)) " +
+           "ORDER BY t.id")
+    List<Long> findRetentionCandidates(@Param("afterId") Long afterId,
+                                       @Param("cutoff") LocalDateTime cutoff,
+                                       Pageable pageable);
+    
+    // Locks the candidates by primary key for the move, dropping any restored or unarchived meanwhile
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT t.id FROM Task t WHERE t.id IN :ids " +
+           "AND ((t.deletedAt IS NOT NULL AND t.deletedAt < :cutoff) " +
+           "     OR (t.archived = true AND COALESCE(t.archivedAt, t.updatedAt) < :cutoff)) " +
+           "ORDER BY t.id")
+    List<Long> lockRetentionCandidates(@Param("ids") Collection<Long> ids, @Param("cutoff") LocalDateTime cutoff);
+    
+    // Next keyset chunk of a user's tasks for a bulk job, locked until the chunk commits
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT t.id FROM Task t WHERE t.user = :user AND t.id > :afterId AND t.deletedAt IS NULL ORDER BY t.id")
+    List<Long> findLiveIdsAfter(@Param("user") User user, @Param("afterId") Long afterId, Pageable pageable);
+    
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT t.id FROM Task t WHERE t.user = :user AND t.id > :afterId AND t.deletedAt IS NULL " +
+           "AND t.status = :status AND t.archived = false ORDER BY t.id")
+    List<Long> findUnarchivedIdsByStatusAfter(@Param("user") User user, @Param("status") TaskStatus status,
+                                              @Param("afterId") Long afterId, Pageable pageable);
+    
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT t.id FROM Task t WHERE t.user = :user AND t.id > :afterId AND t.deletedAt IS NOT NULL ORDER BY t.id")
+    List<Long> findDeletedIdsAfter(@Param("user") User user, @Param("afterId") Long afterId, Pageable pageable);
+    
+    long countByUserAndDeletedAtIsNull(User user);
+    
+    long countByUserAndDeletedAtIsNotNull(User user);
+    
+    long countByUserAndStatusAndArchivedAndDeletedAtIsNull(User user, TaskStatus status, boolean archived);
+    
+    @Query("SELECT t FROM Task t WHERE t.user = :user " +
+           "AND t.deletedAt IS NULL " +
+           "AND t.dueDate >= :from AND t.dueDate < :to " +
+           "ORDER BY t.dueDate")
+    List<Task> findByDueDateRange(@Param("user") User user,
+                                  @Param("from") LocalDateTime from,
+                                  @Param("to") LocalDateTime to);
+    
+    @Query(value = "SELECT DATE(t.due_date) AS bucket, t.status AS status, COUNT(*) AS total " +
+                   "FROM tasks t WHERE t.user_id = :userId " +
+                   "AND t.deleted_at IS NULL AND t.recurrence IS NULL " +
+                   "AND t.due_date >= :from AND t.due_date < :to " +
+                   "GROUP BY bucket, t.status ORDER BY bucket",
+           nativeQuery = true)
+    List<CalendarCount> countByDueDay(@Param("userId") Long userId,
+                                      @Param("from") LocalDateTime from,
+                                      @Param("to") LocalDateTime to);
+    
+    // Weeks start on Monday
+    @Query(value = "SELECT DATE_SUB(DATE(t.due_date), INTERVAL WEEKDAY(t.due_date) DAY) AS bucket, " +
+                   "t.status AS status, COUNT(*) AS total " +
+                   "FROM tasks t WHERE t.user_id = :userId " +
+                   "AND t.deleted_at IS NULL AND t.recurrence IS NULL " +
+                   "AND t.due_date >= :from AND t.due_date < :to " +
+                   "GROUP BY bucket, t.status ORDER BY bucket",
+           nativeQuery = true)
+    List<CalendarCount> countByDueWeek(@Param("userId") Long userId,
+                                       @Param("from") LocalDateTime from,
+                                       @Param("to") LocalDateTime to);
+    
+    // Conditional single-row writes: each returns the affected row count, 0 meaning no such
+    // task for this user (or, when a version is given, a stale version). The user reaches their
+    // own tasks and those shared in workspaceIds, the workspaces they may edit.
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Task t SET t.status = :status, t.updatedAt = :now, t.version = t.version + 1 " +
+           "WHERE t.id = :id AND (t.user = :user OR t.workspaceId IN :workspaceIds) " +
+           "AND (:version IS NULL OR t.version = :version)")
+    int updateStatus(@Param("id") Long id, @Param("user") User user,
+                     @Param("workspaceIds") Collection<Long> workspaceIds, @Param("status") TaskStatus status,
+                     @Param("now") LocalDateTime now, @Param("version") Long version);
+    
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Task t SET t.archived = true, t.archivedAt = :now, t.updatedAt = :now, t.version = t.version + 1 " +
+           "WHERE t.id = :id AND (t.user = :user OR t.workspaceId IN :workspaceIds) " +
+           "AND (:version IS NULL OR t.version = :version)")
+    int archive(@Param("id") Long id, @Param("user") User user, @Param("workspaceIds") Collection<Long> workspaceIds,
+                @Param("now") LocalDateTime now, @Param("version") Long version);
+    
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Task t SET t.archived = false, t.archivedAt = NULL, t.updatedAt = :now, t.version = t.version + 1 " +
+           "WHERE t.id = :id AND (t.user = :user OR t.workspaceId IN :workspaceIds) " +
+           "AND (:version IS NULL OR t.version = :version)")
+    int unarchive(@Param("id") Long id, @Param("user") User user, @Param("workspaceIds") Collection<Long> workspaceIds,
+                  @Param("now") LocalDateTime now, @Param("version") Long version);
+    
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Task t SET t.deletedAt = :now, t.updatedAt = :now, t.version = t.version + 1 " +
+           "WHERE t.id = :id AND (t.user = :user OR t.workspaceId IN :workspaceIds) " +
+           "AND (:version IS NULL OR t.version = :version)")
+    int softDelete(@Param("id") Long id, @Param("user") User user, @Param("workspaceIds") Collection<Long> workspaceIds,
+                   @Param("now") LocalDateTime now, @Param("version") Long version);
+    
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Task t SET t.deletedAt = NULL, t.updatedAt = :now, t.version = t.version + 1 " +
+           "WHERE t.id = :id AND (t.user = :user OR t.workspaceId IN :workspaceIds) AND t.deletedAt IS NOT NULL " +
+           "AND (:version IS NULL OR t.version = :version)")
+    int restore(@Param("id") Long id, @Param("user") User user, @Param("workspaceIds") Collection<Long> workspaceIds,
+                @Param("now") LocalDateTime now, @Param("version") Long version);
+    
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Task t SET t.status = :status, t.rank = :rank, t.updatedAt = :now, t.version = t.version + 1 " +
+           "WHERE t.id = :id AND (t.user = :user OR t.workspaceId IN :workspaceIds) AND t.deletedAt IS NULL " +
+           "AND (:version IS NULL OR t.version = :version)")
+    int moveToRank(@Param("id") Long id, @Param("user") User user, @Param("workspaceIds") Collection<Long> workspaceIds,
+                   @Param("status") TaskStatus status, @Param("rank") String rank, @Param("now") LocalDateTime now,
+                   @Param("version") Long version);
+    
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Task t SET t.parentId = :parentId, t.updatedAt = :now, t.version = t.version + 1 " +
+           "WHERE t.id = :id AND t.user = :user AND t.deletedAt IS NULL " +
+           "AND (:version IS NULL OR t.version = :version)")
+    int moveToParent(@Param("id") Long id, @Param("user") User user, @Param("parentId") Long parentId,
+                     @Param("now") LocalDateTime now, @Param("version") Long version);
+    
+    // Chunk updates of the bulk jobs, one statement per chunk
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Task t SET t.deletedAt = :now, t.updatedAt = :now, t.version = t.version + 1 " +
+           "WHERE t.id IN :ids AND t.deletedAt IS NULL")
+    int softDeleteAll(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+    
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Task t SET t.archived = true, t.archivedAt = :now, t.updatedAt = :now, t.version = t.version + 1 " +
+           "WHERE t.id IN :ids AND t.deletedAt IS NULL AND t.archived = false")
+    int archiveAll(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+    
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Task t SET t.deletedAt = NULL, t.updatedAt = :now, t.version = t.version + 1 " +
+           "WHERE t.id IN :ids AND t.deletedAt IS NOT NULL")
+    int restoreAll(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+    
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM Task t WHERE t.id = :id AND t.user = :user AND (:version IS NULL OR t.version = :version)")
+    int deleteByIdAndUser(@Param("id") Long id, @Param("user") User user, @Param("version") Long version);
+    
+    @Modifying
+    @Query(value = "DELETE tt FROM task_tags tt JOIN tasks t ON t.id = tt.task_id " +
+                   "WHERE t.id = :id AND t.user_id = :userId",
+           nativeQuery = true)
+    int deleteTagsOfTask(@Param("id") Long id, @Param("userId") Long userId);
+    
+    @Modifying
+    @Query(value = "DELETE FROM task_tags WHERE task_id IN (:ids)", nativeQuery = true)
+    int deleteTagsByTaskIds(@Param("ids") List<Long> ids);
+    
+    @Query("SELECT DISTINCT t.user.id FROM Task t WHERE t.id IN :ids")
+    List<Long> findUserIdsByIdIn(@Param("ids") List<Long> ids);
+    
+    // One row per (task, tag) of the user's live tasks; tag is null for untagged tasks
+    @Query("SELECT t.id, t.status, t.priority, t.archived, tag FROM Task t LEFT JOIN t.tags tag " +
+           "WHERE t.user = :user AND t.deletedAt IS NULL")
+    List<Object[]> findIndexRows(@Param("user") User user);
+    
+    // Ranking keys of the user's open tasks
+    @Query("SELECT t.id, t.priority, t.dueDate, t.createdAt FROM Task t WHERE t.user = :user " +
+           "AND t.deletedAt IS NULL AND t.archived = false AND t.recurrence IS NULL AND t.status <> :done")
+    List<Object[]> findOpenTaskRanking(@Param("user") User user, @Param("done") TaskStatus done);
+    
+    // Next keyset chunk of all tasks with the fields the trend rollups are built from
+    @Query("SELECT t.id, t.user.id, t.status, t.createdAt, t.updatedAt, t.dueDate FROM Task t " +
+           "WHERE t.id > :afterId ORDER BY t.id")
+    List<Object[]> findRollupRowsAfter(@Param("afterId") Long afterId, Pageable pageable);
+    
+    // Open, unarchived tasks past their due date, counted per owner for the owners in (fromUserId, toUserId]
+    @Query("SELECT t.user.id, COUNT(t) FROM Task t WHERE t.user.id > :fromUserId AND t.user.id <= :toUserId " +
+           "AND t.deletedAt IS NULL AND t.archived = false AND t.recurrence IS NULL " +
+           "AND t.status <> :done AND t.dueDate < :now GROUP BY t.user.id")
+    List<Object[]> countOverdueByUserBetween(@Param("fromUserId") long fromUserId, @Param("toUserId") long toUserId,
+                                             @Param("done") TaskStatus done, @Param("now") LocalDateTime now);
+    
+    // Live tasks and open, unarchived overdue ones, counted per owner for the owners in (fromUserId, toUserId]
+    @Query("SELECT t.user.id, COUNT(t), " +
+           "SUM(CASE WHEN t.archived = false AND t.status <> :done AND t.dueDate < :now THEN 1 ELSE 0 END) " +
+           "FROM Task t WHERE t.user.id > :fromUserId AND t.user.id <= :toUserId AND t.deletedAt IS NULL " +
+           "GROUP BY t.user.id")
+    List<Object[]> countLoadByUserBetween(@Param("fromUserId") long fromUserId, @Param("toUserId") long toUserId,
+                                          @Param("done") TaskStatus done, @Param("now") LocalDateTime now);
+    
+    @Query("SELECT MIN(t.id) FROM Task t")
+    Long findMinId();
+    
+    @Query("SELECT MAX(t.id) FROM Task t")
+    Long findMaxId();
+    
+    // Every task in [fromId, toId) with the fields fleet analytics counts, read in fetch-sized chunks;
+    // must be consumed inside a transaction
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT t.user.id, t.status, t.archived, t.deletedAt, t.dueDate FROM Task t " +
+           "WHERE t.id >= :fromId AND t.id < :toId")
+    Stream<Object[]> streamAnalyticsRows(@Param("fromId") Long fromId, @Param("toId") Long toId);
+    
+    // Titles of the user's live tasks with when each was last changed, for title suggestions
+    @Query("SELECT t.id, t.title, t.updatedAt FROM Task t WHERE t.user = :user AND t.deletedAt IS NULL")
+    List<Object[]> findTitleRows(@Param("user") User user);
+    
+    // Which of the given ids belong to tasks whose title or description contains the keyword
+    @Query("SELECT t.id FROM Task t WHERE t.id IN :ids " +
+           "AND (LOWER(t.title) LIKE LOWER(CONCAT('%', :keyword, '%')) " +
+           "     OR LOWER(t.description) LIKE LOWER(CONCAT('%', :keyword, '%')))")
+    List<Long> findIdsByIdInAndKeyword(@Param("ids") Collection<Long> ids, @Param("keyword") String keyword);
+    
+    // Status columns holding tasks that have never been ranked
+    @Query("SELECT DISTINCT t.user.id, t.status FROM Task t WHERE t.deletedAt IS NULL AND t.rank IS NULL")
+    List<Object[]> findUnrankedColumns();
+    
+    // Ids of a status column in listing order (unranked tasks first, as NULLs sort), locked for re-keying
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT t.id FROM Task t WHERE t.user.id = :userId AND t.status = :status AND t.deletedAt IS NULL " +
+           "ORDER BY t.rank, t.id")
+    List<Long> findColumnForRebalance(@Param("userId") Long userId, @Param("status") TaskStatus status);
+    
+    // Re-keying keeps the order, so it is not a user-visible edit and leaves the version alone
+    @Modifying
+    @Query("UPDATE Task t SET t.rank = :rank WHERE t.id = :id")
+    int updateRank(@Param("id") Long id, @Param("rank") String rank);
+    
+    @Modifying
+    @Query("UPDATE Task t SET t.parentId = NULL WHERE t.parentId = :parentId")
+    int clearParent(@Param("parentId") Long parentId);
+    
+    interface CalendarCount {
+        LocalDate getBucket();
+        TaskStatus getStatus();
+        long getTotal();
+    }
 }
\ No newline at end of file
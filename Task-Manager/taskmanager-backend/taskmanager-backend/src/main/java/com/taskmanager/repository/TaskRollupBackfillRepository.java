@@ -0,0 +1,38 @@
+package com.taskmanager.repository;
+
+import com.taskmanager.model.TaskRollupBackfill;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface TaskRollupBackfillRepository extends JpaRepository<TaskRollupBackfill, Long> {
+    
+    // Registers the backfill once; instances starting later find it and leave it be
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO task_rollup_backfills (id, cutoff, phase, last_id, updated_at) " +
+                   "VALUES (:id, :cutoff, 0, 0, :cutoff)",
+           nativeQuery = true)
+    int start(@Param("id") Long id, @Param("cutoff") LocalDateTime cutoff);
+    
+    // Claims the next chunk by moving the position past it; 0 if another instance got there first
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE TaskRollupBackfill b SET b.phase = :phase, b.lastId = :lastId, b.updatedAt = :now " +
+           "WHERE b.id = :id AND b.phase = :fromPhase AND b.lastId = :fromLastId AND b.finishedAt IS NULL")
+    int advance(@Param("id") Long id, @Param("fromPhase") int fromPhase, @Param("fromLastId") long fromLastId,
+                @Param("phase") int phase, @Param("lastId") long lastId, @Param("now") LocalDateTime now);
+    
+    // Moves on to the cold tier, remembering how far the hot phase got
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE TaskRollupBackfill b SET b.phase = 1, b.lastId = 0, b.hotWatermark = :fromLastId, b.updatedAt = :now " +
+           "WHERE b.id = :id AND b.phase = 0 AND b.lastId = :fromLastId AND b.finishedAt IS NULL")
+    int startColdPhase(@Param("id") Long id, @Param("fromLastId") long fromLastId, @Param("now") LocalDateTime now);
+    
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE TaskRollupBackfill b SET b.finishedAt = :now, b.updatedAt = :now WHERE b.id = :id AND b.finishedAt IS NULL")
+    int finish(@Param("id") Long id, @Param("now") LocalDateTime now);
+}
@@ -0,0 +1,38 @@
+package com.taskmanager.repository;
+
+import com.taskmanager.model.TaskRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface TaskRollupRepository extends JpaRepository<TaskRollup, TaskRollup.Key> {
+    
+    List<TaskRollup> findByUserIdAndRollupDateBetweenOrderByRollupDate(Long userId, LocalDate from, LocalDate to);
+    
+    // Adds to a day's counters in one statement, creating the row on its first event
+    @Modifying
+    @Query(value = "INSERT INTO task_daily_rollups " +
+                   "(user_id, rollup_date, created, completed, reopened, completed_late, completion_minutes) " +
+                   "VALUES (:userId, :date, :created, :completed, :reopened, :completedLate, :completionMinutes) " +
+                   "ON DUPLICATE KEY UPDATE created = created + :created, completed = completed + :completed, " +
+                   "reopened = reopened + :reopened, completed_late = completed_late + :completedLate, " +
+                   "completion_minutes = completion_minutes + :completionMinutes",
+           nativeQuery = true)
+    int addCounts(@Param("userId") Long userId, @Param("date") LocalDate date, @Param("created") long created,
+                  @Param("completed") long completed, @Param("reopened") long reopened,
+                  @Param("completedLate") long completedLate, @Param("completionMinutes") long completionMinutes);
+    
+    @Modifying
+    @Query(value = "INSERT INTO task_daily_rollups " +
+                   "(user_id, rollup_date, created, completed, reopened, completed_late, completion_minutes, overdue) " +
+                   "VALUES (:userId, :date, 0, 0, 0, 0, 0, :overdue) " +
+                   "ON DUPLICATE KEY UPDATE overdue = :overdue",
+           nativeQuery = true)
+    int setOverdue(@Param("userId") Long userId, @Param("date") LocalDate date, @Param("overdue") long overdue);
+}
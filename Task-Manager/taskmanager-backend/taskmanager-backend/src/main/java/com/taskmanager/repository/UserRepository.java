@@ -1,10 +1,16 @@
 package com.taskmanager.repository;
 
 import com.taskmanager.model.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
@@ -16,4 +22,13 @@ public interface UserRepository extends JpaRepository<User, Long> {
     Boolean existsByUsername(String username);
     
     Boolean existsByEmail(String email);
+    
+    // Id, username and email of every user after the given id in id order, read in fetch-sized
+    // chunks (MySQL needs useCursorFetch for that); must be consumed inside a transaction
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT u.id, u.username, u.email FROM User u WHERE u.id > :afterId ORDER BY u.id")
+    Stream<Object[]> streamUsernamesAndEmailsAfter(@Param("afterId") long afterId);
+    
+    @Query("SELECT MAX(u.id) FROM User u")
+    Long findMaxId();
 }
\ No newline at end of file
@@ -0,0 +1,18 @@
+package com.taskmanager.repository;
+
+import com.taskmanager.model.WorkspaceMember;
+import com.taskmanager.model.WorkspaceMember.Role;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface WorkspaceMemberRepository extends JpaRepository<WorkspaceMember, WorkspaceMember.Key> {
+    
+    List<WorkspaceMember> findByUserId(Long userId);
+    
+    List<WorkspaceMember> findByWorkspaceId(Long workspaceId);
+    
+    long countByWorkspaceIdAndRole(Long workspaceId, Role role);
+}
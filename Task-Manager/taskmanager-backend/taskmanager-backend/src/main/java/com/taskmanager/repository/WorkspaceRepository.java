@@ -0,0 +1,9 @@
+package com.taskmanager.repository;
+
+import com.taskmanager.model.Workspace;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface WorkspaceRepository extends JpaRepository<Workspace, Long> {
+}
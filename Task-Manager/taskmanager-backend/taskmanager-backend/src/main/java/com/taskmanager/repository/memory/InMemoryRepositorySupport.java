@@ -0,0 +1,217 @@
+package com.taskmanager.repository.memory;
+
+import jakarta.persistence.EntityNotFoundException;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.repository.query.FluentQuery;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+/**
+ * The generic {@link JpaRepository} methods for the in-memory repositories, built on
+ * a handful of per-entity primitives. Query-by-example is not supported.
+ */
+abstract class InMemoryRepositorySupport<T> implements JpaRepository<T, Long> {
+    
+    protected abstract Long idOf(T entity);
+    
+    // Key used for sorting by the given property; unknown properties are rejected
+    protected abstract Function<T, Comparable<?>> sortKey(String property);
+    
+    @Override
+    public abstract <S extends T> S save(S entity);
+    
+    @Override
+    public abstract Optional<T> findById(Long id);
+    
+    @Override
+    public abstract List<T> findAll();
+    
+    @Override
+    public abstract void deleteById(Long id);
+    
+    @Override
+    public boolean existsById(Long id) {
+        return findById(id).isPresent();
+    }
+    
+    @Override
+    public long count() {
+        return findAll().size();
+    }
+    
+    @Override
+    public <S extends T> List<S> saveAll(Iterable<S> entities) {
+        List<S> saved = new ArrayList<>();
+        entities.forEach(entity -> saved.add(save(entity)));
+        return saved;
+    }
+    
+    @Override
+    public <S extends T> S saveAndFlush(S entity) {
+        return save(entity);
+    }
+    
+    @Override
+    public <S extends T> List<S> saveAllAndFlush(Iterable<S> entities) {
+        return saveAll(entities);
+    }
+    
+    @Override
+    public void flush() {
+    }
+    
+    @Override
+    public List<T> findAllById(Iterable<Long> ids) {
+        return StreamSupport.stream(ids.spliterator(), false)
+            .map(this::findById)
+            .flatMap(Optional::stream)
+            .collect(Collectors.toList());
+    }
+    
+    @Override
+    public List<T> findAll(Sort sort) {
+        List<T> all = new ArrayList<>(findAll());
+        if (sort.isSorted()) {
+            all.sort(comparator(sort));
+        }
+        return all;
+    }
+    
+    @Override
+    public Page<T> findAll(Pageable pageable) {
+        return page(findAll(), pageable);
+    }
+    
+    @Override
+    public T getReferenceById(Long id) {
+        return findById(id).orElseThrow(() -> new EntityNotFoundException("No entity with id " + id));
+    }
+    
+    @Override
+    @Deprecated
+    public T getOne(Long id) {
+        return getReferenceById(id);
+    }
+    
+    @Override
+    @Deprecated
+    public T getById(Long id) {
+        return getReferenceById(id);
+    }
+    
+    @Override
+    public void delete(T entity) {
+        deleteById(idOf(entity));
+    }
+    
+    @Override
+    public void deleteAllById(Iterable<? extends Long> ids) {
+        ids.forEach(this::deleteById);
+    }
+    
+    @Override
+    public void deleteAll(Iterable<? extends T> entities) {
+        entities.forEach(this::delete);
+    }
+    
+    @Override
+    public void deleteAll() {
+        findAll().forEach(this::delete);
+    }
+    
+    @Override
+    public void deleteAllInBatch(Iterable<T> entities) {
+        deleteAll(entities);
+    }
+    
+    @Override
+    public void deleteAllByIdInBatch(Iterable<Long> ids) {
+        deleteAllById(ids);
+    }
+    
+    @Override
+    public void deleteAllInBatch() {
+        deleteAll();
+    }
+    
+    @Override
+    public <S extends T> Optional<S> findOne(Example<S> example) {
+        throw unsupported();
+    }
+    
+    @Override
+    public <S extends T> List<S> findAll(Example<S> example) {
+        throw unsupported();
+    }
+    
+    @Override
+    public <S extends T> List<S> findAll(Example<S> example, Sort sort) {
+        throw unsupported();
+    }
+    
+    @Override
+    public <S extends T> Page<S> findAll(Example<S> example, Pageable pageable) {
+        throw unsupported();
+    }
+    
+    @Override
+    public <S extends T> long count(Example<S> example) {
+        throw unsupported();
+    }
+    
+    @Override
+    public <S extends T> boolean exists(Example<S> example) {
+        throw unsupported();
+    }
+    
+    @Override
+    public <S extends T, R> R findBy(Example<S> example, Function<FluentQuery.FetchableFluentQuery<S>, R> queryFunction) {
+        throw unsupported();
+    }
+    
+    // Sorts (when the pageable asks for it) and slices an in-memory result
+    protected Page<T> page(List<T> items, Pageable pageable) {
+        if (pageable.isUnpaged()) {
+            return new PageImpl<>(items);
+        }
+        List<T> sorted = items;
+        if (pageable.getSort().isSorted()) {
+            sorted = new ArrayList<>(items);
+            sorted.sort(comparator(pageable.getSort()));
+        }
+        int from = (int) Math.min(pageable.getOffset(), sorted.size());
+        int to = Math.min(from + pageable.getPageSize(), sorted.size());
+        return new PageImpl<>(new ArrayList<>(sorted.subList(from, to)), pageable, sorted.size());
+    }
+    
+    // Like the database: nulls first when ascending, last when descending
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    protected Comparator<T> comparator(Sort sort) {
+        Comparator<T> comparator = null;
+        for (Sort.Order order : sort) {
+            Function<T, Comparable> key = (Function) sortKey(order.getProperty());
+            Comparator<T> next = Comparator.comparing(key, Comparator.nullsFirst(Comparator.naturalOrder()));
+            if (order.isDescending()) {
+                next = next.reversed();
+            }
+            comparator = comparator == null ? next : comparator.thenComparing(next);
+        }
+        return Objects.requireNonNull(comparator);
+    }
+    
+    private static UnsupportedOperationException unsupported() {
+        return new UnsupportedOperationException("Query by example is not supported by the in-memory store");
+    }
+}
@@ -0,0 +1,746 @@
+package com.taskmanager.repository.memory;
+
+import com.taskmanager.model.Task;
+import com.taskmanager.model.Task.TaskPriority;
+import com.taskmanager.model.Task.TaskStatus;
+import com.taskmanager.model.User;
+import com.taskmanager.repository.TaskRepository;
+import com.taskmanager.repository.memory.MemoryStorageEngine.TimeKey;
+import com.taskmanager.repository.memory.MemoryStorageEngine.UserTaskIndex;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Repository;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * {@link TaskRepository} on top of the {@link MemoryStorageEngine}. Each query starts
+ * from the narrowest per-user index and re-checks its conditions on the stored row;
+ * the bulk updates mirror their JPQL, including the explicit version bump.
+ */
+@Repository
+@Primary
+@Profile("memory")
+public class InMemoryTaskRepository extends InMemoryRepositorySupport<Task> implements TaskRepository {
+    
+    private static final Comparator<Task> IN_RANK_ORDER =
+        Comparator.comparing(Task::getRank, Comparator.nullsFirst(Comparator.<String>naturalOrder()))
+            .thenComparing(Task::getId);
+    
+    @Autowired
+    private MemoryStorageEngine engine;
+    
+    @Override
+    public List<Task> findByUserAndDeletedAtIsNull(User user) {
+        return copies(rows(index(user).live).filter(row -> row.getDeletedAt() == null));
+    }
+    
+    @Override
+    public Optional<Task> findByIdAndUser(Long id, User user) {
+        return Optional.ofNullable(engine.taskRow(id))
+            .filter(row -> ownedBy(row, user))
+            .map(engine::copy);
+    }
+    
+    @Override
+    public boolean existsByIdAndUser(Long id, User user) {
+        Task row = engine.taskRow(id);
+        return row != null && ownedBy(row, user);
+    }
+    
+    @Override
+    public boolean existsByIdAndUserAndDeletedAtIsNull(Long id, User user) {
+        Task row = engine.taskRow(id);
+        return row != null && ownedBy(row, user) && row.getDeletedAt() == null;
+    }
+    
+    @Override
+    public List<Task> findByUserAndStatusAndDeletedAtIsNullOrderByRankAscIdAsc(User user, TaskStatus status) {
+        return copies(column(user, status));
+    }
+    
+    @Override
+    public List<Object[]> findBoard(User user, TaskStatus status, String afterRank, Long afterId, long limit) {
+        List<Object[]> result = new ArrayList<>();
+        for (TaskStatus columnStatus : status == null ? TaskStatus.values() : new TaskStatus[] {status}) {
+            List<Task> column = column(user, columnStatus)
+                .filter(row -> row.getRecurrence() == null)
+                .collect(Collectors.toList());
+            long total = column.size();
+            column.stream()
+                .filter(row -> afterId == null || IN_RANK_ORDER.compare(row, cursor(afterRank, afterId)) > 0)
+                .limit(limit)
+                .forEach(row -> result.add(new Object[] {engine.copy(row), total}));
+        }
+        return result;
+    }
+    
+    @Override
+    public Optional<Task> findFirstByUserAndStatusAndDeletedAtIsNullOrderByRankDescIdDesc(User user, TaskStatus status) {
+        return column(user, status).reduce((first, second) -> second).map(engine::copy);
+    }
+    
+    @Override
+    public Optional<Task> findFirstByUserAndStatusAndDeletedAtIsNullAndIdNotOrderByRankAscIdAsc(User user, TaskStatus status,
+                                                                                                  Long id) {
+        return column(user, status).filter(row -> !row.getId().equals(id)).findFirst().map(engine::copy);
+    }
+    
+    @Override
+    public Optional<Task> findFirstByUserAndStatusAndDeletedAtIsNullAndRankGreaterThanAndIdNotOrderByRankAscIdAsc(
+        User user, TaskStatus status, String rank, Long id) {
+        return column(user, status)
+            .filter(row -> row.getRank() != null && row.getRank().compareTo(rank) > 0 && !row.getId().equals(id))
+            .findFirst()
+            .map(engine::copy);
+    }
+    
+    @Override
+    public long countByUserAndStatusAndDeletedAtIsNullAndRank(User user, TaskStatus status, String rank) {
+        return column(user, status).filter(row -> rank.equals(row.getRank())).count();
+    }
+    
+    @Override
+    public List<Task> findByUserAndPriorityAndDeletedAtIsNull(User user, TaskPriority priority) {
+        return copies(rows(index(user).byPriority.get(priority))
+            .filter(row -> row.getDeletedAt() == null && row.getPriority() == priority));
+    }
+    
+    @Override
+    public List<Task> findByUserAndTitleContainingIgnoreCaseAndDeletedAtIsNull(User user, String title) {
+        String needle = title.toLowerCase(Locale.ROOT);
+        return copies(rows(index(user).live)
+            .filter(row -> row.getDeletedAt() == null && contains(row.getTitle(), needle)));
+    }
+    
+    @Override
+    public List<Task> findByUserAndDeletedAtIsNullOrderByCreatedAtDesc(User user) {
+        return copies(rows(index(user).byCreatedAt.descendingSet().stream().map(TimeKey::id).collect(Collectors.toList()))
+            .filter(row -> row.getDeletedAt() == null));
+    }
+    
+    @Override
+    public Page<Task> findByUserAndDeletedAtIsNull(User user, Pageable pageable) {
+        return page(findByUserAndDeletedAtIsNull(user), pageable);
+    }
+    
+    @Override
+    public List<Task> findByUserAndArchivedAndDeletedAtIsNull(User user, boolean archived) {
+        UserTaskIndex index = index(user);
+        return copies(rows(archived ? index.archived : index.live)
+            .filter(row -> row.getDeletedAt() == null && row.isArchived() == archived));
+    }
+    
+    @Override
+    public List<Task> findByUserAndDeletedAtIsNotNull(User user) {
+        return copies(rows(index(user).deleted).filter(row -> row.getDeletedAt() != null));
+    }
+    
+    @Override
+    public Page<Task> findByFilters(User user, TaskStatus status, TaskPriority priority, Boolean archived,
+                                   String keyword, Pageable pageable) {
+        UserTaskIndex index = index(user);
+        Collection<Long> candidates = index.live;
+        if (status != null && index.byStatus.get(status).size() < candidates.size()) {
+            candidates = index.byStatus.get(status);
+        }
+        if (priority != null && index.byPriority.get(priority).size() < candidates.size()) {
+            candidates = index.byPriority.get(priority);
+        }
+        if (Boolean.TRUE.equals(archived) && index.archived.size() < candidates.size()) {
+            candidates = index.archived;
+        }
+        String needle = keyword == null ? null : keyword.toLowerCase(Locale.ROOT);
+        return page(copies(rows(candidates).filter(row -> row.getDeletedAt() == null
+            && (status == null || row.getStatus() == status)
+            && (priority == null || row.getPriority() == priority)
+            && (archived == null || row.isArchived() == archived)
+            && (needle == null || contains(row.getTitle(), needle) || contains(row.getDescription(), needle)))),
+            pageable);
+    }
+    
+    @Override
+    public Page<Task> findByWorkspaces(Collection<Long> workspaceIds, TaskStatus status, String keyword,
+                                       Pageable pageable) {
+        String needle = keyword == null ? null : keyword.toLowerCase(Locale.ROOT);
+        return page(copies(workspaceIds.stream()
+            .flatMap(workspaceId -> rows(engine.workspaceTasks(workspaceId)))
+            .filter(row -> row.getDeletedAt() == null
+                && (status == null || row.getStatus() == status)
+                && (needle == null || contains(row.getTitle(), needle) || contains(row.getDescription(), needle)))),
+            pageable);
+    }
+    
+    @Override
+    public List<Object[]> countLiveByStatus(User user) {
+        List<Object[]> result = new ArrayList<>();
+        for (TaskStatus status : TaskStatus.values()) {
+            long count = rows(index(user).byStatus.get(status))
+                .filter(row -> row.getDeletedAt() == null && row.getRecurrence() == null && row.getStatus() == status)
+                .count();
+            if (count > 0) {
+                result.add(new Object[] {status, count});
+            }
+        }
+        return result;
+    }
+    
+    @Override
+    public List<Task> findOverdueTasks(User user, LocalDateTime now) {
+        return copies(rows(ids(index(user).byDueDate.headSet(TimeKey.floor(now))))
+            .filter(row -> row.getDeletedAt() == null && row.getStatus() != TaskStatus.COMPLETED
+                && row.getRecurrence() == null && row.getDueDate() != null && row.getDueDate().isBefore(now)));
+    }
+    
+    @Override
+    public List<Task> findOpenSeries(User user, TaskStatus done, LocalDateTime to) {
+        return copies(rows(ids(index(user).byDueDate.headSet(TimeKey.floor(to))))
+            .filter(row -> row.getRecurrence() != null && row.getDeletedAt() == null && !row.isArchived()
+                && row.getStatus() != done && row.getDueDate() != null && row.getDueDate().isBefore(to)));
+    }
+    
+    @Override
+    public List<Object[]> findWrittenOccurrences(User user, Collection<Long> seriesIds) {
+        UserTaskIndex index = index(user);
+        return Stream.concat(rows(index.live), rows(index.deleted))
+            .filter(row -> seriesIds.contains(row.getSeriesId()))
+            .map(row -> new Object[] {row.getSeriesId(), row.getOccurrenceAt()})
+            .collect(Collectors.toCollection(ArrayList::new));
+    }
+    
+    @Override
+    public Optional<Task> findByUserAndSeriesIdAndOccurrenceAt(User user, Long seriesId, LocalDateTime occurrenceAt) {
+        UserTaskIndex index = index(user);
+        return Stream.concat(rows(index.live), rows(index.deleted))
+            .filter(row -> seriesId.equals(row.getSeriesId()) && occurrenceAt.equals(row.getOccurrenceAt()))
+            .findFirst()
+            .map(engine::copy);
+    }
+    
+    @Override
+    public List<Long> findRetentionCandidates(Long afterId, LocalDateTime cutoff, Pageable pageable) {
+        return engine.taskRowsAfter(afterId).stream()
+            .filter(row -> row.getSeriesId() == null)
+            .filter(row -> isExpired(row, cutoff))
+            .limit(pageable.getPageSize())
+            .map(Task::getId)
+            .collect(Collectors.toList());
+    }
+    
+    @Override
+    public List<Long> lockRetentionCandidates(Collection<Long> ids, LocalDateTime cutoff) {
+        return rows(ids)
+            .filter(row -> isExpired(row, cutoff))
+            .map(Task::getId)
+            .sorted()
+            .collect(Collectors.toList());
+    }
+    
+    private static boolean isExpired(Task row, LocalDateTime cutoff) {
+        return (row.getDeletedAt() != null && row.getDeletedAt().isBefore(cutoff))
+            || (row.isArchived() && Objects.requireNonNullElse(row.getArchivedAt(), row.getUpdatedAt()).isBefore(cutoff));
+    }
+    
+    @Override
+    public List<Long> findLiveIdsAfter(User user, Long afterId, Pageable pageable) {
+        return idsAfter(index(user).live, afterId, pageable, row -> row.getDeletedAt() == null);
+    }
+    
+    @Override
+    public List<Long> findUnarchivedIdsByStatusAfter(User user, TaskStatus status, Long afterId, Pageable pageable) {
+        return idsAfter(index(user).byStatus.get(status), afterId, pageable,
+            row -> row.getDeletedAt() == null && row.getStatus() == status && !row.isArchived());
+    }
+    
+    @Override
+    public List<Long> findDeletedIdsAfter(User user, Long afterId, Pageable pageable) {
+        return idsAfter(index(user).deleted, afterId, pageable, row -> row.getDeletedAt() != null);
+    }
+    
+    @Override
+    public long countByUserAndDeletedAtIsNull(User user) {
+        return rows(index(user).live).filter(row -> row.getDeletedAt() == null).count();
+    }
+    
+    @Override
+    public long countByUserAndDeletedAtIsNotNull(User user) {
+        return rows(index(user).deleted).filter(row -> row.getDeletedAt() != null).count();
+    }
+    
+    @Override
+    public long countByUserAndStatusAndArchivedAndDeletedAtIsNull(User user, TaskStatus status, boolean archived) {
+        return rows(index(user).byStatus.get(status))
+            .filter(row -> row.getDeletedAt() == null && row.getStatus() == status && row.isArchived() == archived)
+            .count();
+    }
+    
+    @Override
+    public List<Task> findByDueDateRange(User user, LocalDateTime from, LocalDateTime to) {
+        return copies(rows(ids(dueBetween(user, from, to)))
+            .filter(row -> row.getDeletedAt() == null && row.getDueDate() != null
+                && !row.getDueDate().isBefore(from) && row.getDueDate().isBefore(to)));
+    }
+    
+    @Override
+    public List<CalendarCount> countByDueDay(Long userId, LocalDateTime from, LocalDateTime to) {
+        return countByDue(userId, from, to, LocalDateTime::toLocalDate);
+    }
+    
+    @Override
+    public List<CalendarCount> countByDueWeek(Long userId, LocalDateTime from, LocalDateTime to) {
+        return countByDue(userId, from, to,
+            due -> due.toLocalDate().with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)));
+    }
+    
+    @Override
+    public int updateStatus(Long id, User user, Collection<Long> workspaceIds, TaskStatus status, LocalDateTime now, Long version) {
+        return engine.updateTask(id, matching(user, workspaceIds, version), row -> {
+            row.setStatus(status);
+            touch(row, now);
+        });
+    }
+    
+    @Override
+    public int archive(Long id, User user, Collection<Long> workspaceIds, LocalDateTime now, Long version) {
+        return engine.updateTask(id, matching(user, workspaceIds, version), row -> {
+            row.setArchived(true);
+            row.setArchivedAt(now);
+            touch(row, now);
+        });
+    }
+    
+    @Override
+    public int unarchive(Long id, User user, Collection<Long> workspaceIds, LocalDateTime now, Long version) {
+        return engine.updateTask(id, matching(user, workspaceIds, version), row -> {
+            row.setArchived(false);
+            row.setArchivedAt(null);
+            touch(row, now);
+        });
+    }
+    
+    @Override
+    public int softDelete(Long id, User user, Collection<Long> workspaceIds, LocalDateTime now, Long version) {
+        return engine.updateTask(id, matching(user, workspaceIds, version), row -> {
+            row.setDeletedAt(now);
+            touch(row, now);
+        });
+    }
+    
+    @Override
+    public int restore(Long id, User user, Collection<Long> workspaceIds, LocalDateTime now, Long version) {
+        return engine.updateTask(id, matching(user, workspaceIds, version).and(row -> row.getDeletedAt() != null), row -> {
+            row.setDeletedAt(null);
+            touch(row, now);
+        });
+    }
+    
+    @Override
+    public int moveToRank(Long id, User user, Collection<Long> workspaceIds, TaskStatus status, String rank,
+                          LocalDateTime now, Long version) {
+        return engine.updateTask(id, matching(user, workspaceIds, version).and(row -> row.getDeletedAt() == null), row -> {
+            row.setStatus(status);
+            row.setRank(rank);
+            touch(row, now);
+        });
+    }
+    
+    @Override
+    public int moveToParent(Long id, User user, Long parentId, LocalDateTime now, Long version) {
+        return engine.updateTask(id, matching(user, version).and(row -> row.getDeletedAt() == null), row -> {
+            row.setParentId(parentId);
+            touch(row, now);
+        });
+    }
+    
+    @Override
+    public int softDeleteAll(Collection<Long> ids, LocalDateTime now) {
+        return updateAll(ids, row -> row.getDeletedAt() == null, row -> {
+            row.setDeletedAt(now);
+            touch(row, now);
+        });
+    }
+    
+    @Override
+    public int archiveAll(Collection<Long> ids, LocalDateTime now) {
+        return updateAll(ids, row -> row.getDeletedAt() == null && !row.isArchived(), row -> {
+            row.setArchived(true);
+            row.setArchivedAt(now);
+            touch(row, now);
+        });
+    }
+    
+    @Override
+    public int restoreAll(Collection<Long> ids, LocalDateTime now) {
+        return updateAll(ids, row -> row.getDeletedAt() != null, row -> {
+            row.setDeletedAt(null);
+            touch(row, now);
+        });
+    }
+    
+    @Override
+    public int deleteByIdAndUser(Long id, User user, Long version) {
+        return engine.deleteTask(id, matching(user, version));
+    }
+    
+    @Override
+    public int deleteTagsOfTask(Long id, Long userId) {
+        Task row = engine.taskRow(id);
+        if (row == null || !row.getUser().getId().equals(userId) || row.getTags().isEmpty()) {
+            return 0;
+        }
+        int removed = row.getTags().size();
+        engine.updateTask(id, current -> current.getUser().getId().equals(userId),
+                          current -> current.getTags().clear());
+        return removed;
+    }
+    
+    @Override
+    public int deleteTagsByTaskIds(List<Long> ids) {
+        int removed = 0;
+        for (Long id : ids) {
+            Task row = engine.taskRow(id);
+            if (row != null && !row.getTags().isEmpty()) {
+                removed += row.getTags().size();
+                engine.updateTask(id, current -> true, current -> current.getTags().clear());
+            }
+        }
+        return removed;
+    }
+    
+    @Override
+    public List<Long> findUserIdsByIdIn(List<Long> ids) {
+        return rows(ids)
+            .map(row -> row.getUser().getId())
+            .distinct()
+            .collect(Collectors.toList());
+    }
+    
+    @Override
+    public List<Object[]> findIndexRows(User user) {
+        List<Object[]> result = new ArrayList<>();
+        rows(index(user).live).filter(row -> row.getDeletedAt() == null).forEach(row -> {
+            if (row.getTags().isEmpty()) {
+                result.add(new Object[] {row.getId(), row.getStatus(), row.getPriority(), row.isArchived(), null});
+            }
+            for (String tag : row.getTags()) {
+                result.add(new Object[] {row.getId(), row.getStatus(), row.getPriority(), row.isArchived(), tag});
+            }
+        });
+        return result;
+    }
+    
+    @Override
+    public List<Object[]> findOpenTaskRanking(User user, TaskStatus done) {
+        return rows(index(user).live)
+            .filter(row -> row.getDeletedAt() == null && !row.isArchived() && row.getRecurrence() == null
+                && row.getStatus() != done)
+            .map(row -> new Object[] {row.getId(), row.getPriority(), row.getDueDate(), row.getCreatedAt()})
+            .collect(Collectors.toList());
+    }
+    
+    @Override
+    public List<Object[]> findRollupRowsAfter(Long afterId, Pageable pageable) {
+        return engine.taskRowsAfter(afterId).stream()
+            .limit(pageable.getPageSize())
+            .map(row -> new Object[] {row.getId(), row.getUser().getId(), row.getStatus(), row.getCreatedAt(),
+                                      row.getUpdatedAt(), row.getDueDate()})
+            .collect(Collectors.toList());
+    }
+    
+    @Override
+    public List<Object[]> countOverdueByUserBetween(long fromUserId, long toUserId, TaskStatus done, LocalDateTime now) {
+        return engine.taskRows().stream()
+            .filter(row -> row.getUser().getId() > fromUserId && row.getUser().getId() <= toUserId)
+            .filter(row -> row.getDeletedAt() == null && !row.isArchived() && row.getRecurrence() == null
+                && row.getStatus() != done && row.getDueDate() != null && row.getDueDate().isBefore(now))
+            .collect(Collectors.groupingBy(row -> row.getUser().getId(), TreeMap::new, Collectors.counting()))
+            .entrySet().stream()
+            .map(entry -> new Object[] {entry.getKey(), entry.getValue()})
+            .collect(Collectors.toList());
+    }
+    
+    @Override
+    public List<Object[]> countLoadByUserBetween(long fromUserId, long toUserId, TaskStatus done, LocalDateTime now) {
+        Map<Long, long[]> loads = new TreeMap<>();
+        engine.taskRows().stream()
+            .filter(row -> row.getUser().getId() > fromUserId && row.getUser().getId() <= toUserId)
+            .filter(row -> row.getDeletedAt() == null)
+            .forEach(row -> {
+                long[] load = loads.computeIfAbsent(row.getUser().getId(), id -> new long[2]);
+                load[0]++;
+                if (!row.isArchived() && row.getStatus() != done && row.getDueDate() != null
+                    && row.getDueDate().isBefore(now)) {
+                    load[1]++;
+                }
+            });
+        return loads.entrySet().stream()
+            .map(entry -> new Object[] {entry.getKey(), entry.getValue()[0], entry.getValue()[1]})
+            .collect(Collectors.toList());
+    }
+    
+    @Override
+    public Long findMinId() {
+        return engine.taskRows().stream().map(Task::getId).min(Comparator.naturalOrder()).orElse(null);
+    }
+    
+    @Override
+    public Long findMaxId() {
+        return engine.taskRows().stream().map(Task::getId).max(Comparator.naturalOrder()).orElse(null);
+    }
+    
+    @Override
+    public Stream<Object[]> streamAnalyticsRows(Long fromId, Long toId) {
+        return engine.taskRowsAfter(fromId - 1).stream()
+            .takeWhile(row -> row.getId() < toId)
+            .map(row -> new Object[] {row.getUser().getId(), row.getStatus(), row.isArchived(), row.getDeletedAt(),
+                                      row.getDueDate()});
+    }
+    
+    @Override
+    public List<Object[]> findTitleRows(User user) {
+        return rows(index(user).live)
+            .filter(row -> row.getDeletedAt() == null)
+            .map(row -> new Object[] {row.getId(), row.getTitle(), row.getUpdatedAt()})
+            .collect(Collectors.toList());
+    }
+    
+    @Override
+    public List<Long> findIdsByIdInAndKeyword(Collection<Long> ids, String keyword) {
+        String needle = keyword.toLowerCase(Locale.ROOT);
+        return rows(ids)
+            .filter(row -> contains(row.getTitle(), needle) || contains(row.getDescription(), needle))
+            .map(Task::getId)
+            .collect(Collectors.toList());
+    }
+    
+    @Override
+    public List<Object[]> findUnrankedColumns() {
+        return engine.taskRows().stream()
+            .filter(row -> row.getDeletedAt() == null && row.getRank() == null)
+            .map(row -> List.of(row.getUser().getId(), row.getStatus()))
+            .distinct()
+            .map(List::toArray)
+            .collect(Collectors.toList());
+    }
+    
+    @Override
+    public List<Long> findColumnForRebalance(Long userId, TaskStatus status) {
+        return rows(engine.taskIndex(userId).byStatus.get(status))
+            .filter(row -> row.getDeletedAt() == null && row.getStatus() == status)
+            .sorted(IN_RANK_ORDER)
+            .map(Task::getId)
+            .collect(Collectors.toList());
+    }
+    
+    @Override
+    public int updateRank(Long id, String rank) {
+        return engine.updateTask(id, row -> true, row -> row.setRank(rank));
+    }
+    
+    @Override
+    public int clearParent(Long parentId) {
+        int updated = 0;
+        for (Long id : new ArrayList<>(engine.children(parentId))) {
+            updated += engine.updateTask(id, row -> parentId.equals(row.getParentId()), row -> row.setParentId(null));
+        }
+        return updated;
+    }
+    
+    @Override
+    @SuppressWarnings("unchecked")
+    public <S extends Task> S save(S entity) {
+        return (S) engine.saveTask(entity);
+    }
+    
+    @Override
+    public Optional<Task> findById(Long id) {
+        if (id == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(engine.taskRow(id)).map(engine::copy);
+    }
+    
+    @Override
+    public List<Task> findAll() {
+        return copies(engine.taskRows().stream());
+    }
+    
+    @Override
+    public long count() {
+        return engine.taskCount();
+    }
+    
+    @Override
+    public void deleteById(Long id) {
+        engine.deleteTask(id, row -> true);
+    }
+    
+    @Override
+    protected Long idOf(Task entity) {
+        return entity.getId();
+    }
+    
+    // Enums sort by name, as they do in the VARCHAR columns
+    @Override
+    protected Function<Task, Comparable<?>> sortKey(String property) {
+        return switch (property) {
+            case "id" -> Task::getId;
+            case "title" -> Task::getTitle;
+            case "description" -> Task::getDescription;
+            case "status" -> task -> task.getStatus() == null ? null : task.getStatus().name();
+            case "priority" -> task -> task.getPriority() == null ? null : task.getPriority().name();
+            case "dueDate" -> Task::getDueDate;
+            case "parentId" -> Task::getParentId;
+            case "workspaceId" -> Task::getWorkspaceId;
+            case "rank" -> Task::getRank;
+            case "recurrence" -> Task::getRecurrence;
+            case "seriesId" -> Task::getSeriesId;
+            case "occurrenceAt" -> Task::getOccurrenceAt;
+            case "archived" -> Task::isArchived;
+            case "archivedAt" -> Task::getArchivedAt;
+            case "deletedAt" -> Task::getDeletedAt;
+            case "createdAt" -> Task::getCreatedAt;
+            case "updatedAt" -> Task::getUpdatedAt;
+            case "version" -> Task::getVersion;
+            default -> throw new IllegalArgumentException("No property '" + property + "' found for type 'Task'");
+        };
+    }
+    
+    // A live status column in rank order; unranked rows first, as NULLs sort in the index
+    private Stream<Task> column(User user, TaskStatus status) {
+        return rows(index(user).byStatus.get(status))
+            .filter(row -> row.getDeletedAt() == null && row.getStatus() == status)
+            .sorted(IN_RANK_ORDER);
+    }
+    
+    private static Task cursor(String rank, Long id) {
+        Task cursor = new Task();
+        cursor.setRank(rank);
+        cursor.setId(id);
+        return cursor;
+    }
+    
+    private UserTaskIndex index(User user) {
+        return engine.taskIndex(user.getId());
+    }
+    
+    private Stream<Task> rows(Collection<Long> ids) {
+        return ids.stream().map(engine::taskRow).filter(Objects::nonNull);
+    }
+    
+    private List<Long> idsAfter(NavigableSet<Long> ids, Long afterId, Pageable pageable, Predicate<Task> matches) {
+        return rows(ids.tailSet(afterId, false))
+            .filter(matches)
+            .limit(pageable.getPageSize())
+            .map(Task::getId)
+            .collect(Collectors.toList());
+    }
+    
+    private int updateAll(Collection<Long> ids, Predicate<Task> condition, Consumer<Task> change) {
+        int updated = 0;
+        for (Long id : ids) {
+            updated += engine.updateTask(id, condition, change);
+        }
+        return updated;
+    }
+    
+    private List<Task> copies(Stream<Task> rows) {
+        return rows.map(engine::copy).collect(Collectors.toList());
+    }
+    
+    private Set<TimeKey> dueBetween(User user, LocalDateTime from, LocalDateTime to) {
+        return index(user).byDueDate.subSet(TimeKey.floor(from), true, TimeKey.floor(to), false);
+    }
+    
+    private List<CalendarCount> countByDue(Long userId, LocalDateTime from, LocalDateTime to,
+                                           Function<LocalDateTime, LocalDate> bucketOf) {
+        Map<LocalDate, Map<TaskStatus, Long>> counts = new TreeMap<>();
+        Set<TimeKey> keys = engine.taskIndex(userId).byDueDate
+            .subSet(TimeKey.floor(from), true, TimeKey.floor(to), false);
+        rows(ids(keys))
+            .filter(row -> row.getDeletedAt() == null && row.getRecurrence() == null && row.getDueDate() != null)
+            .forEach(row -> counts.computeIfAbsent(bucketOf.apply(row.getDueDate()), day -> new EnumMap<>(TaskStatus.class))
+                .merge(row.getStatus(), 1L, Long::sum));
+        
+        List<CalendarCount> result = new ArrayList<>();
+        counts.forEach((bucket, byStatus) -> byStatus.forEach((status, total) ->
+            result.add(new Count(bucket, status, total))));
+        return result;
+    }
+    
+    private static List<Long> ids(Collection<TimeKey> keys) {
+        return keys.stream().map(TimeKey::id).collect(Collectors.toList());
+    }
+    
+    private static Predicate<Task> matching(User user, Long version) {
+        return row -> ownedBy(row, user) && (version == null || row.getVersion() == version);
+    }
+    
+    private static Predicate<Task> matching(User user, Collection<Long> workspaceIds, Long version) {
+        return row -> (ownedBy(row, user) || workspaceIds.contains(row.getWorkspaceId()))
+            && (version == null || row.getVersion() == version);
+    }
+    
+    private static boolean ownedBy(Task row, User user) {
+        return row.getUser().getId().equals(user.getId());
+    }
+    
+    private static void touch(Task row, LocalDateTime now) {
+        row.setUpdatedAt(now);
+        row.setVersion(row.getVersion() + 1);
+    }
+    
+    private static boolean contains(String value, String lowerCaseNeedle) {
+        return value != null && value.toLowerCase(Locale.ROOT).contains(lowerCaseNeedle);
+    }
+    
+    private static class Count implements CalendarCount {
+        private final LocalDate bucket;
+        private final TaskStatus status;
+        private final long total;
+        
+        Count(LocalDate bucket, TaskStatus status, long total) {
+            this.bucket = bucket;
+            this.status = status;
+            this.total = total;
+        }
+        
+        @Override
+        public LocalDate getBucket() {
+            return bucket;
+        }
+        
+        @Override
+        public TaskStatus getStatus() {
+            return status;
+        }
+        
+        @Override
+        public long getTotal() {
+            return total;
+        }
+    }
+}
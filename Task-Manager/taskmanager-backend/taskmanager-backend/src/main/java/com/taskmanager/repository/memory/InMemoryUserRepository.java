@@ -0,0 +1,105 @@
+package com.taskmanager.repository.memory;
+
+import com.taskmanager.model.User;
+import com.taskmanager.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+@Repository
+@Primary
+@Profile("memory")
+public class InMemoryUserRepository extends InMemoryRepositorySupport<User> implements UserRepository {
+    
+    @Autowired
+    private MemoryStorageEngine engine;
+    
+    @Override
+    public Optional<User> findByUsername(String username) {
+        return findById(engine.userIdByUsername(username));
+    }
+    
+    @Override
+    public Optional<User> findByEmail(String email) {
+        return findById(engine.userIdByEmail(email));
+    }
+    
+    @Override
+    public Boolean existsByUsername(String username) {
+        return engine.userIdByUsername(username) != null;
+    }
+    
+    @Override
+    public Boolean existsByEmail(String email) {
+        return engine.userIdByEmail(email) != null;
+    }
+    
+    @Override
+    public Stream<Object[]> streamUsernamesAndEmailsAfter(long afterId) {
+        return engine.userRows().stream()
+            .filter(user -> user.getId() > afterId)
+            .sorted(Comparator.comparing(User::getId))
+            .map(user -> new Object[] {user.getId(), user.getUsername(), user.getEmail()});
+    }
+    
+    @Override
+    public Long findMaxId() {
+        return engine.userRows().stream().map(User::getId).max(Comparator.naturalOrder()).orElse(null);
+    }
+    
+    @Override
+    @SuppressWarnings("unchecked")
+    public <S extends User> S save(S entity) {
+        return (S) engine.saveUser(entity);
+    }
+    
+    @Override
+    public Optional<User> findById(Long id) {
+        if (id == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(engine.userRow(id)).map(engine::copy);
+    }
+    
+    @Override
+    public List<User> findAll() {
+        return engine.userRows().stream().map(engine::copy).collect(Collectors.toList());
+    }
+    
+    @Override
+    public long count() {
+        return engine.userRows().size();
+    }
+    
+    @Override
+    public void deleteById(Long id) {
+        engine.deleteUser(id);
+    }
+    
+    @Override
+    protected Long idOf(User entity) {
+        return entity.getId();
+    }
+    
+    @Override
+    protected Function<User, Comparable<?>> sortKey(String property) {
+        return switch (property) {
+            case "id" -> User::getId;
+            case "username" -> User::getUsername;
+            case "email" -> User::getEmail;
+            case "fullName" -> User::getFullName;
+            case "role" -> user -> user.getRole() == null ? null : user.getRole().name();
+            case "createdAt" -> User::getCreatedAt;
+            case "updatedAt" -> User::getUpdatedAt;
+            default -> throw new IllegalArgumentException("No property '" + property + "' found for type 'User'");
+        };
+    }
+}
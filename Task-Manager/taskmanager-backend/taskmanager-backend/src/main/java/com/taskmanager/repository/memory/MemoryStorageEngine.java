@@ -0,0 +1,657 @@
+package com.taskmanager.repository.memory;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.taskmanager.model.Task;
+import com.taskmanager.model.Task.TaskPriority;
+import com.taskmanager.model.Task.TaskStatus;
+import com.taskmanager.model.User;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Storage engine behind the {@code memory} profile. Tasks and users live in
+ * concurrent maps keyed by id, with per-user secondary indexes for the task
+ * repository's queries. Reads never block; writes are serialized and copy-on-write,
+ * so a stored row is never changed in place and callers always get copies.
+ *
+ * Every write is appended to a write-ahead log ({@code wal-<seq>.log}) before it is
+ * applied. A scheduled snapshot writes all rows to a memory-mapped file, after which
+ * the log segments it covers are deleted; startup loads the snapshot and replays the
+ * remaining log.
+ */
+@Component
+@Profile("memory")
+public class MemoryStorageEngine {
+    
+    private static final Logger logger = LoggerFactory.getLogger(MemoryStorageEngine.class);
+    
+    private static final String SNAPSHOT_FILE = "snapshot.dat";
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Value("${app.memory-store.dir:data/memory-store}")
+    private String dir;
+    
+    private final ConcurrentSkipListMap<Long, Task> tasks = new ConcurrentSkipListMap<>();
+    
+    private final ConcurrentSkipListMap<Long, User> users = new ConcurrentSkipListMap<>();
+    
+    private final Map<String, Long> userIdsByUsername = new ConcurrentHashMap<>();
+    
+    private final Map<String, Long> userIdsByEmail = new ConcurrentHashMap<>();
+    
+    private final Map<Long, UserTaskIndex> taskIndexes = new ConcurrentHashMap<>();
+    
+    private final Map<Long, Set<Long>> childrenByParent = new ConcurrentHashMap<>();
+    
+    private final Map<Long, Set<Long>> tasksByWorkspace = new ConcurrentHashMap<>();
+    
+    private final AtomicLong taskSequence = new AtomicLong();
+    
+    private final AtomicLong userSequence = new AtomicLong();
+    
+    private FileChannel wal;
+    
+    private long walSegment;
+    
+    private boolean dirty;
+    
+    @PostConstruct
+    public synchronized void recover() throws IOException {
+        Path path = Paths.get(dir);
+        Files.createDirectories(path);
+        
+        long firstSegment = 0;
+        Path snapshotPath = path.resolve(SNAPSHOT_FILE);
+        if (Files.exists(snapshotPath)) {
+            Snapshot snapshot = readSnapshot(snapshotPath);
+            snapshot.users().forEach(row -> putUser(row.toUser()));
+            snapshot.tasks().forEach(row -> putTask(row.toTask()));
+            taskSequence.set(snapshot.taskSequence());
+            userSequence.set(snapshot.userSequence());
+            firstSegment = snapshot.walSegment();
+        }
+        
+        List<Path> segments;
+        try (Stream<Path> files = Files.list(path)) {
+            segments = files.filter(file -> file.getFileName().toString().matches("wal-\\d+\\.log"))
+                .sorted()
+                .collect(Collectors.toList());
+        }
+        int replayed = 0;
+        for (Path segment : segments) {
+            long number = segmentNumber(segment);
+            walSegment = Math.max(walSegment, number + 1);
+            if (number < firstSegment) {
+                continue;
+            }
+            for (String line : Files.readAllLines(segment, StandardCharsets.UTF_8)) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    apply(objectMapper.readValue(line, WalRecord.class));
+                    replayed++;
+                } catch (IOException e) {
+                    // A torn final record from a crash mid-append was never acknowledged
+                    logger.warn("Skipping unreadable log record in {}", segment.getFileName());
+                }
+            }
+        }
+        walSegment = Math.max(walSegment, firstSegment);
+        openWal();
+        dirty = replayed > 0;
+        logger.info("Memory store recovered {} users and {} tasks ({} log records replayed)",
+                    users.size(), tasks.size(), replayed);
+    }
+    
+    // Writes all rows to a new memory-mapped snapshot and drops the log segments it covers
+    @Scheduled(fixedDelayString = "${app.memory-store.snapshot-interval-ms:60000}")
+    public void snapshot() {
+        List<User> userRows;
+        List<Task> taskRows;
+        long replayFrom;
+        synchronized (this) {
+            if (!dirty) {
+                return;
+            }
+            // Rows are never changed in place, so holding references is a consistent view
+            userRows = new ArrayList<>(users.values());
+            taskRows = new ArrayList<>(tasks.values());
+            try {
+                openWal();
+            } catch (IOException e) {
+                logger.error("Could not roll the memory store log: {}", e.getMessage());
+                return;
+            }
+            replayFrom = walSegment - 1;
+            dirty = false;
+        }
+        
+        Path path = Paths.get(dir);
+        Snapshot snapshot = new Snapshot(replayFrom, taskSequence.get(), userSequence.get(),
+            userRows.stream().map(UserRecord::of).collect(Collectors.toList()),
+            taskRows.stream().map(TaskRecord::of).collect(Collectors.toList()));
+        try {
+            byte[] bytes = objectMapper.writeValueAsBytes(snapshot);
+            Path temp = path.resolve(SNAPSHOT_FILE + ".tmp");
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes.length);
+                buffer.put(bytes);
+                buffer.force();
+            }
+            Files.move(temp, path.resolve(SNAPSHOT_FILE),
+                       StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            try (Stream<Path> files = Files.list(path)) {
+                for (Path segment : files.filter(file -> file.getFileName().toString().matches("wal-\\d+\\.log"))
+                        .collect(Collectors.toList())) {
+                    if (segmentNumber(segment) < replayFrom) {
+                        Files.deleteIfExists(segment);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            synchronized (this) {
+                dirty = true;
+            }
+            logger.error("Memory store snapshot failed: {}", e.getMessage());
+        }
+    }
+    
+    @PreDestroy
+    public void shutdown() throws IOException {
+        snapshot();
+        synchronized (this) {
+            if (wal != null) {
+                wal.close();
+            }
+        }
+    }
+    
+    // ---- Tasks ----
+    
+    // Stored row (never modify it); null if absent
+    Task taskRow(Long id) {
+        return tasks.get(id);
+    }
+    
+    // Stored rows with an id greater than the given one, in id order
+    Collection<Task> taskRowsAfter(Long id) {
+        return tasks.tailMap(id, false).values();
+    }
+    
+    Collection<Task> taskRows() {
+        return tasks.values();
+    }
+    
+    long taskCount() {
+        return tasks.size();
+    }
+    
+    UserTaskIndex taskIndex(Long userId) {
+        return taskIndexes.getOrDefault(userId, UserTaskIndex.EMPTY);
+    }
+    
+    Set<Long> children(Long parentId) {
+        return childrenByParent.getOrDefault(parentId, Set.of());
+    }
+    
+    Set<Long> workspaceTasks(Long workspaceId) {
+        return tasksByWorkspace.getOrDefault(workspaceId, Set.of());
+    }
+    
+    // Inserts or replaces a task the way a JPA save would: new rows get an id and timestamps,
+    // existing rows must carry the stored version and get the next one
+    synchronized Task saveTask(Task task) {
+        LocalDateTime now = LocalDateTime.now();
+        Task previous = task.getId() == null ? null : tasks.get(task.getId());
+        Task row = copyOf(task, stub(task.getUser().getId()));
+        if (previous == null) {
+            row.setId(taskSequence.incrementAndGet());
+            row.setCreatedAt(now);
+            row.setVersion(0);
+            task.setId(row.getId());
+            task.setCreatedAt(now);
+            task.setUpdatedAt(now);
+        } else {
+            if (previous.getVersion() != task.getVersion()) {
+                throw new ObjectOptimisticLockingFailureException(Task.class, task.getId());
+            }
+            row.setCreatedAt(previous.getCreatedAt());
+            row.setVersion(previous.getVersion() + 1);
+        }
+        row.setUpdatedAt(now);
+        log(new WalRecord(WalRecord.PUT_TASK, TaskRecord.of(row), null, null));
+        putTask(row);
+        return copy(row);
+    }
+    
+    // Applies a change to one task if it matches; returns the number of rows changed (0 or 1)
+    synchronized int updateTask(Long id, Predicate<Task> condition, Consumer<Task> change) {
+        Task previous = tasks.get(id);
+        if (previous == null || !condition.test(previous)) {
+            return 0;
+        }
+        Task row = copyOf(previous, previous.getUser());
+        change.accept(row);
+        log(new WalRecord(WalRecord.PUT_TASK, TaskRecord.of(row), null, null));
+        putTask(row);
+        return 1;
+    }
+    
+    synchronized int deleteTask(Long id, Predicate<Task> condition) {
+        Task previous = tasks.get(id);
+        if (previous == null || !condition.test(previous)) {
+            return 0;
+        }
+        log(new WalRecord(WalRecord.DELETE_TASK, null, null, id));
+        removeTask(id);
+        return 1;
+    }
+    
+    // Copy of a stored row for handing out, with its owner attached
+    Task copy(Task row) {
+        User owner = users.get(row.getUser().getId());
+        return copyOf(row, owner == null ? row.getUser() : copyOf(owner));
+    }
+    
+    // ---- Users ----
+    
+    User userRow(Long id) {
+        return users.get(id);
+    }
+    
+    Long userIdByUsername(String username) {
+        return username == null ? null : userIdsByUsername.get(username);
+    }
+    
+    Long userIdByEmail(String email) {
+        return email == null ? null : userIdsByEmail.get(email);
+    }
+    
+    Collection<User> userRows() {
+        return users.values();
+    }
+    
+    synchronized User saveUser(User user) {
+        LocalDateTime now = LocalDateTime.now();
+        User previous = user.getId() == null ? null : users.get(user.getId());
+        Long id = previous == null ? null : previous.getId();
+        Long byUsername = userIdsByUsername.get(user.getUsername());
+        Long byEmail = userIdsByEmail.get(user.getEmail());
+        if ((byUsername != null && !byUsername.equals(id)) || (byEmail != null && !byEmail.equals(id))) {
+            throw new DataIntegrityViolationException("Duplicate username or email: " + user.getUsername());
+        }
+        User row = copyOf(user);
+        if (previous == null) {
+            row.setId(userSequence.incrementAndGet());
+            row.setCreatedAt(now);
+            user.setId(row.getId());
+            user.setCreatedAt(now);
+            user.setUpdatedAt(now);
+        } else {
+            row.setCreatedAt(previous.getCreatedAt());
+        }
+        row.setUpdatedAt(now);
+        log(new WalRecord(WalRecord.PUT_USER, null, UserRecord.of(row), null));
+        putUser(row);
+        return copyOf(row);
+    }
+    
+    // Deleting a user removes their tasks as well, like the cascade on User.tasks
+    synchronized void deleteUser(Long id) {
+        if (!users.containsKey(id)) {
+            return;
+        }
+        log(new WalRecord(WalRecord.DELETE_USER, null, null, id));
+        removeUser(id);
+    }
+    
+    User copy(User row) {
+        return copyOf(row);
+    }
+    
+    // ---- Internals ----
+    
+    private void apply(WalRecord record) {
+        switch (record.op()) {
+            case WalRecord.PUT_TASK -> putTask(record.task().toTask());
+            case WalRecord.DELETE_TASK -> removeTask(record.id());
+            case WalRecord.PUT_USER -> putUser(record.user().toUser());
+            case WalRecord.DELETE_USER -> removeUser(record.id());
+            default -> logger.warn("Unknown memory store log record: {}", record.op());
+        }
+    }
+    
+    private void putTask(Task row) {
+        Task previous = tasks.put(row.getId(), row);
+        if (previous != null) {
+            unindex(previous);
+        }
+        taskIndexes.computeIfAbsent(row.getUser().getId(), userId -> new UserTaskIndex()).add(row);
+        if (row.getParentId() != null) {
+            childrenByParent.computeIfAbsent(row.getParentId(), parentId -> new ConcurrentSkipListSet<>())
+                .add(row.getId());
+        }
+        if (row.getWorkspaceId() != null) {
+            tasksByWorkspace.computeIfAbsent(row.getWorkspaceId(), workspaceId -> new ConcurrentSkipListSet<>())
+                .add(row.getId());
+        }
+        taskSequence.accumulateAndGet(row.getId(), Math::max);
+    }
+    
+    private void removeTask(Long id) {
+        Task previous = tasks.remove(id);
+        if (previous != null) {
+            unindex(previous);
+        }
+    }
+    
+    private void unindex(Task row) {
+        taskIndex(row.getUser().getId()).remove(row);
+        if (row.getParentId() != null) {
+            children(row.getParentId()).remove(row.getId());
+        }
+        if (row.getWorkspaceId() != null) {
+            workspaceTasks(row.getWorkspaceId()).remove(row.getId());
+        }
+    }
+    
+    private void putUser(User row) {
+        User previous = users.put(row.getId(), row);
+        if (previous != null) {
+            userIdsByUsername.remove(previous.getUsername());
+            userIdsByEmail.remove(previous.getEmail());
+        }
+        userIdsByUsername.put(row.getUsername(), row.getId());
+        userIdsByEmail.put(row.getEmail(), row.getId());
+        userSequence.accumulateAndGet(row.getId(), Math::max);
+    }
+    
+    private void removeUser(Long id) {
+        User previous = users.remove(id);
+        if (previous == null) {
+            return;
+        }
+        userIdsByUsername.remove(previous.getUsername());
+        userIdsByEmail.remove(previous.getEmail());
+        tasks.values().stream()
+            .filter(row -> row.getUser().getId().equals(id))
+            .map(Task::getId)
+            .collect(Collectors.toList())
+            .forEach(this::removeTask);
+        taskIndexes.remove(id);
+    }
+    
+    private void log(WalRecord record) {
+        try {
+            byte[] line = (objectMapper.writeValueAsString(record) + "\n").getBytes(StandardCharsets.UTF_8);
+            ByteBuffer buffer = ByteBuffer.wrap(line);
+            while (buffer.hasRemaining()) {
+                wal.write(buffer);
+            }
+            wal.force(false);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not append to the memory store log", e);
+        }
+        dirty = true;
+    }
+    
+    private void openWal() throws IOException {
+        Path path = Paths.get(dir).resolve(String.format("wal-%012d.log", walSegment++));
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                               StandardOpenOption.APPEND);
+        if (wal != null) {
+            wal.close();
+        }
+        wal = channel;
+    }
+    
+    private Snapshot readSnapshot(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            byte[] bytes = new byte[buffer.remaining()];
+            buffer.get(bytes);
+            return objectMapper.readValue(bytes, Snapshot.class);
+        }
+    }
+    
+    private static long segmentNumber(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring("wal-".length(), name.length() - ".log".length()));
+    }
+    
+    private static User stub(Long userId) {
+        User user = new User();
+        user.setId(userId);
+        return user;
+    }
+    
+    private static Task copyOf(Task source, User user) {
+        Task task = new Task();
+        task.setId(source.getId());
+        task.setTitle(source.getTitle());
+        task.setDescription(source.getDescription());
+        task.setStatus(source.getStatus());
+        task.setPriority(source.getPriority());
+        task.setDueDate(source.getDueDate());
+        task.setParentId(source.getParentId());
+        task.setWorkspaceId(source.getWorkspaceId());
+        task.setRank(source.getRank());
+        task.setRecurrence(source.getRecurrence());
+        task.setSeriesId(source.getSeriesId());
+        task.setOccurrenceAt(source.getOccurrenceAt());
+        task.setTags(source.getTags() == null ? new HashSet<>() : new HashSet<>(source.getTags()));
+        task.setUser(user);
+        task.setArchived(source.isArchived());
+        task.setArchivedAt(source.getArchivedAt());
+        task.setDeletedAt(source.getDeletedAt());
+        task.setCreatedAt(source.getCreatedAt());
+        task.setUpdatedAt(source.getUpdatedAt());
+        task.setVersion(source.getVersion());
+        return task;
+    }
+    
+    private static User copyOf(User source) {
+        User user = new User();
+        user.setId(source.getId());
+        user.setUsername(source.getUsername());
+        user.setEmail(source.getEmail());
+        user.setPassword(source.getPassword());
+        user.setFullName(source.getFullName());
+        user.setRole(source.getRole());
+        user.setEnabled(source.isEnabled());
+        user.setCreatedAt(source.getCreatedAt());
+        user.setUpdatedAt(source.getUpdatedAt());
+        return user;
+    }
+    
+    /**
+     * Secondary indexes over one user's tasks. Status, priority, archived and the two
+     * time orders cover live tasks only; soft-deleted tasks are kept in {@code deleted}.
+     * Readers re-check each row, so a read racing a write never returns a wrong match.
+     */
+    static class UserTaskIndex {
+        
+        static final UserTaskIndex EMPTY = new UserTaskIndex();
+        
+        final Map<TaskStatus, NavigableSet<Long>> byStatus = new EnumMap<>(TaskStatus.class);
+        final Map<TaskPriority, Set<Long>> byPriority = new EnumMap<>(TaskPriority.class);
+        final NavigableSet<Long> live = new ConcurrentSkipListSet<>();
+        final Set<Long> archived = new ConcurrentSkipListSet<>();
+        final NavigableSet<Long> deleted = new ConcurrentSkipListSet<>();
+        final NavigableSet<TimeKey> byCreatedAt = new ConcurrentSkipListSet<>();
+        final NavigableSet<TimeKey> byDueDate = new ConcurrentSkipListSet<>();
+        
+        UserTaskIndex() {
+            for (TaskStatus status : TaskStatus.values()) {
+                byStatus.put(status, new ConcurrentSkipListSet<>());
+            }
+            for (TaskPriority priority : TaskPriority.values()) {
+                byPriority.put(priority, new ConcurrentSkipListSet<>());
+            }
+        }
+        
+        void add(Task row) {
+            if (row.getDeletedAt() != null) {
+                deleted.add(row.getId());
+                return;
+            }
+            live.add(row.getId());
+            if (row.getStatus() != null) {
+                byStatus.get(row.getStatus()).add(row.getId());
+            }
+            if (row.getPriority() != null) {
+                byPriority.get(row.getPriority()).add(row.getId());
+            }
+            if (row.isArchived()) {
+                archived.add(row.getId());
+            }
+            byCreatedAt.add(new TimeKey(row.getCreatedAt(), row.getId()));
+            if (row.getDueDate() != null) {
+                byDueDate.add(new TimeKey(row.getDueDate(), row.getId()));
+            }
+        }
+        
+        void remove(Task row) {
+            deleted.remove(row.getId());
+            live.remove(row.getId());
+            byStatus.values().forEach(ids -> ids.remove(row.getId()));
+            byPriority.values().forEach(ids -> ids.remove(row.getId()));
+            archived.remove(row.getId());
+            byCreatedAt.remove(new TimeKey(row.getCreatedAt(), row.getId()));
+            if (row.getDueDate() != null) {
+                byDueDate.remove(new TimeKey(row.getDueDate(), row.getId()));
+            }
+        }
+    }
+    
+    record TimeKey(LocalDateTime time, long id) implements Comparable<TimeKey> {
+        
+        static TimeKey floor(LocalDateTime time) {
+            return new TimeKey(time, Long.MIN_VALUE);
+        }
+        
+        @Override
+        public int compareTo(TimeKey other) {
+            int byTime = time.compareTo(other.time);
+            return byTime != 0 ? byTime : Long.compare(id, other.id);
+        }
+    }
+    
+    record TaskRecord(Long id, Long userId, String title, String description, TaskStatus status,
+                      TaskPriority priority, LocalDateTime dueDate, Long parentId, Set<String> tags,
+                      boolean archived, LocalDateTime archivedAt, LocalDateTime deletedAt,
+                      LocalDateTime createdAt, LocalDateTime updatedAt, long version, String rank, Long workspaceId,
+                      String recurrence, Long seriesId, LocalDateTime occurrenceAt) {
+        
+        static TaskRecord of(Task task) {
+            return new TaskRecord(task.getId(), task.getUser().getId(), task.getTitle(), task.getDescription(),
+                                  task.getStatus(), task.getPriority(), task.getDueDate(), task.getParentId(),
+                                  task.getTags(), task.isArchived(), task.getArchivedAt(), task.getDeletedAt(),
+                                  task.getCreatedAt(), task.getUpdatedAt(), task.getVersion(), task.getRank(),
+                                  task.getWorkspaceId(), task.getRecurrence(), task.getSeriesId(),
+                                  task.getOccurrenceAt());
+        }
+        
+        Task toTask() {
+            Task task = new Task();
+            task.setId(id);
+            task.setUser(stub(userId));
+            task.setTitle(title);
+            task.setDescription(description);
+            task.setStatus(status);
+            task.setPriority(priority);
+            task.setDueDate(dueDate);
+            task.setParentId(parentId);
+            task.setRank(rank);
+            task.setWorkspaceId(workspaceId);
+            task.setRecurrence(recurrence);
+            task.setSeriesId(seriesId);
+            task.setOccurrenceAt(occurrenceAt);
+            task.setTags(tags == null ? new HashSet<>() : new HashSet<>(tags));
+            task.setArchived(archived);
+            task.setArchivedAt(archivedAt);
+            task.setDeletedAt(deletedAt);
+            task.setCreatedAt(createdAt);
+            task.setUpdatedAt(updatedAt);
+            task.setVersion(version);
+            return task;
+        }
+    }
+    
+    record UserRecord(Long id, String username, String email, String password, String fullName,
+                      User.Role role, boolean enabled, LocalDateTime createdAt, LocalDateTime updatedAt) {
+        
+        static UserRecord of(User user) {
+            return new UserRecord(user.getId(), user.getUsername(), user.getEmail(), user.getPassword(),
+                                  user.getFullName(), user.getRole(), user.isEnabled(),
+                                  user.getCreatedAt(), user.getUpdatedAt());
+        }
+        
+        User toUser() {
+            User user = new User();
+            user.setId(id);
+            user.setUsername(username);
+            user.setEmail(email);
+            user.setPassword(password);
+            user.setFullName(fullName);
+            user.setRole(role);
+            user.setEnabled(enabled);
+            user.setCreatedAt(createdAt);
+            user.setUpdatedAt(updatedAt);
+            return user;
+        }
+    }
+    
+    record WalRecord(String op, TaskRecord task, UserRecord user, Long id) {
+        static final String PUT_TASK = "PUT_TASK";
+        static final String DELETE_TASK = "DELETE_TASK";
+        static final String PUT_USER = "PUT_USER";
+        static final String DELETE_USER = "DELETE_USER";
+    }
+    
+    record Snapshot(long walSegment, long taskSequence, long userSequence,
+                    List<UserRecord> users, List<TaskRecord> tasks) {
+    }
+}
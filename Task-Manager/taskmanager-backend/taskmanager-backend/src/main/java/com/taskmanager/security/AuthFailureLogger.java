@@ -0,0 +1,56 @@
+package com.taskmanager.security;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Logs rejected authentication without letting a flood of bad tokens flood the log. The first
+ * failures of each interval are logged in full; past that only every n-th one is, and the number
+ * left out is reported when the next interval starts.
+ */
+@Component
+public class AuthFailureLogger {
+    
+    private static final Logger logger = LoggerFactory.getLogger(AuthFailureLogger.class);
+    
+    @Value("${app.auth-log.max-per-interval:20}")
+    private long maxPerInterval;
+    
+    @Value("${app.auth-log.interval-ms:60000}")
+    private long intervalMs;
+    
+    // Past the limit, log one failure in this many
+    @Value("${app.auth-log.sample-every:1000}")
+    private long sampleEvery;
+    
+    private final AtomicLong intervalStart = new AtomicLong();
+    private final AtomicLong seen = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    
+    public void log(String reason, String detail) {
+        if (!logger.isWarnEnabled()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        long start = intervalStart.get();
+        if (now - start >= intervalMs && intervalStart.compareAndSet(start, now)) {
+            seen.set(0);
+            long skipped = dropped.getAndSet(0);
+            if (skipped > 0) {
+                logger.warn("{} authentication failures were not logged in the previous interval", skipped);
+            }
+        }
+        long count = seen.incrementAndGet();
+        if (count <= maxPerInterval) {
+            logger.warn("{}: {}", reason, detail);
+        } else if ((count - maxPerInterval) % sampleEvery == 0) {
+            logger.warn("{}: {} (sampled, 1 in {})", reason, detail, sampleEvery);
+        } else {
+            dropped.incrementAndGet();
+        }
+    }
+}
@@ -2,8 +2,8 @@ package com.taskmanager.security;
 
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Component;
@@ -14,7 +14,8 @@ import java.util.Date;
 @Component
 public class JwtUtils {
     
-    private static final Logger logger = LoggerFactory.getLogger(JwtUtils.class);
+    @Autowired
+    private AuthFailureLogger authFailureLogger;
     
     @Value("${app.jwtSecret}")
     private String jwtSecret;
@@ -22,8 +23,14 @@ public class JwtUtils {
     @Value("${app.jwtExpirationMs}")
     private int jwtExpirationMs;
     
-    private Key getSigningKey() {
-        return Keys.hmacShaKeyFor(jwtSecret.getBytes());
+    // Both are immutable and thread-safe, so they are built once instead of per request
+    private Key signingKey;
+    private JwtParser parser;
+    
+    @PostConstruct
+    void init() {
+        signingKey = Keys.hmacShaKeyFor(jwtSecret.getBytes());
+        parser = Jwts.parserBuilder().setSigningKey(signingKey).build();
     }
     
     public String generateJwtToken(Authentication authentication) {
@@ -33,37 +40,27 @@ public class JwtUtils {
                 .setSubject(userPrincipal.getUsername())
                 .setIssuedAt(new Date())
                 .setExpiration(new Date((new Date()).getTime() + jwtExpirationMs))
-                .signWith(getSigningKey(), SignatureAlgorithm.HS512)
+                .signWith(signingKey, SignatureAlgorithm.HS512)
                 .compact();
     }
     
     public String getUsernameFromJwtToken(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody()
-                .getSubject();
+        return parser.parseClaimsJws(token).getBody().getSubject();
     }
     
-    public boolean validateJwtToken(String authToken) {
+    // Username of a valid token, or null; checks and reads the token in a single parse
+    public String getUsernameIfValid(String authToken) {
         try {
-            Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(authToken);
-            return true;
-        } catch (SecurityException e) {
-            logger.error("Invalid JWT signature: {}", e.getMessage());
-        } catch (MalformedJwtException e) {
-            logger.error("Invalid JWT token: {}", e.getMessage());
+            return getUsernameFromJwtToken(authToken);
         } catch (ExpiredJwtException e) {
-            logger.error("JWT token is expired: {}", e.getMessage());
+            authFailureLogger.log("JWT token is expired", e.getMessage());
         } catch (UnsupportedJwtException e) {
-            logger.error("JWT token is unsupported: {}", e.getMessage());
+            authFailureLogger.log("JWT token is unsupported", e.getMessage());
+        } catch (JwtException e) {
+            authFailureLogger.log("Invalid JWT token", e.getMessage());
         } catch (IllegalArgumentException e) {
-            logger.error("JWT claims string is empty: {}", e.getMessage());
+            authFailureLogger.log("JWT claims string is empty", e.getMessage());
         }
-        return false;
+        return null;
     }
-}
\ No newline at end of file
+}
@@ -2,6 +2,7 @@ package com.taskmanager.security;
 
 import com.taskmanager.model.User;
 import com.taskmanager.repository.UserRepository;
+import com.taskmanager.service.PrimaryReader;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
@@ -15,10 +16,15 @@ public class UserDetailsServiceImpl implements UserDetailsService {
     @Autowired
     private UserRepository userRepository;
     
+    @Autowired
+    private PrimaryReader primaryReader;
+    
+    // A replica may not have a signup that just committed, so a miss there is checked on the primary
     @Override
-    @Transactional
+    @Transactional(readOnly = true)
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
         User user = userRepository.findByUsername(username)
+                .or(() -> primaryReader.read(() -> userRepository.findByUsername(username)))
                 .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
         
         return UserDetailsImpl.build(user);
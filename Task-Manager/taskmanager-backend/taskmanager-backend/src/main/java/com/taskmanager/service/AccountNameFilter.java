@@ -0,0 +1,174 @@
+package com.taskmanager.service;
+
+import com.taskmanager.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Locale;
+import java.util.stream.Stream;
+
+/**
+ * Bloom filters of every username and email in use, so signups and availability checks
+ * only ask the database when a name might be taken. Built by streaming over users at
+ * startup, before readiness opens, and added to on every signup through this instance;
+ * signups through other instances are streamed in by id on a short schedule. Between
+ * refreshes, and for a signup that commits after a higher id was already read, a name
+ * can be reported free while taken, so the unique constraints stay the final word at
+ * signup. Until a build finishes every name counts as possibly taken. Names are compared
+ * case-insensitively, which can only add false positives. Deleted users stay in the
+ * filters until the next rebuild.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class AccountNameFilter implements ApplicationRunner {
+    
+    private static final Logger logger = LoggerFactory.getLogger(AccountNameFilter.class);
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Value("${app.account-filter.enabled:true}")
+    private boolean enabled;
+    
+    @Value("${app.account-filter.expected-users:1000000}")
+    private long expectedUsers;
+    
+    @Value("${app.account-filter.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+    
+    private volatile Filters current;
+    
+    // Filters being built, which also receive signups made while the build streams
+    private volatile Filters building;
+    
+    // Highest user id streamed into the current filters, where the next refresh carries on
+    private long lastSeenId;
+    
+    private record Filters(BloomFilter usernames, BloomFilter emails) {
+        
+        Filters(long capacity, double falsePositiveRate) {
+            this(new BloomFilter(capacity, falsePositiveRate), new BloomFilter(capacity, falsePositiveRate));
+        }
+        
+        void add(String username, String email) {
+            if (username != null) {
+                usernames.add(normalize(username));
+            }
+            if (email != null) {
+                emails.add(normalize(email));
+            }
+        }
+    }
+    
+    @Override
+    public void run(ApplicationArguments args) {
+        if (enabled) {
+            rebuild(expectedUsers);
+        }
+    }
+    
+    // False means definitely not taken; true means the database has to be asked
+    public boolean mightHaveUsername(String username) {
+        Filters filters = current;
+        return filters == null || filters.usernames().mightContain(normalize(username));
+    }
+    
+    public boolean mightHaveEmail(String email) {
+        Filters filters = current;
+        return filters == null || filters.emails().mightContain(normalize(email));
+    }
+    
+    // Called before the insert, so the name is never missing while the row exists
+    public void add(String username, String email) {
+        Filters filters = current;
+        if (filters != null) {
+            filters.add(username, email);
+        }
+        Filters next = building;
+        if (next != null) {
+            next.add(username, email);
+        }
+    }
+    
+    // Rebuilds at twice the size once signups outgrow the filters, before false positives pile up
+    @Scheduled(fixedDelayString = "${app.account-filter.check-interval-ms:600000}")
+    public void growIfFull() {
+        Filters filters = current;
+        if (enabled && filters != null && filters.usernames().isOverCapacity()) {
+            rebuild(2 * filters.usernames().size());
+        }
+    }
+    
+    // Streams in the users signed up since the last build or refresh, through any instance
+    @Scheduled(fixedDelayString = "${app.account-filter.refresh-interval-ms:30000}")
+    public synchronized void refresh() {
+        Filters filters = current;
+        if (!enabled || filters == null) {
+            return;
+        }
+        try {
+            Streamed streamed = stream(filters, lastSeenId);
+            lastSeenId = streamed.lastId();
+            if (streamed.users() > 0) {
+                logger.debug("Account name filters took in {} new users", streamed.users());
+            }
+        } catch (RuntimeException e) {
+            // The next refresh picks up from the same id
+            logger.warn("Could not refresh account name filters: {}", e.getMessage());
+        }
+    }
+    
+    private synchronized void rebuild(long capacity) {
+        long start = System.currentTimeMillis();
+        Filters filters = new Filters(capacity, falsePositiveRate);
+        building = filters;
+        try {
+            Streamed streamed = stream(filters, 0);
+            current = filters;
+            lastSeenId = streamed.lastId();
+            logger.info("Account name filters hold {} users in {} KB, built in {} ms", streamed.users(),
+                        2 * filters.usernames().sizeInBytes() / 1024, System.currentTimeMillis() - start);
+        } catch (RuntimeException e) {
+            // Without filters every check goes to the database, which is slower but still correct
+            logger.warn("Could not build account name filters: {}", e.getMessage());
+        } finally {
+            building = null;
+        }
+    }
+    
+    private record Streamed(long users, long lastId) {
+    }
+    
+    // Adds every user after the given id to the filters
+    private Streamed stream(Filters filters, long afterId) {
+        return new TransactionTemplate(transactionManager).execute(status -> {
+            long users = 0;
+            long lastId = afterId;
+            try (Stream<Object[]> rows = userRepository.streamUsernamesAndEmailsAfter(afterId)) {
+                for (Object[] row : (Iterable<Object[]>) rows::iterator) {
+                    filters.add((String) row[1], (String) row[2]);
+                    lastId = (Long) row[0];
+                    users++;
+                }
+            }
+            return new Streamed(users, lastId);
+        });
+    }
+    
+    private static String normalize(String name) {
+        return name.trim().toLowerCase(Locale.ROOT);
+    }
+}
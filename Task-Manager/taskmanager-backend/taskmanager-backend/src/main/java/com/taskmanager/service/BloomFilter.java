@@ -0,0 +1,95 @@
+package com.taskmanager.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-size Bloom filter over strings. A miss is definite, a hit only means "maybe", and
+ * entries cannot be removed. Sized for an expected number of entries and false positive
+ * rate; past that count the rate climbs, so owners rebuild it larger. Safe to add to and
+ * query from any thread.
+ */
+final class BloomFilter {
+    
+    private final AtomicLongArray words;
+    private final long bitCount;
+    private final int hashCount;
+    private final long capacity;
+    private final AtomicLong added = new AtomicLong();
+    
+    BloomFilter(long capacity, double falsePositiveRate) {
+        long expected = Math.max(1, capacity);
+        // Optimal size and hash count for the expected entries and rate
+        long bits = (long) Math.ceil(-expected * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        int wordCount = (int) Math.min(Integer.MAX_VALUE, Math.max(1, (bits + 63) / 64));
+        this.words = new AtomicLongArray(wordCount);
+        this.bitCount = 64L * wordCount;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expected * Math.log(2)));
+        this.capacity = expected;
+    }
+    
+    void add(String value) {
+        long hash = hash(value);
+        long h1 = hash;
+        long h2 = mix(hash ^ 0x9E3779B97F4A7C15L) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bitCount);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long current;
+            do {
+                current = words.get(word);
+                if ((current & mask) != 0) {
+                    break;
+                }
+            } while (!words.compareAndSet(word, current, current | mask));
+        }
+        added.incrementAndGet();
+    }
+    
+    boolean mightContain(String value) {
+        long hash = hash(value);
+        long h1 = hash;
+        long h2 = mix(hash ^ 0x9E3779B97F4A7C15L) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bitCount);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    // Whether more entries went in than the filter was sized for
+    boolean isOverCapacity() {
+        return added.get() > capacity;
+    }
+    
+    long size() {
+        return added.get();
+    }
+    
+    long sizeInBytes() {
+        return bitCount / 8;
+    }
+    
+    // 64-bit FNV-1a over the UTF-8 bytes, finished with a mixer so every bit depends on the whole input
+    private static long hash(String value) {
+        long hash = 0xCBF29CE484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xFF;
+            hash *= 0x100000001B3L;
+        }
+        return mix(hash);
+    }
+    
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB93FE1A85EC9L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,232 @@
+package com.taskmanager.service;
+
+import com.taskmanager.model.BulkJob;
+import com.taskmanager.model.BulkJob.Status;
+import com.taskmanager.model.BulkJob.Type;
+import com.taskmanager.model.User;
+import com.taskmanager.repository.BulkJobRepository;
+import com.taskmanager.repository.UserRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs bulk operations over a user's tasks off the request thread. A job is a row in
+ * {@code bulk_jobs}; a worker leases it, handles one keyset chunk per transaction and
+ * records its position with the chunk, so a job left behind by a stopped instance
+ * resumes from its last committed chunk once the lease runs out.
+ */
+@Service
+public class BulkJobService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(BulkJobService.class);
+    
+    private static final Set<Status> UNFINISHED = EnumSet.of(Status.QUEUED, Status.RUNNING);
+    
+    // Jobs that also work through the user's tasks in the cold tier
+    private static final Set<Type> COLD_TIER_TYPES = EnumSet.of(Type.RESTORE_ALL, Type.PURGE_TRASH);
+    
+    private static final int MAX_ERROR_LENGTH = 500;
+    
+    @Autowired
+    private BulkJobRepository bulkJobRepository;
+    
+    @Autowired
+    private TaskService taskService;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Value("${app.jobs.threads:2}")
+    private int threads;
+    
+    @Value("${app.jobs.chunk-size:500}")
+    private int chunkSize;
+    
+    @Value("${app.jobs.lease-seconds:60}")
+    private long leaseSeconds;
+    
+    @Value("${app.jobs.retention-days:7}")
+    private int retentionDays;
+    
+    // Owner of this instance's leases
+    private final String instanceId = UUID.randomUUID().toString();
+    
+    private ExecutorService executor;
+    private Semaphore freeWorkers;
+    private TransactionTemplate transactionTemplate;
+    private volatile boolean stopping;
+    
+    @PostConstruct
+    void start() {
+        executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "bulk-job");
+            thread.setDaemon(true);
+            return thread;
+        });
+        freeWorkers = new Semaphore(threads);
+        // Separate transactions, also when dispatching from a commit hook
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+    
+    // Lets running chunks commit, then hands their jobs back for the next start
+    @PreDestroy
+    void stop() throws InterruptedException {
+        stopping = true;
+        executor.shutdown();
+        if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+            logger.warn("Bulk jobs still running at shutdown resume once their lease runs out");
+        }
+    }
+    
+    // Queues a job, or returns the user's unfinished job of the same type
+    @Transactional
+    public BulkJob submit(User user, Type type) {
+        Optional<BulkJob> running = bulkJobRepository.findFirstByUserIdAndTypeAndStatusIn(user.getId(), type, UNFINISHED);
+        if (running.isPresent()) {
+            return running.get();
+        }
+        BulkJob job = new BulkJob();
+        job.setUserId(user.getId());
+        job.setType(type);
+        job.setTotal(taskService.countBulkTargets(type, user));
+        BulkJob saved = bulkJobRepository.save(job);
+        TransactionHooks.afterCommit(this::dispatch);
+        return saved;
+    }
+    
+    @Transactional(readOnly = true)
+    public Optional<BulkJob> getJob(Long id, User user) {
+        return bulkJobRepository.findByIdAndUserId(id, user.getId());
+    }
+    
+    // Starts queued jobs and ones whose instance stopped renewing the lease, while workers are free
+    @Scheduled(fixedDelayString = "${app.jobs.poll-interval-ms:5000}")
+    public void dispatch() {
+        while (!stopping && freeWorkers.tryAcquire()) {
+            Long jobId = claimNext();
+            if (jobId == null) {
+                freeWorkers.release();
+                return;
+            }
+            try {
+                executor.execute(() -> {
+                    try {
+                        run(jobId);
+                    } finally {
+                        freeWorkers.release();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                freeWorkers.release();
+                release(jobId);
+                return;
+            }
+        }
+    }
+    
+    @Scheduled(fixedDelayString = "${app.jobs.cleanup-interval-ms:3600000}")
+    @Transactional
+    public void purgeFinishedJobs() {
+        bulkJobRepository.deleteFinishedBefore(LocalDateTime.now().minusDays(retentionDays));
+    }
+    
+    private Long claimNext() {
+        return transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            for (Long id : bulkJobRepository.findClaimable(UNFINISHED, now, PageRequest.of(0, threads))) {
+                if (bulkJobRepository.claim(id, UNFINISHED, Status.RUNNING, instanceId,
+                                            now.plusSeconds(leaseSeconds), now) > 0) {
+                    return id;
+                }
+            }
+            return null;
+        });
+    }
+    
+    private void run(Long jobId) {
+        BulkJob job = transactionTemplate.execute(status -> bulkJobRepository.findById(jobId).orElse(null));
+        if (job == null) {
+            return;
+        }
+        Optional<User> user = userRepository.findById(job.getUserId());
+        if (user.isEmpty()) {
+            finish(jobId, Status.FAILED, "User not found");
+            return;
+        }
+        int phases = COLD_TIER_TYPES.contains(job.getType()) ? 2 : 1;
+        int phase = job.getPhase();
+        long lastId = job.getLastId();
+        try {
+            while (phase < phases) {
+                if (stopping) {
+                    release(jobId);
+                    return;
+                }
+                List<Long> ids = runChunk(job, user.get(), phase, lastId);
+                if (ids.isEmpty()) {
+                    phase++;
+                    lastId = 0;
+                } else {
+                    lastId = ids.get(ids.size() - 1);
+                }
+            }
+            finish(jobId, Status.COMPLETED, null);
+        } catch (RuntimeException e) {
+            logger.error("Bulk job {} ({}) failed: {}", jobId, job.getType(), e.getMessage());
+            finish(jobId, Status.FAILED, e.getMessage());
+        }
+    }
+    
+    // Applies a chunk and records the job's new position in the same transaction
+    private List<Long> runChunk(BulkJob job, User user, int phase, long afterId) {
+        return transactionTemplate.execute(status -> {
+            List<Long> ids = taskService.applyBulkChunk(job.getType(), phase, user, afterId, chunkSize);
+            int nextPhase = ids.isEmpty() ? phase + 1 : phase;
+            long nextId = ids.isEmpty() ? 0 : ids.get(ids.size() - 1);
+            LocalDateTime now = LocalDateTime.now();
+            if (bulkJobRepository.advance(job.getId(), instanceId, nextPhase, nextId, ids.size(),
+                                          now.plusSeconds(leaseSeconds), now) == 0) {
+                throw new RuntimeException("Bulk job " + job.getId() + " was taken over by another instance");
+            }
+            return ids;
+        });
+    }
+    
+    private void finish(Long jobId, Status status, String error) {
+        String message = error != null && error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error;
+        transactionTemplate.executeWithoutResult(tx ->
+            bulkJobRepository.finish(jobId, instanceId, status, message, LocalDateTime.now()));
+    }
+    
+    private void release(Long jobId) {
+        transactionTemplate.executeWithoutResult(tx ->
+            bulkJobRepository.release(jobId, instanceId, LocalDateTime.now()));
+    }
+}
@@ -0,0 +1,183 @@
+package com.taskmanager.service;
+
+import com.taskmanager.config.DataSourceRoutingContext;
+import com.taskmanager.dto.CompositeQuery;
+import com.taskmanager.dto.CompositeResult;
+import com.taskmanager.dto.MessageResponse;
+import com.taskmanager.exception.DomainException;
+import com.taskmanager.exception.InvalidRequestException;
+import com.taskmanager.model.Task;
+import com.taskmanager.model.User;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mapping.PropertyPath;
+import org.springframework.data.mapping.PropertyReferenceException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Answers several read queries in one request. The queries run concurrently on a bounded
+ * pool, each in its own read-only transaction; when the pool and its queue are full the
+ * request thread runs the query itself, so a burst slows down instead of failing. A failed
+ * or timed-out query only affects its own result. Bad query fields answer 400 as the GET
+ * endpoints would; anything else is logged and answers a generic 500.
+ */
+@Service
+public class CompositeReadService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(CompositeReadService.class);
+    
+    public static final int MAX_IDS = 100;
+    
+    private static final String QUERY_FAILED = "Query failed";
+    
+    @Autowired
+    private TaskService taskService;
+    
+    @Value("${app.composite.threads:8}")
+    private int threads;
+    
+    @Value("${app.composite.queue-capacity:64}")
+    private int queueCapacity;
+    
+    // Time the whole composite request may take
+    @Value("${app.composite.timeout-ms:10000}")
+    private long timeoutMs;
+    
+    private ThreadPoolExecutor executor;
+    
+    @PostConstruct
+    void start() {
+        executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                Thread thread = new Thread(runnable, "composite-read");
+                thread.setDaemon(true);
+                return thread;
+            }, new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+    
+    @PreDestroy
+    void stop() {
+        executor.shutdownNow();
+    }
+    
+    // Results under the same names as the queries, in request order
+    public Map<String, CompositeResult> execute(Map<String, CompositeQuery> queries, User user) {
+        // Workers read on the primary too when this request was pinned to it
+        boolean pinned = DataSourceRoutingContext.isPrimaryPinned();
+        Map<String, Future<CompositeResult>> futures = new LinkedHashMap<>();
+        queries.forEach((name, query) -> futures.put(name, executor.submit(() -> {
+            boolean pin = pinned && !DataSourceRoutingContext.isPrimaryPinned();
+            if (pin) {
+                DataSourceRoutingContext.pinToPrimary();
+            }
+            try {
+                return run(query, user);
+            } finally {
+                if (pin) {
+                    DataSourceRoutingContext.clear();
+                }
+            }
+        })));
+        
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        Map<String, CompositeResult> results = new LinkedHashMap<>();
+        futures.forEach((name, future) -> results.put(name, await(future, deadline)));
+        return results;
+    }
+    
+    private CompositeResult run(CompositeQuery query, User user) {
+        if (query == null || query.getType() == null) {
+            return error(HttpStatus.BAD_REQUEST, "Query type is required");
+        }
+        try {
+            Object body = switch (query.getType()) {
+                case FILTER -> filter(query, user);
+                case STATS -> taskService.getTaskStats(user);
+                case SEARCH -> {
+                    if (query.getKeyword() == null) {
+                        throw new InvalidRequestException("keyword is required");
+                    }
+                    yield taskService.searchTasks(user, query.getKeyword());
+                }
+                case IDS -> {
+                    if (query.getIds() == null || query.getIds().isEmpty() || query.getIds().size() > MAX_IDS) {
+                        throw new InvalidRequestException("ids must list 1 to " + MAX_IDS + " task ids");
+                    }
+                    yield taskService.getTasksByIds(query.getIds(), user);
+                }
+            };
+            return new CompositeResult(HttpStatus.OK.value(), body);
+        } catch (DomainException e) {
+            return error(e.getStatus(), e.getMessage());
+        } catch (RuntimeException e) {
+            logger.error("Composite {} query failed", query.getType(), e);
+            return error(HttpStatus.INTERNAL_SERVER_ERROR, QUERY_FAILED);
+        }
+    }
+    
+    // Same dispatch as GET /api/tasks/filter, with the checks its parameter binding would make
+    private Object filter(CompositeQuery query, User user) {
+        if (query.getPage() < 0 || query.getSize() < 1) {
+            throw new InvalidRequestException("page must be at least 0 and size at least 1");
+        }
+        checkSortProperty(query.getSortBy());
+        Sort sort = "asc".equalsIgnoreCase(query.getSortDir())
+            ? Sort.by(query.getSortBy()).ascending() : Sort.by(query.getSortBy()).descending();
+        Pageable pageable = PageRequest.of(query.getPage(), query.getSize(), sort);
+        if (query.getTags() != null || query.getAnyTags() != null || query.getExcludeTags() != null) {
+            return taskService.filterTasksByTags(user, query.getStatus(), query.getPriority(), query.getArchived(),
+                                                 query.getKeyword(), query.getTags(), query.getAnyTags(),
+                                                 query.getExcludeTags(), pageable);
+        }
+        return taskService.filterTasks(user, query.getStatus(), query.getPriority(), query.getArchived(),
+                                       query.getKeyword(), pageable);
+    }
+    
+    private static void checkSortProperty(String sortBy) {
+        if (sortBy == null || sortBy.isBlank()) {
+            throw new InvalidRequestException("sortBy is required");
+        }
+        try {
+            PropertyPath.from(sortBy, Task.class);
+        } catch (PropertyReferenceException e) {
+            throw new InvalidRequestException("Cannot sort by " + sortBy);
+        }
+    }
+    
+    private CompositeResult await(Future<CompositeResult> future, long deadline) {
+        try {
+            return future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            return error(HttpStatus.GATEWAY_TIMEOUT, "Query timed out");
+        } catch (ExecutionException e) {
+            logger.error("Composite query failed", e.getCause());
+            return error(HttpStatus.INTERNAL_SERVER_ERROR, QUERY_FAILED);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            return error(HttpStatus.SERVICE_UNAVAILABLE, "Request interrupted");
+        }
+    }
+    
+    private static CompositeResult error(HttpStatus status, String message) {
+        return new CompositeResult(status.value(), new MessageResponse(message));
+    }
+}
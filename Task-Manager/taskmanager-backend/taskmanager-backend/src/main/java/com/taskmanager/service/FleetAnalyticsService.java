@@ -0,0 +1,237 @@
+package com.taskmanager.service;
+
+import com.taskmanager.dto.FleetAnalytics;
+import com.taskmanager.dto.FleetAnalytics.UserLoad;
+import com.taskmanager.model.Task.TaskStatus;
+import com.taskmanager.model.User;
+import com.taskmanager.repository.ColdTaskRepository;
+import com.taskmanager.repository.TaskRepository;
+import com.taskmanager.repository.UserRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Fleet-wide task figures for admins. The tasks table is cut into fixed-size primary key
+ * ranges, which a small pool of workers claims one at a time. Each range is streamed in its
+ * own short read-only transaction (so on a replica when one is configured) with a bounded
+ * fetch size, which useCursorFetch on the connection URL turns into a server-side cursor,
+ * and folded into a partial aggregate; the partials are merged at the end. Per-user loads
+ * are counted by the database one user id range at a time, and each worker keeps only the
+ * heaviest users it has seen. No connection is held for longer than one range, and memory
+ * stays at one fixed-size aggregate per worker. The cold tier ({@code tasks_cold}) gets a
+ * second pass over its own id ranges, and each user range counts both tables, so retention
+ * moving tasks out of the hot table does not take them out of the figures. Task ids are
+ * shared by the two tables, though a task moved between them mid-scan can be counted in
+ * both or in neither.
+ */
+@Service
+public class FleetAnalyticsService {
+    
+    // Lightest first, so the head of a bounded heap is the user to drop
+    private static final Comparator<UserLoad> BY_LOAD = Comparator.comparingLong(UserLoad::getTasks)
+        .thenComparing(UserLoad::getUserId, Comparator.reverseOrder());
+    
+    @Autowired
+    private TaskRepository taskRepository;
+    
+    @Autowired
+    private ColdTaskRepository coldTaskRepository;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Value("${app.analytics.threads:4}")
+    private int threads;
+    
+    // Task ids covered by one range, and so by one transaction
+    @Value("${app.analytics.range-size:50000}")
+    private long rangeSize;
+    
+    // User ids whose task counts are grouped by one query
+    @Value("${app.analytics.user-range-size:1000}")
+    private long userRangeSize;
+    
+    private ThreadPoolExecutor executor;
+    
+    // Counts from one worker's ranges, merged into the result at the end
+    private static class Partial {
+        private final Map<TaskStatus, Long> byStatus = new EnumMap<>(TaskStatus.class);
+        private long archived;
+        private long deleted;
+        private long overdue;
+        private final int top;
+        private final PriorityQueue<UserLoad> heaviest = new PriorityQueue<>(BY_LOAD);
+        
+        Partial(int top) {
+            this.top = top;
+        }
+        
+        void add(Object[] row, LocalDateTime now) {
+            TaskStatus status = (TaskStatus) row[1];
+            boolean archived = (Boolean) row[2];
+            LocalDateTime deletedAt = (LocalDateTime) row[3];
+            LocalDateTime dueDate = (LocalDateTime) row[4];
+            if (deletedAt != null) {
+                deleted++;
+                return;
+            }
+            byStatus.merge(status, 1L, Long::sum);
+            if (archived) {
+                this.archived++;
+            } else if (status != TaskStatus.COMPLETED && dueDate != null && dueDate.isBefore(now)) {
+                overdue++;
+            }
+        }
+        
+        // One user's live and overdue task counts, kept only while among the heaviest
+        void addUser(UserLoad load) {
+            heaviest.add(load);
+            if (heaviest.size() > top) {
+                heaviest.poll();
+            }
+        }
+        
+        void merge(Partial other) {
+            other.byStatus.forEach((status, count) -> byStatus.merge(status, count, Long::sum));
+            archived += other.archived;
+            deleted += other.deleted;
+            overdue += other.overdue;
+            other.heaviest.forEach(this::addUser);
+        }
+    }
+    @PostConstruct
+    void start() {
+        executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<>(), runnable -> {
+                Thread thread = new Thread(runnable, "fleet-analytics");
+                thread.setDaemon(true);
+                return thread;
+            });
+    }
+    
+    @PreDestroy
+    void stop() {
+        executor.shutdownNow();
+    }
+    
+    public FleetAnalytics analyze(int top) {
+        long start = System.currentTimeMillis();
+        LocalDateTime now = LocalDateTime.now();
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+        Long minId = transactionTemplate.execute(status -> taskRepository.findMinId());
+        Long maxId = transactionTemplate.execute(status -> taskRepository.findMaxId());
+        Long minColdId = transactionTemplate.execute(status -> coldTaskRepository.findMinId());
+        Long maxColdId = transactionTemplate.execute(status -> coldTaskRepository.findMaxId());
+        Long maxUserId = transactionTemplate.execute(status -> userRepository.findMaxId());
+        
+        Partial result = new Partial(top);
+        int ranges = 0;
+        if (minId != null && maxId != null) {
+            ranges += scan(minId, maxId, rangeSize, top, (partial, fromId) ->
+                transactionTemplate.executeWithoutResult(status -> {
+                    try (Stream<Object[]> rows = taskRepository.streamAnalyticsRows(fromId, fromId + rangeSize)) {
+                        rows.forEach(row -> partial.add(row, now));
+                    }
+                }), result);
+        }
+        if (minColdId != null && maxColdId != null) {
+            ranges += scan(minColdId, maxColdId, rangeSize, top, (partial, fromId) ->
+                transactionTemplate.executeWithoutResult(status -> {
+                    try (Stream<Object[]> rows = coldTaskRepository.streamAnalyticsRows(fromId, fromId + rangeSize)) {
+                        rows.forEach(row -> partial.add(row, now));
+                    }
+                }), result);
+        }
+        if (maxUserId != null) {
+            // Owners in (fromUserId, fromUserId + size], so ids start from 0
+            ranges += scan(0, maxUserId - 1, userRangeSize, top, (partial, fromUserId) ->
+                transactionTemplate.executeWithoutResult(status -> {
+                    // A user's hot and cold counts are added up before the user competes for the top
+                    Map<Long, UserLoad> loads = new HashMap<>();
+                    Stream.concat(
+                        taskRepository.countLoadByUserBetween(fromUserId, fromUserId + userRangeSize,
+                                                              TaskStatus.COMPLETED, now).stream(),
+                        coldTaskRepository.countLoadByUserBetween(fromUserId, fromUserId + userRangeSize,
+                                                                  TaskStatus.COMPLETED, now).stream()
+                    ).forEach(row -> {
+                        UserLoad load = loads.computeIfAbsent((Long) row[0], userId -> new UserLoad(userId, null, 0, 0));
+                        load.setTasks(load.getTasks() + (Long) row[1]);
+                        load.setOverdue(load.getOverdue() + (Long) row[2]);
+                    });
+                    loads.values().forEach(partial::addUser);
+                }), result);
+        }
+        
+        long total = result.byStatus.values().stream().mapToLong(Long::longValue).sum();
+        return new FleetAnalytics(total, result.byStatus, result.archived, result.deleted, result.overdue,
+                                  heaviestUsers(result.heaviest), ranges, System.currentTimeMillis() - start);
+    }
+    
+    // Folds every range of the given size from minId through maxId into per-worker partials, merged into
+    // result; returns the number of ranges
+    private int scan(long minId, long maxId, long size, int top, BiConsumer<Partial, Long> range, Partial result) {
+        int ranges = (int) ((maxId - minId) / size + 1);
+        AtomicLong nextFrom = new AtomicLong(minId);
+        List<Future<Partial>> workers = new ArrayList<>();
+        for (int i = 0; i < Math.min(threads, ranges); i++) {
+            workers.add(executor.submit(() -> {
+                Partial partial = new Partial(top);
+                long from;
+                while ((from = nextFrom.getAndAdd(size)) <= maxId) {
+                    range.accept(partial, from);
+                }
+                return partial;
+            }));
+        }
+        try {
+            for (Future<Partial> worker : workers) {
+                result.merge(worker.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            workers.forEach(worker -> worker.cancel(true));
+            throw new IllegalStateException("Fleet analytics interrupted", e);
+        } catch (ExecutionException e) {
+            workers.forEach(worker -> worker.cancel(true));
+            throw new IllegalStateException("Fleet analytics failed: " + e.getCause().getMessage(), e.getCause());
+        }
+        return ranges;
+    }
+    
+    // The heaviest users, most first, with their usernames looked up in one query
+    private List<UserLoad> heaviestUsers(PriorityQueue<UserLoad> heaviest) {
+        List<UserLoad> users = new ArrayList<>(heaviest);
+        users.sort(BY_LOAD.reversed());
+        Map<Long, String> usernames = userRepository.findAllById(users.stream().map(UserLoad::getUserId).collect(Collectors.toList()))
+            .stream().collect(Collectors.toMap(User::getId, User::getUsername));
+        users.forEach(load -> load.setUsername(usernames.get(load.getUserId())));
+        return users;
+    }
+}
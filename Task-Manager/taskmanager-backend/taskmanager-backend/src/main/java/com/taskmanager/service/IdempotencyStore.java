@@ -0,0 +1,217 @@
+package com.taskmanager.service;
+
+import com.taskmanager.model.IdempotencyRecord;
+import com.taskmanager.repository.IdempotencyRecordRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Outcomes of requests sent with an Idempotency-Key. Recent keys live in a bounded
+ * in-memory LRU map; with {@code app.idempotency.persist} they are also written to
+ * {@code idempotency_keys}, whose primary key makes a claim exclusive across instances.
+ * Entries expire after {@code app.idempotency.ttl-minutes}.
+ */
+@Service
+public class IdempotencyStore {
+    
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Value("${app.idempotency.persist:true}")
+    private boolean persist;
+    
+    @Value("${app.idempotency.ttl-minutes:1440}")
+    private long ttlMinutes;
+    
+    @Value("${app.idempotency.max-entries:10000}")
+    private int maxEntries;
+    
+    // A claim older than this whose request never completed (e.g. the instance died) may be taken over
+    @Value("${app.idempotency.lock-timeout-seconds:60}")
+    private long lockTimeoutSeconds;
+    
+    // Without the table an in-progress claim exists only here, so eviction passes over those and
+    // drops the least recently used finished entry instead
+    private final Map<String, IdempotencyRecord> entries = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, IdempotencyRecord> eldest) {
+            if (size() <= maxEntries) {
+                return false;
+            }
+            if (persist || eldest.getValue().getStatus() != null) {
+                return true;
+            }
+            Iterator<IdempotencyRecord> iterator = values().iterator();
+            while (iterator.hasNext()) {
+                if (iterator.next().getStatus() != null) {
+                    iterator.remove();
+                    break;
+                }
+            }
+            return false;
+        }
+    };
+    
+    public enum Outcome {
+        // The caller owns the key and must complete or release it
+        ACQUIRED,
+        // The request already ran; the record holds its response
+        REPLAY,
+        IN_PROGRESS,
+        // The key was used for a different request
+        MISMATCH
+    }
+    
+    public record Claim(Outcome outcome, IdempotencyRecord record) {
+    }
+    
+    public Claim claim(String scopeKey, String fingerprint) {
+        LocalDateTime now = LocalDateTime.now();
+        IdempotencyRecord existing = lookup(scopeKey, now);
+        if (existing == null) {
+            IdempotencyRecord record = new IdempotencyRecord(scopeKey, fingerprint, null, null, null, null, null,
+                                                             now, now.plusMinutes(ttlMinutes));
+            if (reserve(record)) {
+                return new Claim(Outcome.ACQUIRED, record);
+            }
+            existing = lookup(scopeKey, now);
+            if (existing == null) {
+                return new Claim(Outcome.IN_PROGRESS, null);
+            }
+        }
+        
+        if (!existing.getFingerprint().equals(fingerprint)) {
+            return new Claim(Outcome.MISMATCH, existing);
+        }
+        if (existing.getStatus() != null) {
+            return new Claim(Outcome.REPLAY, existing);
+        }
+        if (existing.getStartedAt().isBefore(now.minusSeconds(lockTimeoutSeconds)) && reclaim(existing, now)) {
+            return new Claim(Outcome.ACQUIRED, existing);
+        }
+        return new Claim(Outcome.IN_PROGRESS, existing);
+    }
+    
+    // Records the response of an acquired key
+    public void complete(IdempotencyRecord record, int status, String contentType, String eTag, String location,
+                         String responseBody) {
+        record.setStatus(status);
+        record.setContentType(contentType);
+        record.setETag(eTag);
+        record.setLocation(location);
+        record.setResponseBody(responseBody);
+        synchronized (entries) {
+            entries.put(record.getScopeKey(), record);
+        }
+        if (persist) {
+            transactionTemplate().executeWithoutResult(tx -> idempotencyRecordRepository.save(record));
+        }
+    }
+    
+    // Gives up an acquired key, so that a retry runs the request again
+    public void release(String scopeKey) {
+        synchronized (entries) {
+            entries.remove(scopeKey);
+        }
+        if (persist) {
+            transactionTemplate().executeWithoutResult(tx -> idempotencyRecordRepository.deleteById(scopeKey));
+        }
+    }
+    
+    @Scheduled(fixedDelayString = "${app.idempotency.purge-interval-ms:600000}")
+    public void purgeExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        synchronized (entries) {
+            entries.values().removeIf(record -> record.getExpiresAt().isBefore(now));
+        }
+        if (persist) {
+            transactionTemplate().executeWithoutResult(tx -> idempotencyRecordRepository.deleteExpired(now));
+        }
+    }
+    
+    private IdempotencyRecord lookup(String scopeKey, LocalDateTime now) {
+        synchronized (entries) {
+            IdempotencyRecord record = entries.get(scopeKey);
+            if (record != null && !record.getExpiresAt().isBefore(now)) {
+                return record;
+            }
+            entries.remove(scopeKey);
+        }
+        if (!persist) {
+            return null;
+        }
+        IdempotencyRecord record = transactionTemplate().execute(tx -> {
+            IdempotencyRecord stored = idempotencyRecordRepository.findById(scopeKey).orElse(null);
+            if (stored != null && stored.getExpiresAt().isBefore(now)) {
+                idempotencyRecordRepository.delete(stored);
+                return null;
+            }
+            return stored;
+        });
+        // Claims of other instances change under us, so only finished responses are cached
+        if (record != null && record.getStatus() != null) {
+            synchronized (entries) {
+                entries.put(scopeKey, record);
+            }
+        }
+        return record;
+    }
+    
+    private boolean reserve(IdempotencyRecord record) {
+        synchronized (entries) {
+            if (entries.containsKey(record.getScopeKey())) {
+                return false;
+            }
+            entries.put(record.getScopeKey(), record);
+        }
+        if (!persist) {
+            return true;
+        }
+        try {
+            transactionTemplate().executeWithoutResult(tx -> idempotencyRecordRepository.claim(
+                record.getScopeKey(), record.getFingerprint(), record.getStartedAt(), record.getExpiresAt()));
+            return true;
+        } catch (DataIntegrityViolationException e) {
+            synchronized (entries) {
+                entries.remove(record.getScopeKey());
+            }
+            return false;
+        }
+    }
+    
+    private boolean reclaim(IdempotencyRecord record, LocalDateTime now) {
+        LocalDateTime staleBefore = now.minusSeconds(lockTimeoutSeconds);
+        if (persist) {
+            Integer updated = transactionTemplate().execute(tx ->
+                idempotencyRecordRepository.reclaim(record.getScopeKey(), now, staleBefore));
+            if (updated == null || updated == 0) {
+                return false;
+            }
+        }
+        synchronized (entries) {
+            if (record.getStartedAt().isAfter(staleBefore)) {
+                return false;
+            }
+            record.setStartedAt(now);
+            entries.put(record.getScopeKey(), record);
+        }
+        return true;
+    }
+    
+    private TransactionTemplate transactionTemplate() {
+        return new TransactionTemplate(transactionManager);
+    }
+}
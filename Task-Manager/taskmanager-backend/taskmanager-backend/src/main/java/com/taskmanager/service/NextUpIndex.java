@@ -0,0 +1,166 @@
+package com.taskmanager.service;
+
+import com.taskmanager.model.Task;
+import com.taskmanager.model.Task.TaskPriority;
+import com.taskmanager.model.Task.TaskStatus;
+import com.taskmanager.model.User;
+import com.taskmanager.repository.TaskRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-user ranking of open tasks (not completed, archived or deleted) for the
+ * "next up" endpoint. Each user's open tasks are kept in an ordered set keyed by
+ * priority, then due date (soonest first, undated last), then age, so the top k
+ * are read off the front and a single task is re-ranked in O(log n).
+ * Loaded lazily from the primary and kept current by TaskService after each commit on
+ * this instance. Commits made through other instances never reach it, so a user's queue is
+ * reloaded once older than the TTL. When full, the least recently used user is dropped.
+ */
+@Component
+public class NextUpIndex {
+    
+    private static final Comparator<Entry> RANKING = Comparator
+        .comparing(Entry::priority, Comparator.reverseOrder())
+        .thenComparing(Entry::dueDate, Comparator.nullsLast(Comparator.naturalOrder()))
+        .thenComparing(Entry::createdAt, Comparator.nullsLast(Comparator.naturalOrder()))
+        .thenComparing(Entry::id);
+    
+    @Autowired
+    private TaskRepository taskRepository;
+    
+    @Autowired
+    private PrimaryReader primaryReader;
+    
+    @Value("${app.next-up.max-users:10000}")
+    private int maxUsers;
+    
+    @Value("${app.next-up.ttl-seconds:60}")
+    private long ttlSeconds;
+    
+    private final Map<Long, UserQueue> queues = new ConcurrentHashMap<>();
+    
+    private final UserIndexLoads<UserQueue> loads = new UserIndexLoads<>(queues);
+    
+    // Ids of the user's k highest-ranked open tasks
+    public List<Long> topIds(User user, int k) {
+        UserQueue queue = queueFor(user);
+        synchronized (queue) {
+            List<Long> ids = new ArrayList<>(Math.min(k, queue.ranked.size()));
+            Iterator<Entry> iterator = queue.ranked.iterator();
+            while (iterator.hasNext() && ids.size() < k) {
+                ids.add(iterator.next().id());
+            }
+            return ids;
+        }
+    }
+    
+    public void onTaskSaved(Task task) {
+        Long userId = task.getUser().getId();
+        Entry entry = isOpen(task)
+            ? new Entry(task.getId(), task.getPriority(), task.getDueDate(), task.getCreatedAt())
+            : null;
+        Long id = task.getId();
+        TransactionHooks.afterCommit(() -> loads.apply(userId, queue -> {
+            queue.remove(id);
+            if (entry != null) {
+                queue.add(entry);
+            }
+        }));
+    }
+    
+    public void onTaskRemoved(Long userId, Long taskId) {
+        TransactionHooks.afterCommit(() -> loads.apply(userId, queue -> queue.remove(taskId)));
+    }
+    
+    // Drops a user's queue after bulk changes; it is rebuilt on next use
+    public void invalidate(Long userId) {
+        TransactionHooks.afterCommit(() -> {
+            loads.discardLoad(userId);
+            queues.remove(userId);
+        });
+    }
+    
+    private UserQueue queueFor(User user) {
+        long now = System.currentTimeMillis();
+        UserQueue queue = queues.get(user.getId());
+        if (queue != null && now - queue.loadedAt < ttlSeconds * 1000) {
+            queue.lastAccess = now;
+            return queue;
+        }
+        if (queue != null) {
+            queues.remove(user.getId(), queue);
+        } else if (queues.size() >= maxUsers) {
+            evictLeastRecentlyUsed();
+        }
+        queue = loads.get(user.getId(), () -> primaryReader.read(() -> load(user)));
+        queue.lastAccess = now;
+        return queue;
+    }
+    
+    private void evictLeastRecentlyUsed() {
+        Long idlest = null;
+        long oldest = Long.MAX_VALUE;
+        for (Map.Entry<Long, UserQueue> entry : queues.entrySet()) {
+            if (entry.getValue().lastAccess < oldest) {
+                oldest = entry.getValue().lastAccess;
+                idlest = entry.getKey();
+            }
+        }
+        if (idlest != null) {
+            queues.remove(idlest);
+        }
+    }
+    
+    private UserQueue load(User user) {
+        // Stamped before the read, so the TTL never outlasts the snapshot's age
+        UserQueue queue = new UserQueue(System.currentTimeMillis());
+        for (Object[] row : taskRepository.findOpenTaskRanking(user, TaskStatus.COMPLETED)) {
+            queue.add(new Entry((Long) row[0], (TaskPriority) row[1], (LocalDateTime) row[2], (LocalDateTime) row[3]));
+        }
+        return queue;
+    }
+    
+    private static boolean isOpen(Task task) {
+        return !task.isDeleted() && !task.isArchived() && task.getRecurrence() == null
+            && task.getStatus() != TaskStatus.COMPLETED;
+    }
+    
+    private record Entry(Long id, TaskPriority priority, LocalDateTime dueDate, LocalDateTime createdAt) {
+    }
+    
+    private static class UserQueue {
+        private final TreeSet<Entry> ranked = new TreeSet<>(RANKING);
+        private final Map<Long, Entry> byId = new HashMap<>();
+        private final long loadedAt;
+        private volatile long lastAccess;
+        
+        UserQueue(long loadedAt) {
+            this.loadedAt = loadedAt;
+            this.lastAccess = loadedAt;
+        }
+        
+        void add(Entry entry) {
+            byId.put(entry.id(), entry);
+            ranked.add(entry);
+        }
+        
+        void remove(Long id) {
+            Entry entry = byId.remove(id);
+            if (entry != null) {
+                ranked.remove(entry);
+            }
+        }
+    }
+}
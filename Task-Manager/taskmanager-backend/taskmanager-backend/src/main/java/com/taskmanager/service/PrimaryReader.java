@@ -0,0 +1,47 @@
+package com.taskmanager.service;
+
+import com.taskmanager.config.DataSourceRoutingContext;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.function.Supplier;
+
+/**
+ * Runs a read in its own read-only transaction on the primary. For loads that fill
+ * long-lived in-memory state, where a lagging replica would bake stale rows into it, and
+ * for checks that must see writes committed moments ago. The caller's transaction may
+ * already hold a replica connection, hence the separate transaction.
+ */
+@Component
+public class PrimaryReader {
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    private TransactionTemplate transactionTemplate;
+    
+    @PostConstruct
+    void start() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        transactionTemplate.setReadOnly(true);
+    }
+    
+    public <T> T read(Supplier<T> query) {
+        boolean pin = !DataSourceRoutingContext.isPrimaryPinned();
+        if (pin) {
+            DataSourceRoutingContext.pinToPrimary();
+        }
+        try {
+            return transactionTemplate.execute(status -> query.get());
+        } finally {
+            if (pin) {
+                DataSourceRoutingContext.clear();
+            }
+        }
+    }
+}
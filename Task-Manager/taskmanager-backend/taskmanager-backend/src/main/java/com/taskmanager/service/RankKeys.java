@@ -0,0 +1,115 @@
+package com.taskmanager.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Lexicographic rank keys for manual ordering. A key is read as the base-36 fraction
+ * 0.k1k2k3... using only 0-9 and a-z, so plain string comparison matches numeric order
+ * under both binary and case-insensitive column collations. Keys never end in '0',
+ * which guarantees that another key always fits between any two distinct keys.
+ */
+public final class RankKeys {
+    
+    private static final String DIGITS = "0123456789abcdefghijklmnopqrstuvwxyz";
+    private static final int BASE = DIGITS.length();
+    
+    private RankKeys() {
+    }
+    
+    // A key strictly between before and after; null means open-ended on that side
+    public static String between(String before, String after) {
+        String low = before == null ? "" : before;
+        if (after != null && low.compareTo(after) >= 0) {
+            throw new IllegalArgumentException("Rank " + before + " is not before " + after);
+        }
+        if (after == null && !low.isEmpty()) {
+            return increment(low);
+        }
+        return midpoint(low, after);
+    }
+    
+    // count keys spread evenly over the lower half of the key space, all of the same small
+    // length; the upper half stays free for appends at that length
+    public static List<String> spread(int count) {
+        int length = 1;
+        long space = BASE;
+        while (space <= 2L * count) {
+            length++;
+            space *= BASE;
+        }
+        List<String> keys = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            keys.add(encode(space * i / (2L * (count + 1)), length));
+        }
+        return keys;
+    }
+    
+    // The next key after low at low's length, for appending: repeated appends step through
+    // every key of that length before growing. Once low is all 'z's the length doubles, so
+    // n appends only need keys of about twice log36(n) digits rather than one more digit
+    // per 35 keys.
+    private static String increment(String low) {
+        char[] digits = low.toCharArray();
+        for (int i = digits.length - 1; i >= 0; i--) {
+            int digit = DIGITS.indexOf(digits[i]);
+            if (digit + 1 < BASE) {
+                digits[i] = DIGITS.charAt(digit + 1);
+                Arrays.fill(digits, i + 1, digits.length, '0');
+                // The key after a carry ends in '0'; its successor does not
+                if (digits[digits.length - 1] == '0') {
+                    digits[digits.length - 1] = '1';
+                }
+                return new String(digits);
+            }
+        }
+        return low + "0".repeat(low.length() - 1) + "1";
+    }
+    
+    private static String midpoint(String low, String high) {
+        if (high != null) {
+            // Shared leading digits (low padded with zeros) carry over unchanged
+            int shared = 0;
+            while (shared < high.length() && digitAt(low, shared) == high.charAt(shared)) {
+                shared++;
+            }
+            if (shared > 0) {
+                return high.substring(0, shared)
+                    + midpoint(low.substring(Math.min(shared, low.length())), high.substring(shared));
+            }
+        }
+        int lowDigit = low.isEmpty() ? 0 : DIGITS.indexOf(low.charAt(0));
+        int highDigit = high == null ? BASE : DIGITS.indexOf(high.charAt(0));
+        // Appending steps one digit up instead of halving, so a column fills many slots per key length
+        if (high == null && !low.isEmpty() && lowDigit + 1 < BASE) {
+            return String.valueOf(DIGITS.charAt(lowDigit + 1));
+        }
+        if (highDigit - lowDigit > 1) {
+            return String.valueOf(DIGITS.charAt((lowDigit + highDigit) / 2));
+        }
+        // Adjacent first digits: high's first digit alone sorts between, if high goes on
+        if (high != null && high.length() > 1) {
+            return high.substring(0, 1);
+        }
+        return DIGITS.charAt(lowDigit) + midpoint(low.isEmpty() ? "" : low.substring(1), null);
+    }
+    
+    private static char digitAt(String key, int index) {
+        return index < key.length() ? key.charAt(index) : '0';
+    }
+    
+    // Fixed-width base-36 digits of value, with trailing zeros dropped
+    private static String encode(long value, int length) {
+        char[] digits = new char[length];
+        for (int i = length - 1; i >= 0; i--) {
+            digits[i] = DIGITS.charAt((int) (value % BASE));
+            value /= BASE;
+        }
+        int end = length;
+        while (end > 1 && digits[end - 1] == '0') {
+            end--;
+        }
+        return new String(digits, 0, end);
+    }
+}
@@ -0,0 +1,196 @@
+package com.taskmanager.service;
+
+import com.taskmanager.exception.InvalidRequestException;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Recurrence rule of a recurring task: the subset of iCalendar RRULE made of FREQ
+ * (DAILY, WEEKLY, MONTHLY or YEARLY), INTERVAL, BYDAY (weekly rules only), COUNT and
+ * UNTIL (a date, inclusive), e.g. {@code FREQ=WEEKLY;INTERVAL=2;BYDAY=MO,TH;COUNT=10}.
+ * The series starts at the task's due date and every occurrence keeps its time of day.
+ * A monthly or yearly rule skips months without the start's day, as RRULE does.
+ */
+public final class RecurrenceRule {
+    
+    public enum Frequency {
+        DAILY, WEEKLY, MONTHLY, YEARLY
+    }
+    
+    private static final int MAX_INTERVAL = 1000;
+    private static final int MAX_COUNT = 10000;
+    private static final Map<String, DayOfWeek> DAYS = Map.of(
+        "MO", DayOfWeek.MONDAY, "TU", DayOfWeek.TUESDAY, "WE", DayOfWeek.WEDNESDAY, "TH", DayOfWeek.THURSDAY,
+        "FR", DayOfWeek.FRIDAY, "SA", DayOfWeek.SATURDAY, "SU", DayOfWeek.SUNDAY);
+    
+    private final Frequency frequency;
+    private final int interval;
+    private final TreeSet<DayOfWeek> byDay;
+    private final Integer count;
+    private final LocalDate until;
+    
+    private RecurrenceRule(Frequency frequency, int interval, TreeSet<DayOfWeek> byDay, Integer count, LocalDate until) {
+        this.frequency = frequency;
+        this.interval = interval;
+        this.byDay = byDay;
+        this.count = count;
+        this.until = until;
+    }
+    
+    public static RecurrenceRule parse(String rule) {
+        Frequency frequency = null;
+        int interval = 1;
+        TreeSet<DayOfWeek> byDay = new TreeSet<>();
+        Integer count = null;
+        LocalDate until = null;
+        try {
+            for (String part : rule.trim().toUpperCase(Locale.ROOT).split(";")) {
+                String[] pair = part.split("=", 2);
+                if (pair.length != 2) {
+                    throw invalid(rule);
+                }
+                String value = pair[1].trim();
+                switch (pair[0].trim()) {
+                    case "FREQ" -> frequency = Frequency.valueOf(value);
+                    case "INTERVAL" -> interval = Integer.parseInt(value);
+                    case "COUNT" -> count = Integer.parseInt(value);
+                    case "UNTIL" -> until = LocalDate.parse(value);
+                    case "BYDAY" -> {
+                        for (String day : value.split(",")) {
+                            DayOfWeek dayOfWeek = DAYS.get(day.trim());
+                            if (dayOfWeek == null) {
+                                throw invalid(rule);
+                            }
+                            byDay.add(dayOfWeek);
+                        }
+                    }
+                    default -> throw invalid(rule);
+                }
+            }
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw invalid(rule);
+        }
+        if (frequency == null || interval < 1 || interval > MAX_INTERVAL
+                || (count != null && (count < 1 || count > MAX_COUNT))
+                || (!byDay.isEmpty() && frequency != Frequency.WEEKLY)) {
+            throw invalid(rule);
+        }
+        return new RecurrenceRule(frequency, interval, byDay, count, until);
+    }
+    
+    // Occurrences in [from, to) of a series starting at start, at most limit of them
+    public List<LocalDateTime> between(LocalDateTime start, LocalDateTime from, LocalDateTime to, int limit) {
+        List<LocalDateTime> occurrences = new ArrayList<>();
+        LocalDateTime end = until == null ? to : min(to, until.plusDays(1).atStartOfDay());
+        long index = 0;
+        // Without COUNT, periods wholly before the window need not be walked
+        long period = count == null && from.isAfter(start) ? Math.max(0, periodsBetween(start, from) / interval - 1) : 0;
+        for (; periodStart(start, period).isBefore(end); period++) {
+            for (LocalDateTime at : candidates(start, period)) {
+                if (at.isBefore(start)) {
+                    continue;
+                }
+                if ((count != null && index >= count) || !at.isBefore(end)) {
+                    return occurrences;
+                }
+                index++;
+                if (!at.isBefore(from)) {
+                    occurrences.add(at);
+                    if (occurrences.size() >= limit) {
+                        return occurrences;
+                    }
+                }
+            }
+        }
+        return occurrences;
+    }
+    
+    public boolean isOccurrence(LocalDateTime start, LocalDateTime at) {
+        return !between(start, at, at.plusNanos(1), 1).isEmpty();
+    }
+    
+    // Canonical form, as stored on the task
+    @Override
+    public String toString() {
+        StringBuilder rule = new StringBuilder("FREQ=").append(frequency);
+        if (interval != 1) {
+            rule.append(";INTERVAL=").append(interval);
+        }
+        if (!byDay.isEmpty()) {
+            rule.append(";BYDAY=");
+            byDay.forEach(day -> rule.append(day.name(), 0, 2).append(','));
+            rule.setLength(rule.length() - 1);
+        }
+        if (count != null) {
+            rule.append(";COUNT=").append(count);
+        }
+        if (until != null) {
+            rule.append(";UNTIL=").append(until);
+        }
+        return rule.toString();
+    }
+    
+    private long periodsBetween(LocalDateTime start, LocalDateTime from) {
+        return switch (frequency) {
+            case DAILY -> ChronoUnit.DAYS.between(start, from);
+            case WEEKLY -> ChronoUnit.WEEKS.between(start, from);
+            case MONTHLY -> ChronoUnit.MONTHS.between(start, from);
+            case YEARLY -> ChronoUnit.YEARS.between(start, from);
+        };
+    }
+    
+    // No occurrence of the period falls before this
+    private LocalDateTime periodStart(LocalDateTime start, long period) {
+        long steps = period * interval;
+        return switch (frequency) {
+            case DAILY -> start.plusDays(steps);
+            case WEEKLY -> byDay.isEmpty() ? start.plusWeeks(steps)
+                : start.toLocalDate().with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)).plusWeeks(steps).atStartOfDay();
+            case MONTHLY -> YearMonth.from(start).plusMonths(steps).atDay(1).atStartOfDay();
+            case YEARLY -> YearMonth.from(start).plusYears(steps).atDay(1).atStartOfDay();
+        };
+    }
+    
+    private List<LocalDateTime> candidates(LocalDateTime start, long period) {
+        long steps = period * interval;
+        return switch (frequency) {
+            case DAILY -> List.of(start.plusDays(steps));
+            case WEEKLY -> {
+                if (byDay.isEmpty()) {
+                    yield List.of(start.plusWeeks(steps));
+                }
+                LocalDate monday = start.toLocalDate().with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)).plusWeeks(steps);
+                List<LocalDateTime> days = new ArrayList<>(byDay.size());
+                byDay.forEach(day -> days.add(monday.with(TemporalAdjusters.nextOrSame(day)).atTime(start.toLocalTime())));
+                yield days;
+            }
+            case MONTHLY -> onDayOfMonth(start, YearMonth.from(start).plusMonths(steps));
+            case YEARLY -> onDayOfMonth(start, YearMonth.from(start).plusYears(steps));
+        };
+    }
+    
+    private static List<LocalDateTime> onDayOfMonth(LocalDateTime start, YearMonth month) {
+        return month.isValidDay(start.getDayOfMonth())
+            ? List.of(month.atDay(start.getDayOfMonth()).atTime(start.toLocalTime()))
+            : List.of();
+    }
+    
+    private static LocalDateTime min(LocalDateTime a, LocalDateTime b) {
+        return a.isBefore(b) ? a : b;
+    }
+    
+    private static RuntimeException invalid(String rule) {
+        return new InvalidRequestException("Invalid recurrence rule: " + rule);
+    }
+}
@@ -0,0 +1,137 @@
+package com.taskmanager.service;
+
+import com.taskmanager.model.Task;
+import com.taskmanager.model.Task.TaskStatus;
+import com.taskmanager.model.User;
+import com.taskmanager.repository.TaskRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Expands recurring tasks into their occurrences on read. Only the rule is stored; an
+ * occurrence gets a row of its own (pointing back through {@code seriesId}) once it is
+ * edited, completed or deleted, and expansion leaves those out. An expansion depends on
+ * nothing but rule, start and window, so results are cached in a bounded LRU map and
+ * never need invalidating.
+ */
+@Service
+public class RecurrenceService {
+    
+    @Autowired
+    private TaskRepository taskRepository;
+    
+    @Value("${app.recurrence.cache-size:10000}")
+    private int cacheSize;
+    
+    // Occurrences listed per recurring task and window at most
+    @Value("${app.recurrence.max-occurrences:1000}")
+    private int maxOccurrences;
+    
+    // How far back an overdue listing looks for a missed occurrence
+    @Value("${app.recurrence.overdue-lookback-days:30}")
+    private int overdueLookbackDays;
+    
+    private final Map<Expansion, List<LocalDateTime>> expansions = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Expansion, List<LocalDateTime>> eldest) {
+            return size() > cacheSize;
+        }
+    };
+    
+    private record Expansion(String rule, LocalDateTime start, LocalDateTime from, LocalDateTime to) {
+    }
+    
+    // Canonical form of a rule sent by a client; throws if it cannot be parsed
+    public String normalize(String rule) {
+        return RecurrenceRule.parse(rule).toString();
+    }
+    
+    // Occurrences of the user's running recurring tasks in [from, to), as unsaved tasks ordered by due date
+    public List<Task> expand(User user, LocalDateTime from, LocalDateTime to) {
+        List<Task> series = taskRepository.findOpenSeries(user, TaskStatus.COMPLETED, to);
+        if (series.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Long, Set<LocalDateTime>> written = new HashMap<>();
+        List<Long> seriesIds = series.stream().map(Task::getId).collect(Collectors.toList());
+        for (Object[] row : taskRepository.findWrittenOccurrences(user, seriesIds)) {
+            written.computeIfAbsent((Long) row[0], id -> new HashSet<>()).add((LocalDateTime) row[1]);
+        }
+        
+        List<Task> occurrences = new ArrayList<>();
+        for (Task task : series) {
+            Set<LocalDateTime> skip = written.getOrDefault(task.getId(), Set.of());
+            for (LocalDateTime at : occurrences(task, from, to)) {
+                if (!skip.contains(at)) {
+                    occurrences.add(occurrenceOf(task, at));
+                }
+            }
+        }
+        occurrences.sort(Comparator.comparing(Task::getDueDate));
+        return occurrences;
+    }
+    
+    // The latest occurrence before now of each running recurring task, within the lookback window.
+    // The window ends at the next midnight, so the cached expansions only change once a day.
+    public List<Task> lastMissed(User user, LocalDateTime now) {
+        LocalDateTime to = now.toLocalDate().plusDays(1).atStartOfDay();
+        LocalDateTime from = to.minusDays(overdueLookbackDays + 1L);
+        Map<Long, Task> latest = new LinkedHashMap<>();
+        for (Task occurrence : expand(user, from, to)) {
+            if (occurrence.getDueDate().isBefore(now)) {
+                latest.put(occurrence.getSeriesId(), occurrence);
+            }
+        }
+        List<Task> missed = new ArrayList<>(latest.values());
+        missed.sort(Comparator.comparing(Task::getDueDate));
+        return missed;
+    }
+    
+    public boolean isOccurrence(Task series, LocalDateTime at) {
+        return RecurrenceRule.parse(series.getRecurrence()).isOccurrence(series.getDueDate(), at);
+    }
+    
+    // One occurrence of a recurring task: its fields on the occurrence's date, not yet saved
+    public static Task occurrenceOf(Task series, LocalDateTime at) {
+        Task occurrence = new Task();
+        occurrence.setTitle(series.getTitle());
+        occurrence.setDescription(series.getDescription());
+        occurrence.setStatus(TaskStatus.TODO);
+        occurrence.setPriority(series.getPriority());
+        occurrence.setDueDate(at);
+        occurrence.setWorkspaceId(series.getWorkspaceId());
+        occurrence.setTags(new HashSet<>(series.getTags()));
+        occurrence.setUser(series.getUser());
+        occurrence.setSeriesId(series.getId());
+        occurrence.setOccurrenceAt(at);
+        return occurrence;
+    }
+    
+    private List<LocalDateTime> occurrences(Task series, LocalDateTime from, LocalDateTime to) {
+        Expansion key = new Expansion(series.getRecurrence(), series.getDueDate(), from, to);
+        List<LocalDateTime> cached;
+        synchronized (expansions) {
+            cached = expansions.get(key);
+        }
+        if (cached == null) {
+            cached = List.copyOf(RecurrenceRule.parse(series.getRecurrence())
+                .between(series.getDueDate(), from, to, maxOccurrences));
+            synchronized (expansions) {
+                expansions.put(key, cached);
+            }
+        }
+        return cached;
+    }
+}
@@ -0,0 +1,228 @@
+package com.taskmanager.service;
+
+import com.taskmanager.model.Task;
+import com.taskmanager.model.Task.TaskPriority;
+import com.taskmanager.model.Task.TaskStatus;
+import com.taskmanager.model.User;
+import com.taskmanager.repository.TaskRepository;
+import org.roaringbitmap.longlong.Roaring64NavigableMap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-user compressed bitmaps of live (non-deleted) task ids keyed by tag, status,
+ * priority and archived flag. Loaded lazily from the primary on a user's first tag query
+ * and kept current by TaskService after each commit on this instance. Commits made through
+ * other instances never reach it, so a user's bitmaps are reloaded once older than the TTL,
+ * which bounds how stale tag filters can be there. When full, the least recently used user
+ * is dropped.
+ */
+@Component
+public class TaskBitmapIndex {
+    
+    @Autowired
+    private TaskRepository taskRepository;
+    
+    @Autowired
+    private PrimaryReader primaryReader;
+    
+    @Value("${app.bitmap-index.max-users:10000}")
+    private int maxUsers;
+    
+    @Value("${app.bitmap-index.ttl-seconds:60}")
+    private long ttlSeconds;
+    
+    private final Map<Long, UserIndex> indexes = new ConcurrentHashMap<>();
+    
+    private final UserIndexLoads<UserIndex> loads = new UserIndexLoads<>(indexes);
+    
+    // Ids of the user's live tasks matching every given condition; null conditions are ignored
+    public Roaring64NavigableMap evaluate(User user, TaskStatus status, TaskPriority priority, Boolean archived,
+                                          Collection<String> allTags, Collection<String> anyTags,
+                                          Collection<String> excludedTags) {
+        UserIndex index = indexFor(user);
+        synchronized (index) {
+            Roaring64NavigableMap result = copyOf(index.all);
+            if (status != null) {
+                result.and(index.byStatus.getOrDefault(status, new Roaring64NavigableMap()));
+            }
+            if (priority != null) {
+                result.and(index.byPriority.getOrDefault(priority, new Roaring64NavigableMap()));
+            }
+            if (archived != null) {
+                if (archived) {
+                    result.and(index.archived);
+                } else {
+                    result.andNot(index.archived);
+                }
+            }
+            if (allTags != null) {
+                for (String tag : allTags) {
+                    result.and(index.byTag.getOrDefault(tag, new Roaring64NavigableMap()));
+                }
+            }
+            if (anyTags != null && !anyTags.isEmpty()) {
+                Roaring64NavigableMap union = new Roaring64NavigableMap();
+                for (String tag : anyTags) {
+                    Roaring64NavigableMap tagged = index.byTag.get(tag);
+                    if (tagged != null) {
+                        union.or(tagged);
+                    }
+                }
+                result.and(union);
+            }
+            if (excludedTags != null) {
+                for (String tag : excludedTags) {
+                    Roaring64NavigableMap tagged = index.byTag.get(tag);
+                    if (tagged != null) {
+                        result.andNot(tagged);
+                    }
+                }
+            }
+            return result;
+        }
+    }
+    
+    // Number of live tasks per tag, alphabetically
+    public Map<String, Long> tagCounts(User user) {
+        UserIndex index = indexFor(user);
+        synchronized (index) {
+            Map<String, Long> counts = new TreeMap<>();
+            index.byTag.forEach((tag, ids) -> counts.put(tag, ids.getLongCardinality()));
+            return counts;
+        }
+    }
+    
+    public void onTaskSaved(Task task) {
+        Long userId = task.getUser().getId();
+        long id = task.getId();
+        boolean deleted = task.isDeleted();
+        TaskStatus status = task.getStatus();
+        TaskPriority priority = task.getPriority();
+        boolean archived = task.isArchived();
+        Set<String> tags = new HashSet<>(task.getTags());
+        TransactionHooks.afterCommit(() -> loads.apply(userId, index -> {
+            index.remove(id);
+            if (!deleted) {
+                index.add(id, status, priority, archived, tags);
+            }
+        }));
+    }
+    
+    public void onTaskRemoved(Long userId, Long taskId) {
+        TransactionHooks.afterCommit(() -> loads.apply(userId, index -> index.remove(taskId)));
+    }
+    
+    // Drops a user's index after bulk changes; it is rebuilt on next use
+    public void invalidate(Long userId) {
+        TransactionHooks.afterCommit(() -> {
+            loads.discardLoad(userId);
+            indexes.remove(userId);
+        });
+    }
+    
+    private UserIndex indexFor(User user) {
+        long now = System.currentTimeMillis();
+        UserIndex index = indexes.get(user.getId());
+        if (index != null && now - index.loadedAt < ttlSeconds * 1000) {
+            index.lastAccess = now;
+            return index;
+        }
+        if (index != null) {
+            indexes.remove(user.getId(), index);
+        } else if (indexes.size() >= maxUsers) {
+            evictLeastRecentlyUsed();
+        }
+        index = loads.get(user.getId(), () -> primaryReader.read(() -> load(user)));
+        index.lastAccess = now;
+        return index;
+    }
+    
+    private void evictLeastRecentlyUsed() {
+        Long idlest = null;
+        long oldest = Long.MAX_VALUE;
+        for (Map.Entry<Long, UserIndex> entry : indexes.entrySet()) {
+            if (entry.getValue().lastAccess < oldest) {
+                oldest = entry.getValue().lastAccess;
+                idlest = entry.getKey();
+            }
+        }
+        if (idlest != null) {
+            indexes.remove(idlest);
+        }
+    }
+    
+    private UserIndex load(User user) {
+        // Stamped before the read, so the TTL never outlasts the snapshot's age
+        UserIndex index = new UserIndex(System.currentTimeMillis());
+        for (Object[] row : taskRepository.findIndexRows(user)) {
+            long id = (Long) row[0];
+            if (!index.all.contains(id)) {
+                index.add(id, (TaskStatus) row[1], (TaskPriority) row[2], (Boolean) row[3], null);
+            }
+            if (row[4] != null) {
+                index.byTag.computeIfAbsent((String) row[4], tag -> new Roaring64NavigableMap()).addLong(id);
+            }
+        }
+        return index;
+    }
+    
+    private static Roaring64NavigableMap copyOf(Roaring64NavigableMap bitmap) {
+        Roaring64NavigableMap copy = new Roaring64NavigableMap();
+        copy.or(bitmap);
+        return copy;
+    }
+    
+    private static class UserIndex {
+        private final Roaring64NavigableMap all = new Roaring64NavigableMap();
+        private final Roaring64NavigableMap archived = new Roaring64NavigableMap();
+        private final Map<TaskStatus, Roaring64NavigableMap> byStatus = new EnumMap<>(TaskStatus.class);
+        private final Map<TaskPriority, Roaring64NavigableMap> byPriority = new EnumMap<>(TaskPriority.class);
+        private final Map<String, Roaring64NavigableMap> byTag = new HashMap<>();
+        private final long loadedAt;
+        private volatile long lastAccess;
+        
+        UserIndex(long loadedAt) {
+            this.loadedAt = loadedAt;
+            this.lastAccess = loadedAt;
+        }
+        
+        void add(long id, TaskStatus status, TaskPriority priority, boolean isArchived, Collection<String> tags) {
+            all.addLong(id);
+            byStatus.computeIfAbsent(status, key -> new Roaring64NavigableMap()).addLong(id);
+            byPriority.computeIfAbsent(priority, key -> new Roaring64NavigableMap()).addLong(id);
+            if (isArchived) {
+                archived.addLong(id);
+            }
+            if (tags != null) {
+                for (String tag : tags) {
+                    byTag.computeIfAbsent(tag, key -> new Roaring64NavigableMap()).addLong(id);
+                }
+            }
+        }
+        
+        void remove(long id) {
+            if (!all.contains(id)) {
+                return;
+            }
+            all.removeLong(id);
+            archived.removeLong(id);
+            byStatus.values().forEach(ids -> ids.removeLong(id));
+            byPriority.values().forEach(ids -> ids.removeLong(id));
+            byTag.values().removeIf(ids -> {
+                ids.removeLong(id);
+                return ids.isEmpty();
+            });
+        }
+    }
+}
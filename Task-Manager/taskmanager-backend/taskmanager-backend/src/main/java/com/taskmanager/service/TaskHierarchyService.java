@@ -0,0 +1,161 @@
+package com.taskmanager.service;
+
+import com.taskmanager.dto.TaskNode;
+import com.taskmanager.exception.InvalidRequestException;
+import com.taskmanager.exception.NotFoundException;
+import com.taskmanager.model.Task;
+import com.taskmanager.model.Task.TaskStatus;
+import com.taskmanager.model.TaskDependency;
+import com.taskmanager.model.User;
+import com.taskmanager.repository.TaskClosureRepository;
+import com.taskmanager.repository.TaskDependencyRepository;
+import com.taskmanager.repository.TaskRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Subtasks (kept as a closure table) and blocked-by dependencies between a user's tasks.
+ */
+@Service
+@Transactional
+public class TaskHierarchyService {
+    
+    @Autowired
+    private TaskRepository taskRepository;
+    
+    @Autowired
+    private TaskClosureRepository taskClosureRepository;
+    
+    @Autowired
+    private TaskDependencyRepository taskDependencyRepository;
+    
+    // Throws unless the parent exists and belongs to the user
+    @Transactional(readOnly = true)
+    public void checkParent(Long parentId, User user) {
+        taskRepository.findByIdAndUser(parentId, user)
+            .orElseThrow(() -> new InvalidRequestException("Parent task not found with id: " + parentId));
+    }
+    
+    // Records the closure paths of a freshly created subtask
+    public void onSubtaskCreated(Task task) {
+        taskClosureRepository.ensureSelf(task.getParentId());
+        taskClosureRepository.ensureSelf(task.getId());
+        taskClosureRepository.attachSubtree(task.getId(), task.getParentId());
+    }
+    
+    // Re-links the closure paths of a task (with its subtree) under a new parent, or at the top level
+    // when parentId is null; the task row itself is written by TaskService
+    public void reparent(Long id, Long parentId, User user) {
+        taskClosureRepository.ensureSelf(id);
+        if (parentId != null) {
+            checkParent(parentId, user);
+            if (taskClosureRepository.existsByAncestorIdAndDescendantId(id, parentId)) {
+                throw new InvalidRequestException("Task cannot be moved under itself or one of its subtasks");
+            }
+            taskClosureRepository.ensureSelf(parentId);
+        }
+        
+        taskClosureRepository.detachSubtree(id);
+        if (parentId != null) {
+            taskClosureRepository.attachSubtree(id, parentId);
+        }
+    }
+    
+    // Drops the hierarchy and dependency rows of a permanently deleted task; its children become top-level
+    public void onTaskRemoved(Long id) {
+        taskClosureRepository.deletePathsThrough(id);
+        taskRepository.clearParent(id);
+        taskDependencyRepository.deleteAllFor(id);
+    }
+    
+    // Re-links a task brought back from the cold tier under its old parent, or makes it top-level
+    // when the parent is gone
+    public void onTaskRestored(Task task) {
+        if (task.getParentId() == null) {
+            return;
+        }
+        boolean parentLive = taskRepository.findByIdAndUser(task.getParentId(), task.getUser())
+            .filter(parent -> parent.getDeletedAt() == null)
+            .isPresent();
+        if (parentLive) {
+            onSubtaskCreated(task);
+        } else {
+            task.setParentId(null);
+            taskRepository.save(task);
+        }
+    }
+    
+    // Task and all of its (non-deleted) subtasks with their depth below it
+    @Transactional(readOnly = true)
+    public List<TaskNode> getSubtree(Long id, User user) {
+        List<Object[]> paths = taskClosureRepository.findSubtreeIds(id);
+        Map<Long, Task> tasks = liveTasks(paths.stream().map(path -> (Long) path[0]).collect(Collectors.toList()));
+        List<TaskNode> nodes = new ArrayList<>();
+        for (Object[] path : paths) {
+            Task task = tasks.get((Long) path[0]);
+            if (task != null && task.getUser().getId().equals(user.getId())) {
+                nodes.add(new TaskNode(task, (Integer) path[1]));
+            }
+        }
+        if (!nodes.isEmpty()) {
+            return nodes;
+        }
+        // Tasks that were never part of a hierarchy have no closure rows
+        Task task = taskRepository.findByIdAndUser(id, user)
+            .orElseThrow(() -> new NotFoundException("Task not found with id: " + id));
+        return List.of(new TaskNode(task, 0));
+    }
+    
+    @Transactional(readOnly = true)
+    public List<Task> getBlockers(Long id, User user, boolean transitive) {
+        checkTask(id, user);
+        List<Long> ids = transitive ? taskDependencyRepository.findTransitiveBlockerIds(id)
+            : taskDependencyRepository.findBlockerIds(id);
+        return new ArrayList<>(liveTasks(ids).values());
+    }
+    
+    public void addBlocker(Long id, Long blockerId, User user) {
+        checkTask(id, user);
+        checkTask(blockerId, user);
+        if (id.equals(blockerId) || taskDependencyRepository.findTransitiveBlockerIds(blockerId).contains(id)) {
+            throw new InvalidRequestException("Dependency would create a cycle");
+        }
+        taskDependencyRepository.save(new TaskDependency(id, blockerId));
+    }
+    
+    public void removeBlocker(Long id, Long blockerId, User user) {
+        checkTask(id, user);
+        taskDependencyRepository.deleteById(new TaskDependency.Key(id, blockerId));
+    }
+    
+    // A task is ready once none of its blockers is still open
+    @Transactional(readOnly = true)
+    public boolean isReady(Long id, User user) {
+        checkTask(id, user);
+        return liveTasks(taskDependencyRepository.findBlockerIds(id)).values().stream()
+            .allMatch(blocker -> blocker.getStatus() == TaskStatus.COMPLETED);
+    }
+    
+    // Non-deleted tasks by id, in id order
+    private Map<Long, Task> liveTasks(List<Long> ids) {
+        Map<Long, Task> tasks = new TreeMap<>();
+        if (!ids.isEmpty()) {
+            taskRepository.findAllById(ids).stream()
+                .filter(task -> !task.isDeleted())
+                .forEach(task -> tasks.put(task.getId(), task));
+        }
+        return tasks;
+    }
+    
+    private void checkTask(Long id, User user) {
+        taskRepository.findByIdAndUser(id, user)
+            .orElseThrow(() -> new NotFoundException("Task not found with id: " + id));
+    }
+}
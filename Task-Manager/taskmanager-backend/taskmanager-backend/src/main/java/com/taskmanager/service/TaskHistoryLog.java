@@ -0,0 +1,528 @@
+package com.taskmanager.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.taskmanager.dto.TaskHistoryEntry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Append-only task history kept on disk instead of in MySQL. Records go into fixed-size
+ * memory-mapped segments ({@code history-<seq>.seg}); a full segment is sealed and a new
+ * one started. An in-memory index maps each task id to the positions of its records, so
+ * reading a task's history is one seek per entry.
+ *
+ * Each instance writes only its own log, in {@code <dir>/<instance-id>}, and the history
+ * of a task is split across the instances that changed it. With several instances the
+ * directory must be a volume they all mount: every instance maps the other logs read-only,
+ * follows them as they grow, and merges all of them when a task's history is read. On a
+ * disk of its own, an instance only sees the changes it made itself.
+ *
+ * Record layout: {@code int length | byte type | long taskId | JSON entry}, where
+ * length covers everything after itself and a zero length marks the end of a segment.
+ * Permanently deleting a task appends a tombstone; an instance that finds one in another
+ * log tombstones the task in its own log as well. Sealed segments whose records are mostly
+ * dead are rewritten in place by the compaction job, which drops a tombstone once no
+ * record it covers is left.
+ */
+@Component
+public class TaskHistoryLog {
+    
+    private static final Logger logger = LoggerFactory.getLogger(TaskHistoryLog.class);
+    
+    private static final byte ENTRY = 1;
+    private static final byte TOMBSTONE = 2;
+    private static final int HEADER_BYTES = Integer.BYTES + 1 + Long.BYTES;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Value("${app.history.enabled:true}")
+    private boolean enabled;
+    
+    @Value("${app.history.dir:data/history}")
+    private String dir;
+    
+    // Names this instance's log; must stay the same across restarts
+    @Value("${app.history.instance-id:${HOSTNAME:local}}")
+    private String instanceId;
+    
+    @Value("${app.history.segment-size-bytes:16777216}")
+    private int segmentSize;
+    
+    @Value("${app.history.compaction-dead-ratio:0.5}")
+    private double compactionDeadRatio;
+    
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    
+    private Log own;
+    
+    private final Map<String, Log> peers = new TreeMap<>();
+    
+    // Permanently deleted tasks whose records are still in this instance's log, and how many there are
+    private final Map<Long, Integer> removedTasks = new HashMap<>();
+    
+    private Segment active;
+    
+    @PostConstruct
+    public void recover() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        Path path = Paths.get(dir).resolve(instanceId);
+        Files.createDirectories(path);
+        own = new Log(path);
+        for (Path file : segmentFiles(path)) {
+            Segment segment = Segment.open(file, segmentNumber(file), 0);
+            own.segments.put(segment.seq, segment);
+            scan(own, segment);
+        }
+        if (own.segments.isEmpty()) {
+            active = createSegment(0);
+        } else {
+            active = own.segments.lastEntry().getValue();
+        }
+        refreshPeers();
+        logger.info("Task history: {} segments, {} tasks indexed, {} other instances' logs",
+                    own.segments.size(), own.index.size(), peers.size());
+    }
+    
+    // Appends one history entry for a task; it is on disk when this returns
+    public void append(TaskHistoryEntry entry) {
+        if (!enabled) {
+            return;
+        }
+        byte[] payload;
+        try {
+            payload = objectMapper.writeValueAsBytes(entry);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        lock.writeLock().lock();
+        try {
+            long position = write(ENTRY, entry.getTaskId(), payload);
+            if (position >= 0) {
+                own.index.computeIfAbsent(entry.getTaskId(), id -> new Positions()).add(position);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    // Marks a permanently deleted task's history as dead so compaction can drop it
+    public void remove(Long taskId) {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            peers.values().forEach(peer -> peer.index.remove(taskId));
+            // Written even without local records; other instances learn of the delete from it
+            write(TOMBSTONE, taskId, new byte[0]);
+            forget(taskId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    // A task's history from every instance's log, oldest first
+    public List<TaskHistoryEntry> read(Long taskId) {
+        List<TaskHistoryEntry> entries = new ArrayList<>();
+        if (!enabled) {
+            return entries;
+        }
+        lock.readLock().lock();
+        try {
+            read(own, taskId, entries);
+            for (Log peer : peers.values()) {
+                read(peer, taskId, entries);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.readLock().unlock();
+        }
+        entries.sort(Comparator.comparing(TaskHistoryEntry::getChangedAt, Comparator.nullsLast(Comparator.naturalOrder())));
+        return entries;
+    }
+    
+    // Picks up other instances' logs and what they appended or compacted since the last look
+    @Scheduled(fixedDelayString = "${app.history.peer-refresh-ms:5000}", initialDelayString = "${app.history.peer-refresh-ms:5000}")
+    public void refreshPeers() {
+        if (!enabled) {
+            return;
+        }
+        List<Path> dirs;
+        try (Stream<Path> list = Files.list(Paths.get(dir))) {
+            dirs = list.filter(Files::isDirectory)
+                .filter(path -> !path.getFileName().toString().equals(instanceId))
+                .sorted()
+                .collect(Collectors.toList());
+        } catch (IOException e) {
+            logger.warn("Could not list task history logs in {}: {}", dir, e.getMessage());
+            return;
+        }
+        for (Path path : dirs) {
+            lock.writeLock().lock();
+            try {
+                Log peer = peers.computeIfAbsent(path.getFileName().toString(), name -> new Log(path));
+                for (Path file : segmentFiles(path)) {
+                    follow(peer, file);
+                }
+            } catch (IOException e) {
+                logger.warn("Could not read task history log {}: {}", path, e.getMessage());
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+    
+    // Rewrites sealed segments whose dead records exceed the configured ratio
+    @Scheduled(fixedDelayString = "${app.history.compaction-interval-ms:3600000}")
+    public void compact() {
+        if (!enabled) {
+            return;
+        }
+        List<Segment> candidates = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (Segment segment : own.segments.values()) {
+                if (segment != active && segment.records > 0
+                        && segment.deadRecords >= segment.records * compactionDeadRatio) {
+                    candidates.add(segment);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        for (Segment segment : candidates) {
+            lock.writeLock().lock();
+            try {
+                rewrite(segment);
+            } catch (IOException e) {
+                logger.error("Compaction of history segment {} failed: {}", segment.seq, e.getMessage());
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+    
+    @PreDestroy
+    public void close() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            for (Segment segment : own.segments.values()) {
+                segment.buffer.force();
+                segment.channel.close();
+            }
+            for (Log peer : peers.values()) {
+                for (Segment segment : peer.segments.values()) {
+                    segment.channel.close();
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    private void read(Log log, Long taskId, List<TaskHistoryEntry> entries) throws IOException {
+        Positions positions = log.index.get(taskId);
+        if (positions == null) {
+            return;
+        }
+        for (int i = 0; i < positions.size; i++) {
+            long position = positions.values[i];
+            ByteBuffer buffer = log.segments.get(segmentOf(position)).buffer.duplicate();
+            buffer.position(offsetOf(position));
+            int length = buffer.getInt();
+            byte[] payload = new byte[length - 1 - Long.BYTES];
+            buffer.position(buffer.position() + 1 + Long.BYTES);
+            buffer.get(payload);
+            entries.add(objectMapper.readValue(payload, TaskHistoryEntry.class));
+        }
+    }
+    
+    // Returns the record's packed position, or -1 if it is larger than a segment
+    private long write(byte type, Long taskId, byte[] payload) {
+        int length = 1 + Long.BYTES + payload.length;
+        if (Integer.BYTES + length > segmentSize) {
+            logger.warn("Dropping history record of {} bytes for task {}: larger than a segment", length, taskId);
+            return -1;
+        }
+        if (active.end + Integer.BYTES + length > active.buffer.capacity()) {
+            active.buffer.force();
+            try {
+                active = createSegment(active.seq + 1);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not roll the task history log", e);
+            }
+        }
+        int offset = active.end;
+        MappedByteBuffer buffer = active.buffer;
+        buffer.put(offset + Integer.BYTES, type);
+        buffer.putLong(offset + Integer.BYTES + 1, taskId);
+        buffer.put(offset + HEADER_BYTES, payload);
+        // Length last, so a torn record reads as the end of the segment
+        buffer.putInt(offset, length);
+        buffer.force(offset, Integer.BYTES + length);
+        active.end = offset + Integer.BYTES + length;
+        active.records++;
+        return position(active.seq, offset);
+    }
+    
+    // Reads a segment's records from where the last scan of it stopped
+    private void scan(Log log, Segment segment) {
+        ByteBuffer buffer = segment.buffer;
+        int offset = segment.end;
+        while (offset + HEADER_BYTES <= buffer.capacity()) {
+            int length = buffer.getInt(offset);
+            if (length <= 0 || offset + Integer.BYTES + length > buffer.capacity()) {
+                break;
+            }
+            byte type = buffer.get(offset + Integer.BYTES);
+            long taskId = buffer.getLong(offset + Integer.BYTES + 1);
+            segment.records++;
+            if (type == TOMBSTONE) {
+                if (log == own) {
+                    forget(taskId);
+                } else {
+                    log.index.remove(taskId);
+                    if (own.index.containsKey(taskId)) {
+                        write(TOMBSTONE, taskId, new byte[0]);
+                        forget(taskId);
+                    }
+                }
+            } else if (log == own && removedTasks.containsKey(taskId)) {
+                segment.deadRecords++;
+                removedTasks.merge(taskId, 1, Integer::sum);
+            } else {
+                log.index.computeIfAbsent(taskId, id -> new Positions()).add(position(segment.seq, offset));
+            }
+            offset += Integer.BYTES + length;
+        }
+        segment.end = offset;
+    }
+    
+    // Maps a segment of another instance's log, or catches up with it; a compacted one is read anew
+    private void follow(Log peer, Path file) throws IOException {
+        long seq = segmentNumber(file);
+        Segment segment = peer.segments.get(seq);
+        Object fileKey = Files.readAttributes(file, BasicFileAttributes.class).fileKey();
+        if (segment != null && !Objects.equals(segment.fileKey, fileKey)) {
+            peer.index.values().forEach(positions -> positions.removeSegment(seq));
+            peer.index.values().removeIf(positions -> positions.size == 0);
+            segment.channel.close();
+            segment = null;
+        }
+        if (segment == null || Files.size(file) > segment.buffer.capacity()) {
+            Segment reopened = Segment.openReadOnly(file, seq);
+            if (segment != null) {
+                segment.channel.close();
+                reopened.end = segment.end;
+                reopened.records = segment.records;
+            }
+            segment = reopened;
+            peer.segments.put(seq, segment);
+        }
+        scan(peer, segment);
+    }
+    
+    private void forget(Long taskId) {
+        Positions positions = own.index.remove(taskId);
+        if (positions == null) {
+            return;
+        }
+        for (int i = 0; i < positions.size; i++) {
+            Segment segment = own.segments.get(segmentOf(positions.values[i]));
+            if (segment != null) {
+                segment.deadRecords++;
+            }
+        }
+        removedTasks.merge(taskId, positions.size, Integer::sum);
+    }
+    
+    // Copies the live records of a sealed segment into a new file and swaps it in. A tombstone is
+    // kept only while other segments still hold records of its task.
+    private void rewrite(Segment segment) throws IOException {
+        ByteBuffer source = segment.buffer;
+        for (int offset = 0; offset < segment.end; offset += Integer.BYTES + source.getInt(offset)) {
+            long taskId = source.getLong(offset + Integer.BYTES + 1);
+            if (source.get(offset + Integer.BYTES) == ENTRY && removedTasks.containsKey(taskId)) {
+                removedTasks.computeIfPresent(taskId, (id, count) -> count > 1 ? count - 1 : null);
+            }
+        }
+        
+        Path temp = segment.path.resolveSibling(segment.path.getFileName() + ".tmp");
+        Map<Integer, Integer> moved = new HashMap<>();
+        int records = 0;
+        int size = 0;
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer target = channel.map(FileChannel.MapMode.READ_WRITE, 0, segment.end);
+            int offset = 0;
+            while (offset < segment.end) {
+                int length = Integer.BYTES + source.getInt(offset);
+                byte type = source.get(offset + Integer.BYTES);
+                long taskId = source.getLong(offset + Integer.BYTES + 1);
+                boolean keep = type == TOMBSTONE ? removedTasks.containsKey(taskId) : own.index.containsKey(taskId);
+                if (keep) {
+                    target.put(size, source, offset, length);
+                    moved.put(offset, size);
+                    size += length;
+                    records++;
+                }
+                offset += length;
+            }
+            target.force();
+        }
+        segment.channel.close();
+        Files.move(temp, segment.path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        
+        Segment compacted = Segment.open(segment.path, segment.seq, 0);
+        compacted.end = compacted.buffer.capacity();
+        compacted.records = records;
+        own.segments.put(segment.seq, compacted);
+        for (Positions positions : own.index.values()) {
+            for (int i = 0; i < positions.size; i++) {
+                long position = positions.values[i];
+                if (segmentOf(position) == segment.seq) {
+                    positions.values[i] = position(segment.seq, moved.get(offsetOf(position)));
+                }
+            }
+        }
+        logger.info("Compacted history segment {}: {} of {} records kept", segment.seq, records, segment.records);
+    }
+    
+    private Segment createSegment(long seq) throws IOException {
+        Path path = own.path.resolve(String.format("history-%012d.seg", seq));
+        Segment segment = Segment.open(path, seq, segmentSize);
+        own.segments.put(seq, segment);
+        return segment;
+    }
+    
+    private static List<Path> segmentFiles(Path path) throws IOException {
+        try (Stream<Path> list = Files.list(path)) {
+            return list.filter(file -> file.getFileName().toString().matches("history-\\d+\\.seg"))
+                .sorted()
+                .collect(Collectors.toList());
+        }
+    }
+    
+    private static long segmentNumber(Path file) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring("history-".length(), name.length() - ".seg".length()));
+    }
+    
+    private static long position(long seq, int offset) {
+        return (seq << 32) | offset;
+    }
+    
+    private static long segmentOf(long position) {
+        return position >>> 32;
+    }
+    
+    private static int offsetOf(long position) {
+        return (int) position;
+    }
+    
+    // One instance's segments and where each task's records are in them
+    private static class Log {
+        private final Path path;
+        private final TreeMap<Long, Segment> segments = new TreeMap<>();
+        private final Map<Long, Positions> index = new HashMap<>();
+        
+        Log(Path path) {
+            this.path = path;
+        }
+    }
+    
+    private static class Segment {
+        private final long seq;
+        private final Path path;
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+        // Identifies the file, so a segment another instance compacted is noticed
+        private final Object fileKey;
+        private int end;
+        private int records;
+        private int deadRecords;
+        
+        private Segment(long seq, Path path, FileChannel channel, MappedByteBuffer buffer) throws IOException {
+            this.seq = seq;
+            this.path = path;
+            this.channel = channel;
+            this.buffer = buffer;
+            this.fileKey = Files.readAttributes(path, BasicFileAttributes.class).fileKey();
+        }
+        
+        // Maps an existing file as-is, or a new one at the given size
+        static Segment open(Path path, long seq, int size) throws IOException {
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                                                   StandardOpenOption.READ, StandardOpenOption.WRITE);
+            long length = Math.max(channel.size(), size);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, length);
+            return new Segment(seq, path, channel, buffer);
+        }
+        
+        // Maps another instance's segment for reading
+        static Segment openReadOnly(Path path, long seq) throws IOException {
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new Segment(seq, path, channel, buffer);
+        }
+    }
+    
+    // Growable list of packed record positions for one task
+    private static class Positions {
+        private long[] values = new long[4];
+        private int size;
+        
+        void add(long position) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = position;
+        }
+        
+        void removeSegment(long seq) {
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                if (segmentOf(values[i]) != seq) {
+                    values[kept++] = values[i];
+                }
+            }
+            size = kept;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.taskmanager.service;
+
+import com.taskmanager.model.Task;
+import com.taskmanager.model.Task.TaskStatus;
+import com.taskmanager.model.User;
+import com.taskmanager.repository.TaskRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Hands out rank keys for manual ordering and keeps them short. Placing a task only
+ * ever writes that task's row; when repeated inserts into the same gap make a key
+ * longer than {@code app.ranking.max-key-length}, its column is queued and re-keyed
+ * in the background with evenly spaced keys.
+ */
+@Service
+public class TaskRankService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(TaskRankService.class);
+    
+    @Autowired
+    private TaskRepository taskRepository;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Value("${app.ranking.max-key-length:12}")
+    private int maxKeyLength;
+    
+    private final Set<Column> pendingColumns = ConcurrentHashMap.newKeySet();
+    
+    private volatile boolean unrankedScanned;
+    
+    // Rank that places a task at the bottom of its status column
+    public String rankAtEnd(User user, TaskStatus status) {
+        String last = taskRepository.findFirstByUserAndStatusAndDeletedAtIsNullOrderByRankDescIdDesc(user, status)
+            .map(Task::getRank)
+            .orElse(null);
+        return issued(user.getId(), status, RankKeys.between(last, null));
+    }
+    
+    // Rank that places a task directly below the given one (or at the top when null), or
+    // null when the column needs re-keying first because a neighbour is unranked or tied
+    public String rankAfter(User user, TaskStatus status, Task after, Long movingId) {
+        String lower = after == null ? null : after.getRank();
+        if (after != null && (lower == null
+                || taskRepository.countByUserAndStatusAndDeletedAtIsNullAndRank(user, status, lower) > 1)) {
+            return null;
+        }
+        Task next = (lower == null
+            ? taskRepository.findFirstByUserAndStatusAndDeletedAtIsNullAndIdNotOrderByRankAscIdAsc(user, status, movingId)
+            : taskRepository.findFirstByUserAndStatusAndDeletedAtIsNullAndRankGreaterThanAndIdNotOrderByRankAscIdAsc(
+                user, status, lower, movingId))
+            .orElse(null);
+        if (next != null && (next.getRank() == null || Objects.equals(next.getRank(), lower))) {
+            return null;
+        }
+        return issued(user.getId(), status, RankKeys.between(lower, next == null ? null : next.getRank()));
+    }
+    
+    // Re-keys one column in the caller's transaction, keeping its current order
+    public void rebalanceColumn(Long userId, TaskStatus status) {
+        List<Long> ids = taskRepository.findColumnForRebalance(userId, status);
+        List<String> keys = RankKeys.spread(ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            taskRepository.updateRank(ids.get(i), keys.get(i));
+        }
+        pendingColumns.remove(new Column(userId, status));
+    }
+    
+    // Re-keys queued columns, plus (once, after startup) columns with tasks created before ranking existed
+    @Scheduled(fixedDelayString = "${app.ranking.rebalance-interval-ms:60000}",
+               initialDelayString = "${app.ranking.initial-delay-ms:30000}")
+    public void rebalance() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        if (!unrankedScanned) {
+            List<Object[]> unranked = transactionTemplate.execute(status -> taskRepository.findUnrankedColumns());
+            if (unranked != null) {
+                unranked.forEach(row -> pendingColumns.add(new Column((Long) row[0], (TaskStatus) row[1])));
+            }
+            unrankedScanned = true;
+        }
+        
+        int rebalanced = 0;
+        for (Column column : new ArrayList<>(pendingColumns)) {
+            transactionTemplate.executeWithoutResult(status -> rebalanceColumn(column.userId(), column.status()));
+            rebalanced++;
+        }
+        if (rebalanced > 0) {
+            logger.info("Re-keyed {} task columns", rebalanced);
+        }
+    }
+    
+    private String issued(Long userId, TaskStatus status, String rank) {
+        if (rank.length() > maxKeyLength) {
+            pendingColumns.add(new Column(userId, status));
+        }
+        return rank;
+    }
+    
+    private record Column(Long userId, TaskStatus status) {
+    }
+}
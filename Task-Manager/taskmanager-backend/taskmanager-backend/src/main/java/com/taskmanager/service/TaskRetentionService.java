@@ -0,0 +1,189 @@
+package com.taskmanager.service;
+
+import com.taskmanager.model.ColdTask;
+import com.taskmanager.model.Task;
+import com.taskmanager.model.User;
+import com.taskmanager.repository.ColdTaskRepository;
+import com.taskmanager.repository.TaskRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Moves tasks that have been deleted or archived for longer than the retention
+ * period out of the hot {@code tasks} table into {@code tasks_cold}, and brings
+ * them back when a user restores or unarchives one. A moved task leaves the
+ * hierarchy and loses its dependencies, as on a permanent delete; when it comes
+ * back it rejoins its parent if that is still a live task.
+ */
+@Service
+public class TaskRetentionService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(TaskRetentionService.class);
+    
+    @Autowired
+    private TaskRepository taskRepository;
+    
+    @Autowired
+    private ColdTaskRepository coldTaskRepository;
+    
+    @Autowired
+    private TaskBitmapIndex taskBitmapIndex;
+    
+    @Autowired
+    private NextUpIndex nextUpIndex;
+    
+    @Autowired
+    private TitleSuggestIndex titleSuggestIndex;
+    
+    @Autowired
+    private TaskHierarchyService taskHierarchyService;
+    
+    @Autowired
+    private TaskTrendService taskTrendService;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Value("${app.retention.enabled:true}")
+    private boolean enabled;
+    
+    @Value("${app.retention.days:30}")
+    private int retentionDays;
+    
+    @Value("${app.retention.batch-size:500}")
+    private int batchSize;
+    
+    // Runs the retention pass; each batch commits on its own so row locks stay short
+    @Scheduled(fixedDelayString = "${app.retention.interval-ms:3600000}",
+               initialDelayString = "${app.retention.initial-delay-ms:60000}")
+    public void moveExpiredTasksToColdTier() {
+        if (!enabled) {
+            return;
+        }
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(retentionDays);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        long maxId = taskTrendService.coldMoveLimit();
+        
+        long afterId = 0;
+        long moved = 0;
+        Set<Long> affectedUserIds = new HashSet<>();
+        while (true) {
+            long lastId = afterId;
+            List<Long> ids = transactionTemplate.execute(status -> moveBatch(lastId, maxId, cutoff, affectedUserIds));
+            if (ids == null || ids.isEmpty()) {
+                break;
+            }
+            moved += ids.size();
+            afterId = ids.get(ids.size() - 1);
+        }
+        for (Long userId : affectedUserIds) {
+            taskBitmapIndex.invalidate(userId);
+            nextUpIndex.invalidate(userId);
+            titleSuggestIndex.invalidate(userId);
+        }
+        if (moved > 0) {
+            logger.info("Moved {} expired tasks to the cold tier", moved);
+        }
+    }
+    
+    // Candidates scanned, empty once the scan has passed maxId
+    private List<Long> moveBatch(long afterId, long maxId, LocalDateTime cutoff, Set<Long> affectedUserIds) {
+        // The scan takes no locks; only the rows still expired are then locked by primary key
+        List<Long> candidates = taskRepository.findRetentionCandidates(afterId, cutoff, PageRequest.of(0, batchSize)).stream()
+            .filter(id -> id <= maxId)
+            .collect(Collectors.toList());
+        List<Long> ids = candidates.isEmpty() ? candidates : taskRepository.lockRetentionCandidates(candidates, cutoff);
+        if (!ids.isEmpty()) {
+            affectedUserIds.addAll(taskRepository.findUserIdsByIdIn(ids));
+            ids.forEach(taskHierarchyService::onTaskRemoved);
+            coldTaskRepository.copyFromHot(ids, LocalDateTime.now());
+            coldTaskRepository.copyTagsFromHot(ids);
+            taskRepository.deleteTagsByTaskIds(ids);
+            taskRepository.deleteAllByIdInBatch(ids);
+        }
+        return candidates;
+    }
+    
+    // Moves a user's cold task back into the hot table, keeping its id
+    @Transactional
+    public Optional<Task> rehydrate(Long id, User user) {
+        Optional<ColdTask> coldTask = coldTaskRepository.findByIdAndUserId(id, user.getId());
+        if (coldTask.isEmpty()) {
+            return Optional.empty();
+        }
+        coldTaskRepository.copyToHot(id);
+        coldTaskRepository.copyTagsToHot(id);
+        coldTaskRepository.deleteById(id);
+        Optional<Task> task = taskRepository.findById(id);
+        task.ifPresent(taskHierarchyService::onTaskRestored);
+        return task;
+    }
+    
+    // Permanently removes a user's cold task; false if there was none
+    @Transactional
+    public boolean purge(Long id, User user) {
+        return coldTaskRepository.deleteByIdAndUserId(id, user.getId()) > 0;
+    }
+    
+    // Next keyset chunk of a user's deleted cold tasks, for the bulk jobs
+    @Transactional
+    public List<Long> findColdDeletedIds(User user, long afterId, int limit) {
+        return coldTaskRepository.findDeletedIdsAfter(user.getId(), afterId, PageRequest.of(0, limit));
+    }
+    
+    @Transactional(readOnly = true)
+    public long countColdDeleted(User user) {
+        return coldTaskRepository.countByUserIdAndDeletedAtIsNotNull(user.getId());
+    }
+    
+    // Moves a chunk of cold tasks back into the hot table, keeping their ids
+    @Transactional
+    public void rehydrateAll(List<Long> ids) {
+        coldTaskRepository.copyAllToHot(ids);
+        coldTaskRepository.copyAllTagsToHot(ids);
+        coldTaskRepository.deleteTagsByTaskIds(ids);
+        coldTaskRepository.deleteAllByIdInBatch(ids);
+        taskRepository.findAllById(ids).forEach(taskHierarchyService::onTaskRestored);
+    }
+    
+    // Permanently removes a chunk of cold tasks
+    @Transactional
+    public void purgeAll(List<Long> ids) {
+        coldTaskRepository.deleteTagsByTaskIds(ids);
+        coldTaskRepository.deleteAllByIdInBatch(ids);
+    }
+    
+    @Transactional(readOnly = true)
+    public boolean isCold(Long id, User user) {
+        return coldTaskRepository.existsByIdAndUserId(id, user.getId());
+    }
+    
+    @Transactional(readOnly = true)
+    public List<Task> getColdDeletedTasks(User user) {
+        return coldTaskRepository.findByUserIdAndDeletedAtIsNotNull(user.getId()).stream()
+            .map(coldTask -> coldTask.toTask(user))
+            .collect(Collectors.toList());
+    }
+    
+    @Transactional(readOnly = true)
+    public List<Task> getColdArchivedTasks(User user) {
+        return coldTaskRepository.findByUserIdAndArchivedAndDeletedAtIsNull(user.getId(), true).stream()
+            .map(coldTask -> coldTask.toTask(user))
+            .collect(Collectors.toList());
+    }
+}
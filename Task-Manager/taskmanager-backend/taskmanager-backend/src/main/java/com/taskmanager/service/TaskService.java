@@ -1,62 +1,395 @@
 package com.taskmanager.service;
 
+import com.taskmanager.dto.BoardColumn;
+import com.taskmanager.dto.CalendarBucket;
+import com.taskmanager.dto.TaskHistoryEntry;
+import com.taskmanager.dto.TaskHistoryEntry.FieldChange;
+import com.taskmanager.dto.TaskStats;
+import com.taskmanager.exception.InvalidRequestException;
+import com.taskmanager.exception.NotFoundException;
+import com.taskmanager.exception.VersionConflictException;
+import com.taskmanager.model.BulkJob;
 import com.taskmanager.model.Task;
 import com.taskmanager.model.Task.TaskStatus;
 import com.taskmanager.model.Task.TaskPriority;
 import com.taskmanager.model.User;
+import com.taskmanager.model.WorkspaceMember.Role;
 import com.taskmanager.repository.TaskRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.roaringbitmap.longlong.LongIterator;
+import org.roaringbitmap.longlong.Roaring64NavigableMap;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 
+import java.nio.charset.StandardCharsets;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
 
 @Service
 @Transactional
 
 public class TaskService {
     
+    private static final int MAX_TAG_LENGTH = 50;
+    
     @Autowired
     private TaskRepository taskRepository;
     
+    @Autowired
+    private TaskRetentionService taskRetentionService;
+    
+    @Autowired
+    private TaskHierarchyService taskHierarchyService;
+    
+    @Autowired
+    private TaskBitmapIndex taskBitmapIndex;
+    
+    @Autowired
+    private NextUpIndex nextUpIndex;
+    
+    @Autowired
+    private TitleSuggestIndex titleSuggestIndex;
+    
+    @Autowired
+    private WriteBehindBuffer writeBehindBuffer;
+    
+    @Autowired
+    private TaskHistoryLog taskHistoryLog;
+    
+    @Autowired
+    private TaskRankService taskRankService;
+    
+    @Autowired
+    private WorkspacePermissionCache workspacePermissionCache;
+    
+    @Autowired
+    private RecurrenceService recurrenceService;
+    
+    @Autowired
+    private TaskTrendService taskTrendService;
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    // Bitmap matches sent to the database per keyword query
+    @Value("${app.bitmap-index.keyword-chunk-size:1000}")
+    private int keywordChunkSize;
+    
     // Get all tasks for a user
+    @Transactional(readOnly = true)
     public List<Task> getAllTasks(User user) {
-        return taskRepository.findByUserAndDeletedAtIsNullOrderByCreatedAtDesc(user);
+        return writeBehindBuffer.overlay(taskRepository.findByUserAndDeletedAtIsNullOrderByCreatedAtDesc(user));
+    }
+    
+    // All tasks, with recurring tasks listed as their occurrences within [from, to]
+    @Transactional(readOnly = true)
+    public List<Task> getAllTasks(User user, LocalDate from, LocalDate to) {
+        List<Task> tasks = getAllTasks(user).stream()
+            .filter(task -> task.getRecurrence() == null)
+            .collect(Collectors.toList());
+        tasks.addAll(recurrenceService.expand(user, from.atStartOfDay(), to.plusDays(1).atStartOfDay()));
+        return tasks;
     }
     
     // Get all tasks with pagination
+    @Transactional(readOnly = true)
     public Page<Task> getAllTasksPaginated(User user, Pageable pageable) {
-        return taskRepository.findByUserAndDeletedAtIsNull(user, pageable);
+        return taskRepository.findByUserAndDeletedAtIsNull(user, pageable).map(writeBehindBuffer::overlay);
     }
     
     // Get task by ID
+    @Transactional(readOnly = true)
     public Optional<Task> getTaskById(Long id, User user) {
-        return taskRepository.findByIdAndUser(id, user);
+        return findAccessible(id, user, Role.VIEWER).map(writeBehindBuffer::overlay);
+    }
+    
+    // Tasks by id in the requested order, loaded with one IN query; ids the user cannot see are left out
+    @Transactional(readOnly = true)
+    public List<Task> getTasksByIds(List<Long> ids, User user) {
+        return writeBehindBuffer.overlay(loadInOrder(ids.stream().distinct().collect(Collectors.toList())).stream()
+            .filter(task -> task.getUser().getId().equals(user.getId())
+                || workspacePermissionCache.can(user, task.getWorkspaceId(), Role.VIEWER))
+            .collect(Collectors.toList()));
     }
     
-    // Get tasks by status
+    // Live task counts, in total and per status, plus the tasks in the trash (cold tier included)
+    @Transactional(readOnly = true)
+    public TaskStats getTaskStats(User user) {
+        // Recurring tasks are rules, not work items; their occurrences are counted once written
+        Map<TaskStatus, Long> byStatus = new EnumMap<>(TaskStatus.class);
+        for (TaskStatus status : TaskStatus.values()) {
+            byStatus.put(status, 0L);
+        }
+        long total = 0;
+        for (Object[] row : taskRepository.countLiveByStatus(user)) {
+            byStatus.put((TaskStatus) row[0], (Long) row[1]);
+            total += (Long) row[1];
+        }
+        return new TaskStats(total, byStatus, countBulkTargets(BulkJob.Type.PURGE_TRASH, user));
+    }
+    
+    // Get tasks by status, in manual order
+    @Transactional(readOnly = true)
     public List<Task> getTasksByStatus(User user, TaskStatus status) {
-        return taskRepository.findByUserAndStatusAndDeletedAtIsNull(user, status);
+        return overlayMatching(taskRepository.findByUserAndStatusAndDeletedAtIsNullOrderByRankAscIdAsc(user, status), user,
+                               task -> task.getStatus() == status);
     }
     
     // Get tasks by priority
+    @Transactional(readOnly = true)
     public List<Task> getTasksByPriority(User user, TaskPriority priority) {
-        return taskRepository.findByUserAndPriorityAndDeletedAtIsNull(user, priority);
+        return overlayMatching(taskRepository.findByUserAndPriorityAndDeletedAtIsNull(user, priority), user,
+                               task -> task.getPriority() == priority);
     }
     
     // Search tasks
+    @Transactional(readOnly = true)
     public List<Task> searchTasks(User user, String keyword) {
-        return taskRepository.findByUserAndTitleContainingIgnoreCaseAndDeletedAtIsNull(user, keyword);
+        return writeBehindBuffer.overlay(
+            taskRepository.findByUserAndTitleContainingIgnoreCaseAndDeletedAtIsNull(user, keyword));
     }
     
     // Advanced filtering
+    @Transactional(readOnly = true)
     public Page<Task> filterTasks(User user, TaskStatus status, TaskPriority priority, 
                                   Boolean archived, String keyword, Pageable pageable) {
-        return taskRepository.findByFilters(user, status, priority, archived, keyword, pageable);
+        return taskRepository.findByFilters(user, status, priority, archived, keyword, pageable)
+            .map(writeBehindBuffer::overlay);
+    }
+    
+    // Tag filtering via the bitmap index, newest first; the keyword (if any) is applied by the database
+    @Transactional(readOnly = true)
+    public Page<Task> filterTasksByTags(User user, TaskStatus status, TaskPriority priority, Boolean archived,
+                                        String keyword, List<String> allTags, List<String> anyTags,
+                                        List<String> excludedTags, Pageable pageable) {
+        Roaring64NavigableMap matches = taskBitmapIndex.evaluate(user, status, priority, archived,
+            normalizeTags(allTags), normalizeTags(anyTags), normalizeTags(excludedTags));
+        
+        if (keyword != null) {
+            return keywordPage(matches, keyword, pageable);
+        }
+        
+        List<Long> pageIds = new ArrayList<>(pageable.getPageSize());
+        LongIterator iterator = matches.getReverseLongIterator();
+        long skip = pageable.getOffset();
+        while (iterator.hasNext() && pageIds.size() < pageable.getPageSize()) {
+            long id = iterator.next();
+            if (skip > 0) {
+                skip--;
+            } else {
+                pageIds.add(id);
+            }
+        }
+        
+        return new PageImpl<>(writeBehindBuffer.overlay(loadInOrder(pageIds)), pageable,
+                              matches.getLongCardinality());
+    }
+    
+    // Bitmap matches narrowed by keyword, newest first. The ids go to the database in bounded chunks,
+    // each answering only which of them match, so no statement carries the whole bitmap.
+    private Page<Task> keywordPage(Roaring64NavigableMap matches, String keyword, Pageable pageable) {
+        List<Long> pageIds = new ArrayList<>(pageable.getPageSize());
+        long skip = pageable.getOffset();
+        long total = 0;
+        List<Long> chunk = new ArrayList<>(keywordChunkSize);
+        LongIterator iterator = matches.getReverseLongIterator();
+        while (iterator.hasNext() || !chunk.isEmpty()) {
+            if (iterator.hasNext() && chunk.size() < keywordChunkSize) {
+                chunk.add(iterator.next());
+                continue;
+            }
+            List<Long> matching = new ArrayList<>(taskRepository.findIdsByIdInAndKeyword(chunk, keyword));
+            matching.sort(Comparator.reverseOrder());
+            for (Long id : matching) {
+                if (skip > 0) {
+                    skip--;
+                } else if (pageIds.size() < pageable.getPageSize()) {
+                    pageIds.add(id);
+                }
+            }
+            total += matching.size();
+            chunk.clear();
+        }
+        return new PageImpl<>(writeBehindBuffer.overlay(loadInOrder(pageIds)), pageable, total);
+    }
+    
+    // Top k open tasks by priority, due date and age
+    @Transactional(readOnly = true)
+    public List<Task> getNextTasks(User user, int k) {
+        List<Long> ids = nextUpIndex.topIds(user, k);
+        return writeBehindBuffer.overlay(loadInOrder(ids));
+    }
+    
+    // Kanban board: the first tasks of every status column in manual order with column totals, fetched
+    // in one windowed query; a column's nextCursor continues just that column
+    @Transactional(readOnly = true)
+    public Map<TaskStatus, BoardColumn> getBoard(User user, String cursor, int limit) {
+        BoardCursor after = cursor == null ? null : decodeCursor(cursor);
+        TaskStatus status = after == null ? null : after.status();
+        String afterRank = after == null ? null : after.rank();
+        Long afterId = after == null ? null : after.id();
+        
+        Map<TaskStatus, BoardColumn> board = new EnumMap<>(TaskStatus.class);
+        for (TaskStatus column : status == null ? TaskStatus.values() : new TaskStatus[] {status}) {
+            board.put(column, new BoardColumn(column));
+        }
+        // One row past the limit tells whether a column continues
+        Map<TaskStatus, List<Task>> fetched = new EnumMap<>(TaskStatus.class);
+        for (Object[] row : taskRepository.findBoard(user, status, afterRank, afterId, limit + 1L)) {
+            Task task = (Task) row[0];
+            board.get(task.getStatus()).setTotal((Long) row[1]);
+            fetched.computeIfAbsent(task.getStatus(), column -> new ArrayList<>()).add(task);
+        }
+        
+        // Buffered status changes move tasks out of the column their row is in and into the one
+        // they now belong to, where they count and show up if their position is on this page
+        Set<Long> movedOut = new HashSet<>();
+        Map<TaskStatus, List<Task>> movedIn = new EnumMap<>(TaskStatus.class);
+        if (writeBehindBuffer.isEnabled()) {
+            for (Task task : loadInOrder(writeBehindBuffer.pendingIds(user.getId()))) {
+                TaskStatus stored = task.getStatus();
+                TaskStatus current = writeBehindBuffer.overlay(task).getStatus();
+                if (current == stored || task.getDeletedAt() != null || task.getRecurrence() != null) {
+                    continue;
+                }
+                movedOut.add(task.getId());
+                if (board.containsKey(stored)) {
+                    BoardColumn column = board.get(stored);
+                    column.setTotal(Math.max(0, column.getTotal() - 1));
+                }
+                if (board.containsKey(current)) {
+                    BoardColumn column = board.get(current);
+                    column.setTotal(column.getTotal() + 1);
+                    if (after == null || pastCursor(task, after)) {
+                        movedIn.computeIfAbsent(current, key -> new ArrayList<>()).add(task);
+                    }
+                }
+            }
+        }
+        
+        for (BoardColumn column : board.values()) {
+            List<Task> rows = fetched.getOrDefault(column.getStatus(), List.of());
+            boolean more = rows.size() > limit;
+            Task lastRow = rows.isEmpty() ? null : rows.get(rows.size() - 1);
+            List<Task> tasks = rows.stream()
+                .filter(task -> !movedOut.contains(task.getId()))
+                .collect(Collectors.toCollection(ArrayList::new));
+            for (Task task : movedIn.getOrDefault(column.getStatus(), List.of())) {
+                // Past the last fetched row lie rows this page has not read
+                if (!more || BOARD_ORDER.compare(task, lastRow) < 0) {
+                    tasks.add(task);
+                }
+            }
+            tasks.sort(BOARD_ORDER);
+            if (tasks.size() > limit) {
+                column.setNextCursor(encodeCursor(column.getStatus(), tasks.get(limit - 1)));
+                tasks = tasks.subList(0, limit);
+            } else if (more) {
+                column.setNextCursor(encodeCursor(column.getStatus(), lastRow));
+            }
+            column.getTasks().addAll(writeBehindBuffer.overlay(tasks));
+        }
+        return board;
+    }
+    
+    // Live tasks shared in one workspace, or in every workspace the user can see when workspaceId is null
+    @Transactional(readOnly = true)
+    public Page<Task> getWorkspaceTasks(User user, Long workspaceId, TaskStatus status, String keyword,
+                                        Pageable pageable) {
+        List<Long> workspaceIds;
+        if (workspaceId == null) {
+            workspaceIds = workspacePermissionCache.workspaceIds(user, Role.VIEWER);
+        } else if (workspacePermissionCache.can(user, workspaceId, Role.VIEWER)) {
+            workspaceIds = List.of(workspaceId);
+        } else {
+            throw new NotFoundException("Workspace not found with id: " + workspaceId);
+        }
+        if (workspaceIds.isEmpty()) {
+            return Page.empty(pageable);
+        }
+        return taskRepository.findByWorkspaces(workspaceIds, status, keyword, pageable).map(writeBehindBuffer::overlay);
+    }
+    
+    // Tag usage counts
+    @Transactional(readOnly = true)
+    public Map<String, Long> getTagCounts(User user) {
+        return taskBitmapIndex.tagCounts(user);
+    }
+    
+    // Words from the user's task titles completing the prefix, for the search box
+    @Transactional(readOnly = true)
+    public List<String> suggestTitleTerms(User user, String prefix, int limit, TitleSuggestIndex.Ranking ranking) {
+        return titleSuggestIndex.suggest(user, prefix, limit, ranking);
+    }
+    
+    // Tasks due within [from, to]; recurring tasks appear as their occurrences
+    @Transactional(readOnly = true)
+    public List<Task> getCalendarTasks(User user, LocalDate from, LocalDate to) {
+        LocalDateTime start = from.atStartOfDay();
+        LocalDateTime end = to.plusDays(1).atStartOfDay();
+        List<Task> tasks = writeBehindBuffer.overlay(taskRepository.findByDueDateRange(user, start, end)).stream()
+            .filter(task -> task.getRecurrence() == null)
+            .collect(Collectors.toList());
+        tasks.addAll(recurrenceService.expand(user, start, end));
+        tasks.sort(Comparator.comparing(Task::getDueDate, Comparator.nullsLast(Comparator.naturalOrder())));
+        return tasks;
+    }
+    
+    // Open tasks past their due date, including missed occurrences of recurring tasks
+    @Transactional(readOnly = true)
+    public List<Task> getOverdueTasks(User user) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Task> tasks = new ArrayList<>(writeBehindBuffer.overlay(taskRepository.findOverdueTasks(user, now)));
+        tasks.addAll(recurrenceService.lastMissed(user, now));
+        tasks.sort(Comparator.comparing(Task::getDueDate, Comparator.nullsLast(Comparator.naturalOrder())));
+        return tasks;
+    }
+    
+    // Per-day or per-week task counts by status within [from, to], aggregated by the database
+    @Transactional(readOnly = true)
+    public List<CalendarBucket> getCalendarCounts(User user, LocalDate from, LocalDate to, boolean byWeek) {
+        LocalDateTime start = from.atStartOfDay();
+        LocalDateTime end = to.plusDays(1).atStartOfDay();
+        List<TaskRepository.CalendarCount> rows = byWeek
+            ? taskRepository.countByDueWeek(user.getId(), start, end)
+            : taskRepository.countByDueDay(user.getId(), start, end);
+        
+        Map<LocalDate, CalendarBucket> buckets = new TreeMap<>();
+        for (TaskRepository.CalendarCount row : rows) {
+            buckets.computeIfAbsent(row.getBucket(), CalendarBucket::new)
+                .add(row.getStatus(), row.getTotal());
+        }
+        for (Task occurrence : recurrenceService.expand(user, start, end)) {
+            LocalDate day = occurrence.getDueDate().toLocalDate();
+            LocalDate bucket = byWeek ? day.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)) : day;
+            buckets.computeIfAbsent(bucket, CalendarBucket::new).add(occurrence.getStatus(), 1);
+        }
+        return new ArrayList<>(buckets.values());
     }
     
     // Create task
@@ -67,100 +400,615 @@ public class TaskService {
         if (task.getPriority() == null) {
             task.setPriority(TaskPriority.MEDIUM);
         }
+        if (task.getParentId() != null) {
+            taskHierarchyService.checkParent(task.getParentId(), user);
+        }
+        if (task.getWorkspaceId() != null && !workspacePermissionCache.can(user, task.getWorkspaceId(), Role.EDITOR)) {
+            throw new InvalidRequestException("Cannot add tasks to workspace " + task.getWorkspaceId());
+        }
+        task.setTags(normalizeTags(task.getTags()));
+        task.setRecurrence(normalizeRecurrence(task.getRecurrence(), task.getDueDate()));
+        task.setSeriesId(null);
+        task.setOccurrenceAt(null);
         task.setUser(user);
-        return taskRepository.save(task);
+        task.setRank(taskRankService.rankAtEnd(user, task.getStatus()));
+        Task savedTask = taskRepository.save(task);
+        if (savedTask.getParentId() != null) {
+            taskHierarchyService.onSubtaskCreated(savedTask);
+        }
+        indexTask(savedTask);
+        taskTrendService.onTaskCreated(savedTask);
+        
+        List<FieldChange> changes = new ArrayList<>();
+        diff(changes, "title", null, savedTask.getTitle());
+        diff(changes, "description", null, savedTask.getDescription());
+        diff(changes, "status", null, savedTask.getStatus());
+        diff(changes, "priority", null, savedTask.getPriority());
+        diff(changes, "dueDate", null, savedTask.getDueDate());
+        diff(changes, "parentId", null, savedTask.getParentId());
+        diff(changes, "recurrence", null, savedTask.getRecurrence());
+        diff(changes, "tags", null, savedTask.getTags().isEmpty() ? null : new TreeSet<>(savedTask.getTags()));
+        recordHistory(savedTask.getId(), user, "CREATED", changes);
+        return savedTask;
     }
     
     // Update task
-    public Task updateTask(Long id, Task taskDetails, User user) {
-        Task task = taskRepository.findByIdAndUser(id, user)
-            .orElseThrow(() -> new RuntimeException("Task not found with id: " + id));
+    public Task updateTask(Long id, Task taskDetails, User user, Long expectedVersion) {
+        Task task = findAccessible(id, user, Role.EDITOR)
+            .orElseThrow(() -> new NotFoundException("Task not found with id: " + id));
+        if (writeBehindBuffer.isEnabled()) {
+            task = detachPending(task);
+        }
+        if (expectedVersion != null && expectedVersion != task.getVersion()) {
+            throw new VersionConflictException(id);
+        }
+        if (writeBehindBuffer.isEnabled()) {
+            recordPending(task, expectedVersion);
+        }
+        // A missing rule keeps the current one and an empty one stops the recurrence
+        String recurrence = taskDetails.getRecurrence() == null ? task.getRecurrence()
+            : normalizeRecurrence(taskDetails.getRecurrence(), taskDetails.getDueDate());
+        if (recurrence != null && (task.getSeriesId() != null || taskDetails.getDueDate() == null)) {
+            throw new InvalidRequestException(task.getSeriesId() != null ? "An occurrence of a recurring task cannot recur"
+                                                                  : "A recurring task needs a due date");
+        }
         
+        List<FieldChange> changes = new ArrayList<>();
+        diff(changes, "title", task.getTitle(), taskDetails.getTitle());
+        diff(changes, "description", task.getDescription(), taskDetails.getDescription());
+        diff(changes, "status", task.getStatus(), taskDetails.getStatus());
+        diff(changes, "priority", task.getPriority(), taskDetails.getPriority());
+        diff(changes, "dueDate", task.getDueDate(), taskDetails.getDueDate());
+        diff(changes, "recurrence", task.getRecurrence(), recurrence);
+        if (!changes.isEmpty()) {
+            recordHistory(id, user, "UPDATED", changes);
+        }
+        
+        TaskStatus previousStatus = task.getStatus();
         task.setTitle(taskDetails.getTitle());
         task.setDescription(taskDetails.getDescription());
         task.setStatus(taskDetails.getStatus());
         task.setPriority(taskDetails.getPriority());
         task.setDueDate(taskDetails.getDueDate());
+        task.setRecurrence(recurrence);
+        taskTrendService.onStatusChanged(task, previousStatus);
         
-        return taskRepository.save(task);
+        if (writeBehindBuffer.isEnabled()) {
+            indexTask(task);
+            return task;
+        }
+        Task savedTask = taskRepository.save(task);
+        indexTask(savedTask);
+        return savedTask;
+    }
+    
+    // Replace task tags
+    public Task setTaskTags(Long id, List<String> tags, User user) {
+        Task task = findAccessible(id, user, Role.EDITOR)
+            .orElseThrow(() -> new NotFoundException("Task not found with id: " + id));
+        Set<String> normalized = normalizeTags(tags);
+        List<FieldChange> changes = new ArrayList<>();
+        diff(changes, "tags", new TreeSet<>(task.getTags()), new TreeSet<>(normalized));
+        if (!changes.isEmpty()) {
+            recordHistory(id, user, "TAGS_CHANGED", changes);
+        }
+        task.getTags().clear();
+        task.getTags().addAll(normalized);
+        Task savedTask = taskRepository.save(task);
+        indexTask(savedTask);
+        rebasePending(savedTask);
+        return savedTask;
     }
     
     // Update task status
-    public Task updateTaskStatus(Long id, TaskStatus status, User user) {
+    public Task updateTaskStatus(Long id, TaskStatus status, User user, Long expectedVersion) {
+        if (writeBehindBuffer.isEnabled()) {
+            Task task = findAccessible(id, user, Role.EDITOR)
+                .filter(found -> found.getDeletedAt() == null)
+                .orElseThrow(() -> new NotFoundException("Task not found with id: " + id));
+            task = detachPending(task);
+            if (expectedVersion != null && expectedVersion != task.getVersion()) {
+                throw new VersionConflictException(id);
+            }
+            recordPending(task, expectedVersion);
+            List<FieldChange> changes = new ArrayList<>();
+            diff(changes, "status", task.getStatus(), status);
+            recordHistory(id, user, "STATUS_CHANGED", changes);
+            TaskStatus previousStatus = task.getStatus();
+            task.setStatus(status);
+            taskTrendService.onStatusChanged(task, previousStatus);
+            indexTask(task);
+            return task;
+        }
+        return writeStatus(id, status, user, expectedVersion);
+    }
+    
+    // One read serves the previous status (for trends and history) and the task returned: the
+    // write only goes through on the version read, so the row is known to have been just that.
+    // Without If-Match a write landing in between is retried on the fresh row
+    private Task writeStatus(Long id, TaskStatus status, User user, Long expectedVersion) {
+        Collection<Long> workspaceIds = editableWorkspaces(user);
+        LocalDateTime now = LocalDateTime.now();
+        Long triedVersion = null;
+        while (true) {
+            Task task = taskRepository.findById(id).orElseThrow(() -> notUpdated(id, user, expectedVersion));
+            long version = task.getVersion();
+            // The same version again means the write failed on access, not on a concurrent change
+            if ((expectedVersion != null && expectedVersion != version) || Objects.equals(triedVersion, version)) {
+                throw notUpdated(id, user, expectedVersion);
+            }
+            if (taskRepository.updateStatus(id, user, workspaceIds, status, now, version) > 0) {
+                // The update cleared the persistence context, so this only changes the copy returned
+                TaskStatus previousStatus = task.getStatus();
+                task.setStatus(status);
+                task.setUpdatedAt(now);
+                task.setVersion(version + 1);
+                indexTask(task);
+                taskTrendService.onStatusChanged(task, previousStatus);
+                recordHistory(id, user, "STATUS_CHANGED", List.of(
+                    new FieldChange("status", previousStatus.name(), status.name())));
+                return task;
+            }
+            if (expectedVersion != null) {
+                throw notUpdated(id, user, expectedVersion);
+            }
+            triedVersion = version;
+        }
+    }
+    
+    // Edit a single occurrence of a recurring task; it is written as its own row first
+    public Task updateOccurrence(Long seriesId, LocalDateTime at, Task taskDetails, User user) {
+        taskDetails.setRecurrence(null);
+        return updateTask(writeOccurrence(seriesId, at, user).getId(), taskDetails, user, null);
+    }
+    
+    public Task updateOccurrenceStatus(Long seriesId, LocalDateTime at, TaskStatus status, User user) {
+        return updateTaskStatus(writeOccurrence(seriesId, at, user).getId(), status, user, null);
+    }
+    
+    // Skip a single occurrence; the deleted row keeps it out of the expansion
+    public void deleteOccurrence(Long seriesId, LocalDateTime at, User user) {
+        Task occurrence = writeOccurrence(seriesId, at, user);
+        if (occurrence.getDeletedAt() == null) {
+            deleteTask(occurrence.getId(), user, null);
+        }
+    }
+    
+    // Move a task within its column or into another one, directly below afterId (or to the top);
+    // only the moved row is written
+    public Task moveTaskPosition(Long id, TaskStatus status, Long afterId, User user, Long expectedVersion) {
+        if (id.equals(afterId)) {
+            throw new InvalidRequestException("A task cannot be placed after itself");
+        }
+        Task task = findAccessible(id, user, Role.EDITOR)
+            .filter(found -> found.getDeletedAt() == null)
+            .orElseThrow(() -> new NotFoundException("Task not found with id: " + id));
+        if (writeBehindBuffer.isEnabled()) {
+            task = detachPending(task);
+        }
+        TaskStatus previousStatus = task.getStatus();
+        TaskStatus targetStatus = status != null ? status : previousStatus;
+        
+        // Columns are the owner's, also when a workspace member moves a shared task
+        User owner = task.getUser();
+        String rank = rankAfter(owner, targetStatus, afterId, id);
+        if (rank == null) {
+            taskRankService.rebalanceColumn(owner.getId(), targetStatus);
+            rank = rankAfter(owner, targetStatus, afterId, id);
+        }
+        int updated = taskRepository.moveToRank(id, user, editableWorkspaces(user), targetStatus, rank, LocalDateTime.now(),
+                                                rowVersion(id, expectedVersion));
+        Task moved = reloadUpdated(updated, id, user, expectedVersion);
+        if (moved.getStatus() != targetStatus) {
+            // A buffered edit of this task must not flush its old status back over the move
+            moved.setStatus(targetStatus);
+            indexTask(moved);
+            TransactionHooks.afterCommit(() -> writeBehindBuffer.restatus(id, targetStatus));
+        }
+        taskTrendService.onStatusChanged(moved, previousStatus);
+        
+        List<FieldChange> changes = new ArrayList<>();
+        diff(changes, "status", previousStatus, targetStatus);
+        diff(changes, "afterId", null, afterId);
+        recordHistory(id, user, "MOVED", changes);
+        
+        return moved;
+    }
+    
+    // Move a task (with its subtree) under another parent, or to the top level when parentId is null
+    public Task moveTaskToParent(Long id, Long parentId, User user, Long expectedVersion) {
         Task task = taskRepository.findByIdAndUser(id, user)
-            .orElseThrow(() -> new RuntimeException("Task not found with id: " + id));
-        task.setStatus(status);
-        return taskRepository.save(task);
+            .filter(found -> found.getDeletedAt() == null)
+            .orElseThrow(() -> new NotFoundException("Task not found with id: " + id));
+        Long previousParentId = task.getParentId();
+        taskHierarchyService.reparent(id, parentId, user);
+        int updated = taskRepository.moveToParent(id, user, parentId, LocalDateTime.now(), rowVersion(id, expectedVersion));
+        Task moved = reloadUpdated(updated, id, user, expectedVersion);
+        
+        List<FieldChange> changes = new ArrayList<>();
+        diff(changes, "parentId", previousParentId, parentId);
+        if (!changes.isEmpty()) {
+            recordHistory(id, user, "PARENT_CHANGED", changes);
+        }
+        return moved;
     }
     
     // Archive task
-    public Task archiveTask(Long id, User user) {
-        Task task = taskRepository.findByIdAndUser(id, user)
-            .orElseThrow(() -> new RuntimeException("Task not found with id: " + id));
-        task.setArchived(true);
-        return taskRepository.save(task);
+    public Task archiveTask(Long id, User user, Long expectedVersion) {
+        int updated = taskRepository.archive(id, user, editableWorkspaces(user), LocalDateTime.now(), rowVersion(id, expectedVersion));
+        Task task = reloadUpdated(updated, id, user, expectedVersion);
+        recordHistory(id, user, "ARCHIVED", List.of(new FieldChange("archived", null, "true")));
+        return task;
     }
     
     // Unarchive task
-    public Task unarchiveTask(Long id, User user) {
-        Task task = taskRepository.findByIdAndUser(id, user)
-            .orElseThrow(() -> new RuntimeException("Task not found with id: " + id));
-        task.setArchived(false);
-        return taskRepository.save(task);
+    public Task unarchiveTask(Long id, User user, Long expectedVersion) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> workspaceIds = editableWorkspaces(user);
+        int updated = taskRepository.unarchive(id, user, workspaceIds, now, rowVersion(id, expectedVersion));
+        if (updated == 0 && taskRetentionService.rehydrate(id, user).isPresent()) {
+            updated = taskRepository.unarchive(id, user, workspaceIds, now, rowVersion(id, expectedVersion));
+        }
+        Task task = reloadUpdated(updated, id, user, expectedVersion);
+        recordHistory(id, user, "UNARCHIVED", List.of(new FieldChange("archived", null, "false")));
+        return task;
     }
     
     // Get archived tasks
+    @Transactional(readOnly = true)
     public List<Task> getArchivedTasks(User user) {
-        return taskRepository.findByUserAndArchivedAndDeletedAtIsNull(user, true);
+        List<Task> tasks = new ArrayList<>(taskRepository.findByUserAndArchivedAndDeletedAtIsNull(user, true));
+        tasks.addAll(taskRetentionService.getColdArchivedTasks(user));
+        return tasks;
     }
     
     // Soft delete
-    public void deleteTask(Long id, User user) {
-        Task task = taskRepository.findByIdAndUser(id, user)
-            .orElseThrow(() -> new RuntimeException("Task not found with id: " + id));
-        task.setDeletedAt(LocalDateTime.now());
-        taskRepository.save(task);
+    public void deleteTask(Long id, User user, Long expectedVersion) {
+        List<Long> workspaceIds = editableWorkspaces(user);
+        int updated = taskRepository.softDelete(id, user, workspaceIds, LocalDateTime.now(), rowVersion(id, expectedVersion));
+        if (updated == 0) {
+            throw notUpdated(id, user, expectedVersion);
+        }
+        if (workspaceIds.isEmpty()) {
+            unindexTask(user.getId(), id);
+        } else {
+            // The task may belong to another member, whose indexes need the update
+            taskRepository.findById(id).ifPresent(this::indexTask);
+        }
+        recordHistory(id, user, "DELETED", List.of());
+    }
+    
+    // Task history, oldest first; also available for tasks in cold storage
+    @Transactional(readOnly = true)
+    public List<TaskHistoryEntry> getTaskHistory(Long id, User user) {
+        if (findAccessible(id, user, Role.VIEWER).isEmpty() && !taskRetentionService.isCold(id, user)) {
+            throw new NotFoundException("Task not found with id: " + id);
+        }
+        return taskHistoryLog.read(id);
     }
     
     // Get deleted tasks
+    @Transactional(readOnly = true)
     public List<Task> getDeletedTasks(User user) {
-        return taskRepository.findByUserAndDeletedAtIsNotNull(user);
+        List<Task> tasks = new ArrayList<>(taskRepository.findByUserAndDeletedAtIsNotNull(user));
+        tasks.addAll(taskRetentionService.getColdDeletedTasks(user));
+        return tasks;
     }
     
     // Restore task
-    public Task restoreTask(Long id, User user) {
-        Task task = taskRepository.findById(id)
-            .orElseThrow(() -> new RuntimeException("Task not found with id: " + id));
-        
-        if (!task.getUser().getId().equals(user.getId())) {
-            throw new RuntimeException("Unauthorized");
+    public Task restoreTask(Long id, User user, Long expectedVersion) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> workspaceIds = editableWorkspaces(user);
+        int updated = taskRepository.restore(id, user, workspaceIds, now, rowVersion(id, expectedVersion));
+        if (updated == 0 && taskRetentionService.rehydrate(id, user).isPresent()) {
+            updated = taskRepository.restore(id, user, workspaceIds, now, rowVersion(id, expectedVersion));
         }
-        
-        if (task.getDeletedAt() == null) {
-            throw new RuntimeException("Task is not deleted");
+        if (updated == 0 && taskRepository.existsByIdAndUserAndDeletedAtIsNull(id, user)) {
+            throw new InvalidRequestException("Task is not deleted");
         }
-        
-        task.setDeletedAt(null);
-        return taskRepository.save(task);
+        Task task = reloadUpdated(updated, id, user, expectedVersion);
+        recordHistory(id, user, "RESTORED", List.of());
+        return task;
     }
     
     // Permanent delete
-    public void permanentlyDeleteTask(Long id, User user) {
-        Task task = taskRepository.findById(id)
-            .orElseThrow(() -> new RuntimeException("Task not found with id: " + id));
-        
-        if (!task.getUser().getId().equals(user.getId())) {
-            throw new RuntimeException("Unauthorized");
+    public void permanentlyDeleteTask(Long id, User user, Long expectedVersion) {
+        taskRepository.deleteTagsOfTask(id, user.getId());
+        int deleted = taskRepository.deleteByIdAndUser(id, user, rowVersion(id, expectedVersion));
+        if (deleted == 0) {
+            if (expectedVersion == null && taskRetentionService.purge(id, user)) {
+                TransactionHooks.afterCommit(() -> writeBehindBuffer.discard(id));
+                taskHierarchyService.onTaskRemoved(id);
+                TransactionHooks.afterCommit(() -> taskHistoryLog.remove(id));
+                return;
+            }
+            throw notUpdated(id, user, expectedVersion);
         }
-        
-        taskRepository.delete(task);
+        TransactionHooks.afterCommit(() -> writeBehindBuffer.discard(id));
+        taskHierarchyService.onTaskRemoved(id);
+        unindexTask(user.getId(), id);
+        TransactionHooks.afterCommit(() -> taskHistoryLog.remove(id));
     }
     
-    // Delete all tasks
-    public void deleteAllTasks(User user) {
-        List<Task> tasks = taskRepository.findByUserAndDeletedAtIsNull(user);
+    // Tasks a bulk job of this type would touch, for its progress report
+    @Transactional(readOnly = true)
+    public long countBulkTargets(BulkJob.Type type, User user) {
+        return switch (type) {
+            case DELETE_ALL -> taskRepository.countByUserAndDeletedAtIsNull(user);
+            case ARCHIVE_COMPLETED -> taskRepository.countByUserAndStatusAndArchivedAndDeletedAtIsNull(
+                user, TaskStatus.COMPLETED, false);
+            case RESTORE_ALL, PURGE_TRASH -> taskRepository.countByUserAndDeletedAtIsNotNull(user)
+                + taskRetentionService.countColdDeleted(user);
+        };
+    }
+    
+    // One keyset chunk of a bulk job over the user's own tasks, in the caller's transaction.
+    // Phase 0 covers the hot table and phase 1 the cold tier; returns the ids handled, empty once the phase is done
+    public List<Long> applyBulkChunk(BulkJob.Type type, int phase, User user, long afterId, int size) {
+        Pageable chunk = PageRequest.of(0, size);
+        List<Long> ids = switch (type) {
+            case DELETE_ALL -> taskRepository.findLiveIdsAfter(user, afterId, chunk);
+            case ARCHIVE_COMPLETED -> taskRepository.findUnarchivedIdsByStatusAfter(user, TaskStatus.COMPLETED, afterId, chunk);
+            case RESTORE_ALL, PURGE_TRASH -> phase == 0
+                ? taskRepository.findDeletedIdsAfter(user, afterId, chunk)
+                : taskRetentionService.findColdDeletedIds(user, afterId, size);
+        };
+        if (ids.isEmpty()) {
+            return ids;
+        }
         LocalDateTime now = LocalDateTime.now();
-        tasks.forEach(task -> task.setDeletedAt(now));
-        taskRepository.saveAll(tasks);
+        switch (type) {
+            case DELETE_ALL -> {
+                taskRepository.softDeleteAll(ids, now);
+                ids.forEach(id -> recordHistory(id, user, "DELETED", List.of()));
+            }
+            case ARCHIVE_COMPLETED -> {
+                taskRepository.archiveAll(ids, now);
+                ids.forEach(id -> recordHistory(id, user, "ARCHIVED", List.of(new FieldChange("archived", null, "true"))));
+            }
+            case RESTORE_ALL -> {
+                if (phase > 0) {
+                    taskRetentionService.rehydrateAll(ids);
+                }
+                taskRepository.restoreAll(ids, now);
+                ids.forEach(id -> recordHistory(id, user, "RESTORED", List.of()));
+            }
+            case PURGE_TRASH -> {
+                ids.forEach(taskHierarchyService::onTaskRemoved);
+                if (phase == 0) {
+                    taskRepository.deleteTagsByTaskIds(ids);
+                    taskRepository.deleteAllByIdInBatch(ids);
+                } else {
+                    taskRetentionService.purgeAll(ids);
+                }
+                TransactionHooks.afterCommit(() -> ids.forEach(id -> {
+                    writeBehindBuffer.discard(id);
+                    taskHistoryLog.remove(id);
+                }));
+            }
+        }
+        TransactionHooks.afterCommit(() -> invalidateIndexes(user.getId()));
+        return ids;
+    }
+    
+    // The row of one occurrence of a recurring task, written now unless it already exists
+    private Task writeOccurrence(Long seriesId, LocalDateTime at, User user) {
+        Task series = findAccessible(seriesId, user, Role.EDITOR)
+            .filter(found -> found.getDeletedAt() == null && found.getRecurrence() != null)
+            .orElseThrow(() -> new NotFoundException("Recurring task not found with id: " + seriesId));
+        Optional<Task> written = taskRepository.findByUserAndSeriesIdAndOccurrenceAt(series.getUser(), seriesId, at);
+        if (written.isPresent()) {
+            return written.get();
+        }
+        if (!recurrenceService.isOccurrence(series, at)) {
+            throw new InvalidRequestException("Task " + seriesId + " does not occur at " + at);
+        }
+        Task occurrence = RecurrenceService.occurrenceOf(series, at);
+        occurrence.setRank(taskRankService.rankAtEnd(series.getUser(), occurrence.getStatus()));
+        Task savedOccurrence = taskRepository.save(occurrence);
+        indexTask(savedOccurrence);
+        taskTrendService.onTaskCreated(savedOccurrence);
+        recordHistory(savedOccurrence.getId(), user, "CREATED", List.of(
+            new FieldChange("seriesId", null, seriesId.toString()),
+            new FieldChange("occurrenceAt", null, at.toString())));
+        return savedOccurrence;
+    }
+    
+    // Result of a conditional single-row update: the fresh row, or why nothing matched
+    private Task reloadUpdated(int updated, Long id, User user, Long expectedVersion) {
+        if (updated == 0) {
+            throw notUpdated(id, user, expectedVersion);
+        }
+        Task task = taskRepository.findById(id)
+            .orElseThrow(() -> new NotFoundException("Task not found with id: " + id));
+        rebasePending(task);
+        if (writeBehindBuffer.isEnabled() && writeBehindBuffer.isPending(id)) {
+            entityManager.detach(task);
+            writeBehindBuffer.overlayRebased(task);
+        }
+        indexTask(task);
+        return task;
+    }
+    
+    // A direct write bumped the row version under a buffered edit; re-log the edit against it
+    private void rebasePending(Task task) {
+        if (writeBehindBuffer.isEnabled()) {
+            Long id = task.getId();
+            long version = task.getVersion();
+            TransactionHooks.afterCommit(() -> writeBehindBuffer.rebase(id, version));
+        }
+    }
+    
+    // Buffers the edit made to a detached task once the transaction commits; registered before
+    // the hooks of history and indexes so a refused edit leaves them untouched
+    private void recordPending(Task task, Long expectedVersion) {
+        TransactionHooks.afterCommit(() -> writeBehindBuffer.record(task, expectedVersion));
+    }
+    
+    // The version a direct conditional write expects of the row
+    private Long rowVersion(Long id, Long expectedVersion) {
+        return writeBehindBuffer.isEnabled() ? writeBehindBuffer.toRowVersion(id, expectedVersion) : expectedVersion;
+    }
+    
+    // Detached copy of a task with its buffered edits applied, so changing it never dirties the row
+    private Task detachPending(Task task) {
+        entityManager.detach(task);
+        return writeBehindBuffer.overlay(task);
+    }
+    
+    // Applies buffered edits to a filtered list: drops tasks that no longer match, adds ones that now do
+    private List<Task> overlayMatching(List<Task> tasks, User user, Predicate<Task> matches) {
+        if (!writeBehindBuffer.isEnabled()) {
+            return tasks;
+        }
+        Set<Long> listed = tasks.stream().map(Task::getId).collect(Collectors.toSet());
+        List<Long> others = writeBehindBuffer.pendingIds(user.getId()).stream()
+            .filter(id -> !listed.contains(id))
+            .collect(Collectors.toList());
+        List<Task> result = new ArrayList<>(writeBehindBuffer.overlay(tasks));
+        result.addAll(writeBehindBuffer.overlay(loadInOrder(others)).stream()
+            .filter(task -> task.getDeletedAt() == null)
+            .collect(Collectors.toList()));
+        result.removeIf(matches.negate());
+        return result;
+    }
+    
+    private String rankAfter(User user, TaskStatus status, Long afterId, Long movingId) {
+        Task after = null;
+        if (afterId != null) {
+            after = taskRepository.findByIdAndUser(afterId, user)
+                .filter(found -> found.getDeletedAt() == null && found.getStatus() == status)
+                .orElseThrow(() -> new InvalidRequestException("Task " + afterId + " is not in the " + status + " column"));
+        }
+        return taskRankService.rankAfter(user, status, after, movingId);
+    }
+    
+    // Board cursors are the column and the (id, rank) keyset position of its last returned task
+    private record BoardCursor(TaskStatus status, Long id, String rank) {
+    }
+    
+    // Column order of the board query: rank with unranked tasks first, then id
+    private static final Comparator<String> RANK_ORDER = Comparator.nullsFirst(Comparator.naturalOrder());
+    
+    private static final Comparator<Task> BOARD_ORDER = Comparator.comparing(Task::getRank, RANK_ORDER)
+        .thenComparing(Task::getId);
+    
+    private static boolean pastCursor(Task task, BoardCursor after) {
+        int byRank = RANK_ORDER.compare(task.getRank(), after.rank());
+        return byRank > 0 || (byRank == 0 && task.getId() > after.id());
+    }
+    
+    // The column is given, as the task may have left it through a buffered status change
+    private static String encodeCursor(TaskStatus status, Task last) {
+        String position = status + ":" + last.getId() + ":" + Objects.requireNonNullElse(last.getRank(), "");
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    // Parsed whole inside the try, so a malformed status or id is a bad request rather than a 500
+    private static BoardCursor decodeCursor(String cursor) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(":", -1);
+            if (parts.length != 3) {
+                throw new IllegalArgumentException();
+            }
+            return new BoardCursor(TaskStatus.valueOf(parts[0]), Long.valueOf(parts[1]),
+                                   parts[2].isEmpty() ? null : parts[2]);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidRequestException("Invalid board cursor");
+        }
+    }
+    
+    // The user's own task, or one shared with them in a workspace where they hold at least the role;
+    // the check itself is answered from the permission cache
+    private Optional<Task> findAccessible(Long id, User user, Role role) {
+        return taskRepository.findById(id)
+            .filter(task -> task.getUser().getId().equals(user.getId())
+                || workspacePermissionCache.can(user, task.getWorkspaceId(), role));
+    }
+    
+    private List<Long> editableWorkspaces(User user) {
+        return workspacePermissionCache.workspaceIds(user, Role.EDITOR);
+    }
+    
+    // Only runs on the failure path, to tell a stale version from a missing task
+    private RuntimeException notUpdated(Long id, User user, Long expectedVersion) {
+        if (expectedVersion != null && findAccessible(id, user, Role.EDITOR).isPresent()) {
+            return new VersionConflictException(id);
+        }
+        return new NotFoundException("Task not found with id: " + id);
+    }
+    
+    // Loads tasks by id in one query, keeping the given order
+    private List<Task> loadInOrder(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Long, Task> tasksById = taskRepository.findAllById(ids).stream()
+            .collect(Collectors.toMap(Task::getId, task -> task));
+        return ids.stream()
+            .map(tasksById::get)
+            .filter(Objects::nonNull)
+            .collect(Collectors.toList());
+    }
+    
+    // History is written once the change has committed
+    private void recordHistory(Long taskId, User user, String action, List<FieldChange> changes) {
+        TaskHistoryEntry entry = new TaskHistoryEntry(taskId, user.getUsername(), LocalDateTime.now(), action, changes);
+        TransactionHooks.afterCommit(() -> taskHistoryLog.append(entry));
+    }
+    
+    private static void diff(List<FieldChange> changes, String field, Object before, Object after) {
+        if (!Objects.equals(before, after)) {
+            changes.add(new FieldChange(field, before == null ? null : before.toString(),
+                                        after == null ? null : after.toString()));
+        }
+    }
+    
+    // Keep the in-memory indexes in step with a saved (possibly soft-deleted) task
+    private void indexTask(Task task) {
+        taskBitmapIndex.onTaskSaved(task);
+        nextUpIndex.onTaskSaved(task);
+        titleSuggestIndex.onTaskSaved(task);
+    }
+    
+    private void unindexTask(Long userId, Long taskId) {
+        taskBitmapIndex.onTaskRemoved(userId, taskId);
+        nextUpIndex.onTaskRemoved(userId, taskId);
+        titleSuggestIndex.onTaskRemoved(userId, taskId);
+    }
+    
+    private void invalidateIndexes(Long userId) {
+        taskBitmapIndex.invalidate(userId);
+        nextUpIndex.invalidate(userId);
+        titleSuggestIndex.invalidate(userId);
+    }
+    
+    // Canonical rule, or null for an empty one; a recurring task needs a due date to start from
+    private String normalizeRecurrence(String rule, LocalDateTime dueDate) {
+        if (rule == null || rule.isBlank()) {
+            return null;
+        }
+        if (dueDate == null) {
+            throw new InvalidRequestException("A recurring task needs a due date");
+        }
+        return recurrenceService.normalize(rule);
+    }
+    
+    private Set<String> normalizeTags(Collection<String> tags) {
+        Set<String> normalized = new HashSet<>();
+        if (tags == null) {
+            return normalized;
+        }
+        for (String tag : tags) {
+            if (tag == null || tag.isBlank()) {
+                continue;
+            }
+            String value = tag.trim().toLowerCase(Locale.ROOT);
+            if (value.length() > MAX_TAG_LENGTH) {
+                throw new InvalidRequestException("Tags must be at most " + MAX_TAG_LENGTH + " characters");
+            }
+            normalized.add(value);
+        }
+        return normalized;
     }
 }
\ No newline at end of file
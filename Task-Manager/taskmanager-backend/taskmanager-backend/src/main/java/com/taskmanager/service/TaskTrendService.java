@@ -0,0 +1,334 @@
+package com.taskmanager.service;
+
+import com.taskmanager.dto.TrendBucket;
+import com.taskmanager.model.Task;
+import com.taskmanager.model.Task.TaskStatus;
+import com.taskmanager.model.TaskOverdueSnapshot;
+import com.taskmanager.model.TaskRollup;
+import com.taskmanager.model.TaskRollupBackfill;
+import com.taskmanager.model.User;
+import com.taskmanager.repository.ColdTaskRepository;
+import com.taskmanager.repository.TaskOverdueSnapshotRepository;
+import com.taskmanager.repository.TaskRepository;
+import com.taskmanager.repository.TaskRollupBackfillRepository;
+import com.taskmanager.repository.TaskRollupRepository;
+import com.taskmanager.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Weekly and monthly task trends, read from per-user daily rollups instead of the task
+ * history. TaskService adds to today's row in the same transaction as each creation and
+ * status change, a scheduled snapshot records how many open tasks are overdue, and a
+ * one-off backfill rolls up everything that happened before the rollups existed. The
+ * snapshot and the backfill both go in short chunks claimed through a progress row, so
+ * each chunk runs on one instance even though every instance schedules them.
+ */
+@Service
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class TaskTrendService implements ApplicationRunner {
+    
+    private static final Logger logger = LoggerFactory.getLogger(TaskTrendService.class);
+    
+    @Autowired
+    private TaskRollupRepository taskRollupRepository;
+    
+    @Autowired
+    private TaskRollupBackfillRepository taskRollupBackfillRepository;
+    
+    @Autowired
+    private TaskRepository taskRepository;
+    
+    @Autowired
+    private ColdTaskRepository coldTaskRepository;
+    
+    @Autowired
+    private TaskOverdueSnapshotRepository taskOverdueSnapshotRepository;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Value("${app.trends.enabled:true}")
+    private boolean enabled;
+    
+    @Value("${app.trends.backfill-batch-size:1000}")
+    private int backfillBatchSize;
+    
+    @Value("${app.trends.overdue-user-range:1000}")
+    private int overdueUserRange;
+    
+    // One day of rollup counters, while the backfill adds up a chunk
+    private static class Counts {
+        private long created;
+        private long completed;
+        private long completedLate;
+        private long completionMinutes;
+    }
+    
+    private record UserDay(Long userId, LocalDate date) {
+    }
+    
+    // Registers the backfill before any request is served, so the cutoff precedes every live update
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            return;
+        }
+        LocalDateTime cutoff = LocalDateTime.now();
+        Integer started = new TransactionTemplate(transactionManager).execute(status ->
+            taskRollupBackfillRepository.start(TaskRollupBackfill.ID, cutoff));
+        if (started != null && started > 0) {
+            logger.info("Registered trend rollup backfill for tasks changed before {}", cutoff);
+        }
+    }
+    
+    public void onTaskCreated(Task task) {
+        if (!enabled) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        if (task.getStatus() == TaskStatus.COMPLETED) {
+            taskRollupRepository.addCounts(task.getUser().getId(), now.toLocalDate(), 1, 1, 0,
+                                           isLate(task, now) ? 1 : 0, 0);
+        } else {
+            taskRollupRepository.addCounts(task.getUser().getId(), now.toLocalDate(), 1, 0, 0, 0, 0);
+        }
+    }
+    
+    // Counted for the task's owner, whoever made the change
+    public void onStatusChanged(Task task, TaskStatus previous) {
+        if (!enabled || previous == task.getStatus()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        if (task.getStatus() == TaskStatus.COMPLETED) {
+            taskRollupRepository.addCounts(task.getUser().getId(), now.toLocalDate(), 0, 1, 0,
+                                           isLate(task, now) ? 1 : 0, minutesBetween(task.getCreatedAt(), now));
+        } else if (previous == TaskStatus.COMPLETED) {
+            taskRollupRepository.addCounts(task.getUser().getId(), now.toLocalDate(), 0, 0, 1, 0, 0);
+        }
+    }
+    
+    // Per-week (from Monday) or per-month buckets covering [from, to], empty ones included;
+    // the first bucket counts from its own start
+    @Transactional(readOnly = true)
+    public List<TrendBucket> getTrends(User user, LocalDate from, LocalDate to, boolean byMonth) {
+        Map<LocalDate, TrendBucket> buckets = new LinkedHashMap<>();
+        Map<LocalDate, Long> completionMinutes = new HashMap<>();
+        Map<LocalDate, Long> overdueByDay = new TreeMap<>();
+        LocalDate first = bucketStart(from, byMonth);
+        for (LocalDate start = first; !start.isAfter(to);
+             start = byMonth ? start.plusMonths(1) : start.plusWeeks(1)) {
+            buckets.put(start, new TrendBucket(start, 0, 0, 0, 0, null, null));
+        }
+        for (TaskRollup rollup : taskRollupRepository.findByUserIdAndRollupDateBetweenOrderByRollupDate(user.getId(), first, to)) {
+            LocalDate start = bucketStart(rollup.getRollupDate(), byMonth);
+            TrendBucket bucket = buckets.get(start);
+            bucket.setCreated(bucket.getCreated() + rollup.getCreated());
+            bucket.setCompleted(bucket.getCompleted() + rollup.getCompleted());
+            bucket.setReopened(bucket.getReopened() + rollup.getReopened());
+            bucket.setCompletedLate(bucket.getCompletedLate() + rollup.getCompletedLate());
+            if (rollup.getOverdue() != null) {
+                overdueByDay.put(rollup.getRollupDate(), rollup.getOverdue());
+            }
+            completionMinutes.merge(start, rollup.getCompletionMinutes(), Long::sum);
+        }
+        // A finished snapshot writes no row for users with nothing overdue
+        for (LocalDate day : taskOverdueSnapshotRepository.findFinishedDates(first, to)) {
+            overdueByDay.putIfAbsent(day, 0L);
+        }
+        // Each bucket shows its last sample
+        overdueByDay.forEach((day, overdue) -> buckets.get(bucketStart(day, byMonth)).setOverdue(overdue));
+        for (TrendBucket bucket : buckets.values()) {
+            if (bucket.getCompleted() > 0) {
+                bucket.setAverageHoursToComplete(
+                    completionMinutes.getOrDefault(bucket.getStart(), 0L) / 60.0 / bucket.getCompleted());
+            }
+        }
+        return new ArrayList<>(buckets.values());
+    }
+    
+    // Overdue is a state rather than an event, so it is sampled once a day per user instead of counted.
+    // Users are walked in id ranges; only users with something overdue get a row
+    @Scheduled(cron = "${app.trends.overdue-cron:0 55 23 * * *}")
+    public void snapshotOverdue() {
+        if (!enabled) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        LocalDate date = now.toLocalDate();
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.executeWithoutResult(status -> taskOverdueSnapshotRepository.start(date, now));
+        long users = 0;
+        while (true) {
+            Integer rows = transactionTemplate.execute(status -> snapshotChunk(date));
+            if (rows == null || rows < 0) {
+                break;
+            }
+            users += rows;
+        }
+        if (users > 0) {
+            logger.info("Recorded overdue tasks of {} users", users);
+        }
+    }
+    
+    // Users with overdue tasks in the next range, or -1 once the snapshot is finished or the range went
+    // to another instance
+    private int snapshotChunk(LocalDate date) {
+        TaskOverdueSnapshot state = taskOverdueSnapshotRepository.findById(date).orElse(null);
+        if (state == null || state.getFinishedAt() != null) {
+            return -1;
+        }
+        long fromUserId = state.getLastUserId();
+        Long maxUserId = userRepository.findMaxId();
+        if (maxUserId == null || fromUserId >= maxUserId) {
+            taskOverdueSnapshotRepository.finish(date, LocalDateTime.now());
+            return -1;
+        }
+        long toUserId = Math.min(fromUserId + overdueUserRange, maxUserId);
+        if (taskOverdueSnapshotRepository.advance(date, fromUserId, toUserId) == 0) {
+            return -1;
+        }
+        List<Object[]> rows = taskRepository.countOverdueByUserBetween(fromUserId, toUserId, TaskStatus.COMPLETED,
+                                                                       state.getTakenAt());
+        for (Object[] row : rows) {
+            taskRollupRepository.setOverdue((Long) row[0], date, (Long) row[1]);
+        }
+        return rows.size();
+    }
+    
+    // Highest task id retention may move to the cold tier: while the backfill is still in the hot
+    // table, only tasks it has already passed, so none is counted in both tiers
+    @Transactional(readOnly = true)
+    public long coldMoveLimit() {
+        if (!enabled) {
+            return Long.MAX_VALUE;
+        }
+        return taskRollupBackfillRepository.findById(TaskRollupBackfill.ID)
+            .filter(state -> state.getFinishedAt() == null && state.getPhase() == 0)
+            .map(TaskRollupBackfill::getLastId)
+            .orElse(Long.MAX_VALUE);
+    }
+    
+    // Works through the backfill chunk by chunk until it is done or another instance holds it
+    @Scheduled(fixedDelayString = "${app.trends.backfill-interval-ms:60000}",
+               initialDelayString = "${app.trends.backfill-initial-delay-ms:30000}")
+    public void continueBackfill() {
+        if (!enabled) {
+            return;
+        }
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        long rolledUp = 0;
+        while (true) {
+            Integer rows = transactionTemplate.execute(status -> backfillChunk());
+            if (rows == null || rows < 0) {
+                break;
+            }
+            rolledUp += rows;
+        }
+        if (rolledUp > 0) {
+            logger.info("Trend rollup backfill went through {} tasks", rolledUp);
+        }
+    }
+    
+    // Rows rolled up, or -1 once the backfill is finished or the chunk went to another instance
+    private int backfillChunk() {
+        TaskRollupBackfill state = taskRollupBackfillRepository.findById(TaskRollupBackfill.ID).orElse(null);
+        if (state == null || state.getFinishedAt() != null) {
+            return -1;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        int phase = state.getPhase();
+        long lastId = state.getLastId();
+        List<Object[]> rows = phase == 0
+            ? taskRepository.findRollupRowsAfter(lastId, PageRequest.of(0, backfillBatchSize))
+            : coldTaskRepository.findRollupRowsAfter(lastId, PageRequest.of(0, backfillBatchSize));
+        if (rows.isEmpty()) {
+            if (phase == 0) {
+                return taskRollupBackfillRepository.startColdPhase(TaskRollupBackfill.ID, lastId, now) > 0 ? 0 : -1;
+            }
+            taskRollupBackfillRepository.finish(TaskRollupBackfill.ID, now);
+            logger.info("Trend rollup backfill finished");
+            return -1;
+        }
+        // Moving the position first locks the backfill row, so a racing instance waits and then backs off
+        long nextId = (Long) rows.get(rows.size() - 1)[0];
+        if (taskRollupBackfillRepository.advance(TaskRollupBackfill.ID, phase, lastId, phase, nextId, now) == 0) {
+            return -1;
+        }
+        
+        Map<UserDay, Counts> days = new HashMap<>();
+        for (Object[] row : rows) {
+            Long userId = (Long) row[1];
+            TaskStatus status = (TaskStatus) row[2];
+            LocalDateTime createdAt = (LocalDateTime) row[3];
+            LocalDateTime updatedAt = (LocalDateTime) row[4];
+            LocalDateTime dueDate = (LocalDateTime) row[5];
+            // Anything from the cutoff on was counted live
+            if (createdAt == null || !createdAt.isBefore(state.getCutoff())) {
+                continue;
+            }
+            // A cold task moved since the cutoff and within the hot phase's reach was counted there
+            if (phase == 1 && isCountedInHotPhase(state, (Long) row[0], (LocalDateTime) row[6])) {
+                continue;
+            }
+            days.computeIfAbsent(new UserDay(userId, createdAt.toLocalDate()), key -> new Counts()).created++;
+            // The last update of a completed task is the closest record of when it was completed
+            if (status == TaskStatus.COMPLETED && updatedAt != null && updatedAt.isBefore(state.getCutoff())) {
+                Counts counts = days.computeIfAbsent(new UserDay(userId, updatedAt.toLocalDate()), key -> new Counts());
+                counts.completed++;
+                counts.completionMinutes += minutesBetween(createdAt, updatedAt);
+                if (dueDate != null && updatedAt.isAfter(dueDate)) {
+                    counts.completedLate++;
+                }
+            }
+        }
+        days.forEach((day, counts) -> taskRollupRepository.addCounts(day.userId(), day.date(), counts.created,
+            counts.completed, 0, counts.completedLate, counts.completionMinutes));
+        return rows.size();
+    }
+    
+    private static boolean isCountedInHotPhase(TaskRollupBackfill state, long id, LocalDateTime movedAt) {
+        return state.getHotWatermark() != null && id <= state.getHotWatermark()
+            && movedAt != null && !movedAt.isBefore(state.getCutoff());
+    }
+    
+    private static LocalDate bucketStart(LocalDate date, boolean byMonth) {
+        return byMonth ? date.withDayOfMonth(1) : date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+    }
+    
+    private static boolean isLate(Task task, LocalDateTime completedAt) {
+        return task.getDueDate() != null && completedAt.isAfter(task.getDueDate());
+    }
+    
+    private static long minutesBetween(LocalDateTime from, LocalDateTime to) {
+        return from == null ? 0 : Math.max(0, Duration.between(from, to).toMinutes());
+    }
+}
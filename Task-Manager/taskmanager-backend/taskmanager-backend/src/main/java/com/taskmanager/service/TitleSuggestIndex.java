@@ -0,0 +1,287 @@
+package com.taskmanager.service;
+
+import com.taskmanager.model.Task;
+import com.taskmanager.model.User;
+import com.taskmanager.repository.TaskRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Per-user sorted map of the words in live task titles, for autocomplete. A prefix is
+ * answered from the sorted key range starting at it, so a keystroke costs a tree lookup
+ * plus the matching words instead of a title scan. Each word keeps how many tasks use it
+ * and when one of them last changed. Loaded lazily from the primary, kept current by
+ * TaskService after each commit on this instance, and dropped once idle or when all maps
+ * together outgrow the memory cap. Commits made through other instances never reach it,
+ * so a user's words are reloaded once older than the TTL.
+ */
+@Component
+public class TitleSuggestIndex {
+    
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+    
+    private static final int MAX_TERM_LENGTH = 50;
+    
+    // Rough per-entry footprints, used only to keep the total under the cap
+    private static final long TERM_OVERHEAD_BYTES = 120;
+    private static final long TASK_OVERHEAD_BYTES = 80;
+    
+    public enum Ranking {
+        FREQUENT, RECENT
+    }
+    
+    private static final Comparator<Map.Entry<String, Term>> BY_FREQUENCY = Comparator
+        .<Map.Entry<String, Term>>comparingInt(entry -> entry.getValue().count)
+        .thenComparingLong(entry -> entry.getValue().lastUsed)
+        .thenComparing(Map.Entry::getKey, Comparator.reverseOrder());
+    
+    private static final Comparator<Map.Entry<String, Term>> BY_RECENCY = Comparator
+        .<Map.Entry<String, Term>>comparingLong(entry -> entry.getValue().lastUsed)
+        .thenComparingInt(entry -> entry.getValue().count)
+        .thenComparing(Map.Entry::getKey, Comparator.reverseOrder());
+    
+    @Autowired
+    private TaskRepository taskRepository;
+    
+    @Autowired
+    private PrimaryReader primaryReader;
+    
+    @Value("${app.suggest.max-memory-bytes:67108864}")
+    private long maxMemoryBytes;
+    
+    @Value("${app.suggest.idle-minutes:30}")
+    private long idleMinutes;
+    
+    @Value("${app.suggest.ttl-seconds:60}")
+    private long ttlSeconds;
+    
+    private final Map<Long, UserTerms> indexes = new ConcurrentHashMap<>();
+    
+    private final UserIndexLoads<UserTerms> loads = new UserIndexLoads<>(indexes);
+    
+    private final AtomicLong totalBytes = new AtomicLong();
+    
+    // Up to limit words completing the last word of the prefix, best first
+    public List<String> suggest(User user, String prefix, int limit, Ranking ranking) {
+        String[] words = SEPARATORS.split(prefix.toLowerCase(Locale.ROOT));
+        String normalized = words.length == 0 ? "" : words[words.length - 1];
+        // Nothing to complete once the last word has been ended
+        if (normalized.isEmpty() || SEPARATORS.matcher(prefix.substring(prefix.length() - 1)).matches()) {
+            return new ArrayList<>();
+        }
+        Comparator<Map.Entry<String, Term>> order = ranking == Ranking.RECENT ? BY_RECENCY : BY_FREQUENCY;
+        UserTerms index = indexFor(user);
+        synchronized (index) {
+            index.lastAccess = System.currentTimeMillis();
+            // Worst of the best so far at the head, so the top limit are kept in one pass
+            PriorityQueue<Map.Entry<String, Term>> best = new PriorityQueue<>(limit + 1, order);
+            for (Map.Entry<String, Term> entry : index.terms.tailMap(normalized).entrySet()) {
+                if (!entry.getKey().startsWith(normalized)) {
+                    break;
+                }
+                best.add(entry);
+                if (best.size() > limit) {
+                    best.poll();
+                }
+            }
+            List<String> suggestions = new ArrayList<>(best.size());
+            while (!best.isEmpty()) {
+                suggestions.add(best.poll().getKey());
+            }
+            Collections.reverse(suggestions);
+            return suggestions;
+        }
+    }
+    
+    public void onTaskSaved(Task task) {
+        Long userId = task.getUser().getId();
+        Long id = task.getId();
+        String[] terms = task.isDeleted() ? null : terms(task.getTitle());
+        TransactionHooks.afterCommit(() -> {
+            loads.apply(userId, index -> {
+                index.remove(id);
+                if (terms != null) {
+                    index.add(id, terms, System.currentTimeMillis());
+                }
+            });
+            enforceCap();
+        });
+    }
+    
+    public void onTaskRemoved(Long userId, Long taskId) {
+        TransactionHooks.afterCommit(() -> loads.apply(userId, index -> index.remove(taskId)));
+    }
+    
+    // Drops a user's words after bulk changes; they are reloaded on next use
+    public void invalidate(Long userId) {
+        TransactionHooks.afterCommit(() -> {
+            loads.discardLoad(userId);
+            drop(userId);
+        });
+    }
+    
+    @Scheduled(fixedDelayString = "${app.suggest.eviction-interval-ms:60000}")
+    public void evictIdle() {
+        long idleBefore = System.currentTimeMillis() - idleMinutes * 60_000;
+        indexes.forEach((userId, index) -> {
+            if (index.lastAccess < idleBefore) {
+                drop(userId);
+            }
+        });
+    }
+    
+    private UserTerms indexFor(User user) {
+        UserTerms index = indexes.get(user.getId());
+        if (index != null && System.currentTimeMillis() - index.loadedAt < ttlSeconds * 1000) {
+            return index;
+        }
+        if (index != null && indexes.remove(user.getId(), index)) {
+            release(index);
+        }
+        index = loads.get(user.getId(), () -> primaryReader.read(() -> load(user)));
+        if (indexes.get(user.getId()) != index) {
+            // Discarded by an invalidation while loading; answers this call but is not kept
+            release(index);
+        }
+        enforceCap();
+        return index;
+    }
+    
+    private UserTerms load(User user) {
+        // Stamped before the read, so the TTL never outlasts the snapshot's age
+        UserTerms index = new UserTerms(System.currentTimeMillis());
+        for (Object[] row : taskRepository.findTitleRows(user)) {
+            LocalDateTime updatedAt = (LocalDateTime) row[2];
+            index.add((Long) row[0], terms((String) row[1]),
+                      updatedAt == null ? 0 : updatedAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+        }
+        index.lastAccess = System.currentTimeMillis();
+        return index;
+    }
+    
+    // Drops the least recently used users until the estimate is back under the cap
+    private void enforceCap() {
+        while (totalBytes.get() > maxMemoryBytes && indexes.size() > 1) {
+            Long idlest = null;
+            long oldest = Long.MAX_VALUE;
+            for (Map.Entry<Long, UserTerms> entry : indexes.entrySet()) {
+                if (entry.getValue().lastAccess < oldest) {
+                    oldest = entry.getValue().lastAccess;
+                    idlest = entry.getKey();
+                }
+            }
+            if (idlest == null) {
+                return;
+            }
+            drop(idlest);
+        }
+    }
+    
+    private void drop(Long userId) {
+        UserTerms index = indexes.remove(userId);
+        if (index != null) {
+            release(index);
+        }
+    }
+    
+    private void release(UserTerms index) {
+        synchronized (index) {
+            if (!index.dropped) {
+                index.dropped = true;
+                totalBytes.addAndGet(-index.bytes);
+            }
+        }
+    }
+    
+    // Distinct lower-cased words of a title
+    private static String[] terms(String title) {
+        if (title == null) {
+            return new String[0];
+        }
+        Set<String> terms = new LinkedHashSet<>();
+        for (String term : SEPARATORS.split(title.toLowerCase(Locale.ROOT))) {
+            if (!term.isEmpty() && term.length() <= MAX_TERM_LENGTH) {
+                terms.add(term);
+            }
+        }
+        return terms.toArray(new String[0]);
+    }
+    
+    private static class Term {
+        private int count;
+        private long lastUsed;
+    }
+    
+    private class UserTerms {
+        private final TreeMap<String, Term> terms = new TreeMap<>();
+        private final Map<Long, String[]> byTask = new HashMap<>();
+        private final long loadedAt;
+        private volatile long lastAccess;
+        private long bytes;
+        // Set once dropped, so late commit hooks stop counting towards the total
+        private boolean dropped;
+        
+        UserTerms(long loadedAt) {
+            this.loadedAt = loadedAt;
+        }
+        
+        void add(Long taskId, String[] taskTerms, long changedAt) {
+            byTask.put(taskId, taskTerms);
+            long added = TASK_OVERHEAD_BYTES;
+            for (String term : taskTerms) {
+                Term stats = terms.get(term);
+                if (stats == null) {
+                    stats = new Term();
+                    terms.put(term, stats);
+                    added += TERM_OVERHEAD_BYTES + 2L * term.length();
+                }
+                stats.count++;
+                stats.lastUsed = Math.max(stats.lastUsed, changedAt);
+            }
+            resize(added);
+        }
+        
+        // A word's last use stays put when one of its tasks goes; only dropping the word forgets it
+        void remove(Long taskId) {
+            String[] taskTerms = byTask.remove(taskId);
+            if (taskTerms == null) {
+                return;
+            }
+            long removed = TASK_OVERHEAD_BYTES;
+            for (String term : taskTerms) {
+                Term stats = terms.get(term);
+                if (stats != null && --stats.count == 0) {
+                    terms.remove(term);
+                    removed += TERM_OVERHEAD_BYTES + 2L * term.length();
+                }
+            }
+            resize(-removed);
+        }
+        
+        private void resize(long delta) {
+            bytes += delta;
+            if (!dropped) {
+                totalBytes.addAndGet(delta);
+            }
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.taskmanager.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Lazy loads of per-user in-memory indexes that commit hooks keep current. A load reads a
+ * snapshot while other transactions keep committing; their hooks would find no index yet
+ * and be lost, so they are held and replayed onto the loaded index before it is published.
+ * Replaying a change the snapshot already has is harmless, as each hook sets a task's entry
+ * to its committed state. A load overtaken by an invalidation is used once and not kept.
+ */
+final class UserIndexLoads<V> {
+    
+    private final Map<Long, V> indexes;
+    
+    private final Map<Long, Load<V>> loads = new HashMap<>();
+    
+    UserIndexLoads(Map<Long, V> indexes) {
+        this.indexes = indexes;
+    }
+    
+    // The user's index, loading and publishing it first when absent; concurrent callers share one load
+    V get(Long userId, Supplier<V> loader) {
+        Load<V> load;
+        boolean running;
+        synchronized (loads) {
+            V index = indexes.get(userId);
+            if (index != null) {
+                return index;
+            }
+            load = loads.get(userId);
+            running = load != null;
+            if (!running) {
+                load = new Load<>();
+                loads.put(userId, load);
+            }
+        }
+        if (running) {
+            return await(load);
+        }
+        
+        V index;
+        try {
+            index = loader.get();
+        } catch (RuntimeException e) {
+            synchronized (loads) {
+                loads.remove(userId, load);
+            }
+            load.result.completeExceptionally(e);
+            throw e;
+        }
+        synchronized (loads) {
+            synchronized (index) {
+                load.pending.forEach(update -> update.accept(index));
+            }
+            if (!load.stale) {
+                indexes.put(userId, index);
+            }
+            loads.remove(userId, load);
+        }
+        load.result.complete(index);
+        return index;
+    }
+    
+    // Applies a committed change to the user's index, or holds it for the load in progress
+    void apply(Long userId, Consumer<V> update) {
+        V index;
+        synchronized (loads) {
+            Load<V> load = loads.get(userId);
+            if (load != null) {
+                load.pending.add(update);
+                return;
+            }
+            index = indexes.get(userId);
+        }
+        if (index != null) {
+            synchronized (index) {
+                update.accept(index);
+            }
+        }
+    }
+    
+    // Keeps a load in progress from being published; its snapshot may predate a bulk change
+    void discardLoad(Long userId) {
+        synchronized (loads) {
+            Load<V> load = loads.get(userId);
+            if (load != null) {
+                load.stale = true;
+            }
+        }
+    }
+    
+    private static <V> V await(Load<V> load) {
+        try {
+            return load.result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+    
+    private static class Load<V> {
+        private final CompletableFuture<V> result = new CompletableFuture<>();
+        private final List<Consumer<V>> pending = new ArrayList<>();
+        private boolean stale;
+    }
+}
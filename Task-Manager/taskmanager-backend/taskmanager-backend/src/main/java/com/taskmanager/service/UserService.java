@@ -1,10 +1,13 @@
 package com.taskmanager.service;
 
+import com.taskmanager.exception.InvalidRequestException;
 import com.taskmanager.model.User;
 import com.taskmanager.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Optional;
@@ -13,29 +16,99 @@ import java.util.Optional;
 @Transactional
 public class UserService {
     
+    // Names with this prefix belong to accounts the application creates for itself
+    public static final String RESERVED_USERNAME_PREFIX = "__";
+    
     @Autowired
     private UserRepository userRepository;
     
     @Autowired
     private PasswordEncoder passwordEncoder;
     
+    @Autowired
+    private AccountNameFilter accountNameFilter;
+    
+    @Autowired
+    private PrimaryReader primaryReader;
+    
     public User createUser(User user) {
         user.setPassword(passwordEncoder.encode(user.getPassword()));
+        accountNameFilter.add(user.getUsername(), user.getEmail());
         return userRepository.save(user);
     }
     
+    // Signs up a new user. Names the filters rule out go straight to the insert, and the
+    // unique constraints catch whatever slips past the checks: signups on other instances
+    // the filters have not streamed in yet, and concurrent ones. The checks read the primary,
+    // since a replica may not have a signup that just committed. Runs outside a transaction
+    // so a rejected insert rolls back on its own.
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public User register(User user) {
+        if (isReservedUsername(user.getUsername())) {
+            throw new InvalidRequestException("Usernames starting with " + RESERVED_USERNAME_PREFIX + " are reserved");
+        }
+        if (accountNameFilter.mightHaveUsername(user.getUsername()) && usernameTaken(user.getUsername())) {
+            throw new InvalidRequestException("Username is already taken");
+        }
+        if (accountNameFilter.mightHaveEmail(user.getEmail()) && emailTaken(user.getEmail())) {
+            throw new InvalidRequestException("Email is already in use");
+        }
+        try {
+            return createUser(user);
+        } catch (DataIntegrityViolationException e) {
+            if (usernameTaken(user.getUsername())) {
+                throw new InvalidRequestException("Username is already taken");
+            }
+            if (emailTaken(user.getEmail())) {
+                throw new InvalidRequestException("Email is already in use");
+            }
+            throw e;
+        }
+    }
+    
+    // A name the filters rule out is free; only possible matches are confirmed on the primary.
+    // A signup the filters have not caught up with yet still fails at the unique constraint
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public boolean isUsernameAvailable(String username) {
+        return !isReservedUsername(username)
+            && (!accountNameFilter.mightHaveUsername(username) || !usernameTaken(username));
+    }
+    
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public boolean isEmailAvailable(String email) {
+        return !accountNameFilter.mightHaveEmail(email) || !emailTaken(email);
+    }
+    
+    public static boolean isReservedUsername(String username) {
+        return username != null && username.startsWith(RESERVED_USERNAME_PREFIX);
+    }
+    
+    private boolean usernameTaken(String username) {
+        return primaryReader.read(() -> userRepository.existsByUsername(username));
+    }
+    
+    private boolean emailTaken(String email) {
+        return primaryReader.read(() -> userRepository.existsByEmail(email));
+    }
+    
+    // Falls back to the primary like UserDetailsServiceImpl, for a user signed up moments ago
+    @Transactional(readOnly = true)
     public Optional<User> findByUsername(String username) {
-        return userRepository.findByUsername(username);
+        return userRepository.findByUsername(username)
+                .or(() -> primaryReader.read(() -> userRepository.findByUsername(username)));
     }
     
+    @Transactional(readOnly = true)
     public Optional<User> findById(Long id) {
         return userRepository.findById(id);
     }
     
+    @Transactional(readOnly = true)
     public boolean existsByUsername(String username) {
         return userRepository.existsByUsername(username);
     }
     
+    @Transactional(readOnly = true)
     public boolean existsByEmail(String email) {
         return userRepository.existsByEmail(email);
     }
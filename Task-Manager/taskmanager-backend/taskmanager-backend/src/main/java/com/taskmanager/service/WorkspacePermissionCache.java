@@ -0,0 +1,99 @@
+package com.taskmanager.service;
+
+import com.taskmanager.model.User;
+import com.taskmanager.model.WorkspaceMember;
+import com.taskmanager.model.WorkspaceMember.Role;
+import com.taskmanager.repository.WorkspaceMemberRepository;
+import org.roaringbitmap.longlong.LongIterator;
+import org.roaringbitmap.longlong.Roaring64NavigableMap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-user bitmaps of workspace ids, one per role level, so that permission checks on
+ * task operations are answered from memory. A user's entry is loaded from the primary with
+ * one query on first use and dropped after any commit on this instance that changes their
+ * memberships. Changes made through other instances are only seen once the entry expires,
+ * so the TTL bounds how long a revoked role keeps working there.
+ */
+@Component
+public class WorkspacePermissionCache {
+    
+    @Autowired
+    private WorkspaceMemberRepository workspaceMemberRepository;
+    
+    @Autowired
+    private PrimaryReader primaryReader;
+    
+    @Value("${app.workspaces.permission-cache.max-users:10000}")
+    private int maxUsers;
+    
+    @Value("${app.workspaces.permission-cache.ttl-seconds:30}")
+    private long ttlSeconds;
+    
+    private final Map<Long, Memberships> memberships = new ConcurrentHashMap<>();
+    
+    private record Memberships(Map<Role, Roaring64NavigableMap> byRole, long loadedAt) {
+    }
+    
+    // Whether the user holds at least the given role in the workspace
+    public boolean can(User user, Long workspaceId, Role role) {
+        return workspaceId != null && membershipsOf(user).get(role).contains(workspaceId);
+    }
+    
+    // Workspaces in which the user holds at least the given role
+    public List<Long> workspaceIds(User user, Role role) {
+        List<Long> ids = new ArrayList<>();
+        LongIterator iterator = membershipsOf(user).get(role).getLongIterator();
+        while (iterator.hasNext()) {
+            ids.add(iterator.next());
+        }
+        return ids;
+    }
+    
+    public void invalidate(Long userId) {
+        TransactionHooks.afterCommit(() -> memberships.remove(userId));
+    }
+    
+    private Map<Role, Roaring64NavigableMap> membershipsOf(User user) {
+        Memberships cached = memberships.get(user.getId());
+        if (cached != null && System.currentTimeMillis() - cached.loadedAt() < ttlSeconds * 1000) {
+            return cached.byRole();
+        }
+        if (memberships.size() >= maxUsers) {
+            Iterator<Long> iterator = memberships.keySet().iterator();
+            if (iterator.hasNext()) {
+                iterator.next();
+                iterator.remove();
+            }
+        }
+        Memberships loaded = load(user.getId());
+        memberships.put(user.getId(), loaded);
+        return loaded.byRole();
+    }
+    
+    // A membership sets its workspace in the bitmap of its role and of every lesser role
+    private Memberships load(Long userId) {
+        long loadedAt = System.currentTimeMillis();
+        Map<Role, Roaring64NavigableMap> byRole = new EnumMap<>(Role.class);
+        for (Role role : Role.values()) {
+            byRole.put(role, new Roaring64NavigableMap());
+        }
+        for (WorkspaceMember member : primaryReader.read(() -> workspaceMemberRepository.findByUserId(userId))) {
+            for (Role role : Role.values()) {
+                if (role.compareTo(member.getRole()) <= 0) {
+                    byRole.get(role).addLong(member.getWorkspaceId());
+                }
+            }
+        }
+        return new Memberships(byRole, loadedAt);
+    }
+}
@@ -0,0 +1,112 @@
+package com.taskmanager.service;
+
+import com.taskmanager.dto.WorkspaceMemberInfo;
+import com.taskmanager.exception.InvalidRequestException;
+import com.taskmanager.exception.NotFoundException;
+import com.taskmanager.model.User;
+import com.taskmanager.model.Workspace;
+import com.taskmanager.model.WorkspaceMember;
+import com.taskmanager.model.WorkspaceMember.Role;
+import com.taskmanager.repository.UserRepository;
+import com.taskmanager.repository.WorkspaceMemberRepository;
+import com.taskmanager.repository.WorkspaceRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Service
+@Transactional
+public class WorkspaceService {
+    
+    @Autowired
+    private WorkspaceRepository workspaceRepository;
+    
+    @Autowired
+    private WorkspaceMemberRepository workspaceMemberRepository;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private WorkspacePermissionCache workspacePermissionCache;
+    
+    // Create a workspace owned by its creator
+    public Workspace createWorkspace(Workspace workspace, User user) {
+        Workspace savedWorkspace = workspaceRepository.save(workspace);
+        workspaceMemberRepository.save(new WorkspaceMember(savedWorkspace.getId(), user.getId(), Role.OWNER));
+        workspacePermissionCache.invalidate(user.getId());
+        return savedWorkspace;
+    }
+    
+    // Workspaces the user belongs to
+    @Transactional(readOnly = true)
+    public List<Workspace> getWorkspaces(User user) {
+        return workspaceRepository.findAllById(workspacePermissionCache.workspaceIds(user, Role.VIEWER)).stream()
+            .sorted(Comparator.comparing(Workspace::getName))
+            .collect(Collectors.toList());
+    }
+    
+    // Members of a workspace, visible to every member
+    @Transactional(readOnly = true)
+    public List<WorkspaceMemberInfo> getMembers(Long workspaceId, User user) {
+        checkRole(workspaceId, user, Role.VIEWER);
+        List<WorkspaceMember> members = workspaceMemberRepository.findByWorkspaceId(workspaceId);
+        Map<Long, User> usersById = userRepository.findAllById(
+                members.stream().map(WorkspaceMember::getUserId).collect(Collectors.toList())).stream()
+            .collect(Collectors.toMap(User::getId, Function.identity()));
+        return members.stream()
+            .filter(member -> usersById.containsKey(member.getUserId()))
+            .map(member -> new WorkspaceMemberInfo(member.getUserId(),
+                                                   usersById.get(member.getUserId()).getUsername(),
+                                                   member.getRole()))
+            .sorted(Comparator.comparing(WorkspaceMemberInfo::getUsername))
+            .collect(Collectors.toList());
+    }
+    
+    // Add a member or change their role; owners only
+    public WorkspaceMemberInfo setMember(Long workspaceId, String username, Role role, User user) {
+        checkRole(workspaceId, user, Role.OWNER);
+        User member = userRepository.findByUsername(username)
+            .orElseThrow(() -> new NotFoundException("User not found: " + username));
+        if (role != Role.OWNER) {
+            checkNotLastOwner(workspaceId, member.getId());
+        }
+        workspaceMemberRepository.save(new WorkspaceMember(workspaceId, member.getId(), role));
+        workspacePermissionCache.invalidate(member.getId());
+        return new WorkspaceMemberInfo(member.getId(), member.getUsername(), role);
+    }
+    
+    // Remove a member; owners may remove anyone, and any member may leave
+    public void removeMember(Long workspaceId, Long userId, User user) {
+        checkRole(workspaceId, user, userId.equals(user.getId()) ? Role.VIEWER : Role.OWNER);
+        checkNotLastOwner(workspaceId, userId);
+        workspaceMemberRepository.deleteById(new WorkspaceMember.Key(workspaceId, userId));
+        workspacePermissionCache.invalidate(userId);
+    }
+    
+    private void checkRole(Long workspaceId, User user, Role role) {
+        if (!workspacePermissionCache.can(user, workspaceId, role)) {
+            // Non-members are not told whether the workspace exists
+            if (!workspacePermissionCache.can(user, workspaceId, Role.VIEWER)) {
+                throw new NotFoundException("Workspace not found with id: " + workspaceId);
+            }
+            throw new InvalidRequestException("This requires the " + role + " role");
+        }
+    }
+    
+    // A workspace always keeps at least one owner
+    private void checkNotLastOwner(Long workspaceId, Long userId) {
+        boolean isOwner = workspaceMemberRepository.findById(new WorkspaceMember.Key(workspaceId, userId))
+            .map(member -> member.getRole() == Role.OWNER)
+            .orElse(false);
+        if (isOwner && workspaceMemberRepository.countByWorkspaceIdAndRole(workspaceId, Role.OWNER) == 1) {
+            throw new InvalidRequestException("A workspace needs at least one owner");
+        }
+    }
+}
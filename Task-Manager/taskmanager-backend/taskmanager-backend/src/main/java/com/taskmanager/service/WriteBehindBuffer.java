@@ -0,0 +1,572 @@
+package com.taskmanager.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.taskmanager.exception.VersionConflictException;
+import com.taskmanager.model.Task;
+import com.taskmanager.model.Task.TaskPriority;
+import com.taskmanager.model.Task.TaskStatus;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Opt-in write-behind for task edits (PUT and status PATCH). TaskService hands each edit
+ * over once its transaction has committed; it is appended to a local log and fsynced,
+ * then kept as the task's pending state; later edits to the same task overwrite it. A
+ * scheduled flush writes all pending tasks to the database in one batched transaction and
+ * deletes the log segments it covered. An edit stays pending until its row has committed
+ * and is then dropped only if no newer edit replaced it meanwhile, so reads never fall
+ * back to the old row. On startup any leftover segments are replayed.
+ *
+ * Edits of one task are ordered by a lock striped over task ids, so edits of different
+ * tasks never wait on each other; their appends share fsyncs (group commit). Reads take no
+ * lock. Each edit counts towards the task's version, so If-Match keeps working while edits
+ * are buffered: the version clients see is the row version the edit was taken from plus
+ * the edits buffered on it, and the flush writes at least that version.
+ *
+ * Log records carry the task's full editable state and the row version it was taken
+ * from; the last record per task wins. Replay only applies a record while the row is
+ * still at that version, so segments that outlived a committed flush (a crash before
+ * they were deleted) cannot overwrite later writes. Pending state lives on this
+ * instance only.
+ */
+@Component
+public class WriteBehindBuffer {
+    
+    private static final Logger logger = LoggerFactory.getLogger(WriteBehindBuffer.class);
+    
+    private static final String FLUSH_SQL =
+        "UPDATE tasks SET title = ?, description = ?, status = ?, priority = ?, due_date = ?, " +
+        "updated_at = ?, version = GREATEST(version + 1, ?) WHERE id = ? AND user_id = ?";
+    
+    private static final String REPLAY_SQL = FLUSH_SQL + " AND version = ?";
+    
+    private static final int LOCK_STRIPES = 256;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Autowired
+    private PrimaryReader primaryReader;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Value("${app.write-behind.enabled:false}")
+    private boolean enabled;
+    
+    @Value("${app.write-behind.log-dir:data/write-behind}")
+    private String logDir;
+    
+    private final Map<Long, PendingEdit> pending = new ConcurrentHashMap<>();
+    
+    // Task ids with pending edits per user, so per-user reads do not scan every edit
+    private final Map<Long, Set<Long>> pendingByUser = new ConcurrentHashMap<>();
+    
+    // Recovered edits that have not been applied yet; they are written conditionally
+    private final Set<PendingEdit> recovered = ConcurrentHashMap.newKeySet();
+    
+    private final Object[] stripes = new Object[LOCK_STRIPES];
+    
+    // Appends hold the read lock from writing their record until it is pending, so a segment
+    // roll (write lock) never leaves a record in a covered segment without its edit in the flush
+    private final ReadWriteLock rollLock = new ReentrantReadWriteLock();
+    
+    private final Object logLock = new Object();
+    
+    private final Object syncLock = new Object();
+    
+    private final List<Path> closedSegments = new ArrayList<>();
+    
+    private long nextSegment;
+    
+    private FileChannel activeLog;
+    
+    private Path activePath;
+    
+    // Records appended so far and records known to be on disk
+    private long appended;
+    
+    private volatile long synced;
+    
+    public WriteBehindBuffer() {
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            stripes[i] = new Object();
+        }
+    }
+    
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    @PostConstruct
+    public void recover() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        Path dir = Paths.get(logDir);
+        Files.createDirectories(dir);
+        List<Path> segments;
+        try (Stream<Path> files = Files.list(dir)) {
+            segments = files.filter(path -> path.getFileName().toString().startsWith("wal-"))
+                .sorted()
+                .collect(Collectors.toList());
+        }
+        for (Path segment : segments) {
+            for (String line : Files.readAllLines(segment, StandardCharsets.UTF_8)) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    publish(objectMapper.readValue(line, PendingEdit.class));
+                } catch (IOException e) {
+                    // A torn final record from a crash mid-append was never acknowledged
+                    logger.warn("Skipping unreadable write-behind record in {}", segment.getFileName());
+                }
+            }
+            closedSegments.add(segment);
+            nextSegment = Math.max(nextSegment, segmentNumber(segment) + 1);
+        }
+        if (!pending.isEmpty()) {
+            recovered.addAll(pending.values());
+            logger.info("Recovered {} pending task edits from the write-behind log", pending.size());
+        }
+        openNextSegment();
+    }
+    
+    // Durably records the task's new state as one more edit; returns once the log record is on
+    // disk, with the task's version set to the one the edit is seen at. With an expected version
+    // the edit is refused unless the task is still at it, so two writes sent with the same
+    // If-Match cannot both be buffered.
+    public void record(Task task, Long expectedVersion) {
+        rollLock.readLock().lock();
+        try {
+            synchronized (stripe(task.getId())) {
+                PendingEdit previous = pending.get(task.getId());
+                long base;
+                int edits;
+                if (previous != null) {
+                    base = previous.baseVersion();
+                    edits = previous.editCount() + 1;
+                } else {
+                    base = expectedVersion == null ? task.getVersion() : rowVersion(task.getId());
+                    edits = 1;
+                }
+                if (expectedVersion != null && expectedVersion != (previous != null ? previous.visibleVersion() : base)) {
+                    throw new VersionConflictException(task.getId());
+                }
+                PendingEdit edit = PendingEdit.of(task, base, edits);
+                append(edit);
+                task.setVersion(edit.visibleVersion());
+            }
+        } finally {
+            rollLock.readLock().unlock();
+        }
+    }
+    
+    // Moves a pending edit onto the row version a direct write just committed, so its
+    // log record still replays if the process dies before the next flush. The direct
+    // write counts as one more change on top of the buffered edits.
+    public void rebase(Long taskId, long version) {
+        rollLock.readLock().lock();
+        try {
+            synchronized (stripe(taskId)) {
+                PendingEdit edit = pending.get(taskId);
+                if (edit != null && !Long.valueOf(version).equals(edit.version())) {
+                    append(edit.withVersion(version, edit.editCount()));
+                }
+            }
+        } finally {
+            rollLock.readLock().unlock();
+        }
+    }
+    
+    // Sets the status of a pending edit after a direct write moved the task to another
+    // column, so the next flush does not write the old status back
+    public void restatus(Long taskId, TaskStatus status) {
+        rollLock.readLock().lock();
+        try {
+            synchronized (stripe(taskId)) {
+                PendingEdit edit = pending.get(taskId);
+                if (edit != null && edit.status() != status) {
+                    append(edit.withStatus(status));
+                }
+            }
+        } finally {
+            rollLock.readLock().unlock();
+        }
+    }
+    
+    // Forgets pending edits of a task that no longer exists
+    public void discard(Long taskId) {
+        synchronized (stripe(taskId)) {
+            PendingEdit edit = pending.get(taskId);
+            if (edit != null) {
+                unpublish(edit);
+            }
+        }
+    }
+    
+    // Applies the pending state (if any) to a task read from the database
+    public Task overlay(Task task) {
+        if (!enabled || task == null) {
+            return task;
+        }
+        PendingEdit edit = pending.get(task.getId());
+        if (edit != null) {
+            edit.applyTo(task);
+        }
+        return task;
+    }
+    
+    public List<Task> overlay(List<Task> tasks) {
+        if (enabled) {
+            tasks.forEach(this::overlay);
+        }
+        return tasks;
+    }
+    
+    // Applies the pending state to a detached row a direct write just committed; the rebase
+    // after that commit moves the edit onto the row's version
+    public Task overlayRebased(Task task) {
+        PendingEdit edit = pending.get(task.getId());
+        if (edit != null) {
+            long version = task.getVersion();
+            edit.applyTo(task);
+            task.setVersion(version + edit.editCount());
+        }
+        return task;
+    }
+    
+    // The row version a direct conditional write has to find for a version a client saw;
+    // with buffered edits only their latest version stands for the row
+    public Long toRowVersion(Long taskId, Long expectedVersion) {
+        PendingEdit edit = expectedVersion == null ? null : pending.get(taskId);
+        if (edit == null || edit.version() == null) {
+            return expectedVersion;
+        }
+        return expectedVersion == edit.visibleVersion() ? edit.version() : Long.valueOf(-1);
+    }
+    
+    public boolean isPending(Long taskId) {
+        return pending.containsKey(taskId);
+    }
+    
+    // Ids of the user's tasks with pending edits
+    public List<Long> pendingIds(Long userId) {
+        return new ArrayList<>(pendingByUser.getOrDefault(userId, Set.of()));
+    }
+    
+    @Scheduled(fixedDelayString = "${app.write-behind.flush-interval-ms:1000}")
+    public void flush() {
+        if (!enabled) {
+            return;
+        }
+        List<PendingEdit> live = new ArrayList<>();
+        List<PendingEdit> replayed = new ArrayList<>();
+        List<Path> covered;
+        rollLock.writeLock().lock();
+        try {
+            if (pending.isEmpty()) {
+                return;
+            }
+            try {
+                openNextSegment();
+            } catch (IOException e) {
+                logger.error("Could not roll the write-behind log: {}", e.getMessage());
+                return;
+            }
+            for (PendingEdit edit : pending.values()) {
+                // Records from older logs carry no version and are written unconditionally
+                (recovered.contains(edit) && edit.version() != null ? replayed : live).add(edit);
+            }
+            covered = new ArrayList<>(closedSegments);
+        } finally {
+            rollLock.writeLock().unlock();
+        }
+        
+        int skipped = 0;
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            int[][] replayCounts = new TransactionTemplate(transactionManager).execute(status -> {
+                write(live, false, now);
+                return write(replayed, true, now);
+            });
+            for (int[] counts : replayCounts) {
+                for (int count : counts) {
+                    skipped += count == 0 ? 1 : 0;
+                }
+            }
+        } catch (RuntimeException e) {
+            // Every edit is still pending and the log segments stay until a flush succeeds
+            logger.error("Write-behind flush of {} tasks failed: {}", live.size() + replayed.size(), e.getMessage());
+            return;
+        }
+        if (skipped > 0) {
+            logger.info("Skipped {} recovered write-behind edits whose tasks changed after they were logged", skipped);
+        }
+        
+        List<PendingEdit> flushed = new ArrayList<>(live);
+        flushed.addAll(replayed);
+        List<Long> changed = new ArrayList<>();
+        for (PendingEdit edit : flushed) {
+            recovered.remove(edit);
+            synchronized (stripe(edit.id())) {
+                PendingEdit current = pending.get(edit.id());
+                if (current == edit) {
+                    unpublish(edit);
+                } else if (current != null) {
+                    changed.add(edit.id());
+                }
+            }
+        }
+        // Edits that arrived during the flush were logged against the row version before it
+        rebaseOnCurrentVersions(changed);
+        synchronized (logLock) {
+            for (Path segment : covered) {
+                try {
+                    Files.deleteIfExists(segment);
+                    closedSegments.remove(segment);
+                } catch (IOException e) {
+                    logger.warn("Could not delete write-behind segment {}", segment.getFileName());
+                }
+            }
+        }
+    }
+    
+    private int[][] write(List<PendingEdit> edits, boolean conditional, LocalDateTime now) {
+        if (edits.isEmpty()) {
+            return new int[0][];
+        }
+        return jdbcTemplate.batchUpdate(conditional ? REPLAY_SQL : FLUSH_SQL, edits, edits.size(), (statement, edit) -> {
+            statement.setString(1, edit.title());
+            statement.setString(2, edit.description());
+            statement.setString(3, edit.status() == null ? null : edit.status().name());
+            statement.setString(4, edit.priority() == null ? null : edit.priority().name());
+            statement.setTimestamp(5, edit.dueDate() == null ? null : Timestamp.valueOf(edit.dueDate()));
+            statement.setTimestamp(6, Timestamp.valueOf(now));
+            statement.setLong(7, edit.version() == null ? 0 : edit.visibleVersion());
+            statement.setLong(8, edit.id());
+            statement.setLong(9, edit.userId());
+            if (conditional) {
+                statement.setLong(10, edit.version());
+            }
+        });
+    }
+    
+    // The flush already wrote the version an edit replaced during it was seen at, so these
+    // move onto the flushed row keeping the version clients see
+    private void rebaseOnCurrentVersions(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        try {
+            String placeholders = ids.stream().map(id -> "?").collect(Collectors.joining(","));
+            jdbcTemplate.query("SELECT id, version FROM tasks WHERE id IN (" + placeholders + ")",
+                               (RowCallbackHandler) row -> rebaseFlushed(row.getLong(1), row.getLong(2)), ids.toArray());
+        } catch (RuntimeException e) {
+            logger.warn("Could not rebase {} write-behind edits: {}", ids.size(), e.getMessage());
+        }
+    }
+    
+    private void rebaseFlushed(Long taskId, long version) {
+        rollLock.readLock().lock();
+        try {
+            synchronized (stripe(taskId)) {
+                PendingEdit edit = pending.get(taskId);
+                if (edit != null && !Long.valueOf(version).equals(edit.version())) {
+                    append(edit.withVersion(version, (int) Math.max(1, edit.visibleVersion() - version)));
+                }
+            }
+        } finally {
+            rollLock.readLock().unlock();
+        }
+    }
+    
+    // Writes the record, waits until it is on disk and makes it the task's pending state.
+    // Callers hold the read lock and the task's stripe.
+    private void append(PendingEdit edit) {
+        long sequence;
+        try {
+            byte[] line = (objectMapper.writeValueAsString(edit) + "\n").getBytes(StandardCharsets.UTF_8);
+            synchronized (logLock) {
+                ByteBuffer buffer = ByteBuffer.wrap(line);
+                while (buffer.hasRemaining()) {
+                    activeLog.write(buffer);
+                }
+                sequence = ++appended;
+            }
+            sync(sequence);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not append to the write-behind log", e);
+        }
+        PendingEdit replaced = pending.get(edit.id());
+        if (replaced != null) {
+            recovered.remove(replaced);
+        }
+        publish(edit);
+    }
+    
+    // Group commit: one force covers every record appended before it started, so appenders
+    // that arrive while it runs are usually already on disk when they get here
+    private void sync(long sequence) throws IOException {
+        synchronized (syncLock) {
+            if (synced >= sequence) {
+                return;
+            }
+            long target;
+            FileChannel log;
+            synchronized (logLock) {
+                target = appended;
+                log = activeLog;
+            }
+            log.force(false);
+            synced = target;
+        }
+    }
+    
+    private void publish(PendingEdit edit) {
+        pending.put(edit.id(), edit);
+        pendingByUser.compute(edit.userId(), (userId, ids) -> {
+            Set<Long> taskIds = ids != null ? ids : ConcurrentHashMap.newKeySet();
+            taskIds.add(edit.id());
+            return taskIds;
+        });
+    }
+    
+    private void unpublish(PendingEdit edit) {
+        pending.remove(edit.id());
+        recovered.remove(edit);
+        pendingByUser.computeIfPresent(edit.userId(), (userId, ids) -> {
+            ids.remove(edit.id());
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+    
+    private long rowVersion(Long taskId) {
+        Long version = primaryReader.read(() -> jdbcTemplate.query("SELECT version FROM tasks WHERE id = ?",
+            rows -> rows.next() ? rows.getLong(1) : null, taskId));
+        if (version == null) {
+            throw new VersionConflictException(taskId);
+        }
+        return version;
+    }
+    
+    private Object stripe(Long taskId) {
+        return stripes[Math.floorMod(taskId.hashCode(), LOCK_STRIPES)];
+    }
+    
+    @PreDestroy
+    public void shutdown() throws IOException {
+        flush();
+        rollLock.writeLock().lock();
+        try {
+            if (activeLog != null) {
+                activeLog.close();
+            }
+        } finally {
+            rollLock.writeLock().unlock();
+        }
+    }
+    
+    // Runs with no append in progress (write lock, or during recovery), so every record in
+    // the segment it closes is already on disk
+    private void openNextSegment() throws IOException {
+        synchronized (logLock) {
+            Path path = Paths.get(logDir).resolve(String.format("wal-%019d.log", nextSegment++));
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                                   StandardOpenOption.APPEND);
+            if (activeLog != null) {
+                activeLog.close();
+                closedSegments.add(activePath);
+            }
+            activeLog = channel;
+            activePath = path;
+        }
+    }
+    
+    private static long segmentNumber(Path segment) {
+        String name = segment.getFileName().toString();
+        try {
+            return Long.parseLong(name.substring(4, name.length() - 4));
+        } catch (RuntimeException e) {
+            return 0;
+        }
+    }
+    
+    // version is the row version the edit applies on and edits how many buffered edits it
+    // stands for; records from older logs carry neither
+    record PendingEdit(Long id, Long userId, Long version, Integer edits, String title, String description,
+                       TaskStatus status, TaskPriority priority, LocalDateTime dueDate) {
+        
+        static PendingEdit of(Task task, long version, int edits) {
+            return new PendingEdit(task.getId(), task.getUser().getId(), version, edits, task.getTitle(),
+                                   task.getDescription(), task.getStatus(), task.getPriority(), task.getDueDate());
+        }
+        
+        PendingEdit withVersion(long newVersion, int newEdits) {
+            return new PendingEdit(id, userId, newVersion, newEdits, title, description, status, priority, dueDate);
+        }
+        
+        PendingEdit withStatus(TaskStatus newStatus) {
+            return new PendingEdit(id, userId, version, edits, title, description, newStatus, priority, dueDate);
+        }
+        
+        int editCount() {
+            return edits == null ? 1 : edits;
+        }
+        
+        long baseVersion() {
+            return version == null ? 0 : version;
+        }
+        
+        // The version clients see while the edit is pending
+        long visibleVersion() {
+            return baseVersion() + editCount();
+        }
+        
+        void applyTo(Task task) {
+            task.setTitle(title);
+            task.setDescription(description);
+            task.setStatus(status);
+            task.setPriority(priority);
+            task.setDueDate(dueDate);
+            if (version != null) {
+                task.setVersion(visibleVersion());
+            }
+        }
+    }
+}
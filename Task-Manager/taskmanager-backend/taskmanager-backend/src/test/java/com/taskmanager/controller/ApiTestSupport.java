@@ -0,0 +1,78 @@
+package com.taskmanager.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Runs requests against the whole application on the test profile (H2 in MySQL mode) as a
+ * freshly signed-up user, so each test starts with no tasks of its own.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+abstract class ApiTestSupport {
+    
+    private static final AtomicInteger USERS = new AtomicInteger();
+    
+    @Autowired
+    protected MockMvc mockMvc;
+    
+    @Autowired
+    protected ObjectMapper objectMapper;
+    
+    // Signs up a new user and returns their bearer token
+    protected String signUp() throws Exception {
+        return signUp(uniqueUsername());
+    }
+    
+    protected String signUp(String username) throws Exception {
+        mockMvc.perform(post("/api/auth/signup")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json(Map.of("username", username, "email", username + "@example.com",
+                                     "password", "secret1", "fullName", username))))
+            .andExpect(status().isCreated());
+        MvcResult login = mockMvc.perform(post("/api/auth/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json(Map.of("username", username, "password", "secret1"))))
+            .andExpect(status().isOk())
+            .andReturn();
+        return body(login).get("token").asText();
+    }
+    
+    protected static String uniqueUsername() {
+        return "user" + USERS.incrementAndGet() + "_" + System.nanoTime();
+    }
+    
+    protected JsonNode createTask(String token, Map<String, ?> task) throws Exception {
+        return body(mockMvc.perform(as(token, post("/api/tasks").contentType(MediaType.APPLICATION_JSON)
+                                                                .content(json(task))))
+            .andExpect(status().isCreated())
+            .andReturn());
+    }
+    
+    protected static MockHttpServletRequestBuilder as(String token, MockHttpServletRequestBuilder request) {
+        return request.header("Authorization", "Bearer " + token);
+    }
+    
+    protected String json(Object value) throws Exception {
+        return objectMapper.writeValueAsString(value);
+    }
+    
+    protected JsonNode body(MvcResult result) throws Exception {
+        return objectMapper.readTree(result.getResponse().getContentAsString());
+    }
+}
@@ -0,0 +1,75 @@
+package com.taskmanager.controller;
+
+import com.taskmanager.model.User;
+import com.taskmanager.repository.UserRepository;
+import com.taskmanager.service.AccountNameFilter;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+
+import java.util.Map;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Signup and the availability check it backs
+class AuthSignupTest extends ApiTestSupport {
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private AccountNameFilter accountNameFilter;
+    
+    @Test
+    void reservedUsernamesCannotBeSignedUp() throws Exception {
+        mockMvc.perform(post("/api/auth/signup")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json(Map.of("username", "__warmup__", "email", uniqueUsername() + "@example.com",
+                                     "password", "secret1"))))
+            .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/auth/available").param("username", "__warmup__"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.username").value(false));
+    }
+    
+    @Test
+    void namesTakenHereAreUnavailable() throws Exception {
+        String username = uniqueUsername();
+        available(username, true);
+        signUp(username);
+        available(username, false);
+    }
+    
+    @Test
+    void signupsThroughAnotherInstanceAreRefreshedIn() throws Exception {
+        // Saved straight to the table, as another instance would, so the local filters never saw it
+        String username = uniqueUsername();
+        User user = new User();
+        user.setUsername(username);
+        user.setEmail(username + "@example.com");
+        user.setPassword("not-a-hash");
+        userRepository.save(user);
+        
+        // The unique constraint still turns the signup away before the filters catch up
+        mockMvc.perform(post("/api/auth/signup")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json(Map.of("username", username, "email", uniqueUsername() + "@example.com",
+                                     "password", "secret1"))))
+            .andExpect(status().isBadRequest());
+        
+        accountNameFilter.refresh();
+        available(username, false);
+        mockMvc.perform(get("/api/auth/available").param("email", username + "@example.com"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.email").value(false));
+    }
+    
+    private void available(String username, boolean available) throws Exception {
+        mockMvc.perform(get("/api/auth/available").param("username", username))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.username").value(available));
+    }
+}
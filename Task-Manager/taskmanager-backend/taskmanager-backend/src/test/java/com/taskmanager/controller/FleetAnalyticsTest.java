@@ -0,0 +1,66 @@
+package com.taskmanager.controller;
+
+import com.taskmanager.dto.FleetAnalytics;
+import com.taskmanager.model.Task.TaskStatus;
+import com.taskmanager.service.FleetAnalyticsService;
+import com.taskmanager.service.TaskRetentionService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Fleet figures keep counting tasks retention has moved to the cold tier
+@TestPropertySource(properties = {
+    "spring.datasource.url=jdbc:h2:mem:taskmanager_fleet_analytics;MODE=MySQL;DATABASE_TO_LOWER=TRUE;"
+        + "NON_KEYWORDS=VALUE,YEAR,MONTH,DAY,WEEK;DB_CLOSE_DELAY=-1",
+    // Retention only runs when the test calls it, and without the trend backfill it may move any task
+    "app.retention.enabled=true",
+    "app.retention.initial-delay-ms=3600000",
+    "app.trends.enabled=false",
+    "app.analytics.range-size=2"
+})
+class FleetAnalyticsTest extends ApiTestSupport {
+    
+    @Autowired
+    private FleetAnalyticsService fleetAnalyticsService;
+    
+    @Autowired
+    private TaskRetentionService taskRetentionService;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Test
+    void coldTasksCountAlongsideHotOnes() throws Exception {
+        String token = signUp();
+        createTask(token, Map.of("title", "Open", "status", "TODO"));
+        createTask(token, Map.of("title", "Done", "status", "COMPLETED"));
+        long archived = createTask(token, Map.of("title", "Filed", "status", "COMPLETED")).get("id").asLong();
+        long deleted = createTask(token, Map.of("title", "Dropped", "status", "TODO")).get("id").asLong();
+        mockMvc.perform(as(token, patch("/api/tasks/" + archived + "/archive"))).andExpect(status().isOk());
+        mockMvc.perform(as(token, delete("/api/tasks/" + deleted))).andExpect(status().isNoContent());
+        FleetAnalytics before = fleetAnalyticsService.analyze(10);
+        
+        LocalDateTime longAgo = LocalDateTime.now().minusDays(365);
+        jdbcTemplate.update("UPDATE tasks SET archived_at = ? WHERE id = ?", longAgo, archived);
+        jdbcTemplate.update("UPDATE tasks SET deleted_at = ? WHERE id = ?", longAgo, deleted);
+        taskRetentionService.moveExpiredTasksToColdTier();
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM tasks_cold", Long.class)).isEqualTo(2);
+        
+        FleetAnalytics after = fleetAnalyticsService.analyze(10);
+        assertThat(after.getTotal()).isEqualTo(3).isEqualTo(before.getTotal());
+        assertThat(after.getByStatus()).containsEntry(TaskStatus.COMPLETED, 2L).containsEntry(TaskStatus.TODO, 1L);
+        assertThat(after.getArchived()).isEqualTo(1);
+        assertThat(after.getDeleted()).isEqualTo(1);
+        assertThat(after.getHeaviestUsers()).hasSize(1);
+        assertThat(after.getHeaviestUsers().get(0).getTasks()).isEqualTo(3);
+    }
+}
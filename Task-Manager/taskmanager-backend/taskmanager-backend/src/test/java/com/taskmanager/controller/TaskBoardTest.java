@@ -0,0 +1,130 @@
+package com.taskmanager.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Kanban board: per-column pages in manual order, continued column by column with cursors
+class TaskBoardTest extends ApiTestSupport {
+    
+    private String token;
+    
+    private final List<Long> todo = new ArrayList<>();
+    
+    @BeforeEach
+    void setUp() throws Exception {
+        token = signUp();
+        for (int i = 0; i < 5; i++) {
+            todo.add(createTask(token, Map.of("title", "Task " + i, "status", "TODO")).get("id").asLong());
+        }
+        createTask(token, Map.of("title", "Started", "status", "IN_PROGRESS"));
+    }
+    
+    @Test
+    void firstPageHasEveryColumnWithItsTotal() throws Exception {
+        JsonNode board = board(2, null);
+        assertThat(board.get("TODO").get("total").asLong()).isEqualTo(5);
+        assertThat(ids(board.get("TODO"))).containsExactly(todo.get(0), todo.get(1));
+        assertThat(board.get("TODO").get("nextCursor").isNull()).isFalse();
+        assertThat(board.get("IN_PROGRESS").get("total").asLong()).isEqualTo(1);
+        assertThat(board.get("IN_PROGRESS").get("nextCursor").isNull()).isTrue();
+        assertThat(board.get("COMPLETED").get("tasks")).isEmpty();
+    }
+    
+    @Test
+    void cursorsWalkOneColumnToItsEnd() throws Exception {
+        List<Long> seen = new ArrayList<>();
+        JsonNode column = board(2, null).get("TODO");
+        seen.addAll(ids(column));
+        while (!column.get("nextCursor").isNull()) {
+            JsonNode page = board(2, column.get("nextCursor").asText());
+            // A cursor continues its own column only
+            assertThat(page.has("IN_PROGRESS")).isFalse();
+            column = page.get("TODO");
+            seen.addAll(ids(column));
+        }
+        assertThat(seen).containsExactlyElementsOf(todo);
+    }
+    
+    @Test
+    void cursorFollowsManualOrder() throws Exception {
+        // Move the last task to the top; later pages must neither repeat nor skip it
+        mockMvc.perform(as(token, patch("/api/tasks/" + todo.get(4) + "/position"))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json(Map.of("status", "TODO"))))
+            .andExpect(status().isOk());
+        
+        JsonNode first = board(3, null).get("TODO");
+        JsonNode second = board(3, first.get("nextCursor").asText()).get("TODO");
+        assertThat(ids(first)).containsExactly(todo.get(4), todo.get(0), todo.get(1));
+        assertThat(ids(second)).containsExactly(todo.get(2), todo.get(3));
+        assertThat(second.get("nextCursor").isNull()).isTrue();
+    }
+    
+    @Test
+    void workspaceEditorsMoveSharedTasksWithinTheOwnersColumn() throws Exception {
+        String editorName = uniqueUsername();
+        String viewerName = uniqueUsername();
+        String editor = signUp(editorName);
+        String viewer = signUp(viewerName);
+        long workspace = body(mockMvc.perform(as(token, post("/api/workspaces"))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json(Map.of("name", "Team"))))
+            .andExpect(status().isCreated()).andReturn()).get("id").asLong();
+        addMember(workspace, editorName, "EDITOR");
+        addMember(workspace, viewerName, "VIEWER");
+        long shared = createTask(token, Map.of("title", "Shared", "status", "TODO", "workspaceId", workspace))
+            .get("id").asLong();
+        
+        mockMvc.perform(as(viewer, patch("/api/tasks/" + shared + "/position"))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json(Map.of("status", "TODO"))))
+            .andExpect(status().isNotFound());
+        mockMvc.perform(as(editor, patch("/api/tasks/" + shared + "/position"))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json(Map.of("status", "TODO", "afterId", String.valueOf(todo.get(1))))))
+            .andExpect(status().isOk());
+        
+        assertThat(ids(board(10, null).get("TODO")))
+            .containsExactly(todo.get(0), todo.get(1), shared, todo.get(2), todo.get(3), todo.get(4));
+    }
+    
+    @Test
+    void malformedCursorIsABadRequest() throws Exception {
+        mockMvc.perform(as(token, get("/api/tasks/board")).param("cursor", "not-a-cursor"))
+            .andExpect(status().isBadRequest());
+    }
+    
+    private void addMember(long workspace, String username, String role) throws Exception {
+        mockMvc.perform(as(token, put("/api/workspaces/" + workspace + "/members/" + username))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json(Map.of("role", role))))
+            .andExpect(status().isOk());
+    }
+    
+    private JsonNode board(int limit, String cursor) throws Exception {
+        var request = as(token, get("/api/tasks/board")).param("limit", String.valueOf(limit));
+        if (cursor != null) {
+            request.param("cursor", cursor);
+        }
+        return body(mockMvc.perform(request).andExpect(status().isOk()).andReturn());
+    }
+    
+    private static List<Long> ids(JsonNode column) {
+        List<Long> ids = new ArrayList<>();
+        column.get("tasks").forEach(task -> ids.add(task.get("id").asLong()));
+        return ids;
+    }
+}
@@ -0,0 +1,124 @@
+package com.taskmanager.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.taskmanager.model.BulkJob;
+import com.taskmanager.repository.BulkJobRepository;
+import com.taskmanager.repository.UserRepository;
+import com.taskmanager.service.BulkJobService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Bulk jobs left behind by a stopped instance resume from their last committed chunk
+@TestPropertySource(properties = {
+    "spring.datasource.url=jdbc:h2:mem:taskmanager_bulk_jobs;MODE=MySQL;DATABASE_TO_LOWER=TRUE;"
+        + "NON_KEYWORDS=VALUE,YEAR,MONTH,DAY,WEEK;DB_CLOSE_DELAY=-1",
+    "app.jobs.chunk-size=2",
+    // Jobs only start when a test dispatches them
+    "app.jobs.poll-interval-ms=3600000"
+})
+class TaskBulkJobTest extends ApiTestSupport {
+    
+    @Autowired
+    private BulkJobService bulkJobService;
+    
+    @Autowired
+    private BulkJobRepository bulkJobRepository;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    private String token;
+    
+    private long userId;
+    
+    private final List<Long> ids = new ArrayList<>();
+    
+    @BeforeEach
+    void setUp() throws Exception {
+        String username = uniqueUsername();
+        token = signUp(username);
+        userId = userRepository.findByUsername(username).orElseThrow().getId();
+        ids.clear();
+        for (int i = 0; i < 5; i++) {
+            ids.add(createTask(token, Map.of("title", "Done " + i, "status", "COMPLETED")).get("id").asLong());
+        }
+    }
+    
+    @Test
+    void strandedJobResumesAfterItsLastCommittedChunk() throws Exception {
+        // The stopped instance got through the first chunk; its lease has run out since
+        long jobId = strandedJob(ids.get(1), LocalDateTime.now().minusMinutes(1));
+        
+        bulkJobService.dispatch();
+        JsonNode job = awaitFinished(jobId);
+        
+        assertThat(job.get("status").asText()).isEqualTo("COMPLETED");
+        assertThat(job.get("processed").asLong()).isEqualTo(5);
+        // Tasks up to the recorded position are taken as done and not handled again
+        assertThat(archived(ids.get(0))).isFalse();
+        assertThat(archived(ids.get(1))).isFalse();
+        assertThat(archived(ids.get(2))).isTrue();
+        assertThat(archived(ids.get(3))).isTrue();
+        assertThat(archived(ids.get(4))).isTrue();
+    }
+    
+    @Test
+    void jobUnderALiveLeaseIsNotTakenOver() throws Exception {
+        long jobId = strandedJob(ids.get(1), LocalDateTime.now().plusMinutes(1));
+        
+        bulkJobService.dispatch();
+        Thread.sleep(200);
+        
+        JsonNode job = job(jobId);
+        assertThat(job.get("status").asText()).isEqualTo("RUNNING");
+        assertThat(job.get("processed").asLong()).isEqualTo(2);
+        assertThat(ids).noneMatch(this::archived);
+    }
+    
+    // An archive job another instance was running, positioned after the given task
+    private long strandedJob(long lastId, LocalDateTime leaseUntil) {
+        BulkJob job = new BulkJob();
+        job.setUserId(userId);
+        job.setType(BulkJob.Type.ARCHIVE_COMPLETED);
+        job.setStatus(BulkJob.Status.RUNNING);
+        job.setLastId(lastId);
+        job.setProcessed(2);
+        job.setTotal(5);
+        job.setOwner("stopped-instance");
+        job.setLeaseUntil(leaseUntil);
+        return bulkJobRepository.save(job).getId();
+    }
+    
+    private JsonNode awaitFinished(long jobId) throws Exception {
+        long deadline = System.currentTimeMillis() + 10_000;
+        JsonNode job = job(jobId);
+        while (job.get("status").asText().equals("RUNNING") && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+            job = job(jobId);
+        }
+        return job;
+    }
+    
+    private JsonNode job(long jobId) throws Exception {
+        return body(mockMvc.perform(as(token, get("/api/tasks/jobs/" + jobId))).andExpect(status().isOk()).andReturn());
+    }
+    
+    private boolean archived(long id) {
+        return jdbcTemplate.queryForObject("SELECT archived FROM tasks WHERE id = ?", Boolean.class, id);
+    }
+}
@@ -0,0 +1,132 @@
+package com.taskmanager.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Single-statement conditional writes: If-Match carries the version, a stale one is a 412
+class TaskConditionalWriteTest extends ApiTestSupport {
+    
+    private String token;
+    
+    private long id;
+    
+    @BeforeEach
+    void setUp() throws Exception {
+        token = signUp();
+        id = createTask(token, Map.of("title", "Write report")).get("id").asLong();
+    }
+    
+    @Test
+    void matchingVersionUpdatesAndReturnsTheNextETag() throws Exception {
+        mockMvc.perform(as(token, put("/api/tasks/" + id)).header("If-Match", "\"0\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json(Map.of("title", "Write the report", "status", "TODO", "priority", "HIGH"))))
+            .andExpect(status().isOk())
+            .andExpect(header().string("ETag", "\"1\""))
+            .andExpect(jsonPath("$.title").value("Write the report"));
+        
+        mockMvc.perform(as(token, patch("/api/tasks/" + id + "/status")).header("If-Match", "\"1\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json(Map.of("status", "IN_PROGRESS"))))
+            .andExpect(status().isOk())
+            .andExpect(header().string("ETag", "\"2\""))
+            .andExpect(jsonPath("$.status").value("IN_PROGRESS"));
+    }
+    
+    @Test
+    void staleVersionIsRejectedAndChangesNothing() throws Exception {
+        patchStatus("IN_PROGRESS", null);
+        
+        mockMvc.perform(as(token, patch("/api/tasks/" + id + "/status")).header("If-Match", "\"0\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json(Map.of("status", "COMPLETED"))))
+            .andExpect(status().isPreconditionFailed());
+        mockMvc.perform(as(token, put("/api/tasks/" + id)).header("If-Match", "\"0\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json(Map.of("title", "Overwritten", "status", "TODO", "priority", "LOW"))))
+            .andExpect(status().isPreconditionFailed());
+        mockMvc.perform(as(token, patch("/api/tasks/" + id + "/archive")).header("If-Match", "\"0\""))
+            .andExpect(status().isPreconditionFailed());
+        mockMvc.perform(as(token, delete("/api/tasks/" + id)).header("If-Match", "\"0\""))
+            .andExpect(status().isPreconditionFailed());
+        
+        JsonNode task = task();
+        assertThat(task.get("title").asText()).isEqualTo("Write report");
+        assertThat(task.get("status").asText()).isEqualTo("IN_PROGRESS");
+        assertThat(task.get("archived").asBoolean()).isFalse();
+        assertThat(task.get("deletedAt").isNull()).isTrue();
+        assertThat(task.get("version").asLong()).isEqualTo(1);
+    }
+    
+    @Test
+    void everyConditionalWriteBumpsTheVersion() throws Exception {
+        mockMvc.perform(as(token, patch("/api/tasks/" + id + "/archive")).header("If-Match", "\"0\""))
+            .andExpect(status().isOk())
+            .andExpect(header().string("ETag", "\"1\""));
+        mockMvc.perform(as(token, patch("/api/tasks/" + id + "/unarchive")).header("If-Match", "\"1\""))
+            .andExpect(status().isOk())
+            .andExpect(header().string("ETag", "\"2\""));
+        mockMvc.perform(as(token, delete("/api/tasks/" + id)).header("If-Match", "\"2\""))
+            .andExpect(status().isNoContent());
+        mockMvc.perform(as(token, patch("/api/tasks/" + id + "/restore")).header("If-Match", "\"2\""))
+            .andExpect(status().isPreconditionFailed());
+        mockMvc.perform(as(token, patch("/api/tasks/" + id + "/restore")).header("If-Match", "\"3\""))
+            .andExpect(status().isOk())
+            .andExpect(header().string("ETag", "\"4\""));
+    }
+    
+    @Test
+    void missingOrWildcardIfMatchIsUnconditional() throws Exception {
+        patchStatus("IN_PROGRESS", null);
+        patchStatus("COMPLETED", "*");
+        assertThat(task().get("status").asText()).isEqualTo("COMPLETED");
+    }
+    
+    @Test
+    void unparsableIfMatchNeverMatches() throws Exception {
+        mockMvc.perform(as(token, patch("/api/tasks/" + id + "/status")).header("If-Match", "\"abc\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json(Map.of("status", "COMPLETED"))))
+            .andExpect(status().isPreconditionFailed());
+    }
+    
+    @Test
+    void missingTaskIsNotFoundRatherThanStale() throws Exception {
+        mockMvc.perform(as(token, patch("/api/tasks/" + (id + 1000) + "/archive")).header("If-Match", "\"0\""))
+            .andExpect(status().isNotFound());
+        
+        // Another user's task is as good as missing
+        String other = signUp();
+        mockMvc.perform(as(other, patch("/api/tasks/" + id + "/status")).header("If-Match", "\"0\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json(Map.of("status", "COMPLETED"))))
+            .andExpect(status().isNotFound());
+    }
+    
+    private void patchStatus(String status, String ifMatch) throws Exception {
+        var request = as(token, patch("/api/tasks/" + id + "/status"))
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(json(Map.of("status", status)));
+        if (ifMatch != null) {
+            request.header("If-Match", ifMatch);
+        }
+        mockMvc.perform(request).andExpect(status().isOk());
+    }
+    
+    private JsonNode task() throws Exception {
+        return body(mockMvc.perform(as(token, get("/api/tasks/" + id))).andExpect(status().isOk()).andReturn());
+    }
+}
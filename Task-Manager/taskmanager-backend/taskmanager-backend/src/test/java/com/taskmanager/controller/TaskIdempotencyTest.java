@@ -0,0 +1,107 @@
+package com.taskmanager.controller;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Idempotency-Key: a retried mutation runs once and gets the stored response back
+class TaskIdempotencyTest extends ApiTestSupport {
+    
+    private String token;
+    
+    @BeforeEach
+    void setUp() throws Exception {
+        token = signUp();
+    }
+    
+    @Test
+    void retriedCreateRunsOnceAndReplaysTheResponse() throws Exception {
+        MvcResult first = mockMvc.perform(create(token, "key-1", "Write report"))
+            .andExpect(status().isCreated())
+            .andExpect(header().doesNotExist("Idempotent-Replayed"))
+            .andReturn();
+        MvcResult retry = mockMvc.perform(create(token, "key-1", "Write report"))
+            .andExpect(status().isCreated())
+            .andExpect(header().string("Idempotent-Replayed", "true"))
+            .andReturn();
+        
+        assertThat(body(retry).get("id").asLong()).isEqualTo(body(first).get("id").asLong());
+        assertThat(taskCount()).isEqualTo(1);
+    }
+    
+    @Test
+    void replayKeepsTheETag() throws Exception {
+        long id = createTask(token, Map.of("title", "Write report")).get("id").asLong();
+        
+        mockMvc.perform(update(id, "key-2", "\"0\""))
+            .andExpect(status().isOk())
+            .andExpect(header().string("ETag", "\"1\""));
+        // Replayed rather than run again, which would now be a stale version
+        mockMvc.perform(update(id, "key-2", "\"0\""))
+            .andExpect(status().isOk())
+            .andExpect(header().string("Idempotent-Replayed", "true"))
+            .andExpect(header().string("ETag", "\"1\""));
+    }
+    
+    @Test
+    void clientErrorsAreReplayedToo() throws Exception {
+        long id = createTask(token, Map.of("title", "Write report")).get("id").asLong();
+        
+        mockMvc.perform(update(id, "key-3", "\"7\"")).andExpect(status().isPreconditionFailed());
+        mockMvc.perform(update(id, "key-3", "\"7\""))
+            .andExpect(status().isPreconditionFailed())
+            .andExpect(header().string("Idempotent-Replayed", "true"));
+    }
+    
+    @Test
+    void keyReusedForAnotherRequestIsRejected() throws Exception {
+        mockMvc.perform(create(token, "key-4", "Write report")).andExpect(status().isCreated());
+        mockMvc.perform(create(token, "key-4", "Something else")).andExpect(status().isUnprocessableEntity());
+        assertThat(taskCount()).isEqualTo(1);
+    }
+    
+    @Test
+    void keysAreScopedToTheUser() throws Exception {
+        String other = signUp();
+        long mine = body(mockMvc.perform(create(token, "shared-key", "Write report"))
+            .andExpect(status().isCreated()).andReturn()).get("id").asLong();
+        MvcResult theirs = mockMvc.perform(create(other, "shared-key", "Write report"))
+            .andExpect(status().isCreated())
+            .andExpect(header().doesNotExist("Idempotent-Replayed"))
+            .andReturn();
+        assertThat(body(theirs).get("id").asLong()).isNotEqualTo(mine);
+    }
+    
+    @Test
+    void overlongKeyIsABadRequest() throws Exception {
+        mockMvc.perform(create(token, "k".repeat(256), "Write report")).andExpect(status().isBadRequest());
+        assertThat(taskCount()).isZero();
+    }
+    
+    private MockHttpServletRequestBuilder create(String user, String key, String title) throws Exception {
+        return as(user, post("/api/tasks")).header("Idempotency-Key", key)
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(json(Map.of("title", title)));
+    }
+    
+    private MockHttpServletRequestBuilder update(long id, String key, String ifMatch) throws Exception {
+        return as(token, put("/api/tasks/" + id)).header("Idempotency-Key", key).header("If-Match", ifMatch)
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(json(Map.of("title", "Write the report", "status", "TODO", "priority", "HIGH")));
+    }
+    
+    private int taskCount() throws Exception {
+        return body(mockMvc.perform(as(token, get("/api/tasks"))).andExpect(status().isOk()).andReturn()).size();
+    }
+}
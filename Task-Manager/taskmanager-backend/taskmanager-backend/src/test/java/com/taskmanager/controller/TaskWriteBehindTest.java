@@ -0,0 +1,150 @@
+package com.taskmanager.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.taskmanager.service.WriteBehindBuffer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Buffered edits: read back before they are flushed, and versioned like direct writes
+@TestPropertySource(properties = {
+    "spring.datasource.url=jdbc:h2:mem:taskmanager_write_behind;MODE=MySQL;DATABASE_TO_LOWER=TRUE;"
+        + "NON_KEYWORDS=VALUE,YEAR,MONTH,DAY,WEEK;DB_CLOSE_DELAY=-1",
+    "app.write-behind.enabled=true",
+    // Edits stay pending until a test flushes them
+    "app.write-behind.flush-interval-ms=3600000"
+})
+class TaskWriteBehindTest extends ApiTestSupport {
+    
+    @Autowired
+    private WriteBehindBuffer writeBehindBuffer;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    private String token;
+    
+    private long id;
+    
+    @BeforeEach
+    void setUp() throws Exception {
+        token = signUp();
+        id = createTask(token, Map.of("title", "Write report")).get("id").asLong();
+    }
+    
+    @Test
+    void bufferedEditIsReadBackBeforeItIsFlushed() throws Exception {
+        putTitle("Write the report", "\"0\"")
+            .andExpect(status().isOk())
+            .andExpect(header().string("ETag", "\"1\""));
+        
+        JsonNode task = task();
+        assertThat(task.get("title").asText()).isEqualTo("Write the report");
+        assertThat(task.get("version").asLong()).isEqualTo(1);
+        assertThat(rowTitle()).isEqualTo("Write report");
+        assertThat(rowVersion()).isEqualTo(0);
+        
+        writeBehindBuffer.flush();
+        assertThat(rowTitle()).isEqualTo("Write the report");
+        assertThat(rowVersion()).isEqualTo(1);
+        assertThat(task().get("version").asLong()).isEqualTo(1);
+    }
+    
+    @Test
+    void sameIfMatchIsOnlyBufferedOnce() throws Exception {
+        putTitle("First", "\"0\"").andExpect(status().isOk());
+        putTitle("Second", "\"0\"").andExpect(status().isPreconditionFailed());
+        
+        mockMvc.perform(as(token, patch("/api/tasks/" + id + "/status")).header("If-Match", "\"1\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json(Map.of("status", "IN_PROGRESS"))))
+            .andExpect(status().isOk())
+            .andExpect(header().string("ETag", "\"2\""))
+            .andExpect(jsonPath("$.title").value("First"));
+        
+        writeBehindBuffer.flush();
+        assertThat(rowTitle()).isEqualTo("First");
+        assertThat(rowVersion()).isEqualTo(2);
+        putTitle("Third", "\"1\"").andExpect(status().isPreconditionFailed());
+        putTitle("Third", "\"2\"").andExpect(status().isOk()).andExpect(header().string("ETag", "\"3\""));
+    }
+    
+    @Test
+    void directWriteOnBufferedTaskExpectsTheVersionClientsSee() throws Exception {
+        putTitle("Write the report", "\"0\"").andExpect(status().isOk());
+        
+        mockMvc.perform(as(token, patch("/api/tasks/" + id + "/archive")).header("If-Match", "\"0\""))
+            .andExpect(status().isPreconditionFailed());
+        mockMvc.perform(as(token, patch("/api/tasks/" + id + "/archive")).header("If-Match", "\"1\""))
+            .andExpect(status().isOk())
+            .andExpect(header().string("ETag", "\"2\""))
+            .andExpect(jsonPath("$.title").value("Write the report"));
+        
+        JsonNode task = task();
+        assertThat(task.get("archived").asBoolean()).isTrue();
+        assertThat(task.get("version").asLong()).isEqualTo(2);
+        
+        writeBehindBuffer.flush();
+        assertThat(rowTitle()).isEqualTo("Write the report");
+        assertThat(rowVersion()).isEqualTo(2);
+    }
+    
+    @Test
+    void boardPlacesBufferedTasksInTheirNewColumn() throws Exception {
+        long second = createTask(token, Map.of("title", "Second", "status", "TODO")).get("id").asLong();
+        createTask(token, Map.of("title", "Third", "status", "TODO"));
+        mockMvc.perform(as(token, patch("/api/tasks/" + id + "/status"))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json(Map.of("status", "IN_PROGRESS"))))
+            .andExpect(status().isOk());
+        
+        JsonNode board = body(mockMvc.perform(as(token, get("/api/tasks/board")).param("limit", "1"))
+            .andExpect(status().isOk()).andReturn());
+        JsonNode todo = board.get("TODO");
+        assertThat(todo.get("total").asLong()).isEqualTo(2);
+        assertThat(todo.get("tasks").get(0).get("id").asLong()).isEqualTo(second);
+        JsonNode inProgress = board.get("IN_PROGRESS");
+        assertThat(inProgress.get("total").asLong()).isEqualTo(1);
+        assertThat(inProgress.get("tasks").get(0).get("id").asLong()).isEqualTo(id);
+        assertThat(inProgress.get("nextCursor").isNull()).isTrue();
+        
+        // The next page of the old column no longer holds the task either
+        JsonNode next = body(mockMvc.perform(as(token, get("/api/tasks/board")).param("limit", "1")
+                .param("cursor", todo.get("nextCursor").asText()))
+            .andExpect(status().isOk()).andReturn()).get("TODO");
+        assertThat(next.get("tasks").get(0).get("title").asText()).isEqualTo("Third");
+        assertThat(next.get("nextCursor").isNull()).isTrue();
+    }
+    
+    private ResultActions putTitle(String title, String ifMatch) throws Exception {
+        return mockMvc.perform(as(token, put("/api/tasks/" + id)).header("If-Match", ifMatch)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json(Map.of("title", title, "status", "TODO", "priority", "MEDIUM"))));
+    }
+    
+    private JsonNode task() throws Exception {
+        return body(mockMvc.perform(as(token, get("/api/tasks/" + id))).andExpect(status().isOk()).andReturn());
+    }
+    
+    private String rowTitle() {
+        return jdbcTemplate.queryForObject("SELECT title FROM tasks WHERE id = ?", String.class, id);
+    }
+    
+    private long rowVersion() {
+        return jdbcTemplate.queryForObject("SELECT version FROM tasks WHERE id = ?", Long.class, id);
+    }
+}
@@ -0,0 +1,60 @@
+package com.taskmanager.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BloomFilterTest {
+    
+    @Test
+    void everyAddedValueIsFound() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.add("user" + i);
+        }
+        for (int i = 0; i < 10_000; i++) {
+            assertThat(filter.mightContain("user" + i)).isTrue();
+        }
+        assertThat(filter.size()).isEqualTo(10_000);
+        assertThat(filter.isOverCapacity()).isFalse();
+    }
+    
+    @Test
+    void falsePositivesStayNearTheConfiguredRate() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.add("user" + i);
+        }
+        int hits = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain("other" + i)) {
+                hits++;
+            }
+        }
+        assertThat(hits).isLessThan(2_000);
+    }
+    
+    @Test
+    void emptyFilterContainsNothing() {
+        BloomFilter filter = new BloomFilter(100, 0.01);
+        assertThat(filter.mightContain("alice")).isFalse();
+        assertThat(filter.mightContain("")).isFalse();
+    }
+    
+    @Test
+    void reportsWhenFilledPastItsCapacity() {
+        BloomFilter filter = new BloomFilter(3, 0.01);
+        filter.add("a");
+        filter.add("b");
+        filter.add("c");
+        assertThat(filter.isOverCapacity()).isFalse();
+        filter.add("d");
+        assertThat(filter.isOverCapacity()).isTrue();
+    }
+    
+    @Test
+    void sizeGrowsWithCapacityAndStricterRates() {
+        assertThat(new BloomFilter(10_000, 0.01).sizeInBytes()).isGreaterThan(new BloomFilter(1_000, 0.01).sizeInBytes());
+        assertThat(new BloomFilter(1_000, 0.001).sizeInBytes()).isGreaterThan(new BloomFilter(1_000, 0.01).sizeInBytes());
+    }
+}
@@ -0,0 +1,97 @@
+package com.taskmanager.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RankKeysTest {
+    
+    @Test
+    void betweenSortsStrictlyBetweenItsBounds() {
+        assertBetween("a", "b");
+        assertBetween("a", "a1");
+        assertBetween("az", "b");
+        assertBetween("0001", "0002");
+        assertBetween("i", "iz");
+        assertBetween("y", "z");
+    }
+    
+    @Test
+    void openEndsStayInsideTheKeySpace() {
+        String first = RankKeys.between(null, null);
+        assertThat(RankKeys.between(null, first)).isLessThan(first);
+        assertThat(RankKeys.between(first, null)).isGreaterThan(first);
+        assertThat(RankKeys.between("z", null)).isGreaterThan("z");
+        assertThat(RankKeys.between(null, "01")).isLessThan("01").isNotEmpty();
+    }
+    
+    @Test
+    void keysNeverEndInZero() {
+        List<String> keys = new ArrayList<>(List.of("a", "b"));
+        Random random = new Random(7);
+        for (int i = 0; i < 2000; i++) {
+            int slot = random.nextInt(keys.size() + 1);
+            String before = slot == 0 ? null : keys.get(slot - 1);
+            String after = slot == keys.size() ? null : keys.get(slot);
+            String key = RankKeys.between(before, after);
+            if (before != null) {
+                assertThat(key).isGreaterThan(before);
+            }
+            if (after != null) {
+                assertThat(key).isLessThan(after);
+            }
+            assertThat(key).doesNotEndWith("0").matches("[0-9a-z]+");
+            keys.add(slot, key);
+        }
+    }
+    
+    @Test
+    void appendingStepsUpOneDigit() {
+        assertThat(RankKeys.between("a", null)).isEqualTo("b");
+    }
+    
+    @Test
+    void appendingAfterZGrowsTheKeyOnlyWhenItsLengthIsUsedUp() {
+        assertThat(RankKeys.between("z", null)).isEqualTo("z1");
+        assertThat(RankKeys.between("az", null)).isEqualTo("b1");
+        assertThat(RankKeys.between("zz", null)).isEqualTo("zz01");
+    }
+    
+    @Test
+    void sequentialAppendsKeepKeysShort() {
+        String last = RankKeys.between(null, null);
+        for (int i = 0; i < 10_000; i++) {
+            String key = RankKeys.between(last, null);
+            assertThat(key).isGreaterThan(last).doesNotEndWith("0");
+            last = key;
+        }
+        // Well below app.ranking.max-key-length, so appends alone never queue a re-key
+        assertThat(last.length()).isLessThanOrEqualTo(8);
+    }
+    
+    @Test
+    void rejectsBoundsOutOfOrder() {
+        assertThatThrownBy(() -> RankKeys.between("b", "a")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> RankKeys.between("a", "a")).isInstanceOf(IllegalArgumentException.class);
+    }
+    
+    @Test
+    void spreadKeysAreOrderedAndShort() {
+        List<String> keys = RankKeys.spread(100);
+        assertThat(keys).hasSize(100).isSorted().doesNotHaveDuplicates();
+        assertThat(keys).allSatisfy(key -> assertThat(key.length()).isLessThanOrEqualTo(2));
+        assertThat(keys).noneMatch(key -> key.endsWith("0"));
+        // Room for appends above the last key without a longer key
+        assertThat(keys.get(keys.size() - 1)).isLessThan("i");
+    }
+    
+    private static void assertBetween(String before, String after) {
+        String key = RankKeys.between(before, after);
+        assertThat(key).isGreaterThan(before).isLessThan(after).doesNotEndWith("0");
+    }
+}
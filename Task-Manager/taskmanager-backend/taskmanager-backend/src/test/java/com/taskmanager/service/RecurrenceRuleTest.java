@@ -0,0 +1,127 @@
+package com.taskmanager.service;
+
+import com.taskmanager.exception.InvalidRequestException;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RecurrenceRuleTest {
+    
+    // A Monday
+    private static final LocalDateTime START = LocalDateTime.of(2025, 1, 6, 9, 30);
+    
+    @Test
+    void dailyKeepsTheTimeOfDay() {
+        assertThat(between("FREQ=DAILY", START, START, START.plusDays(3)))
+            .containsExactly(START, START.plusDays(1), START.plusDays(2));
+    }
+    
+    @Test
+    void windowBeforeTheStartIsEmpty() {
+        assertThat(between("FREQ=DAILY", START, START.minusDays(5), START)).isEmpty();
+    }
+    
+    @Test
+    void intervalSkipsPeriods() {
+        assertThat(between("FREQ=DAILY;INTERVAL=3", START, START, START.plusDays(10)))
+            .containsExactly(START, START.plusDays(3), START.plusDays(6), START.plusDays(9));
+    }
+    
+    @Test
+    void weeklyByDayListsEveryDayOfTheWeek() {
+        assertThat(between("FREQ=WEEKLY;BYDAY=MO,TH", START, START, START.plusWeeks(2)))
+            .containsExactly(START, START.plusDays(3), START.plusDays(7), START.plusDays(10));
+    }
+    
+    @Test
+    void weeklyByDayWithIntervalSkipsWeeks() {
+        assertThat(between("FREQ=WEEKLY;INTERVAL=2;BYDAY=TU", START, START, START.plusWeeks(5)))
+            .containsExactly(START.plusDays(1), START.plusDays(15), START.plusDays(29));
+    }
+    
+    @Test
+    void byDayBeforeTheStartInItsFirstWeekIsSkipped() {
+        LocalDateTime wednesday = START.plusDays(2);
+        assertThat(between("FREQ=WEEKLY;BYDAY=MO,FR", wednesday, wednesday, wednesday.plusWeeks(1)))
+            .containsExactly(START.plusDays(4), START.plusDays(7));
+    }
+    
+    @Test
+    void countEndsTheSeriesEvenOutsideTheWindow() {
+        assertThat(between("FREQ=DAILY;COUNT=5", START, START.plusDays(3), START.plusDays(30)))
+            .containsExactly(START.plusDays(3), START.plusDays(4));
+    }
+    
+    @Test
+    void countIncludesTheByDayOccurrences() {
+        assertThat(between("FREQ=WEEKLY;BYDAY=MO,WE,FR;COUNT=4", START, START, START.plusWeeks(4)))
+            .containsExactly(START, START.plusDays(2), START.plusDays(4), START.plusDays(7));
+    }
+    
+    @Test
+    void untilIsInclusiveOfItsDay() {
+        assertThat(between("FREQ=DAILY;UNTIL=2025-01-08", START, START, START.plusDays(10)))
+            .containsExactly(START, START.plusDays(1), START.plusDays(2));
+    }
+    
+    @Test
+    void monthlySkipsMonthsWithoutTheDay() {
+        LocalDateTime thirtyFirst = LocalDateTime.of(2025, 1, 31, 8, 0);
+        assertThat(between("FREQ=MONTHLY", thirtyFirst, thirtyFirst, thirtyFirst.plusMonths(7).plusDays(1)))
+            .containsExactly(thirtyFirst, thirtyFirst.withMonth(3), thirtyFirst.withMonth(5),
+                             thirtyFirst.withMonth(7), thirtyFirst.withMonth(8));
+    }
+    
+    @Test
+    void yearlyFromLeapDayOnlyFallsOnLeapYears() {
+        LocalDateTime leapDay = LocalDateTime.of(2024, 2, 29, 12, 0);
+        assertThat(between("FREQ=YEARLY", leapDay, leapDay, leapDay.plusYears(9)))
+            .containsExactly(leapDay, leapDay.withYear(2028), leapDay.withYear(2032));
+    }
+    
+    @Test
+    void windowFarAfterTheStartMatchesAWalkFromTheStart() {
+        LocalDateTime from = START.plusDays(400).plusHours(3);
+        List<LocalDateTime> all = between("FREQ=WEEKLY;INTERVAL=3;BYDAY=MO,SA", START, START, from.plusWeeks(12));
+        List<LocalDateTime> window = between("FREQ=WEEKLY;INTERVAL=3;BYDAY=MO,SA", START, from, from.plusWeeks(12));
+        assertThat(window).isEqualTo(all.stream().filter(at -> !at.isBefore(from)).toList());
+    }
+    
+    @Test
+    void limitCapsTheOccurrences() {
+        assertThat(RecurrenceRule.parse("FREQ=DAILY").between(START, START, START.plusYears(1), 3)).hasSize(3);
+    }
+    
+    @Test
+    void isOccurrenceChecksTheExactInstant() {
+        RecurrenceRule rule = RecurrenceRule.parse("FREQ=WEEKLY;BYDAY=MO,TH");
+        assertThat(rule.isOccurrence(START, START.plusDays(3))).isTrue();
+        assertThat(rule.isOccurrence(START, START.plusDays(2))).isFalse();
+        assertThat(rule.isOccurrence(START, START.plusDays(3).plusMinutes(1))).isFalse();
+    }
+    
+    @Test
+    void parseNormalizesTheRule() {
+        assertThat(RecurrenceRule.parse(" freq=weekly;byday=th,mo;interval=1;until=2025-12-31 ").toString())
+            .isEqualTo("FREQ=WEEKLY;BYDAY=MO,TH;UNTIL=2025-12-31");
+        assertThat(RecurrenceRule.parse("FREQ=DAILY;INTERVAL=2;COUNT=3").toString())
+            .isEqualTo("FREQ=DAILY;INTERVAL=2;COUNT=3");
+    }
+    
+    @Test
+    void parseRejectsMalformedRules() {
+        for (String rule : List.of("", "INTERVAL=2", "FREQ=HOURLY", "FREQ=DAILY;INTERVAL=0", "FREQ=DAILY;COUNT=0",
+                                   "FREQ=DAILY;BYDAY=MO", "FREQ=WEEKLY;BYDAY=XX", "FREQ=DAILY;UNTIL=tomorrow",
+                                   "FREQ=DAILY;FOO=1", "FREQ")) {
+            assertThatThrownBy(() -> RecurrenceRule.parse(rule)).as(rule).isInstanceOf(InvalidRequestException.class);
+        }
+    }
+    
+    private static List<LocalDateTime> between(String rule, LocalDateTime start, LocalDateTime from, LocalDateTime to) {
+        return RecurrenceRule.parse(rule).between(start, from, to, 1000);
+    }
+}
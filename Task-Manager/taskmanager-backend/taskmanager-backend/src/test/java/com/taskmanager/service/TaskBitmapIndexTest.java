@@ -0,0 +1,186 @@
+package com.taskmanager.service;
+
+import com.taskmanager.model.Task;
+import com.taskmanager.model.Task.TaskPriority;
+import com.taskmanager.model.Task.TaskStatus;
+import com.taskmanager.model.User;
+import com.taskmanager.repository.TaskRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.roaringbitmap.longlong.Roaring64NavigableMap;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TaskBitmapIndexTest {
+    
+    private final TaskRepository taskRepository = mock(TaskRepository.class);
+    
+    private final TaskBitmapIndex index = new TaskBitmapIndex();
+    
+    private final User user = new User();
+    
+    private final List<Object[]> rows = new ArrayList<>();
+    
+    @BeforeEach
+    void setUp() {
+        PrimaryReader primaryReader = mock(PrimaryReader.class);
+        when(primaryReader.read(any())).thenAnswer(invocation -> ((Supplier<?>) invocation.getArgument(0)).get());
+        ReflectionTestUtils.setField(index, "taskRepository", taskRepository);
+        ReflectionTestUtils.setField(index, "primaryReader", primaryReader);
+        ReflectionTestUtils.setField(index, "maxUsers", 10);
+        ReflectionTestUtils.setField(index, "ttlSeconds", 60L);
+        user.setId(1L);
+        when(taskRepository.findIndexRows(user)).thenReturn(rows);
+        
+        row(1, TaskStatus.TODO, TaskPriority.HIGH, false, "work", "urgent");
+        row(2, TaskStatus.TODO, TaskPriority.LOW, false, "work");
+        row(3, TaskStatus.IN_PROGRESS, TaskPriority.HIGH, false, "home");
+        row(4, TaskStatus.COMPLETED, TaskPriority.MEDIUM, true, "work", "home");
+        row(5, TaskStatus.TODO, TaskPriority.MEDIUM, false);
+    }
+    
+    @Test
+    void noConditionsMatchEveryLiveTask() {
+        assertThat(ids(evaluate(null, null, null, null, null, null))).containsExactly(1L, 2L, 3L, 4L, 5L);
+    }
+    
+    @Test
+    void allTagsIntersect() {
+        assertThat(ids(evaluate(null, null, null, List.of("work", "urgent"), null, null))).containsExactly(1L);
+        assertThat(ids(evaluate(null, null, null, List.of("work", "missing"), null, null))).isEmpty();
+    }
+    
+    @Test
+    void anyTagsUnite() {
+        assertThat(ids(evaluate(null, null, null, null, List.of("urgent", "home"), null))).containsExactly(1L, 3L, 4L);
+        assertThat(ids(evaluate(null, null, null, null, List.of("missing"), null))).isEmpty();
+    }
+    
+    @Test
+    void excludedTagsSubtract() {
+        assertThat(ids(evaluate(null, null, null, null, null, List.of("work")))).containsExactly(3L, 5L);
+        assertThat(ids(evaluate(null, null, null, null, null, List.of("missing")))).containsExactly(1L, 2L, 3L, 4L, 5L);
+    }
+    
+    @Test
+    void tagsCombineWithFieldConditions() {
+        assertThat(ids(evaluate(TaskStatus.TODO, null, null, List.of("work"), null, List.of("urgent"))))
+            .containsExactly(2L);
+        assertThat(ids(evaluate(null, TaskPriority.HIGH, false, null, List.of("work", "home"), null)))
+            .containsExactly(1L, 3L);
+        assertThat(ids(evaluate(null, null, true, null, null, null))).containsExactly(4L);
+    }
+    
+    @Test
+    void resultsAreCopiesOfTheIndex() {
+        evaluate(null, null, null, null, null, null).removeLong(1L);
+        assertThat(ids(evaluate(null, null, null, null, null, null))).contains(1L);
+    }
+    
+    @Test
+    void savedAndRemovedTasksUpdateTheIndex() {
+        evaluate(null, null, null, null, null, null);
+        index.onTaskSaved(task(2, TaskStatus.COMPLETED, TaskPriority.LOW, "home"));
+        index.onTaskSaved(task(6, TaskStatus.TODO, TaskPriority.HIGH, "urgent"));
+        index.onTaskRemoved(1L, 3L);
+        
+        assertThat(ids(evaluate(null, null, null, List.of("work"), null, null))).containsExactly(1L, 4L);
+        assertThat(ids(evaluate(null, null, null, List.of("urgent"), null, null))).containsExactly(1L, 6L);
+        assertThat(ids(evaluate(TaskStatus.COMPLETED, null, null, List.of("home"), null, null))).containsExactly(2L, 4L);
+        assertThat(index.tagCounts(user)).isEqualTo(Map.of("work", 2L, "urgent", 2L, "home", 2L));
+    }
+    
+    @Test
+    void commitsDuringTheLoadAreNotLost() {
+        when(taskRepository.findIndexRows(user)).thenAnswer(invocation -> {
+            // Committed after the rows were read, before the loaded index is published
+            index.onTaskSaved(task(7, TaskStatus.TODO, TaskPriority.LOW, "work"));
+            return rows;
+        });
+        assertThat(ids(evaluate(null, null, null, List.of("work"), null, null))).containsExactly(1L, 2L, 4L, 7L);
+    }
+    
+    @Test
+    void expiredIndexesAreReloaded() {
+        evaluate(null, null, null, null, null, null);
+        // A task created through another instance, whose commit hooks never run here
+        row(8, TaskStatus.TODO, TaskPriority.LOW, false, "work");
+        assertThat(ids(evaluate(null, null, null, List.of("work"), null, null))).doesNotContain(8L);
+        
+        ReflectionTestUtils.setField(index, "ttlSeconds", 0L);
+        assertThat(ids(evaluate(null, null, null, List.of("work"), null, null))).contains(8L);
+        verify(taskRepository, times(2)).findIndexRows(user);
+    }
+    
+    @Test
+    void fullIndexDropsTheLeastRecentlyUsedUser() throws InterruptedException {
+        ReflectionTestUtils.setField(index, "maxUsers", 2);
+        User second = userWithId(2L);
+        User third = userWithId(3L);
+        
+        evaluate(null, null, null, null, null, null);
+        Thread.sleep(5);
+        index.tagCounts(second);
+        Thread.sleep(5);
+        evaluate(null, null, null, null, null, null);
+        index.tagCounts(third);
+        
+        evaluate(null, null, null, null, null, null);
+        index.tagCounts(second);
+        verify(taskRepository, times(1)).findIndexRows(user);
+        verify(taskRepository, times(2)).findIndexRows(second);
+    }
+    
+    private Roaring64NavigableMap evaluate(TaskStatus status, TaskPriority priority, Boolean archived,
+                                           Collection<String> allTags, Collection<String> anyTags,
+                                           Collection<String> excludedTags) {
+        return index.evaluate(user, status, priority, archived, allTags, anyTags, excludedTags);
+    }
+    
+    // One row per tag, as findIndexRows returns them
+    private void row(long id, TaskStatus status, TaskPriority priority, boolean archived, String... tags) {
+        if (tags.length == 0) {
+            rows.add(new Object[] {id, status, priority, archived, null});
+        }
+        for (String tag : tags) {
+            rows.add(new Object[] {id, status, priority, archived, tag});
+        }
+    }
+    
+    private User userWithId(long id) {
+        User other = new User();
+        other.setId(id);
+        when(taskRepository.findIndexRows(other)).thenReturn(new ArrayList<>());
+        return other;
+    }
+    
+    private Task task(long id, TaskStatus status, TaskPriority priority, String... tags) {
+        Task task = new Task();
+        task.setId(id);
+        task.setUser(user);
+        task.setStatus(status);
+        task.setPriority(priority);
+        task.setTags(new HashSet<>(Set.of(tags)));
+        return task;
+    }
+    
+    private static List<Long> ids(Roaring64NavigableMap bitmap) {
+        List<Long> ids = new ArrayList<>();
+        bitmap.forEach(ids::add);
+        return ids;
+    }
+}